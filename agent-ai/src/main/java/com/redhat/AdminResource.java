@@ -32,12 +32,21 @@ public class AdminResource {
             "v1.0",
             new String[] {
                 "GET /admin - Esta página",
-                "POST /admin/rag/ingest - Ingere documentos no vector store",
-                "POST /admin/rag/reingest - Re-ingere todos os documentos",
+                "POST /admin/rag/ingest - Inicia ingestão dos documentos novos ou alterados (background)",
+                "POST /admin/rag/reingest - Inicia re-ingestão de todos os documentos (background)",
+                "GET /admin/rag/ingest/status - Progresso por estágio e throughput da ingestão",
+                "GET /admin/rag/embedding-cache - Taxa de acerto do cache de embeddings",
+                "GET /admin/rag/query-cache - Taxa de acerto do cache de embeddings de consultas",
+                "GET /admin/rag/store - Estado do vector store (redis ou hnsw)",
+                "GET /admin/rag/store/recall - Recall@k e memória do índice HNSW (quantização)",
+                "GET /admin/rag/lexical - Estado do índice BM25 da busca híbrida",
+                "GET /admin/rag/compression - Tokens economizados pela compressão do contexto do RAG",
+                "GET /admin/rag/gate - Taxa de mensagens respondidas sem busca no RAG, por motivo",
+                "GET /admin/rag/embedding-model - Modelo de embedding (remoto ou local) e throughput",
                 "GET /admin/rag/status - Status da ingestão",
                 "POST /admin/rag/upload - Upload de documento",
                 "GET /admin/rag/documents - Lista documentos",
-                "DELETE /admin/rag/documents/{filename} - Remove documento",
+                "DELETE /admin/rag/documents/{filename} - Remove documento e seus segmentos",
                 "POST /admin/compaction/force - Força compactação de memórias",
                 "POST /admin/compaction/enable - Habilita job de compactação",
                 "POST /admin/compaction/disable - Desabilita job de compactação",
@@ -47,7 +56,18 @@ public class AdminResource {
                 "GET /api/mcp/servers - Lista servidores MCP dinâmicos",
                 "POST /api/mcp/servers - Adiciona servidor MCP",
                 "DELETE /api/mcp/servers/{name} - Remove servidor MCP",
-                "GET /api/mcp/servers/{name}/tools - Lista tools de um servidor"
+                "GET /api/mcp/servers/{name}/tools - Lista tools de um servidor",
+                "GET /q/health/ready - Readiness com o estado da conexão de cada servidor MCP",
+                "GET /api/mcp/pools - Tamanho e ocupação dos pools de clientes MCP",
+                "GET /api/mcp/tools/metrics?sort=p95|avg|max|errors|calls|bytes - Ranking de latência, erros e payload das tools MCP",
+                "GET /api/mcp/tools/snapshot - Versão do snapshot de tools MCP",
+                "GET /api/mcp/tools/selection/{requestId} - Tools anunciadas e tokens economizados",
+                "GET /api/mcp/recording - Estado da gravação de chamadas MCP",
+                "POST /api/mcp/recording/start - Inicia a gravação de chamadas MCP (replay offline)",
+                "POST /api/mcp/recording/stop - Encerra a gravação de chamadas MCP",
+                "GET /api/mcp/results/{ref} - Resultado completo de uma tool MCP que foi reduzido (autenticado)",
+                "POST /chat/request-id - Emite o requestId de um turno para assinar o stream antes da resposta",
+                "GET /chat/mcp-calls/{requestId}/stream - Stream (SSE) das chamadas MCP de uma requisição"
             }
         );
     }
@@ -1,6 +1,7 @@
 package com.redhat.chat;
 
 import com.redhat.mcp.DynamicMcpToolProviderSupplier;
+import com.redhat.rag.RagRetrievalAugmentorSupplier;
 import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.UserMessage;
@@ -15,12 +16,14 @@ import jakarta.enterprise.context.ApplicationScoped;
  * Este agente usa um retriever para buscar documentação relevante do OpenShift
  * antes de gerar respostas, fornecendo informações mais precisas e atualizadas.
  * 
- * O retriever é configurado automaticamente pelo Easy RAG do Quarkus.
+ * O retriever é fornecido pelo RagRetrievalAugmentorSupplier, que busca no
+ * vector store configurado em rag.store.type (Redis ou HNSW em processo).
  */
 @RegisterAiService(
     modelName = "my-model",
     chatMemoryProviderSupplier = BeanChatMemoryProviderSupplier.class,
-    toolProviderSupplier = DynamicMcpToolProviderSupplier.class
+    toolProviderSupplier = DynamicMcpToolProviderSupplier.class,
+    retrievalAugmentor = RagRetrievalAugmentorSupplier.class
 )
 @ApplicationScoped
 public interface AgentBBDWWithRAG {
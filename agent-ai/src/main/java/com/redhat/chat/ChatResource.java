@@ -1,10 +1,12 @@
 package com.redhat.chat;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import com.redhat.mcp.McpCallEvent;
+import com.redhat.mcp.McpEventHub;
 import com.redhat.mcp.McpEventService;
 import com.redhat.orchestrator.OrchestratorService;
 import com.redhat.systemprompt.SystemPromptService;
@@ -15,22 +17,28 @@ import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import io.quarkus.logging.Log;
 import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Multi;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 @Path("/chat")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class ChatResource {
 
+    // Fecha o stream de eventos MCP se nada acontecer nesse intervalo
+    private static final Duration MCP_STREAM_IDLE_TIMEOUT = Duration.ofMinutes(5);
+
     @Inject
     AgentBBDW agent;
     
@@ -73,6 +81,9 @@ public class ChatResource {
     @Inject
     McpEventService mcpEventService;
 
+    @Inject
+    McpEventHub mcpEventHub;
+
     @Inject
     SystemPromptService systemPromptService;
 
@@ -83,8 +94,12 @@ public class ChatResource {
     @Path("/message")
     @RunOnVirtualThread
     public Response sendMessage(ChatRequest request) {
-        // Gera um requestId único para rastrear esta requisição
-        String requestId = "req-" + System.currentTimeMillis() + "-" + (int)(Math.random() * 10000);
+        // Usa o requestId obtido em POST /chat/request-id (para que o cliente possa se
+        // inscrever no stream de eventos MCP antes da resposta) ou gera um novo; ids
+        // escolhidos pelo cliente ou já usados em outro turno não são aceitos
+        String requestId = mcpEventService.claimRequestId(request.requestId())
+            ? request.requestId()
+            : mcpEventService.newRequestId();
         
         // Se sessionId for null, gera um ID único para esta requisição (sem memória)
         // Se sessionId existir, usa ele para manter o histórico
@@ -124,7 +139,9 @@ public class ChatResource {
                     .header("X-Request-Id", requestId)
                     .build();
         } finally {
-            // Limpa o requestId do thread
+            // Encerra o stream de eventos sempre: o cliente pode ter se inscrito
+            // com o requestId mesmo sem MCP e ficaria esperando o "done"
+            mcpEventService.finishRequest(requestId);
             if (useMcp) {
                 mcpEventService.clearCurrentRequestId();
             }
@@ -303,6 +320,16 @@ public class ChatResource {
         return history;
     }
 
+    /**
+     * Emite um requestId para o próximo POST /chat/message, permitindo assinar o
+     * stream de eventos MCP antes de enviar a mensagem
+     */
+    @POST
+    @Path("/request-id")
+    public RequestIdDTO issueRequestId() {
+        return new RequestIdDTO(mcpEventService.issueRequestId());
+    }
+
     /**
      * Endpoint para buscar chamadas MCP recentes de uma requisição
      * Retorna as chamadas MCP que foram feitas nos últimos segundos
@@ -310,18 +337,40 @@ public class ChatResource {
     @GET
     @Path("/mcp-calls/{requestId}")
     public List<McpCallDTO> getMcpCalls(@PathParam("requestId") String requestId) {
+        requireKnown(requestId);
         List<McpCallEvent> events = mcpEventService.getEvents(requestId);
         Log.debugf("Requisição de MCP calls para requestId %s: %d eventos encontrados", requestId, events.size());
         
         return events.stream()
-                .map(event -> new McpCallDTO(
-                        event.getToolName(),
-                        event.getStatus(),
-                        event.getTimestamp().toEpochMilli()
-                ))
+                .map(McpCallDTO::from)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Stream (SSE) das chamadas MCP de uma requisição.
+     * Reenvia os eventos já emitidos e depois envia os novos assim que acontecem;
+     * o último evento tem status "done" e indica o fim do turno.
+     */
+    @GET
+    @Path("/mcp-calls/{requestId}/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<McpCallDTO> streamMcpCalls(@PathParam("requestId") String requestId) {
+        requireKnown(requestId);
+        return mcpEventHub.stream(requestId)
+                .map(McpCallDTO::from)
+                .ifNoItem().after(MCP_STREAM_IDLE_TIMEOUT).recoverWithCompletion();
+    }
+
+    /**
+     * Só requestIds gerados pelo servidor (e ainda não expirados) têm eventos
+     */
+    private void requireKnown(String requestId) {
+        if (!mcpEventService.isKnown(requestId)) {
+            throw new NotFoundException("RequestId desconhecido ou expirado: " + requestId);
+        }
+    }
+
     /**
      * Record para receber a requisição do chat
      */
@@ -331,7 +380,15 @@ public class ChatResource {
         Boolean useMcp,
         Boolean useRag,
         String model,
-        Boolean useOrchestrator  // Nova flag para ativar orquestração
+        Boolean useOrchestrator,  // Nova flag para ativar orquestração
+        String requestId          // Opcional: obtido em POST /chat/request-id para o stream de eventos MCP
+    ) {}
+
+    /**
+     * Record com o requestId emitido pelo servidor
+     */
+    public record RequestIdDTO(
+        String requestId
     ) {}
 
     /**
@@ -348,6 +405,22 @@ public class ChatResource {
     public record McpCallDTO(
         String name,
         String status,
-        Long timestamp
-    ) {}
+        Long timestamp,
+        String server,
+        long durationMs,
+        long requestBytes,
+        long responseBytes
+    ) {
+        static McpCallDTO from(McpCallEvent event) {
+            return new McpCallDTO(
+                event.getToolName(),
+                event.getStatus(),
+                event.getTimestamp().toEpochMilli(),
+                event.getServerName(),
+                event.getDurationMs(),
+                event.getRequestBytes(),
+                event.getResponseBytes()
+            );
+        }
+    }
 }
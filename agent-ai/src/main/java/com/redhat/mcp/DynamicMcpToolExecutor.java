@@ -1,13 +1,16 @@
 package com.redhat.mcp;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.service.tool.ToolExecutor;
 import io.quarkus.logging.Log;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
@@ -25,23 +28,51 @@ public class DynamicMcpToolExecutor {
 
     @Inject
     McpManager mcpManager;
+
+    @Inject
+    ToolResultReducer resultReducer;
+    
+    /**
+     * Snapshot imutável das tools disponíveis. Trocado atomicamente a cada
+     * atualização; leitores nunca bloqueiam.
+     */
+    private final AtomicReference<McpToolSnapshot> snapshot = new AtomicReference<>(McpToolSnapshot.EMPTY);
+    
+    /**
+     * Garante que apenas uma atualização do cache rode por vez
+     */
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
     
     /**
-     * Cache de tool specifications para evitar consultas repetidas.
-     * Key: tool name, Value: tool specification
+     * Gerador de versões dos snapshots
      */
-    private volatile Map<String, ToolSpecification> toolCache = new HashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong();
     
     /**
-     * Timestamp da última atualização do cache
+     * Força atualização na próxima leitura (ver invalidateCache)
      */
-    private volatile long lastCacheUpdate = 0;
+    private volatile boolean invalidated = false;
     
     /**
      * Intervalo de cache em milissegundos (30 segundos)
      */
     private static final long CACHE_TTL = 30_000;
 
+    /**
+     * Executor único compartilhado por todas as tools do snapshot
+     */
+    private final ToolExecutor sharedExecutor = (request, memoryId) -> {
+        try {
+            Log.debugf("Executando tool MCP: %s", request.name());
+            return resultReducer.reduce(request.name(), mcpManager.executeTool(request));
+        } catch (Exception e) {
+            String error = String.format("Erro ao executar tool '%s': %s", 
+                                       request.name(), e.getMessage());
+            Log.error(error, e);
+            return error;
+        }
+    };
+
     /**
      * Método genérico que executa qualquer tool MCP dinâmica.
      * 
@@ -61,7 +92,7 @@ public class DynamicMcpToolExecutor {
                     .arguments(arguments)
                     .build();
             
-            return mcpManager.executeTool(request);
+            return resultReducer.reduce(toolName, mcpManager.executeTool(request));
             
         } catch (Exception e) {
             String error = String.format("Erro ao executar tool '%s': %s", toolName, e.getMessage());
@@ -74,32 +105,77 @@ public class DynamicMcpToolExecutor {
      * Obtém todas as tool specifications disponíveis (com cache).
      */
     public List<ToolSpecification> getAvailableTools() {
-        long now = System.currentTimeMillis();
+        return getSnapshot().specs();
+    }
+    
+    /**
+     * Retorna o snapshot atual das tools, disparando uma atualização se necessário.
+     * 
+     * - Primeiro carregamento ou mudança nos servidores MCP: atualiza na própria
+     *   thread para que as tools novas fiquem visíveis imediatamente.
+     * - TTL expirado: devolve o snapshot atual e atualiza em background.
+     * 
+     * Em ambos os casos apenas uma thread executa a atualização; as demais
+     * recebem o snapshot vigente sem bloquear.
+     */
+    public McpToolSnapshot getSnapshot() {
+        McpToolSnapshot current = snapshot.get();
+        boolean serversChanged = current.serversVersion() != mcpManager.getServersVersion();
+        boolean expired = System.currentTimeMillis() - current.builtAt() > CACHE_TTL;
         
-        // Atualiza cache se expirou
-        if (now - lastCacheUpdate > CACHE_TTL) {
-            synchronized (this) {
-                if (now - lastCacheUpdate > CACHE_TTL) {
-                    List<ToolSpecification> tools = mcpManager.getAllTools();
-                    Map<String, ToolSpecification> newCache = new HashMap<>();
-                    for (ToolSpecification tool : tools) {
-                        newCache.put(tool.name(), tool);
-                    }
-                    toolCache = newCache;
-                    lastCacheUpdate = now;
-                    Log.debugf("Cache de tools atualizado: %d tools disponíveis", tools.size());
-                }
+        if (!serversChanged && !expired && !invalidated) {
+            return current;
+        }
+        if (!refreshing.compareAndSet(false, true)) {
+            return current;
+        }
+        if (serversChanged || current.version() == 0) {
+            try {
+                return refresh();
+            } finally {
+                refreshing.set(false);
             }
         }
-        
-        return List.copyOf(toolCache.values());
+        Infrastructure.getDefaultWorkerPool().execute(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                Log.errorf("Erro ao atualizar cache de tools MCP: %s", e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+        });
+        return current;
+    }
+    
+    /**
+     * Reconstrói o snapshot a partir dos servidores MCP e o publica atomicamente.
+     * Sem mudança nas tools nem nos servidores, a versão (e o resultado) é mantida
+     * e só o TTL é renovado.
+     */
+    private McpToolSnapshot refresh() {
+        invalidated = false;
+        long serversVersion = mcpManager.getServersVersion();
+        List<ToolSpecification> tools = mcpManager.getAllTools();
+        McpToolSnapshot current = snapshot.get();
+        if (current.sameTools(serversVersion, tools)) {
+            McpToolSnapshot renewed = current.renewed();
+            snapshot.set(renewed);
+            Log.debugf("Cache de tools sem alterações: %d tools (versão %d)", renewed.size(), renewed.version());
+            return renewed;
+        }
+        McpToolSnapshot next = McpToolSnapshot.of(
+            versionSequence.incrementAndGet(), serversVersion, tools, sharedExecutor);
+        snapshot.set(next);
+        Log.debugf("Cache de tools atualizado: %d tools disponíveis (versão %d)", next.size(), next.version());
+        return next;
     }
     
     /**
      * Limpa o cache forçando atualização na próxima chamada.
      */
     public void invalidateCache() {
-        lastCacheUpdate = 0;
+        invalidated = true;
         Log.debug("Cache de tools MCP invalidado");
     }
 }
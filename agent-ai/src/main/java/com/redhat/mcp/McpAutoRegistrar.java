@@ -2,6 +2,7 @@ package com.redhat.mcp;
 
 import io.quarkus.logging.Log;
 import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
@@ -12,6 +13,9 @@ import jakarta.inject.Inject;
  *
  * Adicione variáveis de ambiente no padrão MCP_<NOME>_URL e chame autoRegister()
  * no método onStart() conforme necessário.
+ *
+ * O registro roda em background para não atrasar a inicialização quando um
+ * servidor está indisponível.
  */
 @ApplicationScoped
 public class McpAutoRegistrar {
@@ -21,8 +25,12 @@ public class McpAutoRegistrar {
 
     void onStart(@Observes StartupEvent ev) {
         // Adicione chamadas autoRegister() aqui para registrar MCPs via variáveis de ambiente
-        autoRegister("MCP Brasil", System.getenv("MCP_BRASIL_URL"));
-        autoRegister("MCP K8s Binpacking", System.getenv("MCP_K8S_BINPACKING_URL"));
+        autoRegisterAsync("MCP Brasil", System.getenv("MCP_BRASIL_URL"));
+        autoRegisterAsync("MCP K8s Binpacking", System.getenv("MCP_K8S_BINPACKING_URL"));
+    }
+
+    private void autoRegisterAsync(String name, String url) {
+        Infrastructure.getDefaultWorkerPool().execute(() -> autoRegister(name, url));
     }
 
     private void autoRegister(String name, String url) {
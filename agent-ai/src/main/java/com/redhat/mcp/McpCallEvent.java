@@ -10,43 +10,88 @@ public class McpCallEvent {
     private String status; // "calling", "completed", "error"
     private Instant timestamp;
     private String requestId;
-    
+    private String serverName;
+    private long durationMs;     // preenchido em "completed" e "error"
+    private long requestBytes;   // tamanho dos argumentos enviados
+    private long responseBytes;  // tamanho do resultado (apenas "completed")
+
     public McpCallEvent(String requestId, String toolName, String status) {
         this.requestId = requestId;
         this.toolName = toolName;
         this.status = status;
         this.timestamp = Instant.now();
     }
-    
+
+    public McpCallEvent(String requestId, String serverName, String toolName, String status,
+                        long durationMs, long requestBytes, long responseBytes) {
+        this(requestId, toolName, status);
+        this.serverName = serverName;
+        this.durationMs = durationMs;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+
     public String getToolName() {
         return toolName;
     }
-    
+
     public void setToolName(String toolName) {
         this.toolName = toolName;
     }
-    
+
     public String getStatus() {
         return status;
     }
-    
+
     public void setStatus(String status) {
         this.status = status;
     }
-    
+
     public Instant getTimestamp() {
         return timestamp;
     }
-    
+
     public void setTimestamp(Instant timestamp) {
         this.timestamp = timestamp;
     }
-    
+
     public String getRequestId() {
         return requestId;
     }
-    
+
     public void setRequestId(String requestId) {
         this.requestId = requestId;
     }
+
+    public String getServerName() {
+        return serverName;
+    }
+
+    public void setServerName(String serverName) {
+        this.serverName = serverName;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public void setRequestBytes(long requestBytes) {
+        this.requestBytes = requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public void setResponseBytes(long responseBytes) {
+        this.responseBytes = responseBytes;
+    }
 }
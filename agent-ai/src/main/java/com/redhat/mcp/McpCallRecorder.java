@@ -0,0 +1,193 @@
+package com.redhat.mcp;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Grava as chamadas de tools MCP para reprodução offline.
+ *
+ * Cada sessão de gravação cria um diretório com um arquivo por servidor
+ * (<servidor>.jsonl.gz), contendo o tools/list do servidor e cada chamada
+ * com argumentos, resultado e latência. Esses arquivos são servidos pelo
+ * ReplayMcpTransport ao registrar um servidor com transportType "replay"
+ * e url apontando para o arquivo.
+ */
+@ApplicationScoped
+public class McpCallRecorder {
+
+    private static final DateTimeFormatter SESSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Um arquivo aberto por servidor na sessão corrente
+    private final Map<String, Writer> writers = new ConcurrentHashMap<>();
+
+    private final AtomicLong recordedCalls = new AtomicLong();
+
+    private volatile Path sessionDir;
+
+    @Inject
+    McpToolSchemaCache toolSchemaCache;
+
+    @ConfigProperty(name = "mcp.recording.enabled", defaultValue = "false")
+    boolean enabledAtStartup;
+
+    @ConfigProperty(name = "mcp.recording.dir", defaultValue = "/tmp/mcp-recordings")
+    String baseDir;
+
+    @PostConstruct
+    void init() {
+        if (enabledAtStartup) {
+            start();
+        }
+    }
+
+    public boolean isActive() {
+        return sessionDir != null;
+    }
+
+    /**
+     * Inicia uma nova sessão de gravação (encerrando a anterior, se houver)
+     */
+    public synchronized Path start() {
+        stop();
+        try {
+            Path dir = Path.of(baseDir, LocalDateTime.now().format(SESSION_FORMAT));
+            Files.createDirectories(dir);
+            recordedCalls.set(0);
+            sessionDir = dir;
+            Log.infof("[McpRecorder] Gravação de chamadas MCP iniciada em %s", dir);
+            return dir;
+        } catch (IOException e) {
+            throw new RuntimeException("Não foi possível criar o diretório de gravação: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encerra a sessão corrente e fecha os arquivos
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (sessionDir == null) {
+            return;
+        }
+        for (String serverName : List.copyOf(writers.keySet())) {
+            // Retira antes de fechar: quem já pegou o arquivo vê que ele saiu da sessão (ver write)
+            Writer writer = writers.remove(serverName);
+            synchronized (writer) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    Log.warnf("[McpRecorder] Erro ao fechar gravação de '%s': %s", serverName, e.getMessage());
+                }
+            }
+        }
+        Log.infof("[McpRecorder] Gravação encerrada: %d chamadas em %s", recordedCalls.get(), sessionDir);
+        sessionDir = null;
+    }
+
+    public RecordingStatus status() {
+        Path dir = sessionDir;
+        return new RecordingStatus(dir != null, dir != null ? dir.toString() : null, recordedCalls.get());
+    }
+
+    /**
+     * Grava as tools anunciadas por um servidor
+     */
+    public void recordTools(String serverName, List<ToolSpecification> tools) {
+        if (sessionDir == null) {
+            return;
+        }
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("type", "tools");
+        entry.set("tools", toolSchemaCache.toJson(tools));
+        write(serverName, entry);
+    }
+
+    /**
+     * Grava uma chamada de tool com o resultado (ou a mensagem de erro) e a latência
+     */
+    public void recordCall(String serverName, ToolExecutionRequest request, String result,
+                           long durationNanos, boolean error) {
+        if (sessionDir == null) {
+            return;
+        }
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("type", "call");
+        entry.put("timestamp", System.currentTimeMillis());
+        entry.put("tool", request.name());
+        entry.put("arguments", request.arguments());
+        entry.put("result", result);
+        entry.put("error", error);
+        entry.put("durationMs", durationNanos / 1_000_000.0);
+        write(serverName, entry);
+        recordedCalls.incrementAndGet();
+    }
+
+    private void write(String serverName, ObjectNode entry) {
+        try {
+            String line = objectMapper.writeValueAsString(entry);
+            Writer writer;
+            // Mesmo lock de start()/stop(): o arquivo só é aberto no diretório da sessão ativa
+            synchronized (this) {
+                Path dir = sessionDir;
+                if (dir == null) {
+                    return;
+                }
+                writer = writers.computeIfAbsent(serverName, name -> open(dir, name));
+            }
+            synchronized (writer) {
+                if (writers.get(serverName) != writer) {
+                    // stop() fechou o arquivo depois que ele foi obtido
+                    return;
+                }
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (Exception e) {
+            Log.warnf("[McpRecorder] Falha ao gravar chamada de '%s': %s", serverName, e.getMessage());
+        }
+    }
+
+    private Writer open(Path dir, String serverName) {
+        String fileName = serverName.replaceAll("[^A-Za-z0-9_.-]", "_") + ".jsonl.gz";
+        try {
+            // syncFlush: cada linha fica legível no arquivo mesmo antes do stop()
+            return new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(dir.resolve(fileName)), true),
+                StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Estado da gravação exposto em /api/mcp/recording
+     */
+    public record RecordingStatus(boolean active, String directory, long calls) {}
+}
@@ -0,0 +1,254 @@
+package com.redhat.mcp;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.jboss.logging.Logger;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.mcp.client.McpClient;
+
+/**
+ * Pool de clientes MCP de um servidor.
+ *
+ * Cada cliente tem seu próprio transporte (uma conexão HTTP ou um processo
+ * stdio), então chamadas concorrentes de sessões diferentes não disputam o
+ * mesmo canal. O pool começa com um cliente e cresce sob demanda até o
+ * tamanho máximo; cada chamada vai para o cliente com menos chamadas em
+ * andamento. Clientes extras ociosos são fechados por reapIdle(). Depois de
+ * close() o pool recusa novas chamadas e não cria mais clientes.
+ */
+public final class McpClientPool implements AutoCloseable {
+
+    // JBoss Logger (e não io.quarkus.logging.Log) para o pool funcionar também
+    // fora do Quarkus, nos benchmarks de src/test
+    private static final Logger LOG = Logger.getLogger(McpClientPool.class);
+
+    // Marca um cliente que foi retirado do pool e não aceita novas chamadas
+    private static final int RETIRED = -1;
+
+    private final String serverName;
+    private final Supplier<McpClient> factory;
+    private final int maxSize;
+    private final List<PooledClient> clients = new CopyOnWriteArrayList<>();
+
+    // Clientes sendo criados (contam para o limite do pool); protegido por this
+    private int creating = 0;
+
+    // Pool fechado (servidor removido ou substituído); protegido por this
+    private boolean closed = false;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reaped = new LongAdder();
+
+    McpClientPool(String serverName, Supplier<McpClient> factory, int maxSize) {
+        this.serverName = serverName;
+        this.factory = factory;
+        this.maxSize = Math.max(1, maxSize);
+        // O primeiro cliente é criado na hora para validar a conexão
+        clients.add(newClient());
+    }
+
+    String serverName() {
+        return serverName;
+    }
+
+    List<ToolSpecification> listTools() {
+        PooledClient pooled = acquire();
+        try {
+            return pooled.client.listTools();
+        } finally {
+            pooled.release();
+        }
+    }
+
+    String executeTool(ToolExecutionRequest request) {
+        PooledClient pooled = acquire();
+        try {
+            return pooled.client.executeTool(request);
+        } finally {
+            pooled.release();
+        }
+    }
+
+    /**
+     * Escolhe o cliente menos ocupado; se todos estiverem em uso e houver
+     * espaço no pool, cria um novo
+     */
+    private PooledClient acquire() {
+        while (true) {
+            if (isClosed()) {
+                throw closedException();
+            }
+            PooledClient best = leastBusy();
+            if ((best == null || best.inFlight.get() > 0) && reserveSlot()) {
+                try {
+                    PooledClient fresh = newClient();
+                    fresh.tryUse();
+                    if (addIfOpen(fresh)) {
+                        return fresh;
+                    }
+                    // close() rodou enquanto o cliente era criado: a próxima volta recusa a chamada
+                    fresh.close(serverName);
+                } catch (RuntimeException e) {
+                    if (best == null) {
+                        throw e;
+                    }
+                    LOG.warnf("[McpPool] Falha ao criar cliente extra para '%s': %s", serverName, e.getMessage());
+                } finally {
+                    releaseSlot();
+                }
+            }
+            if (best == null) {
+                throw closedException();
+            }
+            if (best.tryUse()) {
+                return best;
+            }
+            // O cliente escolhido foi retirado nesse meio tempo; tenta de novo
+        }
+    }
+
+    private PooledClient leastBusy() {
+        PooledClient best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (PooledClient pooled : clients) {
+            int load = pooled.inFlight.get();
+            if (load >= 0 && load < bestLoad) {
+                best = pooled;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private IllegalStateException closedException() {
+        return new IllegalStateException("Pool MCP do servidor '" + serverName + "' está fechado");
+    }
+
+    private synchronized boolean addIfOpen(PooledClient pooled) {
+        if (closed) {
+            return false;
+        }
+        clients.add(pooled);
+        return true;
+    }
+
+    private synchronized boolean reserveSlot() {
+        if (closed || clients.size() + creating >= maxSize) {
+            return false;
+        }
+        creating++;
+        return true;
+    }
+
+    private synchronized void releaseSlot() {
+        creating--;
+    }
+
+    private PooledClient newClient() {
+        PooledClient pooled = new PooledClient(factory.get());
+        created.increment();
+        LOG.debugf("[McpPool] Novo cliente para '%s' (%d/%d)", serverName, clients.size() + 1, maxSize);
+        return pooled;
+    }
+
+    /**
+     * Fecha os clientes ociosos há mais de idleTimeoutMillis, mantendo sempre um
+     */
+    int reapIdle(long idleTimeoutMillis) {
+        long now = System.currentTimeMillis();
+        int closed = 0;
+        for (PooledClient pooled : clients) {
+            if (clients.size() <= 1) {
+                break;
+            }
+            if (now - pooled.lastUsed > idleTimeoutMillis && pooled.inFlight.compareAndSet(0, RETIRED)) {
+                clients.remove(pooled);
+                pooled.close(serverName);
+                reaped.increment();
+                closed++;
+            }
+        }
+        if (closed > 0) {
+            LOG.debugf("[McpPool] %d clientes ociosos fechados em '%s'", closed, serverName);
+        }
+        return closed;
+    }
+
+    int size() {
+        return clients.size();
+    }
+
+    int inFlight() {
+        int total = 0;
+        for (PooledClient pooled : clients) {
+            total += Math.max(0, pooled.inFlight.get());
+        }
+        return total;
+    }
+
+    PoolStats stats() {
+        return new PoolStats(serverName, clients.size(), maxSize, inFlight(), created.sum(), reaped.sum());
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        for (PooledClient pooled : clients) {
+            pooled.inFlight.set(RETIRED);
+            pooled.close(serverName);
+        }
+        clients.clear();
+    }
+
+    /**
+     * Estado de um pool exposto em GET /api/mcp/pools
+     */
+    public record PoolStats(String server, int clients, int maxClients, int inFlight, long created, long reaped) {}
+
+    private static final class PooledClient {
+        final McpClient client;
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PooledClient(McpClient client) {
+            this.client = client;
+        }
+
+        boolean tryUse() {
+            while (true) {
+                int current = inFlight.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            lastUsed = System.currentTimeMillis();
+            inFlight.decrementAndGet();
+        }
+
+        void close(String serverName) {
+            try {
+                client.close();
+            } catch (Exception e) {
+                LOG.errorf("Error closing MCP client %s: %s", serverName, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.redhat.mcp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Hub único de broadcast dos eventos de chamadas MCP.
+ *
+ * Recebe todos os McpCallEvent disparados pelo McpEventService e os repassa
+ * aos clientes inscritos (SSE) filtrando por requestId. Um cliente que se
+ * inscreve depois do início do turno recebe primeiro os eventos já emitidos
+ * (replay do ring buffer) e depois os novos, sem duplicatas.
+ */
+@ApplicationScoped
+public class McpEventHub {
+
+    private final BroadcastProcessor<McpCallEvent> processor = BroadcastProcessor.create();
+
+    @Inject
+    McpEventService mcpEventService;
+
+    /**
+     * Recebe os eventos disparados via CDI e publica no broadcast
+     */
+    synchronized void onEvent(@Observes McpCallEvent event) {
+        processor.onNext(event);
+    }
+
+    /**
+     * Stream dos eventos de um requestId: replay dos já emitidos + eventos novos.
+     * Completa quando o turno do chat termina (status "done").
+     */
+    public Multi<McpCallEvent> stream(String requestId) {
+        return Multi.createFrom().emitter(emitter -> {
+            StreamState state = new StreamState(emitter);
+
+            // Inscreve antes de ler o ring buffer para não perder eventos nesse
+            // intervalo; até o replay terminar, os eventos novos ficam retidos
+            Cancellable live = processor
+                .filter(event -> requestId.equals(event.getRequestId()))
+                .subscribe().with(state::onLive, emitter::fail);
+            emitter.onTermination(live::cancel);
+
+            state.replay(mcpEventService.getEvents(requestId), mcpEventService.isFinished(requestId)
+                    ? new McpCallEvent(requestId, null, McpEventService.STATUS_DONE)
+                    : null);
+            Log.debugf("Cliente inscrito nos eventos MCP do request %s", requestId);
+        });
+    }
+
+    /**
+     * Entrega ordenada de um stream: replay primeiro, depois os eventos ao vivo
+     * retidos durante o replay e, por fim, os seguintes
+     */
+    private static final class StreamState {
+
+        private final MultiEmitter<? super McpCallEvent> emitter;
+
+        // Identidade do evento evita reenviar o que já saiu no replay
+        private final Set<McpCallEvent> sent = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<McpCallEvent> pending = new ArrayList<>();
+        private boolean replayed = false;
+        private boolean completed = false;
+
+        StreamState(MultiEmitter<? super McpCallEvent> emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void onLive(McpCallEvent event) {
+            if (replayed) {
+                deliver(event);
+            } else {
+                pending.add(event);
+            }
+        }
+
+        /**
+         * Eventos do ring buffer (já em ordem de chegada); done != null se o turno já terminou
+         */
+        synchronized void replay(List<McpCallEvent> events, McpCallEvent done) {
+            for (McpCallEvent event : events) {
+                deliver(event);
+            }
+            replayed = true;
+            for (McpCallEvent event : pending) {
+                deliver(event);
+            }
+            pending.clear();
+            if (done != null) {
+                deliver(done);
+            }
+        }
+
+        private void deliver(McpCallEvent event) {
+            if (completed || emitter.isCancelled() || !sent.add(event)) {
+                return;
+            }
+            emitter.emit(event);
+            if (McpEventService.STATUS_DONE.equals(event.getStatus())) {
+                completed = true;
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -1,125 +1,216 @@
 package com.redhat.mcp;
 
 import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Serviço que gerencia eventos de chamadas MCP
- * Captura logs do MCP Transport e extrai informações sobre chamadas de tools
+ *
+ * Os eventos são registrados diretamente pelo McpManager ao redor da execução
+ * de cada tool (sem depender dos logs do MCP Transport) e guardados em um
+ * ring buffer limitado por requestId.
+ *
+ * Os requestIds são gerados aqui (UUID aleatório): o cliente que quer assinar
+ * o stream antes da resposta pede um id com issueRequestId e o envia no chat,
+ * onde ele só é aceito uma vez (claimRequestId). Assim os eventos de um turno
+ * só chegam a quem recebeu o id do servidor.
+ *
+ * A expiração usa uma timer wheel: cada requestId é agendado em um slot no
+ * momento em que é criado, e o tick periódico descarta apenas o slot corrente,
+ * sem varrer todos os requests ativos.
  */
 @ApplicationScoped
 public class McpEventService {
-    
-    // Padrão para extrair nome da tool do log de Request
-    // Exemplo: Request: {"jsonrpc":"2.0","id":6,"method":"tools/call","params":{"name":"get_storage","arguments":{}}}
-    private static final Pattern TOOL_CALL_PATTERN = Pattern.compile("\"method\":\\s*\"tools/call\".*\"name\":\\s*\"([^\"]+)\"");
-    
-    // Armazena eventos por requestId (últimos 5 minutos)
-    private final Map<String, List<McpCallEvent>> eventsByRequest = new ConcurrentHashMap<>();
-    
-    // Armazena o último requestId ativo para correlacionar logs
+
+    // Status publicado (apenas no broadcast) quando o turno do chat termina
+    public static final String STATUS_DONE = "done";
+
+    // Máximo de eventos guardados por requestId (os mais antigos são sobrescritos)
+    private static final int MAX_EVENTS_PER_REQUEST = 64;
+
+    // Timer wheel: 60 slots de 5s = eventos mantidos por ~5 minutos
+    private static final int WHEEL_SLOTS = 60;
+
+    // Armazena eventos por requestId
+    private final Map<String, EventRing> eventsByRequest = new ConcurrentHashMap<>();
+
+    // Slots da timer wheel com os requestIds que expiram em cada um
+    private final List<Set<String>> wheel = new ArrayList<>(WHEEL_SLOTS);
+
+    // Slot corrente da timer wheel
+    private volatile int cursor = 0;
+
+    // Armazena o último requestId ativo para correlacionar as chamadas
     private final ThreadLocal<String> currentRequestId = new ThreadLocal<>();
-    
+
     @Inject
     Event<McpCallEvent> mcpEventBus;
-    
+
+    public McpEventService() {
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * Gera um requestId que ainda não foi usado em nenhum turno
+     */
+    public String newRequestId() {
+        return "req-" + UUID.randomUUID();
+    }
+
+    /**
+     * Emite um requestId para o cliente assinar o stream antes de enviar a mensagem;
+     * expira com os demais eventos se não for usado
+     */
+    public String issueRequestId() {
+        String requestId = newRequestId();
+        eventsByRequest.computeIfAbsent(requestId, this::newRing).issued = true;
+        return requestId;
+    }
+
+    /**
+     * Reserva para um turno um requestId emitido por issueRequestId.
+     * Falso se o id não foi emitido aqui, expirou ou já foi usado por outro turno.
+     */
+    public boolean claimRequestId(String requestId) {
+        EventRing ring = requestId != null ? eventsByRequest.get(requestId) : null;
+        return ring != null && ring.claim();
+    }
+
+    /**
+     * Indica se o requestId foi gerado aqui e ainda não expirou
+     */
+    public boolean isKnown(String requestId) {
+        return requestId != null && eventsByRequest.containsKey(requestId);
+    }
+
     /**
      * Define o requestId atual para o thread
      */
     public void setCurrentRequestId(String requestId) {
         currentRequestId.set(requestId);
-        // Limpa eventos antigos ao iniciar novo request
-        cleanOldEvents();
     }
-    
+
     /**
      * Limpa o requestId do thread
      */
     public void clearCurrentRequestId() {
         currentRequestId.remove();
     }
-    
+
     /**
      * Obtém o requestId atual do thread
      */
     public String getCurrentRequestId() {
         return currentRequestId.get();
     }
-    
-    /**
-     * Processa uma linha de log do MCP Transport
-     * Extrai informações sobre chamadas de tools
-     */
-    public void processLogLine(String logLine) {
-        String reqId = getCurrentRequestId();
-        if (reqId == null) {
-            return; // Não há request ativo neste thread
-        }
-        
-        // Verifica se é um log de Request com tools/call
-        if (logLine.contains("Request:") && logLine.contains("tools/call")) {
-            Matcher matcher = TOOL_CALL_PATTERN.matcher(logLine);
-            if (matcher.find()) {
-                String toolName = matcher.group(1);
-                Log.infof("[MCP-EVENT] Tool chamada: %s (RequestId: %s)", toolName, reqId);
-                
-                McpCallEvent event = new McpCallEvent(reqId, toolName, "calling");
-                addEvent(event);
-                mcpEventBus.fire(event);
-            }
-        }
-        
-        // Verifica se é um log de Response (indica que a tool retornou)
-        if (logLine.contains("Response:") && logLine.contains("\"result\"")) {
-            // Pega a última tool que foi chamada para este requestId
-            List<McpCallEvent> events = eventsByRequest.get(reqId);
-            if (events != null && !events.isEmpty()) {
-                McpCallEvent lastEvent = events.get(events.size() - 1);
-                if ("calling".equals(lastEvent.getStatus())) {
-                    Log.infof("[MCP-EVENT] Tool completada: %s (RequestId: %s)", lastEvent.getToolName(), reqId);
-                    
-                    McpCallEvent completedEvent = new McpCallEvent(reqId, lastEvent.getToolName(), "completed");
-                    addEvent(completedEvent);
-                    mcpEventBus.fire(completedEvent);
-                }
-            }
-        }
-    }
-    
+
     /**
-     * Adiciona um evento à lista
+     * Adiciona um evento ao buffer do seu requestId e notifica os observers
      */
     public void addEvent(McpCallEvent event) {
-        eventsByRequest.computeIfAbsent(event.getRequestId(), k -> new ArrayList<>()).add(event);
-        Log.infof("✅ Evento MCP adicionado: requestId=%s, tool=%s, status=%s", 
+        eventsByRequest.computeIfAbsent(event.getRequestId(), this::newRing).add(event);
+        Log.debugf("Evento MCP adicionado: requestId=%s, tool=%s, status=%s",
                  event.getRequestId(), event.getToolName(), event.getStatus());
         // Dispara evento para observers
         mcpEventBus.fire(event);
     }
-    
+
     /**
-     * Obtém todos os eventos de um requestId
+     * Obtém todos os eventos de um requestId (cópia, em ordem de chegada)
      */
     public List<McpCallEvent> getEvents(String requestId) {
-        return eventsByRequest.getOrDefault(requestId, Collections.emptyList());
+        EventRing ring = eventsByRequest.get(requestId);
+        return ring != null ? ring.snapshot() : Collections.emptyList();
+    }
+
+    /**
+     * Marca o turno de um requestId como encerrado e avisa os inscritos
+     */
+    public void finishRequest(String requestId) {
+        eventsByRequest.computeIfAbsent(requestId, this::newRing).finished = true;
+        mcpEventBus.fire(new McpCallEvent(requestId, null, STATUS_DONE));
     }
-    
+
+    /**
+     * Indica se o turno de um requestId já terminou
+     */
+    public boolean isFinished(String requestId) {
+        EventRing ring = eventsByRequest.get(requestId);
+        return ring != null && ring.finished;
+    }
+
     /**
-     * Limpa eventos mais antigos que 5 minutos
+     * Avança a timer wheel e descarta os requests que expiraram no novo slot
      */
-    private void cleanOldEvents() {
-        long fiveMinutesAgo = System.currentTimeMillis() - (5 * 60 * 1000);
-        eventsByRequest.entrySet().removeIf(entry -> {
-            List<McpCallEvent> events = entry.getValue();
-            return events.isEmpty() || 
-                   events.get(0).getTimestamp().toEpochMilli() < fiveMinutesAgo;
-        });
+    @Scheduled(every = "5s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void expireOldEvents() {
+        int next = (cursor + 1) % WHEEL_SLOTS;
+        Set<String> expired = wheel.get(next);
+        if (!expired.isEmpty()) {
+            for (String requestId : expired) {
+                eventsByRequest.remove(requestId);
+            }
+            Log.debugf("%d requests MCP expirados", expired.size());
+            expired.clear();
+        }
+        cursor = next;
+    }
+
+    /**
+     * Cria o buffer de um requestId e o agenda no slot que expira por último
+     */
+    private EventRing newRing(String requestId) {
+        int slot = (cursor + WHEEL_SLOTS - 1) % WHEEL_SLOTS;
+        wheel.get(slot).add(requestId);
+        return new EventRing(MAX_EVENTS_PER_REQUEST);
+    }
+
+    /**
+     * Ring buffer thread-safe de tamanho fixo
+     */
+    private static final class EventRing {
+        private final McpCallEvent[] buffer;
+        private int next = 0;
+        private int size = 0;
+        private volatile boolean finished = false;
+        private volatile boolean issued = false;
+        private boolean claimed = false;
+
+        EventRing(int capacity) {
+            this.buffer = new McpCallEvent[capacity];
+        }
+
+        synchronized void add(McpCallEvent event) {
+            buffer[next] = event;
+            next = (next + 1) % buffer.length;
+            if (size < buffer.length) {
+                size++;
+            }
+        }
+
+        synchronized boolean claim() {
+            if (!issued || claimed) {
+                return false;
+            }
+            claimed = true;
+            return true;
+        }
+
+        synchronized List<McpCallEvent> snapshot() {
+            List<McpCallEvent> events = new ArrayList<>(size);
+            int start = (next - size + buffer.length) % buffer.length;
+            for (int i = 0; i < size; i++) {
+                events.add(buffer[(start + i) % buffer.length]);
+            }
+            return events;
+        }
     }
 }
@@ -1,9 +1,21 @@
 package com.redhat.mcp;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -16,6 +28,8 @@ import dev.langchain4j.mcp.client.transport.McpTransport;
 import dev.langchain4j.mcp.client.transport.http.StreamableHttpMcpTransport;
 import dev.langchain4j.mcp.client.transport.stdio.StdioMcpTransport;
 import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -23,39 +37,306 @@ import jakarta.inject.Inject;
 @ApplicationScoped
 public class McpManager {
 
-    private static final String REDIS_KEY = "dora:mcp:servers";
+    // Hash com a configuração de cada servidor registrado (um campo por nome)
+    private static final String REGISTRY_KEY = "dora:mcp:servers:registry";
+    // Formato antigo: lista JSON com todos os servidores, migrada para o hash na inicialização
+    private static final String LEGACY_REDIS_KEY = "dora:mcp:servers";
+
+    // Canal de pub/sub com as alterações do registro (add/remove) entre réplicas
+    private static final String CHANGES_CHANNEL = "dora:mcp:servers:changes";
+    private static final String OP_ADD = "add";
+    private static final String OP_REMOVE = "remove";
+
+    // Identifica esta réplica para ignorar as próprias notificações
+    private final String instanceId = UUID.randomUUID().toString();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private final Map<String, McpClient> clients = new ConcurrentHashMap<>();
+    // Um pool de clientes por servidor (ver McpClientPool)
+    private final Map<String, McpClientPool> clients = new ConcurrentHashMap<>();
     private final Map<String, McpServerConfig> configs = new ConcurrentHashMap<>();
 
+    // Configuração com que o pool atual de cada servidor foi criado
+    private final Map<String, McpServerConfig> poolConfigs = new ConcurrentHashMap<>();
+
+    // Estado da conexão de cada servidor registrado
+    public static final String STATE_CONNECTING = "connecting";
+    public static final String STATE_CONNECTED = "connected";
+    public static final String STATE_FAILED = "failed";
+    private final Map<String, String> serverStates = new ConcurrentHashMap<>();
+
+    // Conexões em andamento no bootstrap, usadas para aguardar um servidor ainda não conectado
+    private final Map<String, CompletableFuture<Boolean>> pendingConnections = new ConcurrentHashMap<>();
+
+    // Tools persistidas de servidores ainda não conectados (anunciadas até a conexão terminar)
+    private final Map<String, List<ToolSpecification>> cachedTools = new ConcurrentHashMap<>();
+
+    // Servidor de cada tool, atualizado a cada listagem (conexão e getAllTools, que alimenta o snapshot)
+    private final Map<String, String> toolOwners = new ConcurrentHashMap<>();
+
+    // Serializa as alterações do registro desta réplica (add/remove, notificações e recargas)
+    private final Object registryLock = new Object();
+
+    private volatile boolean registryLoaded = false;
+
+    // Incrementado a cada servidor adicionado/removido; usado para invalidar o snapshot de tools
+    private final AtomicLong serversVersion = new AtomicLong();
+
     @Inject
     McpEventService mcpEventService;
 
     @Inject
     RedisService redisService;
 
+    @Inject
+    McpMetrics mcpMetrics;
+
+    @Inject
+    McpToolSchemaCache toolSchemaCache;
+
+    @Inject
+    McpCallRecorder callRecorder;
+
+    // Tamanho máximo padrão do pool; por servidor: mcp.pool.max-size.<nome>
+    @ConfigProperty(name = "mcp.pool.max-size", defaultValue = "4")
+    int defaultPoolSize;
+
+    @ConfigProperty(name = "mcp.pool.idle-timeout-seconds", defaultValue = "300")
+    long poolIdleTimeoutSeconds;
+
+    // Quanto uma chamada espera por um servidor que ainda está conectando
+    @ConfigProperty(name = "mcp.bootstrap.connect-wait-seconds", defaultValue = "30")
+    long connectWaitSeconds;
+
+    // Backoff das novas tentativas de um servidor salvo que não conectou (0 = sem novas tentativas)
+    @ConfigProperty(name = "mcp.bootstrap.retry-initial-seconds", defaultValue = "5")
+    long retryInitialSeconds;
+
+    @ConfigProperty(name = "mcp.bootstrap.retry-max-seconds", defaultValue = "300")
+    long retryMaxSeconds;
+
+    // Multiplicador da latência gravada nos servidores "replay" (0 = sem espera)
+    @ConfigProperty(name = "mcp.replay.latency-scale", defaultValue = "1.0")
+    double replayLatencyScale;
+
     @PostConstruct
     void init() {
+        // Inscreve antes de carregar o registro para não perder alterações nesse intervalo
+        try {
+            redisService.subscribe(CHANGES_CHANNEL, this::onRegistryChange);
+        } catch (Exception e) {
+            Log.errorf("[McpManager] Erro ao assinar alterações do registro MCP: %s", e.getMessage());
+        }
         try {
-            String json = redisService.getValue(REDIS_KEY);
-            if (json != null && !json.isBlank()) {
-                List<McpServerConfig> saved = objectMapper.readValue(json, new TypeReference<>() {});
-                for (McpServerConfig config : saved) {
+            migrateLegacyRegistry();
+            reloadRegistry();
+        } finally {
+            registryLoaded = true;
+        }
+    }
+
+    /**
+     * Copia os servidores da lista do formato antigo para o hash do registro
+     */
+    private void migrateLegacyRegistry() {
+        try {
+            String json = redisService.getValue(LEGACY_REDIS_KEY);
+            if (json == null || json.isBlank()) {
+                return;
+            }
+            List<McpServerConfig> saved = objectMapper.readValue(json, new TypeReference<>() {});
+            for (McpServerConfig config : saved) {
+                redisService.setHashField(REGISTRY_KEY, config.name(), objectMapper.writeValueAsString(config));
+            }
+            redisService.deleteKey(LEGACY_REDIS_KEY);
+            Log.infof("[McpManager] %d servidores MCP migrados da lista %s para o hash %s",
+                      saved.size(), LEGACY_REDIS_KEY, REGISTRY_KEY);
+        } catch (Exception e) {
+            Log.errorf("[McpManager] Erro ao migrar configurações MCP do formato antigo: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconcilia os servidores desta réplica com o registro no Redis: conecta os
+     * novos ou alterados e desconecta os removidos. Cobre as notificações de
+     * pub/sub perdidas (queda da conexão ou reinício durante a publicação).
+     */
+    @Scheduled(every = "${mcp.registry.reload-interval:60s}", delayed = "${mcp.registry.reload-interval:60s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void reloadRegistry() {
+        // Leitura sob o lock: um addServer desta réplica não é desfeito por um registro lido antes dele
+        synchronized (registryLock) {
+            Map<String, McpServerConfig> registered = new HashMap<>();
+            try {
+                for (Map.Entry<String, String> entry : redisService.getHash(REGISTRY_KEY).entrySet()) {
                     try {
-                        connectServer(config);
-                        Log.infof("[McpManager] Servidor MCP restaurado do Redis: %s", config.name());
+                        registered.put(entry.getKey(), objectMapper.readValue(entry.getValue(), McpServerConfig.class));
                     } catch (Exception e) {
-                        Log.errorf("[McpManager] Falha ao restaurar servidor MCP '%s': %s", config.name(), e.getMessage());
+                        Log.warnf("[McpManager] Configuração MCP inválida no registro para '%s': %s", entry.getKey(), e.getMessage());
+                    }
+                }
+            } catch (Exception e) {
+                Log.errorf("[McpManager] Erro ao carregar configurações MCP do Redis: %s", e.getMessage());
+                return;
+            }
+            for (String name : new ArrayList<>(configs.keySet())) {
+                if (!registered.containsKey(name)) {
+                    disconnectServer(name);
+                    Log.infof("[McpManager] Servidor MCP '%s' não está mais no registro; desconectado", name);
+                }
+            }
+            for (McpServerConfig config : registered.values()) {
+                if (!config.equals(configs.get(config.name()))) {
+                    connectAsync(config);
+                }
+            }
+        }
+    }
+
+    /**
+     * Conecta um servidor salvo em background, em paralelo com os demais.
+     * Enquanto a conexão não termina, as tools do snapshot persistido no Redis
+     * são anunciadas e chamadas a elas aguardam a conexão. Se a conexão falhar,
+     * as tools deixam de ser anunciadas e novas tentativas são feitas em
+     * background (ver scheduleRetry).
+     */
+    private void connectAsync(McpServerConfig config) {
+        String name = config.name();
+        configs.put(name, config);
+        serverStates.put(name, STATE_CONNECTING);
+        List<ToolSpecification> cached = toolSchemaCache.load(name);
+        if (!cached.isEmpty()) {
+            cachedTools.put(name, cached);
+            serversVersion.incrementAndGet();
+        }
+
+        CompletableFuture<Boolean> connection = CompletableFuture.supplyAsync(
+                () -> connectServer(config), Infrastructure.getDefaultWorkerPool());
+        pendingConnections.put(name, connection);
+        connection.whenComplete((published, error) -> {
+            pendingConnections.remove(name, connection);
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                Log.errorf("[McpManager] Falha ao restaurar servidor MCP '%s': %s", name, cause.getMessage());
+                synchronized (registryLock) {
+                    if (config.equals(configs.get(name)) && !config.equals(poolConfigs.get(name))) {
+                        // Sai do snapshot de tools: chamadas a ele falham na hora em vez de "Tool not found"
+                        serverStates.put(name, STATE_FAILED);
+                        serversVersion.incrementAndGet();
+                        scheduleRetry(config, 1);
                     }
                 }
+            } else if (published) {
+                Log.infof("[McpManager] Servidor MCP restaurado do Redis: %s", name);
             }
+        });
+    }
+
+    /**
+     * Nova tentativa de conectar um servidor salvo que falhou, com backoff
+     * exponencial (retry-initial-seconds dobrando até retry-max-seconds),
+     * enquanto ele continuar registrado com a mesma configuração e sem conexão
+     */
+    private void scheduleRetry(McpServerConfig config, int attempt) {
+        if (retryInitialSeconds <= 0) {
+            return;
+        }
+        String name = config.name();
+        long delay = Math.min(retryMaxSeconds, retryInitialSeconds << Math.min(attempt - 1, 20));
+        Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.SECONDS, Infrastructure.getDefaultWorkerPool());
+        delayed.execute(() -> {
+            if (!config.equals(configs.get(name)) || config.equals(poolConfigs.get(name))) {
+                // Removido, substituído ou conectado por outra réplica nesse meio tempo
+                return;
+            }
+            try {
+                if (connectServer(config)) {
+                    Log.infof("[McpManager] Servidor MCP '%s' conectado na tentativa %d", name, attempt + 1);
+                }
+            } catch (Exception e) {
+                Log.warnf("[McpManager] Tentativa %d de conectar '%s' falhou: %s", attempt + 1, name, e.getMessage());
+                scheduleRetry(config, attempt + 1);
+            }
+        });
+    }
+
+    /**
+     * Conecta um servidor já registrado em configs (bootstrap, recarga do
+     * registro e novas tentativas) e publica o pool, se ele continuar
+     * registrado com a mesma configuração e ainda sem um pool dela
+     *
+     * @return se o pool foi publicado
+     */
+    private boolean connectServer(McpServerConfig config) {
+        return publish(config, open(config), false);
+    }
+
+    /**
+     * Pool recém-conectado e as tools listadas nele (null se a listagem falhou)
+     */
+    private record Connection(McpClientPool pool, List<ToolSpecification> tools) {}
+
+    /**
+     * Cria o pool (handshake HTTP ou processo stdio do primeiro cliente) e
+     * lista as tools; roda fora do registryLock
+     */
+    private Connection open(McpServerConfig config) {
+        int maxSize = ConfigProvider.getConfig()
+                .getOptionalValue("mcp.pool.max-size." + config.name(), Integer.class)
+                .orElse(defaultPoolSize);
+        McpClientPool pool = new McpClientPool(config.name(), () -> createClient(config), maxSize);
+        List<ToolSpecification> tools = null;
+        try {
+            tools = pool.listTools();
         } catch (Exception e) {
-            Log.errorf("[McpManager] Erro ao carregar configurações MCP do Redis: %s", e.getMessage());
+            Log.warnf("[McpManager] Falha ao listar tools de '%s' para o snapshot: %s", config.name(), e.getMessage());
+        }
+        return new Connection(pool, tools);
+    }
+
+    /**
+     * Publica o pool de uma conexão, conferindo sob o registryLock que o
+     * servidor não foi removido nem substituído enquanto conectava (e, sem
+     * replace, que outra conexão com a mesma configuração não chegou antes).
+     * Se não for publicado, o pool novo é fechado.
+     *
+     * @return se o pool foi publicado
+     */
+    private boolean publish(McpServerConfig config, Connection connection, boolean replace) {
+        String name = config.name();
+        McpClientPool previous;
+        synchronized (registryLock) {
+            if (!config.equals(configs.get(name)) || (!replace && config.equals(poolConfigs.get(name)))) {
+                connection.pool().close();
+                Log.infof("[McpManager] Conexão com '%s' descartada: servidor removido ou substituído durante a conexão", name);
+                return false;
+            }
+            previous = clients.put(name, connection.pool());
+            poolConfigs.put(name, config);
+            if (previous != null) {
+                mcpMetrics.unregisterPool(previous);
+            }
+            mcpMetrics.registerPool(connection.pool());
+            serverStates.put(name, STATE_CONNECTED);
+            if (connection.tools() != null) {
+                updateOwners(name, connection.tools());
+            }
+            cachedTools.remove(name);
+            serversVersion.incrementAndGet();
+        }
+        if (previous != null) {
+            previous.close();
+        }
+        if (connection.tools() != null) {
+            toolSchemaCache.save(name, connection.tools());
+            callRecorder.recordTools(name, connection.tools());
         }
+        return true;
     }
 
-    private void connectServer(McpServerConfig config) {
+    /**
+     * Cria um cliente com transporte próprio (nova conexão HTTP ou novo processo stdio)
+     */
+    private McpClient createClient(McpServerConfig config) {
         McpTransport transport;
         if ("stdio".equalsIgnoreCase(config.transportType())) {
             List<String> cmd = List.of(config.url().split(" "));
@@ -63,6 +344,9 @@ public class McpManager {
                     .command(cmd)
                     .logEvents(config.logRequests())
                     .build();
+        } else if ("replay".equalsIgnoreCase(config.transportType())) {
+            // url = arquivo .jsonl.gz gravado pelo McpCallRecorder
+            transport = new ReplayMcpTransport(Path.of(config.url()), replayLatencyScale);
         } else {
             transport = new StreamableHttpMcpTransport.Builder()
                     .url(config.url())
@@ -70,25 +354,30 @@ public class McpManager {
                     .logResponses(config.logResponses())
                     .build();
         }
-        McpClient client = new DefaultMcpClient.Builder()
+        return new DefaultMcpClient.Builder()
                 .transport(transport)
                 .build();
-        clients.put(config.name(), client);
-        configs.put(config.name(), config);
-    }
-
-    private void saveConfigsToRedis() {
-        try {
-            redisService.setValue(REDIS_KEY, new ArrayList<>(configs.values()));
-        } catch (Exception e) {
-            Log.errorf("[McpManager] Erro ao salvar configurações MCP no Redis: %s", e.getMessage());
-        }
     }
 
     public void addServer(McpServerConfig config) {
         try {
-            connectServer(config);
-            saveConfigsToRedis();
+            // Conexão fora do registryLock: um servidor lento não trava o registro da réplica
+            Connection connection = open(config);
+            try {
+                synchronized (registryLock) {
+                    // Só o campo deste servidor: adições e remoções concorrentes em outras réplicas não se perdem
+                    redisService.setHashField(REGISTRY_KEY, config.name(), objectMapper.writeValueAsString(config));
+                    configs.put(config.name(), config);
+                }
+            } catch (Exception e) {
+                connection.pool().close();
+                throw e;
+            }
+            if (!publish(config, connection, true)) {
+                // Removido (ou substituído) enquanto conectava: a outra alteração já foi publicada
+                return;
+            }
+            publishChange(new RegistryChange(OP_ADD, instanceId, config.name(), config));
             Log.infof("MCP Server added: %s", config.name());
         } catch (Exception e) {
             Log.errorf("Failed to add MCP server %s: %s", config.name(), e.getMessage());
@@ -97,16 +386,137 @@ public class McpManager {
     }
 
     public void removeServer(String name) {
-        McpClient client = clients.remove(name);
+        synchronized (registryLock) {
+            disconnectServer(name);
+            try {
+                redisService.deleteHashField(REGISTRY_KEY, name);
+            } catch (Exception e) {
+                Log.errorf("[McpManager] Erro ao remover configuração MCP '%s' do Redis: %s", name, e.getMessage());
+            }
+        }
+        publishChange(new RegistryChange(OP_REMOVE, instanceId, name, null));
+        toolSchemaCache.delete(name);
+    }
+
+    private void disconnectServer(String name) {
+        McpClientPool pool = clients.remove(name);
         configs.remove(name);
-        if (client != null) {
+        poolConfigs.remove(name);
+        serverStates.remove(name);
+        cachedTools.remove(name);
+        toolOwners.values().removeIf(name::equals);
+        serversVersion.incrementAndGet();
+        if (pool != null) {
+            mcpMetrics.unregisterPool(pool);
+            pool.close();
+        }
+    }
+
+    private void publishChange(RegistryChange change) {
+        try {
+            redisService.publish(CHANGES_CHANNEL, objectMapper.writeValueAsString(change));
+        } catch (Exception e) {
+            Log.errorf("[McpManager] Erro ao publicar alteração do registro MCP: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica alterações do registro feitas por outras réplicas.
+     * Chamado na thread de I/O do Redis; a conexão com o servidor MCP é feita
+     * em uma worker thread.
+     */
+    void onRegistryChange(String message) {
+        RegistryChange change;
+        try {
+            change = objectMapper.readValue(message, RegistryChange.class);
+        } catch (Exception e) {
+            Log.warnf("[McpManager] Alteração do registro MCP inválida: %s", e.getMessage());
+            return;
+        }
+        if (instanceId.equals(change.origin())) {
+            return;
+        }
+        Infrastructure.getDefaultWorkerPool().execute(() -> {
             try {
-                client.close();
+                synchronized (registryLock) {
+                    if (OP_ADD.equals(change.op()) && change.config() != null) {
+                        if (change.config().equals(configs.get(change.name()))) {
+                            return;
+                        }
+                        // Conecta em background, como no bootstrap (com novas tentativas se falhar)
+                        connectAsync(change.config());
+                        Log.infof("[McpManager] Servidor MCP sincronizado de outra réplica: %s", change.name());
+                    } else if (OP_REMOVE.equals(change.op())) {
+                        disconnectServer(change.name());
+                        Log.infof("[McpManager] Servidor MCP removido por outra réplica: %s", change.name());
+                    }
+                }
             } catch (Exception e) {
-                Log.errorf("Error closing MCP client %s: %s", name, e.getMessage());
+                Log.errorf("[McpManager] Falha ao aplicar alteração do servidor MCP '%s': %s", change.name(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Mensagem publicada no canal de alterações do registro
+     */
+    public record RegistryChange(String op, String origin, String name, McpServerConfig config) {}
+
+    /**
+     * Estado dos pools de clientes de cada servidor
+     */
+    public List<McpClientPool.PoolStats> getPoolStats() {
+        List<McpClientPool.PoolStats> stats = new ArrayList<>(clients.size());
+        for (McpClientPool pool : clients.values()) {
+            stats.add(pool.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Fecha os clientes extras que ficaram ociosos além do timeout
+     */
+    @Scheduled(every = "30s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void reapIdleClients() {
+        for (McpClientPool pool : clients.values()) {
+            pool.reapIdle(poolIdleTimeoutSeconds * 1000);
+        }
+    }
+
+    /**
+     * Versão atual do conjunto de servidores MCP registrados.
+     */
+    public long getServersVersion() {
+        return serversVersion.get();
+    }
+
+    /**
+     * Estado da conexão de cada servidor (connecting, connected ou failed)
+     */
+    public Map<String, String> getServerStates() {
+        return Map.copyOf(serverStates);
+    }
+
+    /**
+     * Indica se a lista de servidores salvos já foi lida do Redis
+     */
+    public boolean isRegistryLoaded() {
+        return registryLoaded;
+    }
+
+    /**
+     * Tools de cada servidor conectado
+     */
+    public Map<String, List<ToolSpecification>> getToolsByServer() {
+        Map<String, List<ToolSpecification>> tools = new ConcurrentHashMap<>();
+        for (Map.Entry<String, McpClientPool> entry : clients.entrySet()) {
+            try {
+                tools.put(entry.getKey(), entry.getValue().listTools());
+            } catch (Exception e) {
+                Log.errorf("Error listing tools for client %s: %s", entry.getKey(), e.getMessage());
             }
         }
-        saveConfigsToRedis();
+        return tools;
     }
 
     public List<McpServerConfig> listServers() {
@@ -115,88 +525,160 @@ public class McpManager {
 
     public List<ToolSpecification> getAllTools() {
         List<ToolSpecification> allTools = new ArrayList<>();
-        for (Map.Entry<String, McpClient> entry : clients.entrySet()) {
+        for (Map.Entry<String, McpClientPool> entry : clients.entrySet()) {
             try {
                 List<ToolSpecification> tools = entry.getValue().listTools();
+                updateOwners(entry.getKey(), tools);
                 allTools.addAll(tools);
             } catch (Exception e) {
                 Log.errorf("Error listing tools for client %s: %s", entry.getKey(), e.getMessage());
             }
         }
+        for (Map.Entry<String, List<ToolSpecification>> entry : cachedTools.entrySet()) {
+            // Servidores que falharam ao conectar não anunciam as tools persistidas
+            if (!clients.containsKey(entry.getKey()) && !STATE_FAILED.equals(serverStates.get(entry.getKey()))) {
+                allTools.addAll(entry.getValue());
+            }
+        }
         return allTools;
     }
 
+    /**
+     * Registra o servidor das tools listadas; em nome duplicado entre servidores
+     * vale o primeiro registrado (como no snapshot de tools)
+     */
+    private void updateOwners(String serverName, List<ToolSpecification> tools) {
+        Set<String> names = new HashSet<>();
+        for (ToolSpecification tool : tools) {
+            names.add(tool.name());
+            toolOwners.putIfAbsent(tool.name(), serverName);
+        }
+        toolOwners.entrySet().removeIf(entry -> entry.getValue().equals(serverName) && !names.contains(entry.getKey()));
+    }
+
+    /**
+     * Pool do servidor da tool, pelo mapa atualizado com o snapshot de tools.
+     * Só uma tool ainda desconhecida (criada no servidor depois da última
+     * listagem) faz os servidores serem listados de novo.
+     */
+    private Map.Entry<String, McpClientPool> ownerOf(String toolName) {
+        String server = toolOwners.get(toolName);
+        McpClientPool pool = server != null ? clients.get(server) : null;
+        if (pool == null) {
+            for (Map.Entry<String, McpClientPool> entry : clients.entrySet()) {
+                try {
+                    updateOwners(entry.getKey(), entry.getValue().listTools());
+                } catch (Exception e) {
+                    Log.debugf("Erro ao listar tools do cliente %s: %s", entry.getKey(), e.getMessage());
+                }
+            }
+            server = toolOwners.get(toolName);
+            pool = server != null ? clients.get(server) : null;
+        }
+        return pool != null ? Map.entry(server, pool) : null;
+    }
+
     public String executeTool(ToolExecutionRequest request) {
-        // We need to find which client has this tool.
-        // This is inefficient if we have many clients/tools.
-        // A better way is to cache tool->client mapping.
-        
-        Exception lastException = null;
-        boolean toolFound = false;
-        
-        for (Map.Entry<String, McpClient> entry : clients.entrySet()) {
+        Map.Entry<String, McpClientPool> owner = ownerOf(request.name());
+        if (owner != null) {
             try {
-                // Check if client has the tool
-                // Optimization: Cache this
-                List<ToolSpecification> tools = entry.getValue().listTools();
-                boolean hasTool = tools.stream().anyMatch(t -> t.name().equals(request.name()));
-                
-                if (hasTool) {
-                    toolFound = true;
-                    
-                    // Registra início da execução
-                    String requestId = mcpEventService.getCurrentRequestId();
-                    Log.infof("🔍 Executando tool '%s' - RequestId atual no thread: %s", request.name(), requestId);
-                    
-                    if (requestId != null) {
-                        McpCallEvent callingEvent = new McpCallEvent(requestId, request.name(), "calling");
-                        mcpEventService.addEvent(callingEvent);
-                        Log.infof("[MCP-EVENT] Tool iniciada: %s (RequestId: %s)", request.name(), requestId);
-                    } else {
-                        Log.warnf("⚠️ RequestId é null ao executar tool '%s' - eventos MCP não serão registrados", request.name());
-                    }
-                    
-                    try {
-                        // Executa a tool e retorna o resultado (mesmo que seja um erro do servidor MCP)
-                        String result = entry.getValue().executeTool(request);
-                        Log.debugf("Tool '%s' executada com sucesso no servidor '%s'", request.name(), entry.getKey());
-                        
-                        // Registra conclusão
-                        if (requestId != null) {
-                            McpCallEvent completedEvent = new McpCallEvent(requestId, request.name(), "completed");
-                            mcpEventService.addEvent(completedEvent);
-                            Log.infof("[MCP-EVENT] Tool completada: %s (RequestId: %s)", request.name(), requestId);
-                        }
-                        
-                        return result;
-                    } catch (Exception e) {
-                        // Registra erro
-                        if (requestId != null) {
-                            McpCallEvent errorEvent = new McpCallEvent(requestId, request.name(), "error");
-                            mcpEventService.addEvent(errorEvent);
-                            Log.errorf("[MCP-EVENT] Tool com erro: %s (RequestId: %s)", request.name(), requestId);
-                        }
-                        throw e;
-                    }
-                }
-            } catch (Exception e) {
-                // Se a tool foi encontrada mas houve erro na execução, guarda a exceção
-                if (toolFound) {
-                    lastException = e;
-                    Log.errorf("Erro ao executar tool '%s' no cliente %s: %s", request.name(), entry.getKey(), e.getMessage());
-                } else {
-                    // Se ainda está procurando a tool, apenas loga
-                    Log.debugf("Tool '%s' não encontrada no cliente %s ou erro ao listar tools", request.name(), entry.getKey());
-                }
+                return invokeTool(owner.getKey(), owner.getValue(), request);
+            } catch (RuntimeException e) {
+                Log.errorf("Erro ao executar tool '%s' no cliente %s: %s", request.name(), owner.getKey(), e.getMessage());
+                throw new RuntimeException("Erro ao executar tool '" + request.name() + "': " + e.getMessage(), e);
             }
         }
         
-        // Se a tool foi encontrada mas houve erro na execução, lança a exceção original
-        if (toolFound && lastException != null) {
-            throw new RuntimeException("Erro ao executar tool '" + request.name() + "': " + lastException.getMessage(), lastException);
+        // Tool anunciada pelo snapshot persistido de um servidor que ainda está conectando
+        for (Map.Entry<String, List<ToolSpecification>> entry : cachedTools.entrySet()) {
+            boolean hasTool = entry.getValue().stream().anyMatch(t -> t.name().equals(request.name()));
+            if (!hasTool) {
+                continue;
+            }
+            if (STATE_FAILED.equals(serverStates.get(entry.getKey()))) {
+                // Snapshot antigo ainda com a tool: falha na hora com o motivo real
+                throw new RuntimeException("Servidor MCP '" + entry.getKey() + "' indisponível (falha na conexão, nova tentativa em background); tool '" + request.name() + "' não executada");
+            }
+            CompletableFuture<Boolean> pending = pendingConnections.get(entry.getKey());
+            if (pending != null) {
+                try {
+                    pending.get(connectWaitSeconds, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new RuntimeException("Servidor MCP '" + entry.getKey() + "' ainda não está disponível para a tool '" + request.name() + "'", e);
+                }
+                McpClientPool pool = clients.get(entry.getKey());
+                if (pool != null) {
+                    return invokeTool(entry.getKey(), pool, request);
+                }
+            }
         }
         
         // Tool não encontrada em nenhum servidor
         throw new RuntimeException("Tool not found: " + request.name());
     }
+
+    /**
+     * Ponto único de instrumentação das chamadas de tools MCP.
+     * Registra os eventos "calling" e "completed"/"error" com duração e
+     * tamanho dos argumentos/resultado, sem depender dos logs do transporte,
+     * e alimenta as métricas por servidor/tool (McpMetrics).
+     */
+    private String invokeTool(String serverName, McpClientPool pool, ToolExecutionRequest request) {
+        String requestId = mcpEventService.getCurrentRequestId();
+        long requestBytes = utf8Length(request.arguments());
+        if (requestId != null) {
+            mcpEventService.addEvent(new McpCallEvent(requestId, serverName, request.name(), "calling", 0, requestBytes, 0));
+        } else {
+            Log.debugf("RequestId é null ao executar tool '%s' - eventos MCP não serão registrados", request.name());
+        }
+
+        long start = System.nanoTime();
+        try {
+            // Executa a tool e retorna o resultado (mesmo que seja um erro do servidor MCP)
+            String result = pool.executeTool(request);
+            long durationNanos = System.nanoTime() - start;
+            long durationMs = durationNanos / 1_000_000;
+            long responseBytes = utf8Length(result);
+            mcpMetrics.record(serverName, request.name(), durationNanos, requestBytes, responseBytes, false);
+            callRecorder.recordCall(serverName, request, result, durationNanos, false);
+            Log.debugf("Tool '%s' executada no servidor '%s' em %dms (%d bytes)", request.name(), serverName, durationMs, responseBytes);
+            if (requestId != null) {
+                mcpEventService.addEvent(new McpCallEvent(requestId, serverName, request.name(), "completed", durationMs, requestBytes, responseBytes));
+            }
+            return result;
+        } catch (RuntimeException e) {
+            long durationNanos = System.nanoTime() - start;
+            long durationMs = durationNanos / 1_000_000;
+            mcpMetrics.record(serverName, request.name(), durationNanos, requestBytes, 0, true);
+            callRecorder.recordCall(serverName, request, e.getMessage(), durationNanos, true);
+            if (requestId != null) {
+                mcpEventService.addEvent(new McpCallEvent(requestId, serverName, request.name(), "error", durationMs, requestBytes, 0));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Tamanho em bytes UTF-8 de um texto, sem copiar o conteúdo
+     */
+    static long utf8Length(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
 }
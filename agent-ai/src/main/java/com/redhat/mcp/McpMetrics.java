@@ -0,0 +1,224 @@
+package com.redhat.mcp;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Métricas das chamadas de tools MCP, por servidor e por tool.
+ *
+ * Publica no Micrometer (exposto em /q/metrics no formato Prometheus):
+ * - mcp.tool.calls: timer de latência (histograma + p50/p95/p99)
+ * - mcp.tool.errors: contador de erros
+ * - mcp.tool.request.bytes / mcp.tool.response.bytes: tamanho dos payloads
+ * - mcp.tool.result.raw.bytes / mcp.tool.result.reduced.bytes: resultados
+ *   reduzidos pelo ToolResultReducer antes de irem para o prompt
+ * - mcp.pool.clients / mcp.pool.in-flight: tamanho e ocupação do pool de
+ *   clientes de cada servidor
+ *
+ * Também mantém agregados em memória para o ranking exibido em
+ * GET /api/mcp/tools/metrics.
+ */
+@ApplicationScoped
+public class McpMetrics {
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<String, ToolMeters> meters = new ConcurrentHashMap<>();
+
+    private final Map<McpClientPool, List<Meter>> poolGauges = new ConcurrentHashMap<>();
+
+    /**
+     * Registra uma chamada de tool
+     */
+    public void record(String server, String tool, long durationNanos,
+                       long requestBytes, long responseBytes, boolean error) {
+        ToolMeters m = meters.computeIfAbsent(server + "/" + tool, k -> new ToolMeters(server, tool));
+        m.timer.record(durationNanos, TimeUnit.NANOSECONDS);
+        m.requestBytes.record(requestBytes);
+        m.calls.increment();
+        m.totalNanos.add(durationNanos);
+        m.maxNanos.accumulate(durationNanos);
+        m.totalRequestBytes.add(requestBytes);
+        if (error) {
+            m.errorCounter.increment();
+            m.errors.increment();
+        } else {
+            m.responseBytes.record(responseBytes);
+            m.totalResponseBytes.add(responseBytes);
+            m.maxResponseBytes.accumulate(responseBytes);
+        }
+    }
+
+    /**
+     * Registra a redução de um resultado de tool (tamanho original x enviado ao modelo)
+     */
+    public void recordReduction(String tool, long rawBytes, long reducedBytes) {
+        DistributionSummary.builder("mcp.tool.result.raw.bytes")
+                .description("Tamanho original dos resultados de tools MCP que foram reduzidos")
+                .baseUnit("bytes")
+                .tags("tool", tool)
+                .register(registry)
+                .record(rawBytes);
+        DistributionSummary.builder("mcp.tool.result.reduced.bytes")
+                .description("Tamanho dos resultados de tools MCP após a redução")
+                .baseUnit("bytes")
+                .tags("tool", tool)
+                .register(registry)
+                .record(reducedBytes);
+    }
+
+    /**
+     * Publica os gauges de um pool de clientes MCP
+     */
+    public void registerPool(McpClientPool pool) {
+        poolGauges.put(pool, List.of(
+            Gauge.builder("mcp.pool.clients", pool, McpClientPool::size)
+                    .description("Clientes abertos no pool do servidor MCP")
+                    .tags("server", pool.serverName())
+                    .register(registry),
+            Gauge.builder("mcp.pool.in-flight", pool, McpClientPool::inFlight)
+                    .description("Chamadas em andamento no pool do servidor MCP")
+                    .tags("server", pool.serverName())
+                    .register(registry)
+        ));
+    }
+
+    /**
+     * Remove os gauges de um pool que foi fechado
+     */
+    public void unregisterPool(McpClientPool pool) {
+        List<Meter> gauges = poolGauges.remove(pool);
+        if (gauges != null) {
+            gauges.forEach(registry::remove);
+        }
+    }
+
+    /**
+     * Tabela de tools ordenada pelo critério informado
+     * (p95, avg, max, errors, calls ou bytes; padrão p95)
+     */
+    public List<ToolStats> ranking(String sortBy) {
+        List<ToolStats> stats = new ArrayList<>(meters.size());
+        for (ToolMeters m : meters.values()) {
+            stats.add(m.stats());
+        }
+        Comparator<ToolStats> order = switch (sortBy == null ? "p95" : sortBy.toLowerCase()) {
+            case "avg" -> Comparator.comparingDouble(ToolStats::avgMs);
+            case "max" -> Comparator.comparingDouble(ToolStats::maxMs);
+            case "errors" -> Comparator.comparingDouble(ToolStats::errorRate);
+            case "calls" -> Comparator.comparingLong(ToolStats::calls);
+            case "bytes" -> Comparator.comparingDouble(ToolStats::avgResponseBytes);
+            default -> Comparator.comparingDouble(ToolStats::p95Ms);
+        };
+        stats.sort(order.reversed());
+        return stats;
+    }
+
+    private final class ToolMeters {
+        final String server;
+        final String tool;
+        final Timer timer;
+        final Counter errorCounter;
+        final DistributionSummary requestBytes;
+        final DistributionSummary responseBytes;
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        final LongAdder totalRequestBytes = new LongAdder();
+        final LongAdder totalResponseBytes = new LongAdder();
+        final LongAccumulator maxResponseBytes = new LongAccumulator(Long::max, 0);
+
+        ToolMeters(String server, String tool) {
+            this.server = server;
+            this.tool = tool;
+            this.timer = Timer.builder("mcp.tool.calls")
+                    .description("Latência das chamadas de tools MCP")
+                    .tags("server", server, "tool", tool)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.errorCounter = Counter.builder("mcp.tool.errors")
+                    .description("Chamadas de tools MCP com erro")
+                    .tags("server", server, "tool", tool)
+                    .register(registry);
+            this.requestBytes = DistributionSummary.builder("mcp.tool.request.bytes")
+                    .description("Tamanho dos argumentos enviados às tools MCP")
+                    .baseUnit("bytes")
+                    .tags("server", server, "tool", tool)
+                    .register(registry);
+            this.responseBytes = DistributionSummary.builder("mcp.tool.response.bytes")
+                    .description("Tamanho dos resultados das tools MCP")
+                    .baseUnit("bytes")
+                    .tags("server", server, "tool", tool)
+                    .publishPercentiles(0.5, 0.95)
+                    .register(registry);
+        }
+
+        ToolStats stats() {
+            long count = calls.sum();
+            long errorCount = errors.sum();
+            long successCount = count - errorCount;
+            double p50 = 0;
+            double p95 = 0;
+            double p99 = 0;
+            for (ValueAtPercentile v : timer.takeSnapshot().percentileValues()) {
+                double ms = v.value(TimeUnit.MILLISECONDS);
+                if (v.percentile() == 0.5) p50 = ms;
+                else if (v.percentile() == 0.95) p95 = ms;
+                else if (v.percentile() == 0.99) p99 = ms;
+            }
+            return new ToolStats(
+                server,
+                tool,
+                count,
+                errorCount,
+                count > 0 ? (double) errorCount / count : 0,
+                count > 0 ? totalNanos.sum() / 1_000_000.0 / count : 0,
+                p50,
+                p95,
+                p99,
+                maxNanos.get() / 1_000_000.0,
+                count > 0 ? (double) totalRequestBytes.sum() / count : 0,
+                successCount > 0 ? (double) totalResponseBytes.sum() / successCount : 0,
+                maxResponseBytes.get()
+            );
+        }
+    }
+
+    /**
+     * Linha da tabela de métricas de uma tool
+     */
+    public record ToolStats(
+        String server,
+        String tool,
+        long calls,
+        long errors,
+        double errorRate,
+        double avgMs,
+        double p50Ms,
+        double p95Ms,
+        double p99Ms,
+        double maxMs,
+        double avgRequestBytes,
+        double avgResponseBytes,
+        long maxResponseBytes
+    ) {}
+}
@@ -0,0 +1,41 @@
+package com.redhat.mcp;
+
+import java.util.Map;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Readiness dos servidores MCP (GET /q/health/ready).
+ *
+ * O pod fica pronto assim que a lista de servidores é lida do Redis; as
+ * conexões continuam em background e o estado de cada servidor aparece nos
+ * dados do check. Servidores lentos ou fora do ar não seguram o tráfego.
+ */
+@Readiness
+@ApplicationScoped
+public class McpReadinessCheck implements HealthCheck {
+
+    @Inject
+    McpManager mcpManager;
+
+    @Override
+    public HealthCheckResponse call() {
+        Map<String, String> states = mcpManager.getServerStates();
+        HealthCheckResponseBuilder builder = HealthCheckResponse.named("mcp-servers")
+                .status(mcpManager.isRegistryLoaded());
+        long connecting = states.values().stream().filter(McpManager.STATE_CONNECTING::equals).count();
+        long connected = states.values().stream().filter(McpManager.STATE_CONNECTED::equals).count();
+        long failed = states.values().stream().filter(McpManager.STATE_FAILED::equals).count();
+        builder.withData("connected", connected)
+               .withData("connecting", connecting)
+               .withData("failed", failed);
+        states.forEach(builder::withData);
+        return builder.build();
+    }
+}
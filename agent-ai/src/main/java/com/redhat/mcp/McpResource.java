@@ -10,6 +10,7 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -21,6 +22,21 @@ public class McpResource {
     @Inject
     McpManager mcpManager;
 
+    @Inject
+    DynamicMcpToolExecutor toolExecutor;
+
+    @Inject
+    McpToolSelector toolSelector;
+
+    @Inject
+    McpMetrics mcpMetrics;
+
+    @Inject
+    ToolResultReducer resultReducer;
+
+    @Inject
+    McpCallRecorder callRecorder;
+
     @GET
     @Path("/servers")
     public List<McpServerConfig> listServers() {
@@ -73,6 +89,80 @@ public class McpResource {
         }
     }
     
+    /**
+     * Tamanho, chamadas em andamento e clientes criados/fechados do pool de cada servidor
+     */
+    @GET
+    @Path("/pools")
+    public List<McpClientPool.PoolStats> getPools() {
+        return mcpManager.getPoolStats();
+    }
+    
+    /**
+     * Ranking das tools por latência, erros ou tamanho do resultado.
+     * sort: p95 (padrão), avg, max, errors, calls, bytes
+     */
+    @GET
+    @Path("/tools/metrics")
+    public List<McpMetrics.ToolStats> getToolMetrics(@QueryParam("sort") String sort) {
+        return mcpMetrics.ranking(sort);
+    }
+    
+    @GET
+    @Path("/tools/snapshot")
+    public SnapshotInfo getToolSnapshot() {
+        McpToolSnapshot snapshot = toolExecutor.getSnapshot();
+        return new SnapshotInfo(snapshot.version(), snapshot.size(), snapshot.builtAt());
+    }
+    
+    @GET
+    @Path("/tools/selection/{requestId}")
+    public Response getToolSelection(@PathParam("requestId") String requestId) {
+        McpToolSelector.SelectionStats stats = toolSelector.getStats(requestId);
+        if (stats == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse("Nenhuma seleção de tools registrada para " + requestId))
+                    .build();
+        }
+        return Response.ok(stats).build();
+    }
+    
+    @GET
+    @Path("/results/{ref}")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getFullResult(@PathParam("ref") String ref) {
+        String result = resultReducer.getFull(ref);
+        if (result == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("Resultado não encontrado ou expirado: " + ref)
+                    .build();
+        }
+        return Response.ok(result).build();
+    }
+    
+    @GET
+    @Path("/recording")
+    public McpCallRecorder.RecordingStatus getRecording() {
+        return callRecorder.status();
+    }
+    
+    @POST
+    @Path("/recording/start")
+    public McpCallRecorder.RecordingStatus startRecording() {
+        callRecorder.start();
+        // Servidores já conectados: grava o tools/list para o replay anunciar as mesmas tools
+        mcpManager.getToolsByServer().forEach(callRecorder::recordTools);
+        return callRecorder.status();
+    }
+    
+    @POST
+    @Path("/recording/stop")
+    public McpCallRecorder.RecordingStatus stopRecording() {
+        McpCallRecorder.RecordingStatus status = callRecorder.status();
+        callRecorder.stop();
+        return new McpCallRecorder.RecordingStatus(false, status.directory(), status.calls());
+    }
+    
     @POST
     @Path("/test-tool")
     public Response testTool(TestToolRequest request) {
@@ -93,6 +183,7 @@ public class McpResource {
     }
 
     public record ErrorResponse(String message) {}
+    public record SnapshotInfo(long version, int toolCount, long builtAt) {}
     public record ToolSummary(String name, String description, String parameters) {}
     public record TestToolRequest(String toolName, String arguments) {}
     public record TestToolResponse(String result, boolean error, String message) {
@@ -3,7 +3,7 @@ package com.redhat.mcp;
 public record McpServerConfig(
     String name,
     String url,
-    String transportType, // "stdio" or "http"
+    String transportType, // "stdio", "http" or "replay" (url = arquivo gravado)
     boolean logRequests,
     boolean logResponses
 ) {}
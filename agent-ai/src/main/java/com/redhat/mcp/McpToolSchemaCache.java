@@ -0,0 +1,138 @@
+package com.redhat.mcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.redhat.redis.RedisService;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.internal.JsonSchemaElementUtils;
+import dev.langchain4j.model.chat.request.json.JsonArraySchema;
+import dev.langchain4j.model.chat.request.json.JsonBooleanSchema;
+import dev.langchain4j.model.chat.request.json.JsonEnumSchema;
+import dev.langchain4j.model.chat.request.json.JsonIntegerSchema;
+import dev.langchain4j.model.chat.request.json.JsonNumberSchema;
+import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
+import dev.langchain4j.model.chat.request.json.JsonSchemaElement;
+import dev.langchain4j.model.chat.request.json.JsonStringSchema;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Guarda no Redis o schema das tools de cada servidor MCP (no formato do
+ * tools/list do protocolo).
+ *
+ * Na inicialização as tools são anunciadas a partir desse snapshot enquanto
+ * as conexões reais ainda estão sendo estabelecidas.
+ */
+@ApplicationScoped
+public class McpToolSchemaCache {
+
+    private static final String REDIS_PREFIX = "dora:mcp:tools:";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Inject
+    RedisService redisService;
+
+    /**
+     * Persiste as tools de um servidor
+     */
+    public void save(String serverName, List<ToolSpecification> tools) {
+        try {
+            redisService.setValue(REDIS_PREFIX + serverName, objectMapper.writeValueAsString(toJson(tools)));
+        } catch (Exception e) {
+            Log.warnf("[McpToolSchemaCache] Falha ao salvar tools de '%s': %s", serverName, e.getMessage());
+        }
+    }
+
+    /**
+     * Carrega as tools persistidas de um servidor (lista vazia se não houver)
+     */
+    public List<ToolSpecification> load(String serverName) {
+        List<ToolSpecification> tools = new ArrayList<>();
+        try {
+            String json = redisService.getValue(REDIS_PREFIX + serverName);
+            if (json == null || json.isBlank()) {
+                return tools;
+            }
+            for (JsonNode node : objectMapper.readTree(json)) {
+                JsonSchemaElement parameters = toElement(node.path("inputSchema"));
+                tools.add(ToolSpecification.builder()
+                        .name(node.path("name").asText())
+                        .description(node.path("description").asText(null))
+                        .parameters(parameters instanceof JsonObjectSchema object ? object : null)
+                        .build());
+            }
+        } catch (Exception e) {
+            Log.warnf("[McpToolSchemaCache] Falha ao carregar tools de '%s': %s", serverName, e.getMessage());
+        }
+        return tools;
+    }
+
+    public void delete(String serverName) {
+        redisService.deleteKey(REDIS_PREFIX + serverName);
+    }
+
+    /**
+     * Converte as tools para o formato do tools/list do MCP
+     */
+    public ArrayNode toJson(List<ToolSpecification> tools) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (ToolSpecification tool : tools) {
+            ObjectNode node = array.addObject();
+            node.put("name", tool.name());
+            node.put("description", tool.description());
+            JsonObjectSchema parameters = tool.parameters() != null
+                    ? tool.parameters()
+                    : JsonObjectSchema.builder().build();
+            node.set("inputSchema", objectMapper.valueToTree(JsonSchemaElementUtils.toMap(parameters)));
+        }
+        return array;
+    }
+
+    /**
+     * Converte um JSON Schema de volta para os tipos do LangChain4j
+     */
+    private JsonSchemaElement toElement(JsonNode node) {
+        String description = node.path("description").asText(null);
+        if (node.has("enum")) {
+            List<String> values = new ArrayList<>();
+            node.get("enum").forEach(v -> values.add(v.asText()));
+            return JsonEnumSchema.builder().enumValues(values).description(description).build();
+        }
+        switch (node.path("type").asText("")) {
+            case "object": {
+                JsonObjectSchema.Builder builder = JsonObjectSchema.builder().description(description);
+                for (Map.Entry<String, JsonNode> property : node.path("properties").properties()) {
+                    builder.addProperty(property.getKey(), toElement(property.getValue()));
+                }
+                List<String> required = new ArrayList<>();
+                node.path("required").forEach(r -> required.add(r.asText()));
+                if (!required.isEmpty()) {
+                    builder.required(required);
+                }
+                return builder.build();
+            }
+            case "array":
+                return JsonArraySchema.builder()
+                        .description(description)
+                        .items(node.has("items") ? toElement(node.get("items")) : new JsonStringSchema())
+                        .build();
+            case "integer":
+                return JsonIntegerSchema.builder().description(description).build();
+            case "number":
+                return JsonNumberSchema.builder().description(description).build();
+            case "boolean":
+                return JsonBooleanSchema.builder().description(description).build();
+            default:
+                return JsonStringSchema.builder().description(description).build();
+        }
+    }
+}
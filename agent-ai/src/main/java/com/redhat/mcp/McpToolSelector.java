@@ -0,0 +1,248 @@
+package com.redhat.mcp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.redhat.rag.EmbeddingCache;
+import com.redhat.rag.QueryEmbeddingCache;
+import com.redhat.rag.RagEmbeddingModel;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProviderRequest;
+import dev.langchain4j.service.tool.ToolProviderResult;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Seleciona, por relevância, quais tools MCP são anunciadas ao modelo.
+ *
+ * Com vários servidores MCP registrados, enviar todos os schemas em todo turno
+ * custa milhares de tokens de prompt. Este estágio:
+ * 1. Calcula os embeddings de nome + descrição de cada tool, pelo conteúdo: só tools
+ *    novas ou alteradas vão ao EmbeddingCache (e, se ausentes dele, ao modelo)
+ * 2. Compara com o embedding da mensagem do usuário (via QueryEmbeddingCache)
+ * 3. Mantém apenas as top-k tools mais similares, mais as tools fixadas (pinned)
+ *
+ * A economia estimada de tokens de cada requisição fica disponível em
+ * GET /api/mcp/tools/selection/{requestId}.
+ */
+@ApplicationScoped
+public class McpToolSelector {
+
+    // Quantidade de estatísticas de seleção mantidas em memória
+    private static final int MAX_STATS = 200;
+
+    @Inject
+    RagEmbeddingModel embeddingModel;
+
+    @Inject
+    EmbeddingCache embeddingCache;
+
+    @Inject
+    QueryEmbeddingCache queryEmbeddings;
+
+    @Inject
+    McpEventService mcpEventService;
+
+    @ConfigProperty(name = "mcp.tools.selection.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "mcp.tools.selection.top-k", defaultValue = "12")
+    int topK;
+
+    @ConfigProperty(name = "mcp.tools.selection.pinned")
+    Optional<Set<String>> pinned;
+
+    /**
+     * Embeddings das tools da última versão de snapshot processada, por nome e por texto
+     */
+    private final AtomicReference<ToolEmbeddings> toolEmbeddings = new AtomicReference<>();
+
+    /**
+     * Últimas estatísticas de seleção por requestId
+     */
+    private final Map<String, SelectionStats> statsByRequest = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SelectionStats> eldest) {
+                return size() > MAX_STATS;
+            }
+        });
+
+    /**
+     * Retorna o subconjunto de tools relevantes para a mensagem da requisição.
+     * Em qualquer falha (sem texto, erro de embedding) devolve o snapshot completo.
+     */
+    public ToolProviderResult select(McpToolSnapshot snapshot, ToolProviderRequest request) {
+        if (!enabled || snapshot.size() <= topK) {
+            return snapshot.result();
+        }
+
+        String query = userText(request);
+        if (query == null || query.isBlank()) {
+            return snapshot.result();
+        }
+
+        try {
+            Map<String, Embedding> embeddings = embeddingsFor(snapshot);
+            Embedding queryEmbedding = queryEmbeddings.embed(query);
+
+            List<ScoredTool> scored = new ArrayList<>(snapshot.size());
+            for (ToolSpecification spec : snapshot.specs()) {
+                Embedding toolEmbedding = embeddings.get(spec.name());
+                double score = toolEmbedding != null ? CosineSimilarity.between(queryEmbedding, toolEmbedding) : 0;
+                scored.add(new ScoredTool(spec, score));
+            }
+            scored.sort(Comparator.comparingDouble(ScoredTool::score).reversed());
+
+            Set<String> pinnedNames = pinned.orElse(Set.of());
+            Map<ToolSpecification, ToolExecutor> all = snapshot.result().tools();
+            Map<ToolSpecification, ToolExecutor> selected = new LinkedHashMap<>();
+            int ranked = 0;
+            for (ScoredTool tool : scored) {
+                boolean isPinned = pinnedNames.contains(tool.spec().name());
+                if (isPinned || ranked < topK) {
+                    selected.put(tool.spec(), all.get(tool.spec()));
+                    if (!isPinned) {
+                        ranked++;
+                    }
+                }
+            }
+
+            recordStats(snapshot, selected.keySet());
+            return new ToolProviderResult(selected);
+
+        } catch (Exception e) {
+            Log.warnf("[ToolSelector] Falha ao selecionar tools, usando todas (%d): %s", snapshot.size(), e.getMessage());
+            return snapshot.result();
+        }
+    }
+
+    /**
+     * Estatísticas de seleção de uma requisição, ou null se não houve poda.
+     */
+    public SelectionStats getStats(String requestId) {
+        return statsByRequest.get(requestId);
+    }
+
+    /**
+     * Embeddings das tools do snapshot. Numa nova versão, tools com o mesmo texto
+     * reaproveitam o embedding da versão anterior; as demais passam pelo
+     * EmbeddingCache, compartilhado entre réplicas e reinícios.
+     */
+    private Map<String, Embedding> embeddingsFor(McpToolSnapshot snapshot) {
+        ToolEmbeddings cached = toolEmbeddings.get();
+        if (cached != null && cached.version() == snapshot.version()) {
+            return cached.byName();
+        }
+
+        Map<String, Embedding> previous = cached != null ? cached.byText() : Map.of();
+        Map<String, Embedding> byName = new HashMap<>();
+        Map<String, Embedding> byText = new HashMap<>();
+        List<ToolSpecification> missing = new ArrayList<>();
+        for (ToolSpecification spec : snapshot.specs()) {
+            String text = toolText(spec);
+            Embedding embedding = previous.get(text);
+            if (embedding != null) {
+                byName.put(spec.name(), embedding);
+                byText.put(text, embedding);
+            } else {
+                missing.add(spec);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<TextSegment> segments = missing.stream().map(spec -> TextSegment.from(toolText(spec))).toList();
+            List<Embedding> vectors = embeddingCache.cached(embeddingModel).embedAll(segments).content();
+            for (int i = 0; i < vectors.size(); i++) {
+                byName.put(missing.get(i).name(), vectors.get(i));
+                byText.put(segments.get(i).text(), vectors.get(i));
+            }
+        }
+        toolEmbeddings.set(new ToolEmbeddings(snapshot.version(), byName, byText));
+        Log.infof("[ToolSelector] Embeddings de %d tools: %d reaproveitados, %d calculados (snapshot v%d)",
+                  byName.size(), byName.size() - missing.size(), missing.size(), snapshot.version());
+        return byName;
+    }
+
+    private void recordStats(McpToolSnapshot snapshot, Set<ToolSpecification> selected) {
+        int tokensBefore = 0;
+        for (ToolSpecification spec : snapshot.specs()) {
+            tokensBefore += estimateTokens(spec);
+        }
+        int tokensAfter = 0;
+        List<String> names = new ArrayList<>(selected.size());
+        for (ToolSpecification spec : selected) {
+            tokensAfter += estimateTokens(spec);
+            names.add(spec.name());
+        }
+
+        SelectionStats stats = new SelectionStats(
+            snapshot.size(), selected.size(), tokensBefore, tokensAfter, tokensBefore - tokensAfter, names);
+
+        String requestId = mcpEventService.getCurrentRequestId();
+        if (requestId != null) {
+            statsByRequest.put(requestId, stats);
+        }
+        Log.infof("[ToolSelector] %d/%d tools anunciadas (~%d tokens de prompt economizados) - RequestId: %s",
+                  stats.selectedTools(), stats.totalTools(), stats.tokensSaved(), requestId);
+    }
+
+    private static String userText(ToolProviderRequest request) {
+        if (request == null || request.userMessage() == null || !request.userMessage().hasSingleText()) {
+            return null;
+        }
+        return request.userMessage().singleText();
+    }
+
+    private static String toolText(ToolSpecification spec) {
+        String description = spec.description() != null ? spec.description() : "";
+        return spec.name().replace('_', ' ') + ": " + description;
+    }
+
+    /**
+     * Estima o número de tokens do schema de uma tool
+     * Regra simples: ~4 caracteres = 1 token
+     */
+    private static int estimateTokens(ToolSpecification spec) {
+        int chars = spec.name().length();
+        if (spec.description() != null) {
+            chars += spec.description().length();
+        }
+        if (spec.parameters() != null) {
+            chars += spec.parameters().toString().length();
+        }
+        return chars / 4;
+    }
+
+    private record ToolEmbeddings(long version, Map<String, Embedding> byName, Map<String, Embedding> byText) {}
+
+    private record ScoredTool(ToolSpecification spec, double score) {}
+
+    /**
+     * Resultado da seleção de tools de uma requisição
+     */
+    public record SelectionStats(
+        int totalTools,
+        int selectedTools,
+        int promptTokensBefore,
+        int promptTokensAfter,
+        int tokensSaved,
+        List<String> tools
+    ) {}
+}
@@ -0,0 +1,97 @@
+package com.redhat.mcp;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProviderResult;
+
+/**
+ * Snapshot imutável das tools MCP disponíveis em um determinado momento.
+ *
+ * O snapshot é construído uma única vez a cada atualização do cache de tools
+ * e compartilhado entre todas as chamadas dos AI Services, de modo que o
+ * DynamicMcpToolProvider não precise alocar nada por requisição.
+ *
+ * @param version        versão monotônica do snapshot, alterada só quando as tools ou os
+ *                       servidores mudam (0 = ainda não carregado)
+ * @param serversVersion versão dos servidores MCP no McpManager usada na construção
+ * @param builtAt        epoch millis da construção (ou da última atualização sem mudanças)
+ * @param specs          tool specifications na ordem retornada pelos servidores
+ * @param byName         tool specifications indexadas pelo nome
+ * @param result         resultado pronto para ser devolvido ao LangChain4j
+ */
+public record McpToolSnapshot(
+    long version,
+    long serversVersion,
+    long builtAt,
+    List<ToolSpecification> specs,
+    Map<String, ToolSpecification> byName,
+    ToolProviderResult result
+) {
+
+    /**
+     * Snapshot vazio usado antes do primeiro carregamento.
+     */
+    public static final McpToolSnapshot EMPTY = new McpToolSnapshot(
+        0, -1, 0, List.of(), Map.of(), new ToolProviderResult(Map.of()));
+
+    /**
+     * Constrói um snapshot associando todas as specs ao mesmo executor.
+     * O executor é stateless e delega para o McpManager, então uma única
+     * instância atende todas as tools.
+     */
+    public static McpToolSnapshot of(long version, long serversVersion,
+                                     List<ToolSpecification> tools, ToolExecutor executor) {
+        Map<String, ToolSpecification> byName = byName(tools);
+        Map<ToolSpecification, ToolExecutor> toolMap = new LinkedHashMap<>();
+        for (ToolSpecification tool : byName.values()) {
+            toolMap.put(tool, executor);
+        }
+        return new McpToolSnapshot(
+            version,
+            serversVersion,
+            System.currentTimeMillis(),
+            List.copyOf(byName.values()),
+            Collections.unmodifiableMap(byName),
+            new ToolProviderResult(Collections.unmodifiableMap(toolMap))
+        );
+    }
+
+    /**
+     * Tools indexadas pelo nome; em caso de nome duplicado entre servidores,
+     * mantém a primeira ocorrência
+     */
+    private static Map<String, ToolSpecification> byName(List<ToolSpecification> tools) {
+        Map<String, ToolSpecification> byName = new LinkedHashMap<>();
+        for (ToolSpecification tool : tools) {
+            byName.putIfAbsent(tool.name(), tool);
+        }
+        return byName;
+    }
+
+    /**
+     * O snapshot tem exatamente estas tools, vindas da mesma versão dos servidores
+     */
+    public boolean sameTools(long serversVersion, List<ToolSpecification> tools) {
+        return version > 0 && this.serversVersion == serversVersion && specs.equals(List.copyOf(byName(tools).values()));
+    }
+
+    /**
+     * O mesmo snapshot (mesma versão e mesmo resultado) com o instante de construção renovado
+     */
+    public McpToolSnapshot renewed() {
+        return new McpToolSnapshot(version, serversVersion, System.currentTimeMillis(), specs, byName, result);
+    }
+
+    public boolean isEmpty() {
+        return specs.isEmpty();
+    }
+
+    public int size() {
+        return specs.size();
+    }
+}
@@ -0,0 +1,199 @@
+package com.redhat.mcp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.langchain4j.mcp.client.protocol.McpClientMessage;
+import dev.langchain4j.mcp.client.protocol.McpInitializeRequest;
+import dev.langchain4j.mcp.client.transport.McpOperationHandler;
+import dev.langchain4j.mcp.client.transport.McpTransport;
+import io.quarkus.logging.Log;
+
+/**
+ * Transporte MCP que reproduz uma gravação do McpCallRecorder como se fosse
+ * um servidor MCP local.
+ *
+ * Responde o tools/list com as tools gravadas e cada tools/call com o
+ * resultado gravado para a mesma tool e argumentos (ou, se não houver, com
+ * as gravações da tool em rodízio). A latência original é reproduzida
+ * multiplicada por latencyScale (0 = sem espera).
+ */
+public class ReplayMcpTransport implements McpTransport {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path file;
+    private final double latencyScale;
+    private final ArrayNode tools;
+    private final Map<String, List<JsonNode>> callsByKey = new HashMap<>();
+    private final Map<String, List<JsonNode>> callsByTool = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+
+    public ReplayMcpTransport(Path file, double latencyScale) {
+        this.file = file;
+        this.latencyScale = Math.max(0, latencyScale);
+        this.tools = objectMapper.createArrayNode();
+        load();
+    }
+
+    private void load() {
+        int calls = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode entry = objectMapper.readTree(line);
+                if ("tools".equals(entry.path("type").asText())) {
+                    // Mantém apenas o tools/list mais recente da gravação
+                    tools.removeAll();
+                    tools.addAll((ArrayNode) entry.get("tools"));
+                } else if ("call".equals(entry.path("type").asText())) {
+                    String tool = entry.path("tool").asText();
+                    callsByKey.computeIfAbsent(key(tool, entry.path("arguments").asText(null)), k -> new ArrayList<>()).add(entry);
+                    callsByTool.computeIfAbsent(tool, k -> new ArrayList<>()).add(entry);
+                    calls++;
+                }
+            }
+        } catch (IOException e) {
+            // Gravações interrompidas podem terminar no meio de um bloco gzip
+            if (tools.isEmpty() && calls == 0) {
+                throw new UncheckedIOException("Não foi possível ler a gravação " + file, e);
+            }
+            Log.warnf("[Replay] Gravação %s lida parcialmente: %s", file, e.getMessage());
+        }
+        Log.infof("[Replay] %s: %d tools, %d chamadas gravadas", file, tools.size(), calls);
+    }
+
+    @Override
+    public void start(McpOperationHandler messageHandler) {
+        // Nada a iniciar: as respostas são geradas localmente
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> initialize(McpInitializeRequest request) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("protocolVersion", "2024-11-05");
+        result.putObject("capabilities").putObject("tools");
+        result.putObject("serverInfo")
+              .put("name", "replay:" + file.getFileName())
+              .put("version", "1.0");
+        return CompletableFuture.completedFuture(response(objectMapper.valueToTree(request), result));
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> executeOperationWithResponse(McpClientMessage operation) {
+        JsonNode message = objectMapper.valueToTree(operation);
+        String method = message.path("method").asText();
+        if ("tools/list".equals(method)) {
+            ObjectNode result = objectMapper.createObjectNode();
+            result.set("tools", tools.deepCopy());
+            return CompletableFuture.completedFuture(response(message, result));
+        }
+        if ("tools/call".equals(method)) {
+            return replayCall(message);
+        }
+        return CompletableFuture.completedFuture(response(message, objectMapper.createObjectNode()));
+    }
+
+    private CompletableFuture<JsonNode> replayCall(JsonNode message) {
+        JsonNode params = message.path("params");
+        String tool = params.path("name").asText();
+        JsonNode arguments = params.path("arguments");
+        String argumentsJson = arguments.isMissingNode() ? null : arguments.toString();
+
+        List<JsonNode> candidates = callsByKey.get(key(tool, argumentsJson));
+        String cursorKey = key(tool, argumentsJson);
+        if (candidates == null) {
+            candidates = callsByTool.get(tool);
+            cursorKey = tool;
+        }
+
+        ObjectNode result = objectMapper.createObjectNode();
+        long delayMs = 0;
+        if (candidates == null || candidates.isEmpty()) {
+            result.putArray("content").addObject()
+                  .put("type", "text")
+                  .put("text", "Nenhuma gravação para a tool '" + tool + "'");
+            result.put("isError", true);
+        } else {
+            int index = cursors.computeIfAbsent(cursorKey, k -> new AtomicInteger()).getAndIncrement();
+            JsonNode recorded = candidates.get(Math.floorMod(index, candidates.size()));
+            result.putArray("content").addObject()
+                  .put("type", "text")
+                  .put("text", recorded.path("result").asText(""));
+            result.put("isError", recorded.path("error").asBoolean(false));
+            delayMs = Math.round(recorded.path("durationMs").asDouble(0) * latencyScale);
+        }
+
+        JsonNode response = response(message, result);
+        if (delayMs <= 0) {
+            return CompletableFuture.completedFuture(response);
+        }
+        return CompletableFuture.supplyAsync(() -> response,
+                CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Chave de busca: nome da tool + argumentos normalizados (JSON compacto)
+     */
+    private String key(String tool, String argumentsJson) {
+        String normalized = "";
+        if (argumentsJson != null && !argumentsJson.isBlank()) {
+            try {
+                normalized = objectMapper.readTree(argumentsJson).toString();
+            } catch (IOException e) {
+                normalized = argumentsJson;
+            }
+        }
+        return tool + "|" + normalized;
+    }
+
+    private JsonNode response(JsonNode request, JsonNode result) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", request.path("id"));
+        response.set("result", result);
+        return response;
+    }
+
+    @Override
+    public void executeOperationWithoutResponse(McpClientMessage operation) {
+        // Notificações (ex.: notifications/initialized) são ignoradas
+    }
+
+    @Override
+    public void checkHealth() {
+        // Sempre saudável: não há conexão real
+    }
+
+    @Override
+    public void onFailure(Runnable actionOnFailure) {
+        // Sem falhas de transporte a reportar
+    }
+
+    @Override
+    public void close() {
+        // Nada a liberar
+    }
+}
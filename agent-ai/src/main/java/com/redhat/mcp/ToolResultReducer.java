@@ -0,0 +1,233 @@
+package com.redhat.mcp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.redhat.redis.RedisService;
+
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Pós-processamento de resultados de tools MCP antes de irem para a memória
+ * do chat e para o próximo prompt.
+ *
+ * Resultados que excedem o orçamento de tokens da tool são reduzidos por:
+ * 1. JSON: arrays longos viram uma amostra (início + fim) com a contagem total
+ * 2. Logs: linhas repetidas (ignorando números/timestamps) são deduplicadas com contagem
+ * 3. Texto: truncamento head/tail mantendo o início e o fim
+ *
+ * O resultado completo fica no Redis por algumas horas e pode ser recuperado
+ * pela referência incluída no texto reduzido (GET /api/mcp/results/{id}).
+ *
+ * Orçamentos: mcp.tool-result.budget-tokens (padrão) e
+ * mcp.tool-result.budget.<tool> (por tool).
+ */
+@ApplicationScoped
+public class ToolResultReducer {
+
+    private static final String REDIS_PREFIX = "dora:mcp:result:";
+    private static final long DEFAULT_RETENTION_SECONDS = 21600;
+
+    // Estimativa: ~4 caracteres = 1 token
+    private static final int CHARS_PER_TOKEN = 4;
+
+    // Itens mantidos no início e no fim de arrays JSON longos
+    private static final int ARRAY_HEAD = 10;
+    private static final int ARRAY_TAIL = 3;
+
+    // Mínimo de linhas para tratar o resultado como log
+    private static final int MIN_LOG_LINES = 20;
+
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Integer> budgetByTool = new ConcurrentHashMap<>();
+
+    @Inject
+    RedisService redisService;
+
+    @Inject
+    McpMetrics mcpMetrics;
+
+    @ConfigProperty(name = "mcp.tool-result.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "mcp.tool-result.budget-tokens", defaultValue = "4000")
+    int defaultBudgetTokens;
+
+    @ConfigProperty(name = "mcp.tool-result.retention-seconds", defaultValue = "21600")
+    long retentionSeconds;
+
+    /**
+     * Reduz o resultado de uma tool para caber no orçamento configurado
+     */
+    public String reduce(String toolName, String raw) {
+        if (!enabled || raw == null) {
+            return raw;
+        }
+        int budgetChars = budgetTokens(toolName) * CHARS_PER_TOKEN;
+        if (raw.length() <= budgetChars) {
+            return raw;
+        }
+
+        String reduced = reduceJson(raw);
+        if (reduced == null) {
+            reduced = looksLikeLog(raw) ? dedupLines(raw) : raw;
+        }
+        if (reduced.length() > budgetChars) {
+            reduced = headTail(reduced, budgetChars);
+        }
+
+        String ref = storeFull(raw);
+        long rawBytes = McpManager.utf8Length(raw);
+        long reducedBytes = McpManager.utf8Length(reduced);
+        mcpMetrics.recordReduction(toolName, rawBytes, reducedBytes);
+        Log.infof("[ToolResult] Resultado de '%s' reduzido: %d → %d bytes (ref %s)", toolName, rawBytes, reducedBytes, ref);
+
+        String footer = ref != null
+            ? String.format("%n[Resultado reduzido de %d para %d caracteres. Conteúdo completo: GET /api/mcp/results/%s]",
+                            raw.length(), reduced.length(), ref)
+            : String.format("%n[Resultado reduzido de %d para %d caracteres]", raw.length(), reduced.length());
+        return reduced + footer;
+    }
+
+    /**
+     * Recupera o resultado completo armazenado por referência
+     */
+    public String getFull(String ref) {
+        return redisService.getValue(REDIS_PREFIX + ref);
+    }
+
+    private int budgetTokens(String toolName) {
+        return budgetByTool.computeIfAbsent(toolName, name -> ConfigProvider.getConfig()
+            .getOptionalValue("mcp.tool-result.budget." + name, Integer.class)
+            .orElse(defaultBudgetTokens));
+    }
+
+    private String storeFull(String raw) {
+        try {
+            String ref = UUID.randomUUID().toString();
+            // dora:mcp:result:* sempre expira, mesmo com retenção mal configurada
+            long ttl = retentionSeconds > 0 ? retentionSeconds : DEFAULT_RETENTION_SECONDS;
+            redisService.setValueWithExpiration(REDIS_PREFIX + ref, raw, ttl);
+            return ref;
+        } catch (Exception e) {
+            Log.warnf("[ToolResult] Falha ao armazenar resultado completo: %s", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Amostra arrays JSON longos. Retorna null se o texto não for JSON.
+     */
+    private String reduceJson(String raw) {
+        String trimmed = raw.trim();
+        if (!(trimmed.startsWith("{") || trimmed.startsWith("["))) {
+            return null;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(trimmed);
+            return objectMapper.writeValueAsString(sampleArrays(root));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private JsonNode sampleArrays(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode obj = (ObjectNode) node;
+            for (Map.Entry<String, JsonNode> field : obj.properties()) {
+                field.setValue(sampleArrays(field.getValue()));
+            }
+            return obj;
+        }
+        if (node.isArray()) {
+            ArrayNode array = (ArrayNode) node;
+            int total = array.size();
+            if (total <= ARRAY_HEAD + ARRAY_TAIL) {
+                for (int i = 0; i < total; i++) {
+                    array.set(i, sampleArrays(array.get(i)));
+                }
+                return array;
+            }
+            ArrayNode sampled = objectMapper.createArrayNode();
+            for (int i = 0; i < ARRAY_HEAD; i++) {
+                sampled.add(sampleArrays(array.get(i)));
+            }
+            ObjectNode marker = sampled.addObject();
+            marker.put("_omitted", total - ARRAY_HEAD - ARRAY_TAIL);
+            marker.put("_total", total);
+            for (int i = total - ARRAY_TAIL; i < total; i++) {
+                sampled.add(sampleArrays(array.get(i)));
+            }
+            return sampled;
+        }
+        return node;
+    }
+
+    private static boolean looksLikeLog(String raw) {
+        int lines = 0;
+        for (int i = 0; i < raw.length() && lines < MIN_LOG_LINES; i++) {
+            if (raw.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines >= MIN_LOG_LINES;
+    }
+
+    /**
+     * Remove linhas repetidas (comparando sem números) mantendo a primeira
+     * ocorrência e anotando quantas vezes apareceu
+     */
+    private static String dedupLines(String raw) {
+        Map<String, int[]> counts = new LinkedHashMap<>();
+        List<String> firstSeen = new ArrayList<>();
+        for (String line : raw.split("\n", -1)) {
+            String key = DIGITS.matcher(line).replaceAll("#");
+            int[] count = counts.get(key);
+            if (count == null) {
+                counts.put(key, new int[] {1});
+                firstSeen.add(line);
+            } else {
+                count[0]++;
+            }
+        }
+        StringBuilder out = new StringBuilder(raw.length() / 2);
+        for (String line : firstSeen) {
+            int count = counts.get(DIGITS.matcher(line).replaceAll("#"))[0];
+            out.append(line);
+            if (count > 1) {
+                out.append("  [x").append(count).append(']');
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Mantém o início (60%) e o fim (40%) do texto
+     */
+    private static String headTail(String text, int budgetChars) {
+        int head = budgetChars * 6 / 10;
+        int tail = budgetChars - head;
+        int omitted = text.length() - head - tail;
+        return text.substring(0, head)
+            + "\n... [" + omitted + " caracteres omitidos] ...\n"
+            + text.substring(text.length() - tail);
+    }
+}
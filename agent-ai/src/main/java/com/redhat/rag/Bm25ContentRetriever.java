@@ -0,0 +1,36 @@
+package com.redhat.rag;
+
+import java.util.List;
+import java.util.Map;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+
+/**
+ * Busca lexical (BM25) sobre os segmentos indexados em LexicalIndexService
+ */
+@ApplicationScoped
+public class Bm25ContentRetriever implements ContentRetriever {
+
+    @Inject
+    LexicalIndexService lexicalIndex;
+
+    @ConfigProperty(name = "rag.lexical.max-results", defaultValue = "10")
+    int maxResults;
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        return lexicalIndex.index().search(query.text(), maxResults).stream()
+                .map(match -> Content.from(match.segment(), Map.of(
+                        ContentMetadata.SCORE, match.score(),
+                        ContentMetadata.EMBEDDING_ID, match.id())))
+                .toList();
+    }
+}
@@ -0,0 +1,294 @@
+package com.redhat.rag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+/**
+ * Índice invertido BM25 em memória sobre os mesmos segmentos do vector store.
+ *
+ * Complementa a busca vetorial em termos exatos (códigos de erro como
+ * ImagePullBackOff, flags de CLI, nomes de recursos). A tokenização mantém
+ * termos com hífen, ponto e barra inteiros (openshift-monitoring,
+ * apps.v1) e indexa também as partes separadas.
+ *
+ * As postings são arrays de (segmento, frequência). Segmentos removidos viram
+ * tombstones ignorados na busca; quando passam da metade, o índice é
+ * compactado.
+ */
+public class Bm25Index {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}][\\p{L}\\p{N}_./-]*");
+    private static final Pattern SUBTOKEN = Pattern.compile("[./_-]+");
+
+    private final double k1;
+    private final double b;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    // Posição = número interno do segmento; null = removido
+    private final List<Entry> segments = new ArrayList<>();
+    private final Map<String, int[]> segmentsByDocument = new HashMap<>();
+    private int live;
+    private long totalLength;
+
+    public Bm25Index() {
+        this(1.2, 0.75);
+    }
+
+    public Bm25Index(double k1, double b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * Indexa (ou re-indexa) os segmentos de um documento
+     */
+    public void index(String documentId, List<String> ids, List<TextSegment> documentSegments) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(documentId);
+            int[] indexed = new int[ids.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                Map<String, Integer> frequencies = new HashMap<>();
+                int length = 0;
+                for (String term : tokenize(documentSegments.get(i).text())) {
+                    frequencies.merge(term, 1, Integer::sum);
+                    length++;
+                }
+                String[] terms = new String[frequencies.size()];
+                int[] tfs = new int[frequencies.size()];
+                int t = 0;
+                for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                    terms[t] = frequency.getKey();
+                    tfs[t++] = frequency.getValue();
+                }
+                indexed[i] = add(new Entry(ids.get(i), documentSegments.get(i), length, terms, tfs));
+            }
+            segmentsByDocument.put(documentId, indexed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int add(Entry entry) {
+        int segment = segments.size();
+        segments.add(entry);
+        for (int t = 0; t < entry.terms().length; t++) {
+            postings.computeIfAbsent(entry.terms()[t], x -> new Postings()).add(segment, entry.tfs()[t]);
+        }
+        totalLength += entry.length();
+        live++;
+        return segment;
+    }
+
+    public void remove(String documentId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(String documentId) {
+        int[] previous = segmentsByDocument.remove(documentId);
+        if (previous == null) {
+            return;
+        }
+        for (int segment : previous) {
+            Entry entry = segments.set(segment, null);
+            totalLength -= entry.length();
+            live--;
+            for (String term : entry.terms()) {
+                Postings list = postings.get(term);
+                if (--list.live == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        if ((segments.size() - live) * 2 > segments.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Reconstrói as postings só com os segmentos ativos
+     */
+    private void compact() {
+        List<Entry> entries = new ArrayList<>(segments);
+        Map<String, int[]> documents = new HashMap<>(segmentsByDocument);
+        postings.clear();
+        segments.clear();
+        segmentsByDocument.clear();
+        live = 0;
+        totalLength = 0;
+        for (Map.Entry<String, int[]> document : documents.entrySet()) {
+            int[] renumbered = new int[document.getValue().length];
+            for (int i = 0; i < renumbered.length; i++) {
+                renumbered[i] = add(entries.get(document.getValue()[i]));
+            }
+            segmentsByDocument.put(document.getKey(), renumbered);
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            segments.clear();
+            segmentsByDocument.clear();
+            live = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Os maxResults segmentos com maior pontuação BM25 para a consulta
+     */
+    public List<Match> search(String query, int maxResults) {
+        lock.readLock().lock();
+        try {
+            if (live == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / live;
+            float[] scores = new float[segments.size()];
+            int[] touched = new int[64];
+            int touchedCount = 0;
+            for (String term : new LinkedHashSet<>(tokenize(query))) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (live - list.live + 0.5) / (list.live + 0.5));
+                for (int p = 0; p < list.size; p++) {
+                    int segment = list.segments[p];
+                    Entry entry = segments.get(segment);
+                    if (entry == null) {
+                        continue;
+                    }
+                    int tf = list.tfs[p];
+                    double score = idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * entry.length() / averageLength));
+                    if (scores[segment] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = segment;
+                    }
+                    scores[segment] += (float) score;
+                }
+            }
+            PriorityQueue<Integer> top = new PriorityQueue<>(maxResults + 1, (x, y) -> Float.compare(scores[x], scores[y]));
+            for (int i = 0; i < touchedCount; i++) {
+                int segment = touched[i];
+                if (top.size() < maxResults) {
+                    top.add(segment);
+                } else if (scores[segment] > scores[top.peek()]) {
+                    top.poll();
+                    top.add(segment);
+                }
+            }
+            Match[] matches = new Match[top.size()];
+            for (int i = matches.length - 1; i >= 0; i--) {
+                int segment = top.poll();
+                Entry entry = segments.get(segment);
+                matches[i] = new Match(entry.id(), entry.segment(), scores[segment]);
+            }
+            return List.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int terms() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Segmentos (não removidos) que contêm o termo
+     */
+    public int documentFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            Postings list = postings.get(term);
+            return list == null ? 0 : list.live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Termos em minúsculas; termos compostos geram também as partes
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String token = matcher.group();
+            while (token.length() > 1 && ".-/_".indexOf(token.charAt(token.length() - 1)) >= 0) {
+                token = token.substring(0, token.length() - 1);
+            }
+            tokens.add(token);
+            String[] parts = SUBTOKEN.split(token);
+            if (parts.length > 1) {
+                for (String part : parts) {
+                    if (!part.isEmpty()) {
+                        tokens.add(part);
+                    }
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Lista de (segmento, frequência) de um termo; live conta os segmentos não removidos
+     */
+    private static final class Postings {
+        int[] segments = new int[4];
+        int[] tfs = new int[4];
+        int size;
+        int live;
+
+        void add(int segment, int tf) {
+            if (size == segments.length) {
+                segments = Arrays.copyOf(segments, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            segments[size] = segment;
+            tfs[size++] = tf;
+            live++;
+        }
+    }
+
+    private record Entry(String id, TextSegment segment, int length, String[] terms, int[] tfs) {}
+
+    public record Match(String id, TextSegment segment, double score) {}
+}
@@ -0,0 +1,279 @@
+package com.redhat.rag;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.jboss.logging.Logger;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.aggregator.ContentAggregator;
+import dev.langchain4j.rag.content.aggregator.DefaultContentAggregator;
+import dev.langchain4j.rag.query.Query;
+
+/**
+ * Etapa pós-busca do RAG: reduz texto repetido entre os segmentos entregues ao prompt.
+ *
+ * 1. Segmentos vizinhos do mesmo documento (o fim de um igual ao início do
+ *    outro, pelo overlap do splitter) viram um só trecho, sem repetir o
+ *    overlap, até maxPassageChars; segmentos contidos em outro são descartados.
+ * 2. Maximal Marginal Relevance escolhe os trechos: a cada passo, o de maior
+ *    lambda * relevância - (1 - lambda) * similaridade com os já escolhidos.
+ *    A relevância combina a similaridade com a consulta e a posição na busca;
+ *    a similaridade entre trechos vem dos embeddings dos segmentos gravados na
+ *    ingestão (EmbeddingCache), ou da sobreposição de termos quando o
+ *    embedding não está disponível.
+ *
+ * A seleção para em maxResults trechos ou no limite de caracteres (o mesmo
+ * orçamento de maxResults segmentos sem diversificação).
+ */
+public class ContentDiversifier implements ContentAggregator {
+
+    private static final Logger LOG = Logger.getLogger(ContentDiversifier.class);
+
+    /**
+     * Embeddings já calculados dos textos, null para os ausentes
+     */
+    @FunctionalInterface
+    public interface EmbeddingLookup {
+        List<float[]> lookup(List<String> texts);
+    }
+
+    private final EmbeddingLookup embeddings;
+    private final Function<String, float[]> queryEmbedding;
+    private final double lambda;
+    private final int minOverlap;
+    private final int maxPassageChars;
+    private final int maxResults;
+    private final int maxChars;
+    private final ContentAggregator fusion = new DefaultContentAggregator();
+
+    public ContentDiversifier(EmbeddingLookup embeddings, Function<String, float[]> queryEmbedding, double lambda,
+                              int minOverlap, int maxPassageChars, int maxResults, int maxChars) {
+        this.embeddings = embeddings;
+        this.queryEmbedding = queryEmbedding;
+        this.lambda = lambda;
+        this.minOverlap = minOverlap;
+        this.maxPassageChars = maxPassageChars;
+        this.maxResults = maxResults;
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public List<Content> aggregate(Map<Query, Collection<List<Content>>> queryToContents) {
+        List<Content> ranked = fusion.aggregate(queryToContents);
+        if (ranked.size() <= 1) {
+            return ranked;
+        }
+        List<Passage> passages = merge(ranked);
+        // Com uma consulta só (sem query transformer), a relevância é a similaridade com ela
+        float[] query = queryToContents.size() == 1 ? queryEmbedding.apply(queryToContents.keySet().iterator().next().text()) : null;
+        List<Passage> selected = select(passages, query);
+        if (LOG.isDebugEnabled()) {
+            LOG.debugf("Diversificação: %d candidatos, %d trechos após merge, %d selecionados (%d caracteres)",
+                       ranked.size(), passages.size(), selected.size(),
+                       selected.stream().mapToInt(passage -> passage.text.length()).sum());
+        }
+        return selected.stream().map(Passage::content).toList();
+    }
+
+    /**
+     * Junta segmentos sobrepostos do mesmo documento, mantendo a melhor posição de cada trecho
+     */
+    List<Passage> merge(List<Content> ranked) {
+        List<float[]> vectors = embeddings.lookup(ranked.stream().map(content -> content.textSegment().text()).toList());
+        List<Passage> passages = new ArrayList<>(ranked.size());
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            passages.add(new Passage(ranked.get(rank), rank, vectors.get(rank)));
+        }
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < passages.size() && !merged; i++) {
+                for (int j = i + 1; j < passages.size() && !merged; j++) {
+                    Passage combined = combine(passages.get(i), passages.get(j));
+                    if (combined != null) {
+                        passages.set(i, combined);
+                        passages.remove(j);
+                        merged = true;
+                    }
+                }
+            }
+        }
+        return passages;
+    }
+
+    /**
+     * Trecho único para dois segmentos do mesmo documento, ou null se não se sobrepõem
+     */
+    private Passage combine(Passage a, Passage b) {
+        if (a.documentId == null || !a.documentId.equals(b.documentId)) {
+            return null;
+        }
+        if (a.text.contains(b.text)) {
+            return a.absorb(b, a.text);
+        }
+        if (b.text.contains(a.text)) {
+            return b.absorb(a, b.text);
+        }
+        // Trechos longos demais ocupariam o orçamento de caracteres sozinhos
+        if (a.text.length() + b.text.length() - minOverlap > maxPassageChars) {
+            return null;
+        }
+        int overlap = overlap(a.text, b.text);
+        if (overlap > 0) {
+            return a.absorb(b, a.text + b.text.substring(overlap));
+        }
+        overlap = overlap(b.text, a.text);
+        if (overlap > 0) {
+            return a.absorb(b, b.text + a.text.substring(overlap));
+        }
+        return null;
+    }
+
+    /**
+     * Tamanho do maior sufixo de first que é prefixo de second (0 se menor que minOverlap)
+     */
+    int overlap(String first, String second) {
+        if (first.length() < minOverlap || second.length() < minOverlap) {
+            return 0;
+        }
+        String head = second.substring(0, minOverlap);
+        int from = Math.max(0, first.length() - second.length());
+        for (int at = first.indexOf(head, from); at >= 0; at = first.indexOf(head, at + 1)) {
+            int length = first.length() - at;
+            if (first.regionMatches(at, second, 0, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Seleção gulosa por MMR dentro do limite de trechos e de caracteres
+     */
+    List<Passage> select(List<Passage> passages, float[] query) {
+        int worst = passages.stream().mapToInt(passage -> passage.rank).max().orElse(0) + 1;
+        List<Passage> remaining = new ArrayList<>(passages);
+        List<Passage> selected = new ArrayList<>();
+        int chars = 0;
+        while (selected.size() < maxResults && !remaining.isEmpty()) {
+            Passage best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Passage candidate : remaining) {
+                // O primeiro trecho sempre entra, mesmo acima do limite
+                if (!selected.isEmpty() && chars + candidate.text.length() > maxChars) {
+                    continue;
+                }
+                double relevance = relevance(candidate, query, worst);
+                double redundancy = 0;
+                for (Passage chosen : selected) {
+                    redundancy = Math.max(redundancy, similarity(candidate, chosen));
+                }
+                double score = lambda * relevance - (1 - lambda) * redundancy;
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = candidate;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            remaining.remove(best);
+            selected.add(best);
+            chars += best.text.length();
+        }
+        return selected;
+    }
+
+    /**
+     * Média entre a similaridade com a consulta e a posição na busca (que traz o BM25 na busca híbrida)
+     */
+    private static double relevance(Passage passage, float[] query, int worst) {
+        double position = 1.0 - (double) passage.rank / worst;
+        if (query == null || passage.vector == null) {
+            return position;
+        }
+        return (cosine(query, passage.vector) + position) / 2;
+    }
+
+    private static double similarity(Passage a, Passage b) {
+        if (a.vector != null && b.vector != null) {
+            return cosine(a.vector, b.vector);
+        }
+        Set<String> intersection = new HashSet<>(a.terms());
+        intersection.retainAll(b.terms());
+        int union = a.terms().size() + b.terms().size() - intersection.size();
+        return union == 0 ? 0 : (double) intersection.size() / union;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+
+    /**
+     * Um ou mais segmentos vizinhos do mesmo documento
+     *
+     * @param rank   melhor posição entre os segmentos na busca
+     * @param vector soma dos embeddings dos segmentos (null se algum faltar)
+     */
+    static final class Passage {
+        final Content best;
+        final String documentId;
+        final String text;
+        final int rank;
+        final float[] vector;
+        private Set<String> terms;
+
+        Passage(Content content, int rank, float[] vector) {
+            this(content, content.textSegment().text(), rank, vector);
+        }
+
+        private Passage(Content best, String text, int rank, float[] vector) {
+            this.best = best;
+            this.documentId = best.textSegment().metadata().getString(DocumentIngestionService.DOCUMENT_ID);
+            this.text = text;
+            this.rank = rank;
+            this.vector = vector;
+        }
+
+        Passage absorb(Passage other, String mergedText) {
+            Passage first = rank <= other.rank ? this : other;
+            float[] sum = null;
+            if (vector != null && other.vector != null) {
+                sum = new float[vector.length];
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] = vector[i] + other.vector[i];
+                }
+            }
+            return new Passage(first.best, mergedText, first.rank, sum);
+        }
+
+        Set<String> terms() {
+            if (terms == null) {
+                terms = new HashSet<>(Bm25Index.tokenize(text));
+            }
+            return terms;
+        }
+
+        Content content() {
+            if (text.equals(best.textSegment().text())) {
+                return best;
+            }
+            return Content.from(TextSegment.from(text, best.textSegment().metadata().copy()), best.metadata());
+        }
+    }
+}
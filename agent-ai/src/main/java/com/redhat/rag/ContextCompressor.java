@@ -0,0 +1,274 @@
+package com.redhat.rag;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.aggregator.ContentAggregator;
+import dev.langchain4j.rag.query.Query;
+
+/**
+ * Compressão extrativa do contexto do RAG, entre a busca e o prompt.
+ *
+ * Os segmentos recuperados são quebrados em frases (linhas e blocos de código
+ * inteiros contam como uma frase) e cada frase recebe a
+ * fração do peso dos termos da consulta que contém, com peso IDF calculado
+ * sobre as frases do próprio contexto (termos que aparecem em toda parte
+ * pesam pouco). Ficam as frases com pontuação a partir de rag.compression.min-score,
+ * das mais bem pontuadas para as demais, até rag.compression.max-tokens; de
+ * um segmento sem nenhuma frase acima do limite fica a melhor, já que a busca
+ * vetorial o considerou relevante. As frases mantidas seguem a ordem original,
+ * com "…" no lugar dos trechos cortados.
+ *
+ * Tokens estimados em ~4 caracteres por token; os tokens economizados ficam em
+ * /admin/rag/compression.
+ */
+@ApplicationScoped
+public class ContextCompressor {
+
+    private static final Logger LOG = Logger.getLogger(ContextCompressor.class);
+
+    private static final Pattern SENTENCE = Pattern.compile("(?<=[.!?])\\s+|\\s*\\n\\s*");
+    private static final Pattern CODE_BLOCK = Pattern.compile("```.*?(?:```|$)", Pattern.DOTALL);
+    private static final String GAP = " … ";
+
+    @ConfigProperty(name = "rag.compression.enabled", defaultValue = "true")
+    boolean enabled;
+
+    // Fração do peso dos termos da consulta que uma frase precisa conter
+    @ConfigProperty(name = "rag.compression.min-score", defaultValue = "0.3")
+    double minScore;
+
+    @ConfigProperty(name = "rag.compression.max-tokens", defaultValue = "600")
+    int maxTokens;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong tokensIn = new AtomicLong();
+    private final AtomicLong tokensOut = new AtomicLong();
+    private final AtomicLong sentencesIn = new AtomicLong();
+    private final AtomicLong sentencesOut = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Aplica a compressão ao resultado de outro agregador
+     */
+    public ContentAggregator wrap(ContentAggregator delegate) {
+        return queryToContents -> compress(queryText(queryToContents), delegate.aggregate(queryToContents));
+    }
+
+    private static String queryText(Map<Query, Collection<List<Content>>> queryToContents) {
+        return queryToContents.keySet().stream().map(Query::text).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Conteúdos só com as frases relevantes para a consulta, dentro do orçamento de tokens
+     */
+    public List<Content> compress(String query, List<Content> contents) {
+        if (contents.isEmpty()) {
+            return contents;
+        }
+        List<Sentence> sentences = new ArrayList<>();
+        for (int c = 0; c < contents.size(); c++) {
+            split(c, contents.get(c).textSegment().text(), sentences);
+        }
+        score(query, sentences);
+
+        // Frases elegíveis: acima do limite, ou a melhor de um segmento sem nenhuma acima
+        Map<Integer, Sentence> bestByContent = new HashMap<>();
+        for (Sentence sentence : sentences) {
+            bestByContent.merge(sentence.content, sentence, (a, b) -> b.score > a.score ? b : a);
+        }
+        Set<Integer> covered = sentences.stream().filter(s -> s.score >= minScore)
+                                        .map(s -> s.content).collect(Collectors.toSet());
+        List<Sentence> candidates = new ArrayList<>();
+        for (Sentence sentence : sentences) {
+            if (sentence.score >= minScore || (!covered.contains(sentence.content) && bestByContent.get(sentence.content) == sentence)) {
+                candidates.add(sentence);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble((Sentence s) -> -s.score)
+                                  .thenComparingInt(s -> s.content)
+                                  .thenComparingInt(s -> s.position));
+
+        int budget = maxTokens * 4;
+        int chars = 0;
+        Set<Sentence> kept = new LinkedHashSet<>();
+        for (Sentence sentence : candidates) {
+            if (chars + sentence.text.length() > budget && !kept.isEmpty()) {
+                continue;
+            }
+            kept.add(sentence);
+            chars += sentence.text.length();
+        }
+
+        List<Content> compressed = new ArrayList<>(contents.size());
+        int before = 0;
+        int after = 0;
+        for (int c = 0; c < contents.size(); c++) {
+            Content content = contents.get(c);
+            before += content.textSegment().text().length();
+            String text = rebuild(sentences, kept, c);
+            if (text.isEmpty()) {
+                continue;
+            }
+            after += text.length();
+            compressed.add(Content.from(TextSegment.from(text, content.textSegment().metadata().copy()), content.metadata()));
+        }
+
+        requests.incrementAndGet();
+        tokensIn.addAndGet(before / 4);
+        tokensOut.addAndGet(after / 4);
+        sentencesIn.addAndGet(sentences.size());
+        sentencesOut.addAndGet(kept.size());
+        LOG.debugf("Compressão do contexto: %d -> %d tokens (%d economizados), %d de %d frases",
+                   before / 4, after / 4, (before - after) / 4, kept.size(), sentences.size());
+        return compressed;
+    }
+
+    /**
+     * Quebra o texto de um conteúdo em frases, mantendo os blocos de código inteiros
+     */
+    private static void split(int content, String text, List<Sentence> sentences) {
+        int first = sentences.size();
+        Matcher code = CODE_BLOCK.matcher(text);
+        int from = 0;
+        while (code.find()) {
+            prose(content, text.substring(from, code.start()), first, sentences);
+            add(content, code.group(), true, first, sentences);
+            from = code.end();
+        }
+        prose(content, text.substring(from), first, sentences);
+    }
+
+    private static void prose(int content, String text, int first, List<Sentence> sentences) {
+        Matcher separator = SENTENCE.matcher(text);
+        int from = 0;
+        boolean lineBreak = true;
+        while (separator.find()) {
+            add(content, text.substring(from, separator.start()), lineBreak, first, sentences);
+            lineBreak = separator.group().indexOf('\n') >= 0;
+            from = separator.end();
+        }
+        add(content, text.substring(from), lineBreak, first, sentences);
+    }
+
+    private static void add(int content, String text, boolean lineBreak, int first, List<Sentence> sentences) {
+        String stripped = text.strip();
+        if (!stripped.isEmpty()) {
+            sentences.add(new Sentence(content, sentences.size() - first, stripped, lineBreak,
+                                       new HashSet<>(Bm25Index.tokenize(stripped))));
+        }
+    }
+
+    /**
+     * Pontua as frases pela fração do peso IDF dos termos da consulta que contêm
+     */
+    private static void score(String query, List<Sentence> sentences) {
+        Set<String> terms = new HashSet<>(Bm25Index.tokenize(query));
+        terms.removeIf(term -> term.length() < 2);
+        Map<String, Double> weights = new HashMap<>();
+        int n = sentences.size();
+        for (String term : terms) {
+            long df = sentences.stream().filter(sentence -> sentence.terms.contains(term)).count();
+            // Termos ausentes do contexto não diferenciam as frases
+            if (df > 0) {
+                weights.put(term, Math.log(1 + (n - df + 0.5) / (df + 0.5)));
+            }
+        }
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        for (Sentence sentence : sentences) {
+            double matched = 0;
+            for (Map.Entry<String, Double> weight : weights.entrySet()) {
+                if (sentence.terms.contains(weight.getKey())) {
+                    matched += weight.getValue();
+                }
+            }
+            // Sem nenhum termo da consulta no contexto, nada a diferenciar: todas as frases valem
+            sentence.score = total == 0 ? 1.0 : matched / total;
+        }
+    }
+
+    /**
+     * Texto do conteúdo com as frases mantidas na ordem original
+     */
+    private static String rebuild(List<Sentence> sentences, Set<Sentence> kept, int content) {
+        StringBuilder text = new StringBuilder();
+        int last = -1;
+        for (Sentence sentence : sentences) {
+            if (sentence.content != content || !kept.contains(sentence)) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append(sentence.position != last + 1 ? GAP : sentence.lineBreak ? "\n" : " ");
+            } else if (sentence.position > 0) {
+                text.append("… ");
+            }
+            text.append(sentence.text);
+            last = sentence.position;
+        }
+        return text.toString();
+    }
+
+    public CompressionStats stats() {
+        long in = tokensIn.get();
+        long out = tokensOut.get();
+        long count = requests.get();
+        return new CompressionStats(enabled, minScore, maxTokens, count, in, out, in - out,
+                                    count == 0 ? 0.0 : (double) (in - out) / count,
+                                    in == 0 ? 0.0 : (double) out / in, sentencesIn.get(), sentencesOut.get());
+    }
+
+    /**
+     * Frase de um conteúdo recuperado
+     *
+     * @param content  posição do conteúdo na lista
+     * @param position  posição da frase no conteúdo
+     * @param lineBreak a frase começa uma linha (ou é um bloco de código)
+     */
+    private static final class Sentence {
+        final int content;
+        final int position;
+        final String text;
+        final boolean lineBreak;
+        final Set<String> terms;
+        double score;
+
+        Sentence(int content, int position, String text, boolean lineBreak, Set<String> terms) {
+            this.content = content;
+            this.position = position;
+            this.text = text;
+            this.lineBreak = lineBreak;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * Estatísticas exibidas em /admin/rag/compression (tokens estimados)
+     *
+     * @param tokensSavedPerRequest média de tokens removidos do contexto por requisição
+     * @param ratio                 tokens entregues / tokens recuperados
+     */
+    public record CompressionStats(boolean enabled, double minScore, int maxTokens, long requests, long tokensIn,
+                                   long tokensOut, long tokensSaved, double tokensSavedPerRequest, double ratio,
+                                   long sentencesIn, long sentencesOut) {}
+}
@@ -1,72 +1,437 @@
 package com.redhat.rag;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
-import io.quarkiverse.langchain4j.easyrag.EasyRagManualIngestion;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.segment.TextSegment;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 
 /**
  * Serviço para gerenciar a ingestão de documentos no vector store.
- * 
- * Usamos ingestion manual para ter controle sobre quando indexar documentos,
- * evitando re-indexar toda vez que a aplicação inicia.
+ *
+ * A ingestão é incremental: cada documento tem no DocumentManifest o hash do
+ * seu conteúdo (junto com a configuração do splitter) e os ids dos segmentos gravados. Só arquivos novos ou alterados
+ * são lidos e re-embedados (pelo IngestionPipeline), e os segmentos de arquivos
+ * alterados ou apagados são removidos do vector store (RagStore). Os mesmos
+ * segmentos alimentam o índice BM25 (LexicalIndexService) da busca híbrida.
+ * Markdown e HTML são quebrados pelo StructuredDocumentSplitter (rag.splitter.type);
+ * como o hash inclui o splitter, mudar o tipo, os tamanhos ou o heading-context
+ * re-quebra os documentos na próxima ingestão, como uma troca de modelo.
+ *
+ * A re-ingestão forçada e a limpeza são blue-green: os documentos são gravados
+ * numa nova versão do índice (RagIndexVersions) enquanto a versão ativa
+ * continua servindo as buscas; ao final a versão ativa é trocada de uma vez e
+ * os dados da anterior são apagados em background. Se algum documento falhar,
+ * a nova versão é descartada e a anterior continua ativa.
+ *
+ * A ingestão roda em background; o andamento fica disponível em lastJob().
  */
 @ApplicationScoped
 public class DocumentIngestionService {
 
     private static final Logger LOG = Logger.getLogger(DocumentIngestionService.class);
 
+    // Metadado gravado em cada segmento para identificar o documento de origem
+    public static final String DOCUMENT_ID = "document_id";
+
+    public static final String STRUCTURED = "structured";
+    public static final String RECURSIVE = "recursive";
+
+    @Inject
+    RagEmbeddingModel embeddingModel;
+
+    @Inject
+    RagStore ragStore;
+
+    @Inject
+    DocumentManifest manifest;
+
+    @Inject
+    LexicalIndexService lexicalIndex;
+
+    @Inject
+    EmbeddingCache embeddingCache;
+
     @Inject
-    EasyRagManualIngestion easyRagManualIngestion;
+    RagIndexVersions versions;
+
+    @ConfigProperty(name = "quarkus.langchain4j.easy-rag.path")
+    String documentsPath;
+
+    @ConfigProperty(name = "quarkus.langchain4j.easy-rag.path-matcher", defaultValue = "glob:**")
+    String pathMatcher;
+
+    @ConfigProperty(name = "quarkus.langchain4j.easy-rag.recursive", defaultValue = "true")
+    boolean recursive;
+
+    @ConfigProperty(name = "quarkus.langchain4j.easy-rag.max-segment-size", defaultValue = "300")
+    int maxSegmentSize;
+
+    @ConfigProperty(name = "quarkus.langchain4j.easy-rag.max-overlap-size", defaultValue = "30")
+    int maxOverlapSize;
+
+    // structured (segue títulos, blocos de código e tabelas de markdown/HTML) ou recursive
+    @ConfigProperty(name = "rag.splitter.type", defaultValue = STRUCTURED)
+    String splitterType;
+
+    // Caminho de títulos na primeira linha de cada segmento (splitter structured)
+    @ConfigProperty(name = "rag.splitter.heading-context", defaultValue = "true")
+    boolean headingContext;
+
+    @ConfigProperty(name = "rag.ingestion.parse-threads", defaultValue = "4")
+    int parseThreads;
+
+    @ConfigProperty(name = "rag.ingestion.embed-batch-size", defaultValue = "64")
+    int embedBatchSize;
+
+    @ConfigProperty(name = "rag.ingestion.embed-concurrency", defaultValue = "4")
+    int embedConcurrency;
+
+    @ConfigProperty(name = "rag.ingestion.embed-max-retries", defaultValue = "3")
+    int embedMaxRetries;
 
-    private boolean isIngested = false;
+    @ConfigProperty(name = "rag.ingestion.retry-backoff-ms", defaultValue = "500")
+    long retryBackoffMs;
+
+    @ConfigProperty(name = "rag.ingestion.write-concurrency", defaultValue = "2")
+    int writeConcurrency;
+
+    // Espera antes de apagar a versão substituída: as outras réplicas trocam de versão em rag.index.refresh-interval
+    @ConfigProperty(name = "rag.index.drop-delay-seconds", defaultValue = "30")
+    long dropDelaySeconds;
+
+    private volatile IngestionJob lastJob;
+
+    /**
+     * Inicia em background a sincronização do vector store com o diretório de documentos.
+     * Arquivos sem alteração desde a última ingestão são ignorados.
+     * Se já houver uma ingestão em andamento, ela é retornada.
+     */
+    public IngestionJob startIngestion() {
+        return start(false);
+    }
+
+    /**
+     * Inicia em background a re-ingestão de todos os documentos numa nova versão do índice,
+     * ativada quando todos forem gravados.
+     */
+    public IngestionJob startForcedIngestion() {
+        return start(true);
+    }
 
     /**
-     * Ingere todos os documentos do diretório configurado.
-     * Só executa se ainda não foi feito nesta sessão.
+     * Última ingestão executada (ou em andamento), null se nenhuma
      */
-    public void ingestDocuments() {
-        if (isIngested) {
-            LOG.info("Documentos já foram ingeridos nesta sessão");
-            return;
+    public IngestionJob lastJob() {
+        return lastJob;
+    }
+
+    private synchronized IngestionJob start(boolean force) {
+        if (lastJob != null && lastJob.isRunning()) {
+            LOG.infof("Ingestão %s já está em andamento", lastJob.id());
+            return lastJob;
+        }
+        if (!force && !embeddingModel.indexCompatible()) {
+            // Vetores de outro modelo (e outra dimensão) não servem: re-indexa tudo numa nova versão
+            LOG.infof("Índice ativo gerado pelo modelo %s; re-indexação completa com %s",
+                      versions.activeModel(), embeddingModel.modelId());
+            force = true;
         }
+        IngestionJob job = new IngestionJob(force);
+        lastJob = job;
+        Infrastructure.getDefaultWorkerPool().execute(() -> run(job));
+        return job;
+    }
 
+    private void run(IngestionJob job) {
+        long active = versions.active();
+        long version = job.isForce() ? versions.next() : active;
+        job.indexVersion = version;
         try {
-            LOG.info("Iniciando ingestão de documentos...");
-            easyRagManualIngestion.ingest();
-            isIngested = true;
-            LOG.info("Ingestão de documentos concluída com sucesso!");
+            LOG.infof("Iniciando ingestão %s%s", job.id(), job.isForce()
+                      ? " (forçada, versão v" + version + " enquanto v" + active + " serve as buscas)" : "");
+            List<IngestionPipeline.WorkItem> work = scan(job, version);
+            if (!work.isEmpty()) {
+                EmbeddingCache.CacheStats before = embeddingCache.stats();
+                pipeline(version).run(work, job);
+                EmbeddingCache.CacheStats after = embeddingCache.stats();
+                job.cacheHits.set(after.localHits() + after.redisHits() - before.localHits() - before.redisHits());
+                job.cacheMisses.set(after.misses() - before.misses());
+            }
+            ragStore.flush();
+            versions.setModel(version, embeddingModel.modelId());
+            if (version != active) {
+                if (!job.failed.isEmpty()) {
+                    throw new IllegalStateException(job.failed.size() + " documentos falharam; a versão v"
+                                                    + active + " continua ativa");
+                }
+                retire(activate(version));
+            }
+            job.complete();
+            IngestionJob.IngestionStatus status = job.status();
+            IngestionReport report = status.report();
+            LOG.infof("Ingestão concluída em %d ms: %d novos, %d alterados, %d sem alteração, %d removidos, "
+                      + "%d falhas, %d segmentos (%.1f docs/s, %.1f segmentos/s, cache de embeddings %.0f%%)",
+                      report.durationMs(), report.added(), report.updated(), report.unchanged(), report.removed(),
+                      report.failed().size(), report.segments(), status.documentsPerSecond(), status.segmentsPerSecond(),
+                      status.embeddingCacheHitRate() * 100);
         } catch (Exception e) {
             LOG.error("Erro ao ingerir documentos", e);
-            throw new RuntimeException("Falha na ingestão de documentos", e);
+            job.fail(e.getMessage());
+            if (version != active && versions.active() != version) {
+                retire(version);
+            }
         }
     }
 
     /**
-     * Força uma nova ingestão, mesmo que já tenha sido executada.
-     * Útil para re-indexar após adicionar novos documentos.
+     * Passa a servir as buscas pela versão: o ponteiro da versão ativa é trocado
+     * de uma vez, junto com o alias do índice e o índice BM25 desta réplica.
+     *
+     * @return versão ativa anterior
+     */
+    private long activate(long version) {
+        // Garante o índice da versão mesmo sem nenhum documento gravado
+        ragStore.store(version);
+        long previous = versions.activate(version);
+        ragStore.updateAlias(version);
+        lexicalIndex.reload();
+        return previous;
+    }
+
+    /**
+     * Apaga em background os dados de uma versão que não é servida, depois de
+     * rag.index.drop-delay-seconds para as buscas em andamento e as outras
+     * réplicas deixarem de usá-la.
      */
-    public void forceIngest() {
-        LOG.info("Forçando re-ingestão de documentos...");
-        isIngested = false;
-        ingestDocuments();
+    private void retire(long version) {
+        CompletableFuture.runAsync(() -> {
+            if (version == versions.active()) {
+                LOG.warnf("Versão v%d voltou a ser a ativa; dados mantidos", version);
+                return;
+            }
+            try {
+                long start = System.currentTimeMillis();
+                ragStore.drop(version);
+                long documents = manifest.drop(version);
+                lexicalIndex.drop(version);
+                LOG.infof("Versão v%d do índice do RAG removida (%d documentos) em %d ms",
+                          version, documents, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                LOG.errorf(e, "Falha ao remover a versão v%d do índice do RAG", version);
+            }
+        }, CompletableFuture.delayedExecutor(dropDelaySeconds, TimeUnit.SECONDS, Infrastructure.getDefaultWorkerPool()));
     }
 
     /**
-     * Verifica se os documentos já foram ingeridos nesta sessão.
+     * Estágio de scan: compara os hashes dos arquivos com o manifesto, remove do
+     * vector store os documentos apagados e retorna os novos ou alterados.
+     */
+    private List<IngestionPipeline.WorkItem> scan(IngestionJob job, long version) throws IOException {
+        long start = System.nanoTime();
+        Map<String, DocumentManifest.Entry> indexed = manifest.all(version);
+        Map<String, Path> files = listFiles();
+        job.stage(IngestionJob.SCAN).total.set(files.size());
+        boolean force = job.isForce();
+        byte[] splitter = splitterSignature().getBytes(StandardCharsets.UTF_8);
+
+        List<IngestionPipeline.WorkItem> work = new ArrayList<>();
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            DocumentManifest.Entry previous = indexed.get(file.getKey());
+            byte[] content = Files.readAllBytes(file.getValue());
+            String hash = sha256(splitter, content);
+            if (!force && previous != null && hash.equals(previous.hash())) {
+                job.unchanged.incrementAndGet();
+            } else {
+                work.add(new IngestionPipeline.WorkItem(file.getKey(), file.getValue(), hash, content.length, previous));
+            }
+        }
+
+        // Documentos do manifesto que não existem mais no diretório
+        for (DocumentManifest.Entry entry : indexed.values()) {
+            if (!files.containsKey(entry.documentId())) {
+                ragStore.remove(version, entry.segmentIds());
+                lexicalIndex.remove(version, entry.documentId());
+                manifest.delete(version, entry.documentId());
+                job.removed.incrementAndGet();
+            }
+        }
+        job.stage(IngestionJob.SCAN).record(files.size(), start);
+        LOG.infof("Scan: %d arquivos, %d novos ou alterados, %d removidos", files.size(), work.size(), job.removed.get());
+        return work;
+    }
+
+    private IngestionPipeline pipeline(long version) {
+        IngestionPipeline.Settings settings = new IngestionPipeline.Settings(
+            parseThreads, embedBatchSize, embedConcurrency, embedMaxRetries, retryBackoffMs, writeConcurrency);
+        return new IngestionPipeline(settings, splitter(),
+                                     embeddingCache.cached(embeddingModel), ragStore.store(version), new IngestionPipeline.Sink() {
+            @Override
+            public void indexed(IngestionPipeline.WorkItem item, List<String> ids, List<TextSegment> segments) {
+                manifest.save(version, new DocumentManifest.Entry(item.documentId(), item.hash(), item.size(),
+                                                         ids, System.currentTimeMillis()));
+                lexicalIndex.index(version, item.documentId(), ids, segments);
+                if (item.previous() != null) {
+                    ragStore.remove(version, item.previous().segmentIds());
+                }
+            }
+
+            @Override
+            public void discard(List<String> ids) {
+                ragStore.remove(version, ids);
+            }
+        });
+    }
+
+    private DocumentSplitter splitter() {
+        if (STRUCTURED.equalsIgnoreCase(splitterType)) {
+            return new StructuredDocumentSplitter(maxSegmentSize, maxOverlapSize, headingContext);
+        }
+        return DocumentSplitters.recursive(maxSegmentSize, maxOverlapSize);
+    }
+
+    /**
+     * Configuração que determina os segmentos de um documento; entra no hash do manifesto.
+     * O heading-context só vale para o splitter structured.
+     */
+    String splitterSignature() {
+        if (STRUCTURED.equalsIgnoreCase(splitterType)) {
+            return STRUCTURED + ":" + maxSegmentSize + "/" + maxOverlapSize + (headingContext ? ":heading-context" : "");
+        }
+        return RECURSIVE + ":" + maxSegmentSize + "/" + maxOverlapSize;
+    }
+
+    /**
+     * Apaga o arquivo de um documento e o remove do vector store e do manifesto.
+     * Recusado durante uma ingestão: o documento pode já estar no scan (ou no
+     * manifesto da versão sendo construída) e voltaria ao índice na troca.
+     *
+     * @return número de segmentos removidos
+     */
+    public synchronized int deleteDocument(Path file) throws IOException {
+        if (lastJob != null && lastJob.isRunning()) {
+            throw new IllegalStateException("Ingestão " + lastJob.id() + " em andamento; remova o documento ao final");
+        }
+        Files.delete(file);
+        return removeDocument(documentId(file));
+    }
+
+    /**
+     * Remove um documento da versão ativa do vector store e do manifesto
+     *
+     * @return número de segmentos removidos
+     */
+    private int removeDocument(String documentId) {
+        long version = versions.active();
+        DocumentManifest.Entry entry = manifest.get(version, documentId);
+        if (entry == null) {
+            return 0;
+        }
+        ragStore.remove(version, entry.segmentIds());
+        lexicalIndex.remove(version, documentId);
+        manifest.delete(version, documentId);
+        LOG.infof("Documento '%s' removido do vector store (%d segmentos)", documentId, entry.segmentIds().size());
+        return entry.segmentIds().size();
+    }
+
+    /**
+     * Arquivos do diretório do RAG que casam com o path-matcher, pelo id do documento
+     */
+    private Map<String, Path> listFiles() throws IOException {
+        Map<String, Path> files = new LinkedHashMap<>();
+        Path root = documentsRoot();
+        if (!Files.isDirectory(root)) {
+            LOG.warnf("Diretório de documentos não encontrado: %s", root.toAbsolutePath());
+            return files;
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher(pathMatcher);
+        try (Stream<Path> paths = recursive ? Files.walk(root) : Files.list(root)) {
+            paths.filter(Files::isRegularFile)
+                 .filter(matcher::matches)
+                 .sorted()
+                 .forEach(path -> files.put(documentId(path), path));
+        }
+        return files;
+    }
+
+    public Path documentsRoot() {
+        return Path.of(documentsPath);
+    }
+
+    /**
+     * Id do documento: caminho relativo ao diretório do RAG, com '/' como separador
+     */
+    public String documentId(Path file) {
+        return documentsRoot().relativize(file).toString().replace('\\', '/');
+    }
+
+    private static String sha256(byte[] splitter, byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(splitter);
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Verifica se há documentos indexados.
      */
     public boolean isIngested() {
-        return isIngested;
+        return !manifest.isEmpty();
+    }
+
+    public int indexedDocuments() {
+        return manifest.count();
     }
-    
+
     /**
-     * Reseta o status de ingestão.
-     * Útil quando os dados do RAG são limpos do Redis.
+     * Limpa os dados do RAG: ativa uma nova versão vazia do índice e apaga a
+     * anterior em background (a próxima ingestão reprocessa todos os documentos).
+     *
+     * @return segmentos da versão descartada
      */
-    public void resetIngestionStatus() {
-        LOG.info("Resetando status de ingestão");
-        isIngested = false;
+    public synchronized long clear() {
+        if (lastJob != null && lastJob.isRunning()) {
+            throw new IllegalStateException("Ingestão " + lastJob.id() + " em andamento");
+        }
+        long previous = versions.active();
+        long segments = manifest.all(previous).values().stream().mapToLong(entry -> entry.segmentIds().size()).sum();
+        long version = versions.next();
+        versions.setModel(version, embeddingModel.modelId());
+        activate(version);
+        retire(previous);
+        LOG.infof("Dados do RAG limpos: versão v%d ativa, v%d (%d segmentos) será removida", version, previous, segments);
+        return segments;
     }
+
+    /**
+     * Resultado de uma ingestão incremental
+     */
+    public record IngestionReport(int added, int updated, int unchanged, int removed, int segments,
+                                  List<String> failed, long durationMs) {}
 }
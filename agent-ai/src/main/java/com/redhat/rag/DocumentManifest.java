@@ -0,0 +1,112 @@
+package com.redhat.rag;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import com.redhat.redis.RedisService;
+
+/**
+ * Manifesto dos documentos indexados no vector store, guardado no Redis.
+ *
+ * Para cada documento (caminho relativo ao diretório do RAG) guarda o hash
+ * do conteúdo e os ids dos segmentos gravados no vector store. Com isso a
+ * ingestão só reprocessa arquivos novos ou alterados e consegue remover os
+ * segmentos de um documento que mudou ou foi apagado.
+ *
+ * Cada versão do índice (RagIndexVersions) tem o seu manifesto; os métodos
+ * sem versão usam a versão ativa.
+ */
+@ApplicationScoped
+public class DocumentManifest {
+
+    private static final String REDIS_PREFIX = "dora:rag:manifest:";
+    private static final int SCAN_COUNT = 500;
+    private static final int EMPTY_SCAN_COUNT = 50;
+
+    @Inject
+    RedisService redisService;
+
+    @Inject
+    RagIndexVersions versions;
+
+    private static String prefix(long version) {
+        return RagIndexVersions.versioned(REDIS_PREFIX, version);
+    }
+
+    public Entry get(long version, String documentId) {
+        return redisService.getValue(prefix(version) + documentId, Entry.class);
+    }
+
+    public void save(long version, Entry entry) {
+        redisService.setValue(prefix(version) + entry.documentId(), entry);
+    }
+
+    public void delete(long version, String documentId) {
+        redisService.deleteKey(prefix(version) + documentId);
+    }
+
+    /**
+     * Todas as entradas do manifesto da versão ativa, indexadas pelo id do documento
+     */
+    public Map<String, Entry> all() {
+        return all(versions.active());
+    }
+
+    /**
+     * Entradas do manifesto de uma versão: SCAN das chaves e MGET em lotes
+     * (KEYS e um GET por documento bloqueariam o Redis a cada scan da ingestão)
+     */
+    public Map<String, Entry> all(long version) {
+        Map<String, Entry> entries = new HashMap<>();
+        List<String> keys = redisService.scan("0", prefix(version) + "*", SCAN_COUNT).getKeys();
+        for (int from = 0; from < keys.size(); from += SCAN_COUNT) {
+            List<String> batch = keys.subList(from, Math.min(keys.size(), from + SCAN_COUNT));
+            for (Entry entry : redisService.getValues(batch, Entry.class).values()) {
+                entries.put(entry.documentId(), entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Número de documentos da versão ativa (só o SCAN das chaves, sem ler as entradas)
+     */
+    public int count() {
+        return redisService.scan("0", prefix(versions.active()) + "*", SCAN_COUNT).getKeys().size();
+    }
+
+    /**
+     * Sem documentos na versão ativa; o SCAN para na primeira chave encontrada
+     */
+    public boolean isEmpty() {
+        return !redisService.hasKeys(prefix(versions.active()) + "*", EMPTY_SCAN_COUNT);
+    }
+
+    /**
+     * Remove o manifesto de uma versão descartada (SCAN em vez de KEYS para não
+     * bloquear o Redis enquanto a versão ativa é servida)
+     */
+    public long drop(long version) {
+        List<String> keys = redisService.scan("0", prefix(version) + "*", SCAN_COUNT).getKeys();
+        long deleted = 0;
+        for (int from = 0; from < keys.size(); from += SCAN_COUNT) {
+            deleted += redisService.deleteKeys(keys.subList(from, Math.min(keys.size(), from + SCAN_COUNT)));
+        }
+        return deleted;
+    }
+
+    /**
+     * Estado de um documento indexado
+     *
+     * @param documentId caminho relativo ao diretório do RAG
+     * @param hash       SHA-256 do conteúdo do arquivo
+     * @param size       tamanho do arquivo em bytes
+     * @param segmentIds ids dos segmentos no vector store
+     * @param indexedAt  momento da indexação (epoch millis)
+     */
+    public record Entry(String documentId, String hash, long size, List<String> segmentIds, long indexedAt) {}
+}
@@ -0,0 +1,257 @@
+package com.redhat.rag;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.redhat.redis.RedisService;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+/**
+ * Cache de embeddings endereçado por conteúdo.
+ *
+ * A chave é o SHA-256 do texto do segmento junto com o id do modelo de
+ * embedding, então o mesmo texto (re-ingestão, arquivos quase idênticos,
+ * trechos repetidos) só é enviado ao modelo uma vez. Há duas camadas: um LRU
+ * local opcional e o Redis, compartilhado entre as réplicas.
+ */
+@ApplicationScoped
+public class EmbeddingCache {
+
+    private static final Logger LOG = Logger.getLogger(EmbeddingCache.class);
+
+    private static final String REDIS_PREFIX = "dora:rag:embedding:";
+
+    @Inject
+    RedisService redisService;
+
+    @Inject
+    RagEmbeddingModel embeddingModel;
+
+    @ConfigProperty(name = "rag.embedding-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    // 0 desabilita a camada local
+    @ConfigProperty(name = "rag.embedding-cache.local-max-entries", defaultValue = "2000")
+    int localMaxEntries;
+
+    // 0 = sem expiração
+    @ConfigProperty(name = "rag.embedding-cache.ttl-seconds", defaultValue = "0")
+    long ttlSeconds;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private Map<String, float[]> local;
+
+    private synchronized Map<String, float[]> local() {
+        if (local == null) {
+            int max = localMaxEntries;
+            local = new LinkedHashMap<>(Math.min(max, 1024), 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                    return size() > max;
+                }
+            };
+        }
+        return local;
+    }
+
+    /**
+     * Envolve o modelo: cada embedAll consulta o cache e só envia ao modelo os textos ausentes
+     */
+    public EmbeddingModel cached(EmbeddingModel delegate) {
+        if (!enabled) {
+            return delegate;
+        }
+        return new EmbeddingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                return Response.from(EmbeddingCache.this.embedAll(delegate, segments));
+            }
+
+            @Override
+            public int dimension() {
+                return delegate.dimension();
+            }
+        };
+    }
+
+    /**
+     * Embeddings dos segmentos, na mesma ordem, buscando primeiro no cache
+     */
+    public List<Embedding> embedAll(EmbeddingModel model, List<TextSegment> segments) {
+        List<String> keys = new ArrayList<>(segments.size());
+        Embedding[] result = new Embedding[segments.size()];
+        List<Integer> pending = new ArrayList<>();
+
+        for (int i = 0; i < segments.size(); i++) {
+            String key = key(segments.get(i).text());
+            keys.add(key);
+            float[] vector = localGet(key);
+            if (vector != null) {
+                result[i] = Embedding.from(vector);
+                localHits.incrementAndGet();
+            } else {
+                pending.add(i);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            int lookups = pending.size();
+            pending = fromRedis(keys, pending, result);
+            redisHits.addAndGet(lookups - pending.size());
+        }
+
+        if (!pending.isEmpty()) {
+            List<TextSegment> missing = pending.stream().map(segments::get).toList();
+            List<Embedding> embeddings = model.embedAll(missing).content();
+            misses.addAndGet(missing.size());
+            Map<String, String> toStore = new LinkedHashMap<>();
+            for (int p = 0; p < pending.size(); p++) {
+                int i = pending.get(p);
+                result[i] = embeddings.get(p);
+                toStore.put(keys.get(i), encode(embeddings.get(p).vector()));
+                localPut(keys.get(i), embeddings.get(p).vector());
+            }
+            try {
+                redisService.setValues(toStore, ttlSeconds);
+            } catch (Exception e) {
+                LOG.warnf("Falha ao gravar %d embeddings no cache: %s", toStore.size(), e.getMessage());
+            }
+        }
+        return List.of(result);
+    }
+
+    /**
+     * Embeddings já calculados para os textos (null para os ausentes), sem chamar o modelo
+     */
+    public List<float[]> lookup(List<String> texts) {
+        List<String> keys = new ArrayList<>(texts.size());
+        Embedding[] result = new Embedding[texts.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = key(texts.get(i));
+            keys.add(key);
+            float[] vector = localGet(key);
+            if (vector != null) {
+                result[i] = Embedding.from(vector);
+            } else {
+                pending.add(i);
+            }
+        }
+        if (enabled && !pending.isEmpty()) {
+            fromRedis(keys, pending, result);
+        }
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (Embedding embedding : result) {
+            vectors.add(embedding == null ? null : embedding.vector());
+        }
+        return vectors;
+    }
+
+    /**
+     * Preenche com o Redis o que não estava no cache local; retorna os índices ainda ausentes
+     */
+    private List<Integer> fromRedis(List<String> keys, List<Integer> pending, Embedding[] result) {
+        Map<String, String> found;
+        try {
+            found = redisService.getValues(pending.stream().map(keys::get).toList());
+        } catch (Exception e) {
+            LOG.warnf("Falha ao consultar o cache de embeddings: %s", e.getMessage());
+            return pending;
+        }
+        List<Integer> stillMissing = new ArrayList<>();
+        for (int i : pending) {
+            String encoded = found.get(keys.get(i));
+            if (encoded == null) {
+                stillMissing.add(i);
+                continue;
+            }
+            float[] vector = decode(encoded);
+            result[i] = Embedding.from(vector);
+            localPut(keys.get(i), vector);
+        }
+        return stillMissing;
+    }
+
+    private float[] localGet(String key) {
+        if (localMaxEntries <= 0) {
+            return null;
+        }
+        synchronized (this) {
+            return local().get(key);
+        }
+    }
+
+    private void localPut(String key, float[] vector) {
+        if (localMaxEntries <= 0) {
+            return;
+        }
+        synchronized (this) {
+            local().put(key, vector);
+        }
+    }
+
+    private String key(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return REDIS_PREFIX + embeddingModel.modelId() + ":" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Vetor como float32 little-endian em Base64 (~5,3 bytes por dimensão)
+     */
+    static String encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    static float[] decode(String encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded)).order(ByteOrder.LITTLE_ENDIAN);
+        float[] vector = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    public CacheStats stats() {
+        long hits = localHits.get() + redisHits.get();
+        long total = hits + misses.get();
+        int entries;
+        synchronized (this) {
+            entries = local == null ? 0 : local.size();
+        }
+        return new CacheStats(enabled, embeddingModel.modelId(), localHits.get(), redisHits.get(), misses.get(),
+                              total == 0 ? 0.0 : (double) hits / total, entries);
+    }
+
+    /**
+     * Estatísticas do cache exibidas em /admin/rag/embedding-cache
+     */
+    public record CacheStats(boolean enabled, String modelId, long localHits, long redisHits, long misses,
+                             double hitRate, int localEntries) {}
+}
@@ -0,0 +1,920 @@
+package com.redhat.rag;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+/**
+ * EmbeddingStore em processo: índice HNSW (Hierarchical Navigable Small World)
+ * sobre vetores num arquivo mapeado em memória.
+ *
+ * Os vetores (normalizados, float32) ficam em vectors.f32, mapeado em blocos
+ * fora do heap; o grafo, os textos e os metadados ficam no heap e são gravados
+ * em index.bin por snapshot(). Ao abrir, o índice é lido do snapshot e os
+ * vetores voltam a ser mapeados, sem re-embedar nada. Vetores gravados depois
+ * do último snapshot são descartados na abertura; quem mantém referências aos
+ * ids (o manifesto da ingestão, ver RagStore) confere com ids().
+ *
+ * Com quantização (INT8 ou BINARY, ver QuantizedVectors) a navegação da busca
+ * usa a cópia quantizada no heap, e só os maxResults * rescoreFactor melhores
+ * candidatos são re-pontuados com os vetores float32 do arquivo mapeado. O
+ * grafo é sempre construído com os vetores completos. Os códigos quantizados
+ * não vão para o snapshot: são recalculados ao abrir o índice.
+ *
+ * Remoções marcam o nó como apagado (ele continua navegável no grafo); quando
+ * mais da metade dos nós está apagada o snapshot reconstrói o índice num novo
+ * arquivo de vetores (vectors-N.f32), referenciado pelo index.bin gravado em
+ * seguida: até a troca atômica do index.bin o par anterior continua íntegro, e
+ * arquivos de vetores não referenciados são apagados.
+ *
+ * Buscas usam read lock e podem rodar em paralelo; inserções e remoções são
+ * serializadas pelo write lock.
+ */
+public class HnswEmbeddingStore implements EmbeddingStore<TextSegment>, AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(HnswEmbeddingStore.class);
+
+    private static final String INDEX_FILE = "index.bin";
+    private static final String VECTORS_FILE = "vectors.f32";
+    private static final String VECTORS_PATTERN = "vectors*.f32";
+    private static final int MAGIC = 0x484E5357;
+    // 1: sem geração (sempre vectors.f32); 2: geração do arquivo de vetores
+    private static final int VERSION = 2;
+    private static final int CHUNK_VECTORS = 4096;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Path dir;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final QuantizedVectors.Type quantization;
+    private final int rescoreFactor;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeById = new HashMap<>();
+    private VectorStorage vectors;
+    private QuantizedVectors quantized;
+    private int dimension;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deleted;
+    // Arquivo de vetores: vectors.f32 na geração 0, vectors-N.f32 após cada compactação
+    private int vectorsGeneration;
+    private volatile boolean dirty;
+
+    private HnswEmbeddingStore(Path dir, int m, int efConstruction, int efSearch,
+                               QuantizedVectors.Type quantization, int rescoreFactor) {
+        this.dir = dir;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.quantization = quantization;
+        this.rescoreFactor = rescoreFactor > 0 ? rescoreFactor : quantization.defaultRescoreFactor();
+    }
+
+    /**
+     * Abre o índice do diretório (ou cria um vazio)
+     *
+     * @param m              vizinhos por nó nas camadas superiores (2*m na camada 0)
+     * @param efConstruction candidatos avaliados ao inserir
+     * @param efSearch       candidatos avaliados por busca (mínimo; usa maxResults se maior)
+     */
+    public static HnswEmbeddingStore open(Path dir, int m, int efConstruction, int efSearch) throws IOException {
+        return open(dir, m, efConstruction, efSearch, QuantizedVectors.Type.NONE, 1);
+    }
+
+    /**
+     * Abre o índice com vetores quantizados para a navegação da busca
+     *
+     * @param quantization  none, int8 ou binary
+     * @param rescoreFactor candidatos re-pontuados com os vetores completos = maxResults * rescoreFactor
+     *                      (0 = padrão do tipo: 4 para int8, 10 para binary)
+     */
+    public static HnswEmbeddingStore open(Path dir, int m, int efConstruction, int efSearch,
+                                          String quantization, int rescoreFactor) throws IOException {
+        return open(dir, m, efConstruction, efSearch, QuantizedVectors.Type.of(quantization), rescoreFactor);
+    }
+
+    static HnswEmbeddingStore open(Path dir, int m, int efConstruction, int efSearch,
+                                   QuantizedVectors.Type quantization, int rescoreFactor) throws IOException {
+        Files.createDirectories(dir);
+        HnswEmbeddingStore store = new HnswEmbeddingStore(dir, m, efConstruction, efSearch, quantization, rescoreFactor);
+        long start = System.currentTimeMillis();
+        if (Files.exists(dir.resolve(INDEX_FILE))) {
+            store.load();
+            LOG.infof("Índice HNSW carregado de %s: %d vetores (%d apagados), dimensão %d, em %d ms",
+                      dir, store.nodes.size(), store.deleted, store.dimension, System.currentTimeMillis() - start);
+        } else {
+            LOG.infof("Índice HNSW novo em %s", dir);
+        }
+        // Sobras de uma compactação interrompida (ou de um índice sem snapshot)
+        store.deleteStaleVectorFiles();
+        return store;
+    }
+
+    // ------------------------------------------------------------------ escrita
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment segment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), List.of(segment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = generateIds(embeddings.size());
+        addAll(ids, embeddings, null);
+        return ids;
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                insert(ids.get(i), embeddings.get(i).vector(), segments != null ? segments.get(i) : null);
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                Integer node = nodeById.remove(id);
+                if (node != null) {
+                    markDeleted(node);
+                }
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        lock.writeLock().lock();
+        try {
+            for (int node = 0; node < nodes.size(); node++) {
+                Node n = nodes.get(node);
+                if (!n.deleted && n.segment != null && filter.test(n.segment.metadata())) {
+                    nodeById.remove(n.id);
+                    markDeleted(node);
+                }
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            Files.deleteIfExists(dir.resolve(INDEX_FILE));
+            vectorsGeneration = 0;
+            deleteStaleVectorFiles();
+            dirty = false;
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao apagar o índice HNSW em " + dir, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markDeleted(int node) {
+        Node n = nodes.get(node);
+        if (!n.deleted) {
+            n.deleted = true;
+            deleted++;
+        }
+    }
+
+    private void insert(String id, float[] vector, TextSegment segment) {
+        Integer existing = nodeById.get(id);
+        if (existing != null) {
+            markDeleted(existing);
+        }
+        if (vectors == null) {
+            dimension = vector.length;
+            vectors = new VectorStorage(vectorsFile(), dimension);
+            quantized = QuantizedVectors.create(quantization, dimension);
+        } else if (vector.length != dimension) {
+            throw new IllegalArgumentException("Dimensão " + vector.length + " diferente da do índice (" + dimension + ")");
+        }
+
+        float[] query = normalize(vector);
+        int node = nodes.size();
+        vectors.write(node, query);
+        if (quantized != null) {
+            quantized.set(node, query);
+        }
+        int level = (int) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * levelMultiplier);
+        Node n = new Node(id, segment, level);
+        nodes.add(n);
+        nodeById.put(id, node);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        QuantizedVectors.Scorer exact = exact(query);
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = best(searchLayer(exact, ep, 1, l));
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Scored> candidates = sortedDesc(searchLayer(exact, ep, efConstruction, l));
+            int maxConnections = l == 0 ? 2 * m : m;
+            n.neighbors[l] = selectNeighbors(candidates, m);
+            for (int neighbor : n.neighbors[l]) {
+                connect(neighbor, node, l, maxConnections);
+            }
+            ep = candidates.get(0).node;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Adiciona a aresta neighbor -> node; se a lista lotar, refaz a seleção a partir do vizinho
+     */
+    private void connect(int neighbor, int node, int level, int maxConnections) {
+        Node n = nodes.get(neighbor);
+        int[] current = n.neighbors[level];
+        int[] extended = new int[current.length + 1];
+        System.arraycopy(current, 0, extended, 0, current.length);
+        extended[current.length] = node;
+        if (extended.length <= maxConnections) {
+            n.neighbors[level] = extended;
+            return;
+        }
+        List<Scored> candidates = new ArrayList<>(extended.length);
+        for (int candidate : extended) {
+            candidates.add(new Scored(candidate, vectors.dot(neighbor, candidate)));
+        }
+        candidates.sort(Comparator.comparingDouble((Scored s) -> s.similarity).reversed());
+        n.neighbors[level] = selectNeighbors(candidates, maxConnections);
+    }
+
+    /**
+     * Heurística do HNSW: prefere candidatos mais próximos da base do que dos já
+     * escolhidos (arestas em direções diferentes), completando com os descartados
+     */
+    private int[] selectNeighbors(List<Scored> candidatesDesc, int max) {
+        List<Integer> selected = new ArrayList<>(max);
+        List<Integer> pruned = new ArrayList<>();
+        for (Scored candidate : candidatesDesc) {
+            if (selected.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            for (int chosen : selected) {
+                if (vectors.dot(candidate.node, chosen) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : pruned).add(candidate.node);
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < max; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // ------------------------------------------------------------------ busca
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        float[] query = normalize(request.queryEmbedding().vector());
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return new EmbeddingSearchResult<>(List.of());
+            }
+            int maxResults = request.maxResults();
+            // Com quantização, os candidatos a re-pontuar
+            int wanted = quantized == null ? maxResults : maxResults * rescoreFactor;
+            // Nós apagados e filtrados ocupam lugar entre os candidatos
+            int ef = Math.max(efSearch, wanted);
+            if (request.filter() != null || deleted > 0) {
+                ef = Math.max(ef, wanted * 4);
+            }
+            QuantizedVectors.Scorer scorer = quantized == null ? exact(query) : quantized.scorer(query);
+            int ep = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                ep = best(searchLayer(scorer, ep, 1, l));
+            }
+            List<Scored> candidates = sortedDesc(searchLayer(scorer, ep, ef, 0));
+            if (quantized != null) {
+                candidates = rescore(candidates, query, wanted, request.filter());
+            }
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(maxResults);
+            for (Scored scored : candidates) {
+                if (matches.size() >= maxResults) {
+                    break;
+                }
+                Node n = nodes.get(scored.node);
+                double score = RelevanceScore.fromCosineSimilarity(scored.similarity);
+                if (n.deleted || score < request.minScore()) {
+                    continue;
+                }
+                if (request.filter() != null && (n.segment == null || !request.filter().test(n.segment.metadata()))) {
+                    continue;
+                }
+                matches.add(new EmbeddingMatch<>(score, n.id, Embedding.from(vectors.read(scored.node)), n.segment));
+            }
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-pontua com os vetores completos os primeiros candidatos ativos e aceitos
+     * pelo filtro (na ordem da similaridade aproximada)
+     */
+    private List<Scored> rescore(List<Scored> candidates, float[] query, int count, Filter filter) {
+        List<Scored> rescored = new ArrayList<>(count);
+        for (Scored candidate : candidates) {
+            if (rescored.size() >= count) {
+                break;
+            }
+            Node n = nodes.get(candidate.node);
+            if (!n.deleted && (filter == null || (n.segment != null && filter.test(n.segment.metadata())))) {
+                rescored.add(new Scored(candidate.node, vectors.dot(candidate.node, query)));
+            }
+        }
+        rescored.sort(Comparator.comparingDouble((Scored s) -> s.similarity).reversed());
+        return rescored;
+    }
+
+    private QuantizedVectors.Scorer exact(float[] query) {
+        return node -> vectors.dot(node, query);
+    }
+
+    private PriorityQueue<Scored> searchLayer(QuantizedVectors.Scorer scorer, int entry, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(Comparator.comparingDouble((Scored s) -> s.similarity).reversed());
+        PriorityQueue<Scored> results = new PriorityQueue<>(Comparator.comparingDouble((Scored s) -> s.similarity));
+        Scored start = new Scored(entry, scorer.similarity(entry));
+        visited.set(entry);
+        candidates.add(start);
+        results.add(start);
+        while (!candidates.isEmpty()) {
+            Scored current = candidates.poll();
+            if (results.size() >= ef && current.similarity < results.peek().similarity) {
+                break;
+            }
+            for (int neighbor : nodes.get(current.node).neighbors[level]) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float similarity = scorer.similarity(neighbor);
+                if (results.size() < ef || similarity > results.peek().similarity) {
+                    Scored scored = new Scored(neighbor, similarity);
+                    candidates.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static int best(PriorityQueue<Scored> results) {
+        int best = -1;
+        float similarity = Float.NEGATIVE_INFINITY;
+        for (Scored scored : results) {
+            if (scored.similarity > similarity) {
+                similarity = scored.similarity;
+                best = scored.node;
+            }
+        }
+        return best;
+    }
+
+    private static List<Scored> sortedDesc(PriorityQueue<Scored> results) {
+        List<Scored> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble((Scored s) -> s.similarity).reversed());
+        return sorted;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm == 0 ? 0 : (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    // ------------------------------------------------------------------ persistência
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Grava o grafo, os textos e os metadados em index.bin (arquivo temporário +
+     * move atômico) e sincroniza os vetores mapeados com o disco. Depois de uma
+     * compactação, o arquivo de vetores anterior só é apagado após a troca do index.bin.
+     */
+    public void snapshot() throws IOException {
+        boolean compacted = false;
+        if (deleted > 0 && deleted * 2 > nodes.size()) {
+            compact();
+            compacted = true;
+        }
+        lock.readLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            if (vectors != null) {
+                vectors.force();
+            }
+            Path tmp = dir.resolve(INDEX_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(vectorsGeneration);
+                out.writeInt(dimension);
+                out.writeInt(nodes.size());
+                out.writeInt(entryPoint);
+                out.writeInt(maxLevel);
+                for (Node n : nodes) {
+                    writeString(out, n.id);
+                    out.writeBoolean(n.deleted);
+                    out.writeInt(n.level);
+                    for (int[] neighbors : n.neighbors) {
+                        out.writeInt(neighbors.length);
+                        for (int neighbor : neighbors) {
+                            out.writeInt(neighbor);
+                        }
+                    }
+                    out.writeBoolean(n.segment != null);
+                    if (n.segment != null) {
+                        writeString(out, n.segment.text());
+                        writeString(out, objectMapper.writeValueAsString(n.segment.metadata().toMap()));
+                    }
+                }
+            }
+            Files.move(tmp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (compacted) {
+                deleteStaleVectorFiles();
+            }
+            dirty = false;
+            LOG.debugf("Snapshot HNSW gravado em %s: %d nós em %d ms", dir, nodes.size(), System.currentTimeMillis() - start);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve(INDEX_FILE))))) {
+            int format = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (format != 1 && format != VERSION) {
+                throw new IOException("Formato de índice HNSW desconhecido em " + dir);
+            }
+            vectorsGeneration = format == 1 ? 0 : in.readInt();
+            dimension = in.readInt();
+            int count = in.readInt();
+            entryPoint = in.readInt();
+            maxLevel = in.readInt();
+            for (int node = 0; node < count; node++) {
+                String id = readString(in);
+                boolean isDeleted = in.readBoolean();
+                Node n = new Node(id, null, in.readInt());
+                for (int l = 0; l <= n.level; l++) {
+                    int[] neighbors = new int[in.readInt()];
+                    for (int i = 0; i < neighbors.length; i++) {
+                        neighbors[i] = in.readInt();
+                    }
+                    n.neighbors[l] = neighbors;
+                }
+                if (in.readBoolean()) {
+                    String text = readString(in);
+                    Map<String, Object> metadata = objectMapper.readValue(readString(in), new TypeReference<Map<String, Object>>() {});
+                    n.segment = TextSegment.from(text, Metadata.from(metadata));
+                }
+                n.deleted = isDeleted;
+                nodes.add(n);
+                if (isDeleted) {
+                    deleted++;
+                } else {
+                    nodeById.put(id, node);
+                }
+            }
+        }
+        if (dimension > 0) {
+            vectors = new VectorStorage(vectorsFile(), dimension);
+            vectors.ensureCapacity(nodes.size());
+            quantized = QuantizedVectors.create(quantization, dimension);
+            if (quantized != null) {
+                for (int node = 0; node < nodes.size(); node++) {
+                    quantized.set(node, vectors.read(node));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstrói o índice só com os nós ativos, liberando os apagados, num novo
+     * arquivo de vetores: o anterior fica intacto até o próximo index.bin
+     */
+    private void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            List<String> ids = new ArrayList<>();
+            List<float[]> live = new ArrayList<>();
+            List<TextSegment> segments = new ArrayList<>();
+            for (int node = 0; node < nodes.size(); node++) {
+                Node n = nodes.get(node);
+                if (!n.deleted) {
+                    ids.add(n.id);
+                    live.add(vectors.read(node));
+                    segments.add(n.segment);
+                }
+            }
+            int before = nodes.size();
+            reset();
+            vectorsGeneration++;
+            Files.deleteIfExists(vectorsFile());
+            for (int i = 0; i < ids.size(); i++) {
+                insert(ids.get(i), live.get(i), segments.get(i));
+            }
+            LOG.infof("Índice HNSW compactado: %d -> %d nós", before, nodes.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Path vectorsFile() {
+        return dir.resolve(vectorsGeneration == 0 ? VECTORS_FILE : "vectors-" + vectorsGeneration + ".f32");
+    }
+
+    /**
+     * Apaga os arquivos de vetores que não são o da geração atual (e também o
+     * atual, se nenhum index.bin o referencia e ele não está aberto)
+     */
+    private void deleteStaleVectorFiles() throws IOException {
+        Path current = vectorsFile();
+        boolean keepCurrent = vectors != null || Files.exists(dir.resolve(INDEX_FILE));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, VECTORS_PATTERN)) {
+            for (Path file : files) {
+                if (!keepCurrent || !file.equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void reset() {
+        if (vectors != null) {
+            vectors.close();
+            vectors = null;
+        }
+        quantized = null;
+        nodes.clear();
+        nodeById.clear();
+        dimension = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+        deleted = 0;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (vectors != null) {
+                vectors.close();
+                vectors = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ------------------------------------------------------------------ estatísticas
+
+    /**
+     * Ids dos segmentos ativos
+     */
+    public Set<String> ids() {
+        lock.readLock().lock();
+        try {
+            return Set.copyOf(nodeById.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size() - deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        return deleted;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Bytes de vetores mapeados fora do heap
+     */
+    public long mappedBytes() {
+        VectorStorage storage = vectors;
+        return storage == null ? 0 : storage.mappedBytes();
+    }
+
+    public String quantization() {
+        return quantization.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Bytes dos vetores quantizados no heap (0 sem quantização)
+     */
+    public long quantizedBytes() {
+        QuantizedVectors q = quantized;
+        return q == null ? 0 : q.bytes();
+    }
+
+    /**
+     * Recall@k da busca (grafo + quantização) contra a busca exata, usando
+     * como consultas vetores de nós ativos sorteados com um pequeno ruído.
+     * Percorre todos os vetores por consulta: é uma medição, não deve rodar
+     * no caminho das requisições.
+     */
+    public double estimateRecall(int samples, int k) {
+        List<float[]> queries = new ArrayList<>(samples);
+        lock.readLock().lock();
+        try {
+            List<Integer> live = new ArrayList<>();
+            for (int node = 0; node < nodes.size(); node++) {
+                if (!nodes.get(node).deleted) {
+                    live.add(node);
+                }
+            }
+            if (live.isEmpty()) {
+                return 1.0;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int s = 0; s < samples; s++) {
+                float[] query = vectors.read(live.get(random.nextInt(live.size())));
+                for (int i = 0; i < query.length; i++) {
+                    query[i] += (float) (random.nextGaussian() * 0.05 / Math.sqrt(query.length));
+                }
+                queries.add(normalize(query));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        double recall = 0;
+        for (float[] query : queries) {
+            Set<String> expected = new HashSet<>();
+            lock.readLock().lock();
+            try {
+                PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble((Scored s) -> s.similarity));
+                for (int node = 0; node < nodes.size(); node++) {
+                    if (nodes.get(node).deleted) {
+                        continue;
+                    }
+                    top.add(new Scored(node, vectors.dot(node, query)));
+                    if (top.size() > k) {
+                        top.poll();
+                    }
+                }
+                top.forEach(scored -> expected.add(nodes.get(scored.node).id));
+            } finally {
+                lock.readLock().unlock();
+            }
+            long found = search(EmbeddingSearchRequest.builder().queryEmbedding(Embedding.from(query)).maxResults(k).build())
+                    .matches().stream().filter(match -> expected.contains(match.embeddingId())).count();
+            recall += expected.isEmpty() ? 1.0 : (double) found / expected.size();
+        }
+        return recall / queries.size();
+    }
+
+    /**
+     * Bytes aproximados do grafo no heap (listas de vizinhos e cabeçalhos dos nós)
+     */
+    public long graphBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Node node : nodes) {
+                bytes += 48 + 16L * node.neighbors.length;
+                for (int[] links : node.neighbors) {
+                    bytes += (long) links.length * Integer.BYTES;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Node {
+        final String id;
+        final int level;
+        final int[][] neighbors;
+        TextSegment segment;
+        boolean deleted;
+
+        Node(String id, TextSegment segment, int level) {
+            this.id = id;
+            this.segment = segment;
+            this.level = level;
+            this.neighbors = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                neighbors[l] = new int[0];
+            }
+        }
+    }
+
+    private record Scored(int node, float similarity) {}
+
+    /**
+     * Vetores float32 little-endian num arquivo mapeado em blocos de CHUNK_VECTORS
+     */
+    private static final class VectorStorage {
+        private final FileChannel channel;
+        private final int dimension;
+        private final List<MappedByteBuffer> mapped = new ArrayList<>();
+        private final List<FloatBuffer> chunks = new ArrayList<>();
+
+        VectorStorage(Path file, int dimension) {
+            this.dimension = dimension;
+            try {
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new RuntimeException("Falha ao abrir " + file, e);
+            }
+        }
+
+        void ensureCapacity(int count) {
+            long chunkBytes = (long) CHUNK_VECTORS * dimension * Float.BYTES;
+            while ((long) chunks.size() * CHUNK_VECTORS < count) {
+                try {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, chunks.size() * chunkBytes, chunkBytes);
+                    buffer.order(ByteOrder.LITTLE_ENDIAN);
+                    mapped.add(buffer);
+                    chunks.add(buffer.asFloatBuffer());
+                } catch (IOException e) {
+                    throw new RuntimeException("Falha ao mapear vetores", e);
+                }
+            }
+        }
+
+        void write(int node, float[] vector) {
+            ensureCapacity(node + 1);
+            FloatBuffer chunk = chunks.get(node / CHUNK_VECTORS);
+            int base = (node % CHUNK_VECTORS) * dimension;
+            for (int i = 0; i < dimension; i++) {
+                chunk.put(base + i, vector[i]);
+            }
+        }
+
+        float[] read(int node) {
+            FloatBuffer chunk = chunks.get(node / CHUNK_VECTORS);
+            int base = (node % CHUNK_VECTORS) * dimension;
+            float[] vector = new float[dimension];
+            chunk.get(base, vector);
+            return vector;
+        }
+
+        float dot(int node, float[] query) {
+            FloatBuffer chunk = chunks.get(node / CHUNK_VECTORS);
+            int base = (node % CHUNK_VECTORS) * dimension;
+            float sum = 0;
+            for (int i = 0; i < dimension; i++) {
+                sum += chunk.get(base + i) * query[i];
+            }
+            return sum;
+        }
+
+        float dot(int a, int b) {
+            FloatBuffer chunkA = chunks.get(a / CHUNK_VECTORS);
+            FloatBuffer chunkB = chunks.get(b / CHUNK_VECTORS);
+            int baseA = (a % CHUNK_VECTORS) * dimension;
+            int baseB = (b % CHUNK_VECTORS) * dimension;
+            float sum = 0;
+            for (int i = 0; i < dimension; i++) {
+                sum += chunkA.get(baseA + i) * chunkB.get(baseB + i);
+            }
+            return sum;
+        }
+
+        void force() {
+            mapped.forEach(MappedByteBuffer::force);
+        }
+
+        long mappedBytes() {
+            return (long) chunks.size() * CHUNK_VECTORS * dimension * Float.BYTES;
+        }
+
+        void close() {
+            try {
+                force();
+                channel.close();
+            } catch (IOException e) {
+                LOG.warnf("Erro ao fechar vetores HNSW: %s", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.redhat.rag;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.jboss.logging.Logger;
+
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+
+/**
+ * Combina várias buscas (vetorial e BM25) com Reciprocal Rank Fusion.
+ *
+ * As buscas rodam em paralelo; cada segmento recebe a soma de 1 / (k + rank)
+ * nas listas em que aparece, o que dispensa normalizar scores de escalas
+ * diferentes (cosseno e BM25). Uma busca que falha é ignorada, desde que
+ * alguma outra responda.
+ */
+public class HybridContentRetriever implements ContentRetriever {
+
+    private static final Logger LOG = Logger.getLogger(HybridContentRetriever.class);
+
+    private final List<ContentRetriever> retrievers;
+    private final int rrfK;
+    private final int maxResults;
+    private final Executor executor;
+
+    public HybridContentRetriever(List<ContentRetriever> retrievers, int rrfK, int maxResults, Executor executor) {
+        this.retrievers = List.copyOf(retrievers);
+        this.rrfK = rrfK;
+        this.maxResults = maxResults;
+        this.executor = executor;
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        List<CompletableFuture<List<Content>>> futures = new ArrayList<>(retrievers.size());
+        // A última busca roda na própria thread; as demais no executor
+        for (int i = 0; i < retrievers.size() - 1; i++) {
+            ContentRetriever retriever = retrievers.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> retriever.retrieve(query), executor));
+        }
+        List<List<Content>> results = new ArrayList<>(retrievers.size());
+        RuntimeException failure = null;
+        try {
+            results.add(retrievers.get(retrievers.size() - 1).retrieve(query));
+        } catch (RuntimeException e) {
+            failure = e;
+            LOG.warnf("Busca %s falhou: %s", retrievers.get(retrievers.size() - 1).getClass().getSimpleName(), e.getMessage());
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).join());
+            } catch (RuntimeException e) {
+                failure = e;
+                LOG.warnf("Busca %s falhou: %s", retrievers.get(i).getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        if (results.isEmpty()) {
+            throw failure;
+        }
+        return fuse(results, rrfK, maxResults);
+    }
+
+    /**
+     * Reciprocal Rank Fusion das listas, pelo id do segmento (ou pelo texto, sem id)
+     */
+    static List<Content> fuse(List<List<Content>> rankings, int k, int maxResults) {
+        Map<Object, Fused> fused = new LinkedHashMap<>();
+        for (List<Content> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                Content content = ranking.get(rank);
+                Object id = content.metadata().get(ContentMetadata.EMBEDDING_ID);
+                Object key = id != null ? id : content.textSegment().text();
+                fused.computeIfAbsent(key, x -> new Fused(content)).score += 1.0 / (k + rank + 1);
+            }
+        }
+        return fused.values().stream()
+                .sorted((a, b) -> Double.compare(b.score, a.score))
+                .limit(maxResults)
+                .map(f -> {
+                    Map<ContentMetadata, Object> metadata = new LinkedHashMap<>(f.content.metadata());
+                    metadata.put(ContentMetadata.SCORE, f.score);
+                    return Content.from(f.content.textSegment(), metadata);
+                })
+                .toList();
+    }
+
+    private static final class Fused {
+        final Content content;
+        double score;
+
+        Fused(Content content) {
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.redhat.rag;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.redhat.rag.DocumentIngestionService.IngestionReport;
+
+/**
+ * Estado de uma execução da ingestão, consultado enquanto ela roda em background.
+ *
+ * Cada estágio do pipeline (scan, parse, split, embed, write) tem o total de
+ * itens, os concluídos e o tempo de trabalho acumulado entre as threads, o que
+ * mostra qual estágio é o gargalo. Documentos são contados em scan, parse e
+ * split; segmentos em embed e write.
+ */
+public class IngestionJob {
+
+    public static final String SCAN = "scan";
+    public static final String PARSE = "parse";
+    public static final String SPLIT = "split";
+    public static final String EMBED = "embed";
+    public static final String WRITE = "write";
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final boolean force;
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    final AtomicInteger added = new AtomicInteger();
+    final AtomicInteger updated = new AtomicInteger();
+    final AtomicInteger unchanged = new AtomicInteger();
+    final AtomicInteger removed = new AtomicInteger();
+    final AtomicLong retries = new AtomicLong();
+    final AtomicLong cacheHits = new AtomicLong();
+    final AtomicLong cacheMisses = new AtomicLong();
+    final List<String> failed = new CopyOnWriteArrayList<>();
+
+    // Versão do índice do RAG gravada (nova versão na ingestão forçada)
+    volatile long indexVersion;
+    private volatile State state = State.RUNNING;
+    private volatile long finishedAt;
+    private volatile String error;
+
+    IngestionJob(boolean force) {
+        this.force = force;
+        for (String stage : List.of(SCAN, PARSE, SPLIT, EMBED, WRITE)) {
+            stages.put(stage, new Stage());
+        }
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public boolean isForce() {
+        return force;
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    Stage stage(String name) {
+        return stages.get(name);
+    }
+
+    void complete() {
+        finishedAt = System.currentTimeMillis();
+        state = State.COMPLETED;
+    }
+
+    void fail(String message) {
+        error = message;
+        finishedAt = System.currentTimeMillis();
+        state = State.FAILED;
+    }
+
+    long elapsedMs() {
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        return Math.max(1, end - startedAt);
+    }
+
+    IngestionReport report() {
+        return new IngestionReport(added.get(), updated.get(), unchanged.get(), removed.get(),
+                                   (int) stage(WRITE).completed.get(), List.copyOf(failed), elapsedMs());
+    }
+
+    /**
+     * Foto do andamento da ingestão
+     */
+    public IngestionStatus status() {
+        Map<String, StageProgress> progress = new LinkedHashMap<>();
+        stages.forEach((name, stage) -> progress.put(name, new StageProgress(
+            stage.total.get(), stage.completed.get(), stage.nanos.get() / 1_000_000)));
+        double seconds = elapsedMs() / 1000.0;
+        long documents = added.get() + updated.get();
+        long lookups = cacheHits.get() + cacheMisses.get();
+        return new IngestionStatus(id, state, force, indexVersion, startedAt, elapsedMs(), progress,
+                                   documents / seconds, stage(WRITE).completed.get() / seconds,
+                                   retries.get(), lookups == 0 ? 0.0 : (double) cacheHits.get() / lookups,
+                                   report(), error);
+    }
+
+    /**
+     * Contadores de um estágio
+     */
+    static final class Stage {
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong nanos = new AtomicLong();
+
+        void record(long count, long startNanos) {
+            completed.addAndGet(count);
+            nanos.addAndGet(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * @param total     itens previstos para o estágio
+     * @param completed itens concluídos
+     * @param busyMs    tempo de trabalho somado entre as threads do estágio
+     */
+    public record StageProgress(long total, long completed, long busyMs) {}
+
+    /**
+     * Andamento exposto em /admin/rag/ingest/status
+     */
+    public record IngestionStatus(
+        String id,
+        State state,
+        boolean force,
+        long indexVersion,
+        long startedAt,
+        long elapsedMs,
+        Map<String, StageProgress> stages,
+        double documentsPerSecond,
+        double segmentsPerSecond,
+        long embeddingRetries,
+        double embeddingCacheHitRate,
+        IngestionReport report,
+        String error
+    ) {}
+}
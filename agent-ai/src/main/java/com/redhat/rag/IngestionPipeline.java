@@ -0,0 +1,285 @@
+package com.redhat.rag;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.logging.Logger;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+/**
+ * Pipeline de ingestão em estágios:
+ *
+ *   parse (paralelo) -> split -> embed (em lotes, concorrência limitada, com retry) -> write
+ *
+ * Os segmentos de vários documentos são agrupados em lotes de embedBatchSize.
+ * Cada lote é embedado e gravado de forma assíncrona, de modo que a gravação
+ * no vector store de um lote se sobrepõe ao embedding dos seguintes. O número
+ * de lotes em voo é limitado, o que segura o parse quando o embedding não
+ * acompanha.
+ *
+ * Um documento só entra no manifesto quando todos os seus segmentos foram
+ * gravados; se algum lote falhar, os segmentos já gravados dele são removidos
+ * e o documento é reprocessado na próxima ingestão.
+ */
+class IngestionPipeline {
+
+    private static final Logger LOG = Logger.getLogger(IngestionPipeline.class);
+
+    /**
+     * Parâmetros do pipeline (rag.ingestion.*)
+     */
+    record Settings(
+        int parseThreads,
+        int embedBatchSize,
+        int embedConcurrency,
+        int embedMaxRetries,
+        long retryBackoffMs,
+        int writeConcurrency
+    ) {}
+
+    /**
+     * Documento novo ou alterado a ser indexado
+     */
+    record WorkItem(String documentId, Path file, String hash, long size, DocumentManifest.Entry previous) {}
+
+    /**
+     * Destino dos documentos concluídos (manifesto, índice lexical, limpeza da versão anterior)
+     */
+    interface Sink {
+
+        /**
+         * Todos os segmentos do documento foram gravados no vector store
+         */
+        void indexed(WorkItem item, List<String> ids, List<TextSegment> segments);
+
+        /**
+         * Remove segmentos gravados de um documento que falhou
+         */
+        void discard(List<String> ids);
+    }
+
+    private final Settings settings;
+    private final DocumentSplitter splitter;
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddingStore<TextSegment> embeddingStore;
+    private final Sink sink;
+
+    IngestionPipeline(Settings settings, DocumentSplitter splitter, EmbeddingModel embeddingModel,
+                      EmbeddingStore<TextSegment> embeddingStore, Sink sink) {
+        this.settings = settings;
+        this.splitter = splitter;
+        this.embeddingModel = embeddingModel;
+        this.embeddingStore = embeddingStore;
+        this.sink = sink;
+    }
+
+    void run(List<WorkItem> items, IngestionJob job) {
+        job.stage(IngestionJob.PARSE).total.set(items.size());
+        job.stage(IngestionJob.SPLIT).total.set(items.size());
+
+        ExecutorService parsers = Executors.newFixedThreadPool(settings.parseThreads(), threads("rag-parse"));
+        ExecutorService embedders = Executors.newFixedThreadPool(settings.embedConcurrency(), threads("rag-embed"));
+        ExecutorService writers = Executors.newFixedThreadPool(settings.writeConcurrency(), threads("rag-write"));
+        // Lotes em voo (embedding ou aguardando gravação)
+        Semaphore inFlight = new Semaphore(settings.embedConcurrency() + settings.writeConcurrency());
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+
+        try {
+            CompletionService<PendingDocument> parsed = new ExecutorCompletionService<>(parsers);
+            for (WorkItem item : items) {
+                parsed.submit(() -> parseAndSplit(item, job));
+            }
+
+            List<SegmentRef> buffer = new ArrayList<>(settings.embedBatchSize());
+            for (int i = 0; i < items.size(); i++) {
+                PendingDocument document = parsed.take().get();
+                if (document.failed) {
+                    job.failed.add(document.item.documentId());
+                    continue;
+                }
+                if (document.segments.isEmpty()) {
+                    finish(document, job);
+                    continue;
+                }
+                for (int s = 0; s < document.segments.size(); s++) {
+                    buffer.add(new SegmentRef(document, s));
+                    if (buffer.size() == settings.embedBatchSize()) {
+                        batches.add(dispatch(buffer, job, inFlight, embedders, writers));
+                        buffer = new ArrayList<>(settings.embedBatchSize());
+                    }
+                }
+            }
+            if (!buffer.isEmpty()) {
+                batches.add(dispatch(buffer, job, inFlight, embedders, writers));
+            }
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Ingestão interrompida", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Falha no estágio de parse", e.getCause());
+        } finally {
+            parsers.shutdownNow();
+            embedders.shutdown();
+            writers.shutdown();
+        }
+    }
+
+    private PendingDocument parseAndSplit(WorkItem item, IngestionJob job) {
+        PendingDocument pending = new PendingDocument(item);
+        try {
+            long start = System.nanoTime();
+            Document document = splitter instanceof StructuredDocumentSplitter structured
+                                ? structured.load(item.file()) : FileSystemDocumentLoader.loadDocument(item.file());
+            document.metadata().put(DocumentIngestionService.DOCUMENT_ID, item.documentId());
+            job.stage(IngestionJob.PARSE).record(1, start);
+
+            start = System.nanoTime();
+            pending.segments = splitter.split(document);
+            for (int i = 0; i < pending.segments.size(); i++) {
+                pending.ids.add(UUID.randomUUID().toString());
+            }
+            pending.remaining.set(pending.segments.size());
+            job.stage(IngestionJob.SPLIT).record(1, start);
+            job.stage(IngestionJob.EMBED).total.addAndGet(pending.segments.size());
+            job.stage(IngestionJob.WRITE).total.addAndGet(pending.segments.size());
+        } catch (Exception e) {
+            LOG.errorf(e, "Erro ao ler documento '%s'", item.documentId());
+            pending.failed = true;
+        }
+        return pending;
+    }
+
+    private CompletableFuture<Void> dispatch(List<SegmentRef> batch, IngestionJob job, Semaphore inFlight,
+                                             ExecutorService embedders, ExecutorService writers)
+            throws InterruptedException {
+        inFlight.acquire();
+        return CompletableFuture
+            .supplyAsync(() -> embed(batch, job), embedders)
+            .thenAcceptAsync(embeddings -> write(batch, embeddings, job), writers)
+            .handle((ignored, error) -> {
+                inFlight.release();
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    LOG.errorf("Lote de %d segmentos falhou: %s", batch.size(), cause.getMessage());
+                }
+                for (SegmentRef ref : batch) {
+                    if (error != null) {
+                        ref.document.failed = true;
+                    }
+                    if (ref.document.remaining.decrementAndGet() == 0) {
+                        finish(ref.document, job);
+                    }
+                }
+                return null;
+            });
+    }
+
+    /**
+     * Embeda um lote, com retry e backoff exponencial (rate limit, timeouts)
+     */
+    private List<Embedding> embed(List<SegmentRef> batch, IngestionJob job) {
+        List<TextSegment> segments = batch.stream().map(SegmentRef::segment).toList();
+        long start = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+                job.stage(IngestionJob.EMBED).record(segments.size(), start);
+                return embeddings;
+            } catch (RuntimeException e) {
+                if (attempt >= settings.embedMaxRetries()) {
+                    throw e;
+                }
+                long backoff = settings.retryBackoffMs() << attempt;
+                job.retries.incrementAndGet();
+                LOG.warnf("Embedding de %d segmentos falhou (tentativa %d/%d), nova tentativa em %d ms: %s",
+                          segments.size(), attempt + 1, settings.embedMaxRetries() + 1, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void write(List<SegmentRef> batch, List<Embedding> embeddings, IngestionJob job) {
+        long start = System.nanoTime();
+        List<String> ids = batch.stream().map(SegmentRef::id).toList();
+        List<TextSegment> segments = batch.stream().map(SegmentRef::segment).toList();
+        embeddingStore.addAll(ids, embeddings, segments);
+        job.stage(IngestionJob.WRITE).record(batch.size(), start);
+    }
+
+    /**
+     * Todos os lotes do documento terminaram: entrega ao sink ou descarta os segmentos gravados
+     */
+    private void finish(PendingDocument document, IngestionJob job) {
+        WorkItem item = document.item;
+        if (document.failed) {
+            sink.discard(document.ids);
+            job.failed.add(item.documentId());
+            return;
+        }
+        sink.indexed(item, document.ids, document.segments);
+        if (item.previous() != null) {
+            job.updated.incrementAndGet();
+        } else {
+            job.added.incrementAndGet();
+        }
+        LOG.debugf("Documento '%s' indexado com %d segmentos", item.documentId(), document.segments.size());
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Documento em processamento: segmentos, ids no vector store e lotes pendentes
+     */
+    private static final class PendingDocument {
+        final WorkItem item;
+        final List<String> ids = new ArrayList<>();
+        final AtomicInteger remaining = new AtomicInteger();
+        List<TextSegment> segments = List.of();
+        volatile boolean failed;
+
+        PendingDocument(WorkItem item) {
+            this.item = item;
+        }
+    }
+
+    private record SegmentRef(PendingDocument document, int index) {
+        TextSegment segment() {
+            return document.segments.get(index);
+        }
+
+        String id() {
+            return document.ids.get(index);
+        }
+    }
+}
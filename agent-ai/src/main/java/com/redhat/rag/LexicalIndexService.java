@@ -0,0 +1,206 @@
+package com.redhat.rag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redhat.redis.RedisService;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+
+/**
+ * Mantém o Bm25Index da réplica sincronizado com os documentos indexados.
+ *
+ * A ingestão grava no Redis o texto dos segmentos de cada documento
+ * (dora:rag:lexical:doc:<id>) e incrementa um contador de versão. Cada réplica
+ * monta o índice em memória na inicialização e o reconstrói quando a versão
+ * muda por alteração feita em outra réplica.
+ *
+ * As chaves são separadas por versão do índice do RAG (RagIndexVersions). O
+ * índice em memória é sempre o da versão ativa: segmentos gravados numa
+ * re-indexação em andamento só vão para o Redis, e a troca de versão
+ * reconstrói o índice ao lado e substitui a referência de uma vez.
+ */
+@ApplicationScoped
+public class LexicalIndexService {
+
+    private static final Logger LOG = Logger.getLogger(LexicalIndexService.class);
+
+    private static final String DOC_PREFIX = "dora:rag:lexical:doc:";
+    private static final String VERSION_KEY = "dora:rag:lexical:version";
+
+    private static final int SCAN_COUNT = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile Bm25Index index = new Bm25Index();
+
+    // Versão do índice do RAG carregada em memória (-1 = ainda não carregado)
+    private volatile long indexVersion = -1;
+
+    // Contador de alterações do Redis refletido no índice local
+    private volatile long loadedVersion = -1;
+
+    @Inject
+    RedisService redisService;
+
+    @Inject
+    RagIndexVersions versions;
+
+    @ConfigProperty(name = "rag.lexical.enabled", defaultValue = "true")
+    boolean enabled;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (enabled) {
+            Infrastructure.getDefaultWorkerPool().execute(this::reload);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Bm25Index index() {
+        return index;
+    }
+
+    private static String docPrefix(long version) {
+        return RagIndexVersions.versioned(DOC_PREFIX, version);
+    }
+
+    private static String versionKey(long version) {
+        return RagIndexVersions.versioned(VERSION_KEY, version);
+    }
+
+    /**
+     * Indexa os segmentos de um documento (substituindo a versão anterior)
+     */
+    public void index(long version, String documentId, List<String> ids, List<TextSegment> segments) {
+        if (!enabled) {
+            return;
+        }
+        List<StoredSegment> stored = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            stored.add(new StoredSegment(ids.get(i), segments.get(i).text(), segments.get(i).metadata().toMap()));
+        }
+        redisService.setValue(docPrefix(version) + documentId, stored);
+        if (version == indexVersion) {
+            index.index(documentId, ids, segments);
+        }
+        bumpVersion(version);
+    }
+
+    public void remove(long version, String documentId) {
+        if (!enabled) {
+            return;
+        }
+        redisService.deleteKey(docPrefix(version) + documentId);
+        if (version == indexVersion) {
+            index.remove(documentId);
+        }
+        bumpVersion(version);
+    }
+
+    /**
+     * Apaga os segmentos de uma versão descartada
+     */
+    public void drop(long version) {
+        List<String> keys = new ArrayList<>(redisService.scan("0", docPrefix(version) + "*", SCAN_COUNT).getKeys());
+        keys.add(versionKey(version));
+        for (int from = 0; from < keys.size(); from += SCAN_COUNT) {
+            redisService.deleteKeys(keys.subList(from, Math.min(keys.size(), from + SCAN_COUNT)));
+        }
+    }
+
+    private void bumpVersion(long version) {
+        long changes = redisService.incrementValue(versionKey(version));
+        // Só acompanha o contador se não houve alteração de outra réplica no meio
+        if (version == indexVersion && changes == loadedVersion + 1) {
+            loadedVersion = changes;
+        }
+    }
+
+    @Scheduled(every = "${rag.lexical.refresh-interval:30s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refresh() {
+        if (!enabled || indexVersion < 0) {
+            return;
+        }
+        if (versions.active() != indexVersion) {
+            reload();
+            return;
+        }
+        String changes = redisService.getValue(versionKey(indexVersion));
+        if (changes != null && Long.parseLong(changes) != loadedVersion) {
+            reload();
+        }
+    }
+
+    /**
+     * Reconstrói o índice da versão ativa a partir dos segmentos gravados no Redis
+     */
+    synchronized void reload() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            long version = versions.active();
+            String prefix = docPrefix(version);
+            String changes = redisService.getValue(versionKey(version));
+            Bm25Index loaded = new Bm25Index();
+            int documents = 0;
+            // SCAN + MGET em lotes, como em drop(): KEYS bloquearia o Redis a cada troca de versão
+            List<String> keys = redisService.scan("0", prefix + "*", SCAN_COUNT).getKeys();
+            for (int from = 0; from < keys.size(); from += SCAN_COUNT) {
+                List<String> batch = keys.subList(from, Math.min(keys.size(), from + SCAN_COUNT));
+                for (Map.Entry<String, String> entry : redisService.getValues(batch).entrySet()) {
+                    if (entry.getValue() == null) {
+                        continue;
+                    }
+                    List<StoredSegment> stored = objectMapper.readValue(entry.getValue(), new TypeReference<List<StoredSegment>>() {});
+                    List<String> ids = new ArrayList<>(stored.size());
+                    List<TextSegment> segments = new ArrayList<>(stored.size());
+                    for (StoredSegment segment : stored) {
+                        ids.add(segment.id());
+                        segments.add(TextSegment.from(segment.text(), Metadata.from(segment.metadata())));
+                    }
+                    loaded.index(entry.getKey().substring(prefix.length()), ids, segments);
+                    documents++;
+                }
+            }
+            index = loaded;
+            indexVersion = version;
+            loadedVersion = changes == null ? 0 : Long.parseLong(changes);
+            LOG.infof("Índice BM25 v%d carregado: %d documentos, %d segmentos, %d termos em %d ms",
+                      version, documents, loaded.size(), loaded.terms(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            LOG.errorf(e, "Falha ao carregar o índice BM25");
+        }
+    }
+
+    public LexicalStats stats() {
+        return new LexicalStats(enabled, indexVersion >= 0, indexVersion, index.size(), index.terms(), loadedVersion);
+    }
+
+    /**
+     * Estado do índice BM25 exibido em /admin/rag/lexical
+     *
+     * @param indexVersion versão do índice do RAG carregada (RagIndexVersions)
+     * @param version      contador de alterações refletido no índice local
+     */
+    public record LexicalStats(boolean enabled, boolean loaded, long indexVersion, int segments, int terms, long version) {}
+
+    public record StoredSegment(String id, String text, Map<String, Object> metadata) {}
+}
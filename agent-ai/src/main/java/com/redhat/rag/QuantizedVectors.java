@@ -0,0 +1,178 @@
+package com.redhat.rag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cópia quantizada dos vetores normalizados do HnswEmbeddingStore, no heap.
+ *
+ * - INT8: 1 byte por dimensão com escala por vetor (4x menor que float32);
+ *   a similaridade com a consulta é calculada com a consulta em float.
+ * - BINARY: 1 bit por dimensão (sinal, 32x menor); a similaridade é estimada
+ *   pela distância de Hamming, cos(pi * hamming / dimensão).
+ *
+ * Serve para navegar no grafo; o HnswEmbeddingStore re-pontua os melhores
+ * candidatos com os vetores float32 completos.
+ */
+abstract class QuantizedVectors {
+
+    static final int CHUNK_VECTORS = 4096;
+
+    enum Type {
+        NONE, INT8, BINARY;
+
+        static Type of(String value) {
+            return value == null || value.isBlank() ? NONE : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+
+        /**
+         * Candidatos re-pontuados por resultado quando não configurado: o binário perde
+         * mais ordem na navegação e precisa de mais candidatos
+         */
+        int defaultRescoreFactor() {
+            return this == BINARY ? 10 : 4;
+        }
+    }
+
+    /**
+     * Similaridade aproximada de uma consulta com os nós
+     */
+    interface Scorer {
+        float similarity(int node);
+    }
+
+    protected final int dimension;
+
+    protected QuantizedVectors(int dimension) {
+        this.dimension = dimension;
+    }
+
+    /**
+     * null quando o tipo é NONE
+     */
+    static QuantizedVectors create(Type type, int dimension) {
+        return switch (type) {
+            case NONE -> null;
+            case INT8 -> new Int8(dimension);
+            case BINARY -> new Binary(dimension);
+        };
+    }
+
+    abstract Type type();
+
+    abstract void set(int node, float[] normalized);
+
+    abstract Scorer scorer(float[] normalizedQuery);
+
+    /**
+     * Bytes ocupados no heap pelos vetores quantizados
+     */
+    abstract long bytes();
+
+    static final class Int8 extends QuantizedVectors {
+        private final List<byte[]> chunks = new ArrayList<>();
+        private final List<float[]> scales = new ArrayList<>();
+
+        Int8(int dimension) {
+            super(dimension);
+        }
+
+        @Override
+        Type type() {
+            return Type.INT8;
+        }
+
+        @Override
+        void set(int node, float[] normalized) {
+            while (chunks.size() * CHUNK_VECTORS <= node) {
+                chunks.add(new byte[CHUNK_VECTORS * dimension]);
+                scales.add(new float[CHUNK_VECTORS]);
+            }
+            float max = 0;
+            for (float v : normalized) {
+                max = Math.max(max, Math.abs(v));
+            }
+            float scale = max == 0 ? 1 : max / 127f;
+            byte[] chunk = chunks.get(node / CHUNK_VECTORS);
+            int base = (node % CHUNK_VECTORS) * dimension;
+            for (int i = 0; i < dimension; i++) {
+                chunk[base + i] = (byte) Math.round(normalized[i] / scale);
+            }
+            scales.get(node / CHUNK_VECTORS)[node % CHUNK_VECTORS] = scale;
+        }
+
+        @Override
+        Scorer scorer(float[] query) {
+            return node -> {
+                byte[] chunk = chunks.get(node / CHUNK_VECTORS);
+                int base = (node % CHUNK_VECTORS) * dimension;
+                float sum = 0;
+                for (int i = 0; i < dimension; i++) {
+                    sum += query[i] * chunk[base + i];
+                }
+                return sum * scales.get(node / CHUNK_VECTORS)[node % CHUNK_VECTORS];
+            };
+        }
+
+        @Override
+        long bytes() {
+            return (long) chunks.size() * CHUNK_VECTORS * (dimension + Float.BYTES);
+        }
+    }
+
+    static final class Binary extends QuantizedVectors {
+        private final int words;
+        private final List<long[]> chunks = new ArrayList<>();
+
+        Binary(int dimension) {
+            super(dimension);
+            this.words = (dimension + 63) / 64;
+        }
+
+        @Override
+        Type type() {
+            return Type.BINARY;
+        }
+
+        @Override
+        void set(int node, float[] normalized) {
+            while (chunks.size() * CHUNK_VECTORS <= node) {
+                chunks.add(new long[CHUNK_VECTORS * words]);
+            }
+            long[] chunk = chunks.get(node / CHUNK_VECTORS);
+            int base = (node % CHUNK_VECTORS) * words;
+            long[] bits = bits(normalized);
+            System.arraycopy(bits, 0, chunk, base, words);
+        }
+
+        private long[] bits(float[] vector) {
+            long[] bits = new long[words];
+            for (int i = 0; i < dimension; i++) {
+                if (vector[i] > 0) {
+                    bits[i >>> 6] |= 1L << (i & 63);
+                }
+            }
+            return bits;
+        }
+
+        @Override
+        Scorer scorer(float[] query) {
+            long[] q = bits(query);
+            return node -> {
+                long[] chunk = chunks.get(node / CHUNK_VECTORS);
+                int base = (node % CHUNK_VECTORS) * words;
+                int hamming = 0;
+                for (int w = 0; w < words; w++) {
+                    hamming += Long.bitCount(chunk[base + w] ^ q[w]);
+                }
+                return (float) Math.cos(Math.PI * hamming / dimension);
+            };
+        }
+
+        @Override
+        long bytes() {
+            return (long) chunks.size() * CHUNK_VECTORS * words * Long.BYTES;
+        }
+    }
+}
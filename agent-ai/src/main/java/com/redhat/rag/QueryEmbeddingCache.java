@@ -0,0 +1,186 @@
+package com.redhat.rag;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.redhat.redis.RedisService;
+
+import dev.langchain4j.data.embedding.Embedding;
+
+/**
+ * Cache dos embeddings de texto do usuário (consultas do RAG, seleção de tools MCP).
+ *
+ * A chave é o texto normalizado (Unicode NFC, minúsculas, espaços colapsados)
+ * junto com o id do modelo, então a mesma pergunta repetida - ou escrita com
+ * outra caixa ou espaçamento - não gera nova chamada ao modelo. Há um LRU local
+ * e o Redis (com expiração), compartilhado entre as réplicas. Chamadas
+ * simultâneas para o mesmo texto (retriever e seletor de tools no mesmo turno)
+ * esperam um único embedding.
+ */
+@ApplicationScoped
+public class QueryEmbeddingCache {
+
+    private static final Logger LOG = Logger.getLogger(QueryEmbeddingCache.class);
+
+    private static final String REDIS_PREFIX = "dora:rag:query-embedding:";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Inject
+    RagEmbeddingModel embeddingModel;
+
+    @Inject
+    RedisService redisService;
+
+    @ConfigProperty(name = "rag.query-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    // 0 desabilita a camada local
+    @ConfigProperty(name = "rag.query-cache.local-max-entries", defaultValue = "1000")
+    int localMaxEntries;
+
+    // 0 = sem expiração
+    @ConfigProperty(name = "rag.query-cache.ttl-seconds", defaultValue = "86400")
+    long ttlSeconds;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong sharedHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+    private Map<String, float[]> local;
+
+    private synchronized Map<String, float[]> local() {
+        if (local == null) {
+            int max = localMaxEntries;
+            local = new LinkedHashMap<>(Math.min(max, 1024), 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                    return size() > max;
+                }
+            };
+        }
+        return local;
+    }
+
+    /**
+     * Embedding do texto, buscando primeiro no cache
+     */
+    public Embedding embed(String text) {
+        if (!enabled) {
+            misses.incrementAndGet();
+            return embeddingModel.embed(text).content();
+        }
+        String key = key(normalize(text));
+        float[] vector = localGet(key);
+        if (vector != null) {
+            localHits.incrementAndGet();
+            return Embedding.from(vector);
+        }
+
+        CompletableFuture<float[]> future = new CompletableFuture<>();
+        CompletableFuture<float[]> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            sharedHits.incrementAndGet();
+            return Embedding.from(running.join());
+        }
+        try {
+            vector = load(key, text);
+            localPut(key, vector);
+            future.complete(vector);
+            return Embedding.from(vector);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    private float[] load(String key, String text) {
+        try {
+            String encoded = redisService.getValue(key);
+            if (encoded != null) {
+                redisHits.incrementAndGet();
+                return EmbeddingCache.decode(encoded);
+            }
+        } catch (Exception e) {
+            LOG.warnf("Falha ao consultar o cache de embeddings de consulta: %s", e.getMessage());
+        }
+        float[] vector = embeddingModel.embed(text).content().vector();
+        misses.incrementAndGet();
+        try {
+            redisService.setValues(Map.of(key, EmbeddingCache.encode(vector)), ttlSeconds);
+        } catch (Exception e) {
+            LOG.warnf("Falha ao gravar embedding de consulta no cache: %s", e.getMessage());
+        }
+        return vector;
+    }
+
+    private float[] localGet(String key) {
+        if (localMaxEntries <= 0) {
+            return null;
+        }
+        synchronized (this) {
+            return local().get(key);
+        }
+    }
+
+    private void localPut(String key, float[] vector) {
+        if (localMaxEntries <= 0) {
+            return;
+        }
+        synchronized (this) {
+            local().put(key, vector);
+        }
+    }
+
+    static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private String key(String normalized) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return REDIS_PREFIX + embeddingModel.modelId() + ":" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public QueryCacheStats stats() {
+        long hits = localHits.get() + redisHits.get() + sharedHits.get();
+        long total = hits + misses.get();
+        int entries;
+        synchronized (this) {
+            entries = local == null ? 0 : local.size();
+        }
+        return new QueryCacheStats(enabled, embeddingModel.modelId(), localHits.get(), redisHits.get(), sharedHits.get(), misses.get(),
+                                   total == 0 ? 0.0 : (double) hits / total, entries);
+    }
+
+    /**
+     * Estatísticas do cache exibidas em /admin/rag/query-cache
+     *
+     * @param sharedHits chamadas que aguardaram um embedding do mesmo texto já em andamento
+     */
+    public record QueryCacheStats(boolean enabled, String modelId, long localHits, long redisHits, long sharedHits,
+                                  long misses, double hitRate, int localEntries) {}
+}
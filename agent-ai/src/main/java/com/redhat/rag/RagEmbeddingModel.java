@@ -0,0 +1,213 @@
+package com.redhat.rag;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2q.AllMiniLmL6V2QuantizedEmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+/**
+ * Modelo de embedding do RAG e da seleção de tools MCP, escolhido por rag.embedding.provider:
+ * - remote: o EmbeddingModel da extensão (OpenAI, quarkus.langchain4j.embedding-model.provider)
+ * - local: all-MiniLM-L6-v2 quantizado (ONNX, 384 dimensões) rodando no processo,
+ *   sem rede, em rag.embedding.local.threads threads
+ *
+ * O id do modelo (modelId) entra nas chaves dos caches de embedding e fica
+ * registrado em cada versão do índice (RagIndexVersions): um índice gerado
+ * por outro modelo tem vetores de outra dimensão, então a busca vetorial é
+ * pulada e a próxima ingestão é uma re-indexação completa numa nova versão.
+ *
+ * Chamadas, textos e tempo de embedding (lotes da ingestão e consultas) ficam
+ * em /admin/rag/embedding-model.
+ */
+@ApplicationScoped
+@Typed(RagEmbeddingModel.class)
+public class RagEmbeddingModel implements EmbeddingModel {
+
+    private static final Logger LOG = Logger.getLogger(RagEmbeddingModel.class);
+
+    public static final String REMOTE = "remote";
+    public static final String LOCAL = "local";
+    public static final String LOCAL_MODEL_ID = "all-minilm-l6-v2-q";
+
+    @Inject
+    Instance<EmbeddingModel> remoteModel;
+
+    @Inject
+    RagIndexVersions versions;
+
+    @ConfigProperty(name = "rag.embedding.provider", defaultValue = REMOTE)
+    String provider;
+
+    @ConfigProperty(name = "rag.embedding.model-id", defaultValue = "text-embedding-3-small")
+    String remoteModelId;
+
+    // 0 = número de processadores
+    @ConfigProperty(name = "rag.embedding.local.threads", defaultValue = "0")
+    int localThreads;
+
+    private final Throughput batches = new Throughput();
+    private final Throughput queries = new Throughput();
+
+    private volatile EmbeddingModel delegate;
+    private ExecutorService localExecutor;
+
+    /**
+     * Modelo avulso, sem índice associado (avaliação e benchmarks)
+     */
+    public static RagEmbeddingModel of(EmbeddingModel model, String modelId) {
+        RagEmbeddingModel embeddingModel = new RagEmbeddingModel();
+        embeddingModel.provider = REMOTE;
+        embeddingModel.remoteModelId = modelId;
+        embeddingModel.delegate = model;
+        return embeddingModel;
+    }
+
+    public boolean isLocal() {
+        return LOCAL.equalsIgnoreCase(provider);
+    }
+
+    public String modelId() {
+        return isLocal() ? LOCAL_MODEL_ID : remoteModelId;
+    }
+
+    private EmbeddingModel delegate() {
+        EmbeddingModel model = delegate;
+        if (model == null) {
+            synchronized (this) {
+                if (delegate == null) {
+                    delegate = create();
+                }
+                model = delegate;
+            }
+        }
+        return model;
+    }
+
+    private EmbeddingModel create() {
+        if (!isLocal()) {
+            return remoteModel.get();
+        }
+        int threads = localThreads > 0 ? localThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        localExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "rag-embed-local-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        EmbeddingModel model = new AllMiniLmL6V2QuantizedEmbeddingModel(localExecutor);
+        LOG.infof("Modelo de embedding local %s carregado em %dms (%d dimensões, %d threads)",
+                  LOCAL_MODEL_ID, (System.nanoTime() - start) / 1_000_000, model.dimension(), threads);
+        return model;
+    }
+
+    @PreDestroy
+    void close() {
+        if (localExecutor != null) {
+            localExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+        long start = System.nanoTime();
+        Response<List<Embedding>> response = delegate().embedAll(segments);
+        batches.record(segments.size(), start);
+        return response;
+    }
+
+    @Override
+    public Response<Embedding> embed(TextSegment segment) {
+        long start = System.nanoTime();
+        Response<Embedding> response = delegate().embed(segment);
+        queries.record(1, start);
+        return response;
+    }
+
+    @Override
+    public Response<Embedding> embed(String text) {
+        return embed(TextSegment.from(text));
+    }
+
+    @Override
+    public int dimension() {
+        return delegate().dimension();
+    }
+
+    /**
+     * O índice ativo foi gerado por este modelo (índices sem registro são do modelo remoto)
+     */
+    public boolean indexCompatible() {
+        return versions == null || compatible(versions.activeModel());
+    }
+
+    /**
+     * Vetores gerados pelo modelo indexedModelId (null = índice anterior ao registro, do modelo remoto)
+     * são comparáveis com os deste modelo
+     */
+    public boolean compatible(String indexedModelId) {
+        return indexedModelId == null ? !isLocal() : indexedModelId.equals(modelId());
+    }
+
+    public EmbeddingModelStats stats() {
+        return new EmbeddingModelStats(isLocal() ? LOCAL : REMOTE, modelId(), delegate == null ? 0 : dimension(),
+                                       versions == null ? null : versions.activeModel(), indexCompatible(),
+                                       batches.stats(), queries.stats());
+    }
+
+    /**
+     * Contadores de chamadas ao modelo
+     */
+    private static final class Throughput {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong texts = new AtomicLong();
+        final AtomicLong nanos = new AtomicLong();
+
+        void record(int count, long start) {
+            calls.incrementAndGet();
+            texts.addAndGet(count);
+            nanos.addAndGet(System.nanoTime() - start);
+        }
+
+        ThroughputStats stats() {
+            long c = calls.get();
+            long t = texts.get();
+            double ms = nanos.get() / 1_000_000.0;
+            return new ThroughputStats(c, t, Math.round(ms), c == 0 ? 0.0 : Math.round(ms / c * 1000) / 1000.0,
+                                       ms == 0 ? 0.0 : Math.round(t * 1000.0 / ms * 10) / 10.0);
+        }
+    }
+
+    /**
+     * Estatísticas exibidas em /admin/rag/embedding-model
+     *
+     * @param indexModel      modelo que gerou a versão ativa do índice (null = anterior ao registro)
+     * @param indexCompatible a busca vetorial está ativa (o índice é deste modelo)
+     * @param batches         embedAll: lotes da ingestão e descrições de tools MCP
+     * @param queries         embed: mensagens do usuário (fora do cache de consultas)
+     */
+    public record EmbeddingModelStats(String provider, String modelId, int dimension, String indexModel,
+                                      boolean indexCompatible, ThroughputStats batches, ThroughputStats queries) {}
+
+    /**
+     * @param avgMsPerCall  tempo médio por chamada ao modelo
+     * @param textsPerSecond textos embedados por segundo de chamada ao modelo
+     */
+    public record ThroughputStats(long calls, long texts, long totalMs, double avgMsPerCall, double textsPerSecond) {}
+}
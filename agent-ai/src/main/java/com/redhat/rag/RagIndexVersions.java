@@ -0,0 +1,131 @@
+package com.redhat.rag;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.jboss.logging.Logger;
+
+import com.redhat.redis.RedisService;
+
+import io.quarkus.scheduler.Scheduled;
+
+/**
+ * Versões do índice do RAG (vector store, manifesto e índice BM25), para a
+ * re-indexação blue-green.
+ *
+ * Cada versão tem seus próprios nomes: a versão 0 usa os nomes configurados
+ * (índice openshift-docs, prefixo doc:, dora:rag:manifest:...), a versão N
+ * usa os mesmos nomes com o sufixo -vN (openshift-docs-vN, doc-vN:,
+ * dora:rag:manifest-vN:...). Os nomes de uma versão nunca são prefixo dos de
+ * outra, então os índices e padrões de chave não se misturam.
+ *
+ * A versão servida pelas buscas fica em dora:rag:index:active (ausente = 0), e
+ * o id do modelo de embedding que gerou cada versão em dora:rag:index:model-vN.
+ * Uma re-indexação completa grava uma nova versão enquanto a atual continua
+ * respondendo e só então troca o ponteiro; cada réplica acompanha a troca em
+ * até rag.index.refresh-interval.
+ */
+@ApplicationScoped
+public class RagIndexVersions {
+
+    private static final Logger LOG = Logger.getLogger(RagIndexVersions.class);
+
+    private static final String ACTIVE_KEY = "dora:rag:index:active";
+    private static final String NEXT_KEY = "dora:rag:index:next";
+    private static final String MODEL_KEY = "dora:rag:index:model";
+
+    @Inject
+    RedisService redisService;
+
+    // Versão ativa lida do Redis (-1 = ainda não lida)
+    private volatile long active = -1;
+
+    // Modelo de embedding da versão ativa (null = não registrado)
+    private volatile String activeModel;
+
+    /**
+     * Versão servida pelas buscas e alterada pela ingestão incremental
+     */
+    public long active() {
+        long version = active;
+        if (version < 0) {
+            version = read();
+        }
+        return version;
+    }
+
+    /**
+     * Id do modelo de embedding que gerou a versão ativa, null se não registrado
+     * (versões anteriores ao registro, geradas pelo modelo remoto)
+     */
+    public String activeModel() {
+        active();
+        return activeModel;
+    }
+
+    /**
+     * Registra o modelo de embedding que gerou a versão
+     */
+    public void setModel(long version, String modelId) {
+        redisService.setValue(versioned(MODEL_KEY, version), modelId);
+        if (version == active) {
+            activeModel = modelId;
+        }
+    }
+
+    /**
+     * Reserva o número de uma nova versão para uma re-indexação
+     */
+    public long next() {
+        long current = active();
+        long version = redisService.incrementValue(NEXT_KEY);
+        while (version <= current) {
+            version = redisService.incrementValue(NEXT_KEY);
+        }
+        return version;
+    }
+
+    /**
+     * Troca a versão ativa
+     *
+     * @return versão ativa anterior
+     */
+    public synchronized long activate(long version) {
+        long previous = active();
+        redisService.setValue(ACTIVE_KEY, String.valueOf(version));
+        activeModel = redisService.getValue(versioned(MODEL_KEY, version));
+        active = version;
+        LOG.infof("Versão ativa do índice do RAG: v%d (anterior v%d, modelo %s)", version, previous, activeModel);
+        return previous;
+    }
+
+    @Scheduled(every = "${rag.index.refresh-interval:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refresh() {
+        read();
+    }
+
+    private long read() {
+        String value = redisService.getValue(ACTIVE_KEY);
+        long version = value == null ? 0 : Long.parseLong(value);
+        if (active >= 0 && active != version) {
+            LOG.infof("Versão ativa do índice do RAG alterada por outra réplica: v%d -> v%d", active, version);
+        }
+        activeModel = redisService.getValue(versioned(MODEL_KEY, version));
+        active = version;
+        return version;
+    }
+
+    /**
+     * Nome (índice, prefixo de chave, diretório) da versão: o próprio nome na
+     * versão 0, com o sufixo -vN (antes do ':' final, se houver) nas demais
+     */
+    public static String versioned(String name, long version) {
+        if (version == 0) {
+            return name;
+        }
+        if (name.endsWith(":")) {
+            return name.substring(0, name.length() - 1) + "-v" + version + ":";
+        }
+        return name + "-v" + version;
+    }
+}
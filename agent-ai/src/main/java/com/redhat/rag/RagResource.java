@@ -2,21 +2,22 @@ package com.redhat.rag;
 
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import com.redhat.redis.RedisService;
+import com.redhat.rag.IngestionJob.IngestionStatus;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 
 import org.jboss.logging.Logger;
@@ -36,38 +37,67 @@ public class RagResource {
     DocumentIngestionService documentIngestionService;
     
     @Inject
-    RedisService redisService;
+    EmbeddingCache embeddingCache;
+    
+    @Inject
+    RagStore ragStore;
+    
+    @Inject
+    LexicalIndexService lexicalIndex;
+    
+    @Inject
+    QueryEmbeddingCache queryEmbeddingCache;
+
+    @Inject
+    ContextCompressor contextCompressor;
+
+    @Inject
+    RetrievalGate retrievalGate;
+
+    @Inject
+    RagEmbeddingModel embeddingModel;
     
     /**
-     * Ingere documentos no vector store
+     * Inicia em background a ingestão dos documentos novos ou alterados.
+     * O andamento é acompanhado em GET /admin/rag/ingest/status.
      */
     @POST
     @Path("/ingest")
     public RagIngestionResult ingestDocuments() {
         try {
-            long startTime = System.currentTimeMillis();
-            documentIngestionService.ingestDocuments();
-            long duration = System.currentTimeMillis() - startTime;
-            return new RagIngestionResult(true, "Documentos ingeridos com sucesso", duration);
+            IngestionJob job = documentIngestionService.startIngestion();
+            return new RagIngestionResult(true, "Ingestão iniciada", job.status());
         } catch (Exception e) {
-            return new RagIngestionResult(false, "Erro ao ingerir documentos: " + e.getMessage(), 0);
+            return new RagIngestionResult(false, "Erro ao iniciar ingestão: " + e.getMessage(), null);
         }
     }
     
     /**
-     * Força uma re-ingestão de documentos
+     * Inicia em background a re-ingestão de todos os documentos numa nova versão
+     * do índice; a versão atual continua respondendo até a troca.
      */
     @POST
     @Path("/reingest")
     public RagIngestionResult reingestDocuments() {
         try {
-            long startTime = System.currentTimeMillis();
-            documentIngestionService.forceIngest();
-            long duration = System.currentTimeMillis() - startTime;
-            return new RagIngestionResult(true, "Documentos re-ingeridos com sucesso", duration);
+            IngestionJob job = documentIngestionService.startForcedIngestion();
+            return new RagIngestionResult(true, "Re-ingestão iniciada", job.status());
         } catch (Exception e) {
-            return new RagIngestionResult(false, "Erro ao re-ingerir documentos: " + e.getMessage(), 0);
+            return new RagIngestionResult(false, "Erro ao iniciar re-ingestão: " + e.getMessage(), null);
+        }
+    }
+    
+    /**
+     * Andamento da última ingestão: progresso por estágio e throughput
+     */
+    @GET
+    @Path("/ingest/status")
+    public RagIngestionResult getIngestionStatus() {
+        IngestionJob job = documentIngestionService.lastJob();
+        if (job == null) {
+            return new RagIngestionResult(false, "Nenhuma ingestão executada", null);
         }
+        return new RagIngestionResult(true, job.isRunning() ? "Ingestão em andamento" : "Ingestão finalizada", job.status());
     }
     
     /**
@@ -76,8 +106,83 @@ public class RagResource {
     @GET
     @Path("/status")
     public RagStatusResult getRagStatus() {
-        boolean ingested = documentIngestionService.isIngested();
-        return new RagStatusResult(ingested, ingested ? "Documentos indexados" : "Documentos não indexados");
+        int documents = documentIngestionService.indexedDocuments();
+        boolean ingested = documents > 0;
+        return new RagStatusResult(ingested, ingested ? "Documentos indexados" : "Documentos não indexados", documents);
+    }
+    
+    /**
+     * Estado do vector store (tipo, segmentos, quantização e memória do índice HNSW)
+     */
+    @GET
+    @Path("/store")
+    public RagStore.StoreStats getStoreStats() {
+        return ragStore.stats();
+    }
+    
+    /**
+     * Recall@k do índice HNSW (grafo + quantização) contra a busca exata, com a
+     * memória usada na busca: o trade-off de rag.store.hnsw.quantization
+     */
+    @GET
+    @Path("/store/recall")
+    public RagStore.RecallReport getStoreRecall(@QueryParam("samples") @DefaultValue("50") int samples,
+                                                @QueryParam("k") @DefaultValue("10") int k) {
+        return ragStore.recall(Math.max(1, Math.min(samples, 500)), Math.max(1, k));
+    }
+    
+    /**
+     * Estado do índice BM25 da busca híbrida (segmentos, termos, versão carregada)
+     */
+    @GET
+    @Path("/lexical")
+    public LexicalIndexService.LexicalStats getLexicalStats() {
+        return lexicalIndex.stats();
+    }
+    
+    /**
+     * Estatísticas do cache de embeddings (acertos local/Redis, chamadas ao modelo)
+     */
+    @GET
+    @Path("/embedding-cache")
+    public EmbeddingCache.CacheStats getEmbeddingCacheStats() {
+        return embeddingCache.stats();
+    }
+    
+    /**
+     * Estatísticas do cache de embeddings das mensagens do usuário (RAG e seleção de tools)
+     */
+    @GET
+    @Path("/query-cache")
+    public QueryEmbeddingCache.QueryCacheStats getQueryCacheStats() {
+        return queryEmbeddingCache.stats();
+    }
+    
+    /**
+     * Tokens do contexto do RAG antes e depois da compressão extrativa
+     */
+    @GET
+    @Path("/compression")
+    public ContextCompressor.CompressionStats getCompressionStats() {
+        return contextCompressor.stats();
+    }
+
+    /**
+     * Decisões do gate de busca do RAG (buscas puladas por motivo)
+     */
+    @GET
+    @Path("/gate")
+    public RetrievalGate.GateStats getGateStats() {
+        return retrievalGate.stats();
+    }
+
+    /**
+     * Modelo de embedding em uso, compatibilidade com o índice ativo e throughput (ingestão e consultas)
+     */
+    @GET
+    @Path("/embedding-model")
+    public RagEmbeddingModel.EmbeddingModelStats getEmbeddingModelStats() {
+        return embeddingModel.stats();
     }
     
     /**
@@ -93,7 +198,7 @@ public class RagResource {
         
         try {
             // Diretório de destino
-            java.nio.file.Path ragDir = Paths.get("src/main/resources/rag-documents");
+            java.nio.file.Path ragDir = documentIngestionService.documentsRoot();
             if (!Files.exists(ragDir)) {
                 Files.createDirectories(ragDir);
             }
@@ -118,7 +223,7 @@ public class RagResource {
     @Path("/documents")
     public RagDocumentsResult listDocuments() {
         try {
-            java.nio.file.Path ragDir = Paths.get("src/main/resources/rag-documents");
+            java.nio.file.Path ragDir = documentIngestionService.documentsRoot();
             if (!Files.exists(ragDir)) {
                 return new RagDocumentsResult(0, new ArrayList<>());
             }
@@ -144,50 +249,47 @@ public class RagResource {
     }
     
     /**
-     * Remove um documento do diretório RAG
+     * Remove um documento do diretório RAG e os seus segmentos do vector store
      */
     @DELETE
     @Path("/documents/{filename}")
     public RagDeleteResult deleteDocument(@PathParam("filename") String filename) {
         try {
-            java.nio.file.Path filePath = Paths.get("src/main/resources/rag-documents", filename);
+            java.nio.file.Path filePath = documentIngestionService.documentsRoot().resolve(filename);
             
             if (!Files.exists(filePath)) {
-                return new RagDeleteResult(false, "Arquivo não encontrado");
+                return new RagDeleteResult(false, "Arquivo não encontrado", 0);
             }
             
-            Files.delete(filePath);
-            return new RagDeleteResult(true, "Arquivo deletado com sucesso");
+            int segments = documentIngestionService.deleteDocument(filePath);
+            return new RagDeleteResult(true, "Arquivo deletado com sucesso", segments);
+        } catch (IllegalStateException e) {
+            return new RagDeleteResult(false, e.getMessage(), 0);
         } catch (IOException e) {
-            return new RagDeleteResult(false, "Erro ao deletar arquivo: " + e.getMessage());
+            return new RagDeleteResult(false, "Erro ao deletar arquivo: " + e.getMessage(), 0);
         }
     }
     
     /**
-     * Limpa todos os dados do RAG armazenados no Redis.
-     * Remove todas as chaves que começam com o prefixo "doc:" (embeddings do RAG).
+     * Limpa todos os dados do RAG: as buscas passam para uma nova versão vazia do
+     * índice e o vector store, o manifesto e o índice BM25 da versão anterior são
+     * apagados em background.
      */
     @DELETE
     @Path("/clear")
     public RagClearResult clearRagData() {
         try {
-            LOG.info("Iniciando limpeza dos dados do RAG no Redis...");
+            LOG.info("Iniciando limpeza dos dados do RAG (store " + ragStore.type() + ")...");
             
-            // Busca todas as chaves com o prefixo do RAG (doc:)
-            List<String> ragKeys = redisService.getKeysByPattern("doc:*");
+            // Nova versão vazia do índice; a anterior é apagada em background
+            long deletedCount = documentIngestionService.clear();
             
-            if (ragKeys.isEmpty()) {
-                LOG.info("Nenhum dado do RAG encontrado no Redis");
+            if (deletedCount == 0) {
+                LOG.info("Nenhum dado do RAG encontrado");
                 return new RagClearResult(true, "Nenhum dado do RAG encontrado", 0);
             }
             
-            // Deleta as chaves
-            long deletedCount = redisService.deleteKeys(ragKeys);
-            
-            // Reseta o status de ingestão
-            documentIngestionService.resetIngestionStatus();
-            
-            LOG.info("Limpeza concluída. " + deletedCount + " chaves deletadas");
+            LOG.info("Limpeza concluída. " + deletedCount + " segmentos removidos");
             return new RagClearResult(true, "Dados do RAG limpos com sucesso", deletedCount);
             
         } catch (Exception e) {
@@ -205,11 +307,11 @@ public class RagResource {
     }
     
     // Records para respostas
-    public record RagIngestionResult(boolean success, String message, long durationMs) {}
-    public record RagStatusResult(boolean ingested, String status) {}
+    public record RagIngestionResult(boolean success, String message, IngestionStatus ingestion) {}
+    public record RagStatusResult(boolean ingested, String status, int documents) {}
     public record RagUploadResult(boolean success, String message, String filename) {}
     public record RagDocumentsResult(int count, List<DocumentInfo> documents) {}
-    public record RagDeleteResult(boolean success, String message) {}
+    public record RagDeleteResult(boolean success, String message, int removedSegments) {}
     public record RagClearResult(boolean success, String message, long deletedCount) {}
     public record DocumentInfo(String name, long size, String type) {}
 }
@@ -0,0 +1,172 @@
+package com.redhat.rag;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import dev.langchain4j.rag.DefaultRetrievalAugmentor;
+import dev.langchain4j.rag.RetrievalAugmentor;
+import dev.langchain4j.rag.content.aggregator.ContentAggregator;
+import dev.langchain4j.rag.content.aggregator.DefaultContentAggregator;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.router.DefaultQueryRouter;
+import dev.langchain4j.rag.query.router.QueryRouter;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+
+/**
+ * Supplier do RetrievalAugmentor do RAG, montado sobre o RagStore
+ * (Redis ou HNSW em processo, conforme rag.store.type).
+ *
+ * O modo de busca vem de rag.retrieval.mode:
+ * - vector: só similaridade vetorial
+ * - hybrid: vetorial + BM25 em paralelo, combinados por Reciprocal Rank Fusion
+ *
+ * Com rag.diversity.enabled, a busca traz rag.diversity.candidates candidatos
+ * e o ContentDiversifier junta segmentos sobrepostos e escolhe os
+ * max-results trechos por MMR. Com rag.compression.enabled, o ContextCompressor
+ * deixa nos trechos só as frases relevantes para a consulta. Com
+ * rag.gate.enabled, o RetrievalGate pula a busca (e o embedding da consulta)
+ * para mensagens que não precisam do RAG, como cumprimentos e continuações.
+ * 
+ * Use esta classe na configuração de AI Services com RAG:
+ * 
+ * @RegisterAiService(retrievalAugmentor = RagRetrievalAugmentorSupplier.class)
+ * public interface MyAiService {
+ *     String chat(String message);
+ * }
+ *
+ * Para fixar o modo de um agente, independente da configuração, use
+ * RagRetrievalAugmentorSupplier.Vector ou RagRetrievalAugmentorSupplier.Hybrid.
+ */
+@ApplicationScoped
+public class RagRetrievalAugmentorSupplier implements Supplier<RetrievalAugmentor> {
+
+    private static final Logger LOG = Logger.getLogger(RagRetrievalAugmentorSupplier.class);
+
+    public static final String VECTOR = "vector";
+    public static final String HYBRID = "hybrid";
+
+    @Inject
+    VectorContentRetriever vectorContentRetriever;
+
+    @Inject
+    Bm25ContentRetriever bm25ContentRetriever;
+
+    @Inject
+    LexicalIndexService lexicalIndex;
+
+    @Inject
+    EmbeddingCache embeddingCache;
+
+    @Inject
+    QueryEmbeddingCache queryEmbeddings;
+
+    @Inject
+    ContextCompressor contextCompressor;
+
+    @Inject
+    RetrievalGate retrievalGate;
+
+    @ConfigProperty(name = "rag.retrieval.mode", defaultValue = HYBRID)
+    String mode;
+
+    @ConfigProperty(name = "rag.retrieval.rrf-k", defaultValue = "60")
+    int rrfK;
+
+    @ConfigProperty(name = "quarkus.langchain4j.easy-rag.max-results", defaultValue = "5")
+    int maxResults;
+
+    @ConfigProperty(name = "quarkus.langchain4j.easy-rag.max-segment-size", defaultValue = "300")
+    int maxSegmentSize;
+
+    @ConfigProperty(name = "rag.diversity.enabled", defaultValue = "true")
+    boolean diversity;
+
+    @ConfigProperty(name = "rag.diversity.candidates", defaultValue = "15")
+    int candidates;
+
+    // 1 = só relevância; valores menores penalizam mais trechos parecidos com os já escolhidos
+    @ConfigProperty(name = "rag.diversity.lambda", defaultValue = "0.8")
+    double lambda;
+
+    @ConfigProperty(name = "rag.diversity.min-overlap", defaultValue = "20")
+    int minOverlap;
+
+    private volatile RetrievalAugmentor augmentor;
+
+    /**
+     * Modo de busca deste supplier
+     */
+    protected String mode() {
+        return mode;
+    }
+
+    @Override
+    public RetrievalAugmentor get() {
+        if (augmentor == null) {
+            ContentAggregator aggregator = new DefaultContentAggregator();
+            if (diversity) {
+                LOG.infof("%s: diversificação MMR (lambda=%.2f) de %d candidatos", getClass().getSimpleName(), lambda, candidates);
+                aggregator = new ContentDiversifier(embeddingCache::lookup,
+                        text -> queryEmbeddings.embed(text).vector(), lambda, minOverlap, 2 * maxSegmentSize,
+                        maxResults, maxResults * maxSegmentSize);
+            }
+            if (contextCompressor.isEnabled()) {
+                LOG.infof("%s: compressão extrativa do contexto", getClass().getSimpleName());
+                aggregator = contextCompressor.wrap(aggregator);
+            }
+            ContentRetriever retriever = contentRetriever();
+            QueryRouter router = new DefaultQueryRouter(retriever);
+            if (retrievalGate.isEnabled()) {
+                LOG.infof("%s: gate de busca (pula mensagens que não precisam do RAG)", getClass().getSimpleName());
+                router = retrievalGate.router(retriever);
+            }
+            augmentor = DefaultRetrievalAugmentor.builder()
+                    .queryRouter(router)
+                    .contentAggregator(aggregator)
+                    .build();
+        }
+        return augmentor;
+    }
+
+    private ContentRetriever contentRetriever() {
+        int results = diversity ? Math.max(candidates, maxResults) : maxResults;
+        ContentRetriever vector = diversity ? vectorContentRetriever.withMaxResults(results) : vectorContentRetriever;
+        if (!HYBRID.equalsIgnoreCase(mode()) || !lexicalIndex.isEnabled()) {
+            LOG.infof("%s: busca vetorial", getClass().getSimpleName());
+            return vector;
+        }
+        LOG.infof("%s: busca híbrida (vetorial + BM25, RRF k=%d)", getClass().getSimpleName(), rrfK);
+        return new HybridContentRetriever(List.of(vector, bm25ContentRetriever),
+                                          rrfK, results, Infrastructure.getDefaultWorkerPool());
+    }
+
+    /**
+     * Sempre só a busca vetorial
+     */
+    @ApplicationScoped
+    @Typed(Vector.class)
+    public static class Vector extends RagRetrievalAugmentorSupplier {
+        @Override
+        protected String mode() {
+            return VECTOR;
+        }
+    }
+
+    /**
+     * Sempre a busca híbrida (se o índice lexical estiver habilitado)
+     */
+    @ApplicationScoped
+    @Typed(Hybrid.class)
+    public static class Hybrid extends RagRetrievalAugmentorSupplier {
+        @Override
+        protected String mode() {
+            return HYBRID;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.redhat.rag;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.redhat.redis.RedisService;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import io.quarkiverse.langchain4j.redis.RedisEmbeddingStore;
+import io.quarkiverse.langchain4j.redis.runtime.RedisSchema;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.search.DistanceMetric;
+import io.quarkus.redis.datasource.search.VectorAlgorithm;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+
+/**
+ * Vector store usado pela ingestão e pela busca do RAG, escolhido por rag.store.type:
+ *
+ * - redis: índice do Redis Stack (quarkus.langchain4j.redis.*)
+ * - hnsw: HnswEmbeddingStore em processo, com snapshot em disco (rag.store.hnsw.*),
+ *   opcionalmente com vetores quantizados (int8/binary) na navegação da busca
+ *
+ * O índice HNSW é carregado em background na inicialização; buscas que chegam
+ * antes disso aguardam o carregamento. Ao abrir, o índice é conferido com o
+ * manifesto da ingestão: documentos com segmentos que não chegaram ao último
+ * snapshot saem do manifesto (a próxima ingestão incremental os reprocessa) e
+ * segmentos sem documento no manifesto são removidos. O RedisEmbeddingStore só é criado
+ * quando o tipo é redis, então o modo hnsw não precisa do módulo de busca do
+ * Redis Stack para os vetores.
+ *
+ * Há um store por versão do índice (RagIndexVersions): na versão 0 é o
+ * RedisEmbeddingStore da extensão ou o diretório rag.store.hnsw.dir; nas
+ * demais, o mesmo schema com índice, prefixo e diretório com sufixo -vN.
+ * store() é sempre o da versão ativa.
+ */
+@ApplicationScoped
+public class RagStore {
+
+    private static final Logger LOG = Logger.getLogger(RagStore.class);
+
+    public static final String REDIS = "redis";
+    public static final String HNSW = "hnsw";
+
+    @Inject
+    Instance<RedisEmbeddingStore> redisEmbeddingStore;
+
+    @Inject
+    RedisService redisService;
+
+    @Inject
+    RedisDataSource redisDataSource;
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDataSource;
+
+    @Inject
+    RagIndexVersions versions;
+
+    @Inject
+    RagEmbeddingModel embeddingModel;
+
+    @Inject
+    DocumentManifest manifest;
+
+    @ConfigProperty(name = "rag.store.type", defaultValue = REDIS)
+    String type;
+
+    @ConfigProperty(name = "quarkus.langchain4j.redis.index-name", defaultValue = "embedding-index")
+    String redisIndexName;
+
+    @ConfigProperty(name = "quarkus.langchain4j.redis.prefix", defaultValue = "embedding:")
+    String redisPrefix;
+
+    // Dimensão do modelo remoto; com o modelo local vale a do próprio modelo (só nas versões >= 1)
+    @ConfigProperty(name = "quarkus.langchain4j.redis.dimension", defaultValue = "1536")
+    long redisDimension;
+
+    @ConfigProperty(name = "quarkus.langchain4j.redis.vector-field-name", defaultValue = "vector")
+    String redisVectorField;
+
+    @ConfigProperty(name = "quarkus.langchain4j.redis.scalar-field-name", defaultValue = "scalar")
+    String redisScalarField;
+
+    @ConfigProperty(name = "quarkus.langchain4j.redis.textual-metadata-fields")
+    Optional<List<String>> redisTextualFields;
+
+    @ConfigProperty(name = "quarkus.langchain4j.redis.numeric-metadata-fields")
+    Optional<List<String>> redisNumericFields;
+
+    @ConfigProperty(name = "quarkus.langchain4j.redis.distance-metric", defaultValue = "COSINE")
+    DistanceMetric redisDistanceMetric;
+
+    @ConfigProperty(name = "quarkus.langchain4j.redis.vector-algorithm", defaultValue = "HNSW")
+    VectorAlgorithm redisVectorAlgorithm;
+
+    @ConfigProperty(name = "rag.store.hnsw.dir", defaultValue = "data/hnsw")
+    String hnswDir;
+
+    @ConfigProperty(name = "rag.store.hnsw.m", defaultValue = "16")
+    int hnswM;
+
+    @ConfigProperty(name = "rag.store.hnsw.ef-construction", defaultValue = "100")
+    int hnswEfConstruction;
+
+    @ConfigProperty(name = "rag.store.hnsw.ef-search", defaultValue = "50")
+    int hnswEfSearch;
+
+    @ConfigProperty(name = "rag.store.hnsw.quantization", defaultValue = "none")
+    String hnswQuantization;
+
+    @ConfigProperty(name = "rag.store.hnsw.rescore-factor", defaultValue = "0")
+    int hnswRescoreFactor;
+
+    private final Map<Long, CompletableFuture<HnswEmbeddingStore>> hnsw = new ConcurrentHashMap<>();
+    private final Map<Long, RedisEmbeddingStore> redisStores = new ConcurrentHashMap<>();
+
+    void onStart(@Observes StartupEvent ev) {
+        if (isHnsw()) {
+            hnsw(versions.active());
+        }
+    }
+
+    public boolean isHnsw() {
+        return HNSW.equalsIgnoreCase(type);
+    }
+
+    public String type() {
+        return isHnsw() ? HNSW : REDIS;
+    }
+
+    public EmbeddingStore<TextSegment> store() {
+        return store(versions.active());
+    }
+
+    /**
+     * Store de uma versão do índice, criado (vazio) se ainda não existir
+     */
+    public EmbeddingStore<TextSegment> store(long version) {
+        if (isHnsw()) {
+            return hnsw(version).join();
+        }
+        if (version == 0) {
+            return redisEmbeddingStore.get();
+        }
+        return redisStores.computeIfAbsent(version, this::createRedisStore);
+    }
+
+    /**
+     * Mesmo schema do RedisEmbeddingStore da extensão, com o índice e o prefixo da versão
+     */
+    private RedisEmbeddingStore createRedisStore(long version) {
+        RedisSchema schema = new RedisSchema.Builder()
+            .indexName(indexName(version))
+            .prefix(prefix(version))
+            .vectorFieldName(redisVectorField)
+            .scalarFieldName(redisScalarField)
+            .textualMetadataFields(redisTextualFields.orElse(List.of()))
+            .numericMetadataFields(redisNumericFields.orElse(List.of()))
+            .vectorAlgorithm(redisVectorAlgorithm)
+            .dimension(embeddingModel.isLocal() ? embeddingModel.dimension() : redisDimension)
+            .metricType(redisDistanceMetric)
+            .build();
+        return new RedisEmbeddingStore.Builder().dataSource(reactiveRedisDataSource).schema(schema).build();
+    }
+
+    private CompletableFuture<HnswEmbeddingStore> hnsw(long version) {
+        return hnsw.computeIfAbsent(version, v -> {
+            Path dir = hnswDir(v);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    HnswEmbeddingStore store = HnswEmbeddingStore.open(dir, hnswM, hnswEfConstruction, hnswEfSearch,
+                                                                       hnswQuantization, hnswRescoreFactor);
+                    reconcile(v, store);
+                    return store;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Falha ao abrir o índice HNSW em " + dir, e);
+                }
+            }, Infrastructure.getDefaultWorkerPool());
+        });
+    }
+
+    /**
+     * Alinha o manifesto da versão com o índice carregado do snapshot: depois de
+     * uma queda no meio da ingestão, o manifesto pode referenciar segmentos
+     * gravados após o último snapshot (perdidos na abertura)
+     */
+    private void reconcile(long version, HnswEmbeddingStore store) {
+        Set<String> indexed = store.ids();
+        Set<String> referenced = new HashSet<>();
+        int dropped = 0;
+        for (DocumentManifest.Entry entry : manifest.all(version).values()) {
+            if (indexed.containsAll(entry.segmentIds())) {
+                referenced.addAll(entry.segmentIds());
+            } else {
+                manifest.delete(version, entry.documentId());
+                dropped++;
+            }
+        }
+        List<String> orphans = indexed.stream().filter(id -> !referenced.contains(id)).toList();
+        if (!orphans.isEmpty()) {
+            store.removeAll(orphans);
+        }
+        if (dropped > 0 || !orphans.isEmpty()) {
+            LOG.warnf("Índice HNSW v%d conferido com o manifesto: %d documentos sem todos os segmentos no snapshot "
+                      + "voltam para a próxima ingestão, %d segmentos sem documento removidos", version, dropped, orphans.size());
+        }
+    }
+
+    public String indexName(long version) {
+        return RagIndexVersions.versioned(redisIndexName, version);
+    }
+
+    private String prefix(long version) {
+        return RagIndexVersions.versioned(redisPrefix, version);
+    }
+
+    private Path hnswDir(long version) {
+        return Path.of(RagIndexVersions.versioned(hnswDir, version));
+    }
+
+    /**
+     * Alias do Redis Search que aponta para o índice da versão ativa (para consultas externas, ex. redis-cli)
+     */
+    public String alias() {
+        return redisIndexName + "-active";
+    }
+
+    /**
+     * Remove segmentos da versão ativa pelo id
+     */
+    public void remove(List<String> segmentIds) {
+        remove(versions.active(), segmentIds);
+    }
+
+    /**
+     * Remove segmentos de uma versão pelo id
+     */
+    public void remove(long version, List<String> segmentIds) {
+        if (segmentIds == null || segmentIds.isEmpty()) {
+            return;
+        }
+        if (isHnsw()) {
+            hnsw(version).join().removeAll(segmentIds);
+        } else {
+            // O RedisEmbeddingStore não implementa remoção: cada segmento é a chave <prefix><id>
+            String prefix = prefix(version);
+            redisService.deleteKeys(segmentIds.stream().map(id -> prefix + id).toList());
+        }
+    }
+
+    /**
+     * Aponta o alias do índice para a versão (FT.ALIASUPDATE troca o alias de forma atômica)
+     */
+    public void updateAlias(long version) {
+        if (isHnsw()) {
+            return;
+        }
+        try {
+            redisDataSource.search().ftAliasUpdate(alias(), indexName(version));
+        } catch (Exception e) {
+            LOG.warnf("Falha ao atualizar o alias %s para %s: %s", alias(), indexName(version), e.getMessage());
+        }
+    }
+
+    /**
+     * Apaga todos os dados de uma versão que não é mais servida: no Redis,
+     * FT.DROPINDEX com DD (o Redis apaga o índice e as chaves dos segmentos);
+     * no HNSW, fecha o store e apaga o diretório.
+     */
+    public void drop(long version) {
+        if (isHnsw()) {
+            CompletableFuture<HnswEmbeddingStore> future = hnsw.remove(version);
+            if (future != null && !future.isCompletedExceptionally()) {
+                future.join().close();
+            }
+            deleteDirectory(hnswDir(version));
+            return;
+        }
+        redisStores.remove(version);
+        try {
+            redisDataSource.search().ftDropIndex(indexName(version), true);
+        } catch (Exception e) {
+            // Índice já removido ou nunca criado nesta versão
+            LOG.warnf("Falha ao remover o índice %s: %s", indexName(version), e.getMessage());
+        }
+    }
+
+    private static void deleteDirectory(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            LOG.warnf("Falha ao apagar o diretório %s: %s", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Persiste o índice em processo (no-op para o Redis)
+     */
+    public void flush() {
+        hnsw.forEach((version, future) -> {
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                return;
+            }
+            try {
+                HnswEmbeddingStore store = future.join();
+                if (store.isDirty()) {
+                    store.snapshot();
+                }
+            } catch (Exception e) {
+                LOG.errorf(e, "Falha ao gravar snapshot do índice HNSW v%d", version);
+            }
+        });
+    }
+
+    @Scheduled(every = "${rag.store.hnsw.snapshot-interval:60s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void periodicSnapshot() {
+        flush();
+    }
+
+    @PreDestroy
+    void close() {
+        flush();
+        hnsw.values().stream()
+            .filter(future -> future.isDone() && !future.isCompletedExceptionally())
+            .forEach(future -> future.join().close());
+    }
+
+    public StoreStats stats() {
+        long version = versions.active();
+        if (!isHnsw()) {
+            return new StoreStats(REDIS, version, true, -1, 0, 0, "none", 0, 0, 0, 0);
+        }
+        CompletableFuture<HnswEmbeddingStore> future = hnsw(version);
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return new StoreStats(HNSW, version, false, 0, 0, 0, hnswQuantization, 0, 0, 0, 0);
+        }
+        HnswEmbeddingStore store = future.join();
+        long searchVectorBytes = store.quantizedBytes() > 0 ? store.quantizedBytes() : store.mappedBytes();
+        return new StoreStats(HNSW, version, true, store.size(), store.deletedCount(), store.dimension(), store.quantization(),
+                              store.mappedBytes(), store.quantizedBytes(), store.graphBytes(),
+                              searchVectorBytes + store.graphBytes());
+    }
+
+    /**
+     * Mede o recall@k da busca do índice HNSW (quantização + grafo) contra a busca exata
+     */
+    public RecallReport recall(int samples, int k) {
+        if (!isHnsw()) {
+            return new RecallReport(REDIS, "none", 0, k, -1, 0, 0, 0);
+        }
+        HnswEmbeddingStore store = hnsw(versions.active()).join();
+        long start = System.currentTimeMillis();
+        double recall = store.estimateRecall(samples, k);
+        long searchVectorBytes = store.quantizedBytes() > 0 ? store.quantizedBytes() : store.mappedBytes();
+        return new RecallReport(HNSW, store.quantization(), samples, k, recall, searchVectorBytes + store.graphBytes(),
+                                store.mappedBytes(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Estado do vector store exibido em /admin/rag/store
+     *
+     * @param version     versão ativa do índice (RagIndexVersions)
+     * @param segments    segmentos ativos (-1 quando não é medido localmente)
+     * @param deleted     segmentos apagados aguardando compactação
+     * @param quantization   none, int8 ou binary
+     * @param mappedBytes    bytes dos vetores float32 mapeados fora do heap (lidos só no re-score quando há quantização)
+     * @param quantizedBytes bytes dos vetores quantizados no heap
+     * @param graphBytes     bytes aproximados do grafo HNSW no heap
+     * @param searchBytes    memória percorrida pela navegação da busca (vetores usados + grafo)
+     */
+    public record StoreStats(String type, long version, boolean loaded, long segments, long deleted, int dimension, String quantization,
+                             long mappedBytes, long quantizedBytes, long graphBytes, long searchBytes) {}
+
+    /**
+     * Recall@k medido em /admin/rag/store/recall (-1 quando o store não é medido localmente)
+     */
+    public record RecallReport(String type, String quantization, int samples, int k, double recall, long searchBytes,
+                               long fullPrecisionBytes, long durationMs) {}
+}
@@ -0,0 +1,243 @@
+package com.redhat.rag;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.rag.query.router.QueryRouter;
+
+/**
+ * Decide, antes do embedding e da busca, se a mensagem precisa do RAG.
+ *
+ * Heurísticas locais, sem chamada a modelo:
+ * - mensagens vazias ou só de cortesia (oi, obrigado, ok, thanks...) não buscam;
+ * - continuações curtas de uma conversa já iniciada ("e no namespace X?",
+ *   "and for pods?"), com até rag.gate.follow-up-max-terms termos, não
+ *   buscam: o contexto da resposta anterior já está na memória do chat;
+ * - mensagens sem nenhum termo presente no índice BM25 (fora do assunto dos
+ *   documentos) não buscam;
+ * - o resto busca, inclusive quando o índice lexical não está carregado.
+ *
+ * Toda decisão é logada (INFO, categoria com.redhat.rag.RetrievalGate) com o
+ * motivo, e os contadores por motivo ficam em /admin/rag/gate. Com
+ * rag.gate.dry-run a decisão é logada e contada, mas a busca sempre acontece,
+ * para comparar a qualidade das respostas antes de ligar o gate.
+ */
+@ApplicationScoped
+public class RetrievalGate {
+
+    private static final Logger LOG = Logger.getLogger(RetrievalGate.class);
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final int MAX_SMALL_TALK_WORDS = 8;
+    private static final int MAX_LOGGED_CHARS = 120;
+
+    // Palavras de cortesia/confirmação (sem acentos); uma mensagem só com elas não busca
+    private static final Set<String> SMALL_TALK = Set.of(
+            "oi", "ola", "opa", "eai", "bom", "boa", "dia", "tarde", "noite", "tudo", "bem", "beleza", "blz",
+            "obrigado", "obrigada", "obg", "valeu", "vlw", "brigado", "muito", "mto", "ok", "okay", "certo",
+            "entendi", "perfeito", "otimo", "legal", "show", "massa", "top", "tchau", "ate", "mais", "logo",
+            "sim", "nao", "claro", "combinado", "fechou", "isso", "ai", "pra", "voce", "vc", "e",
+            "hi", "hello", "hey", "thanks", "thank", "you", "thx", "ty", "great", "cool", "nice", "good",
+            "morning", "afternoon", "evening", "bye", "see", "later", "yes", "no", "yeah", "yep", "nope",
+            "sure", "got", "it", "perfect", "awesome", "a", "lot", "so", "much", "very", "how", "are", "the");
+
+    // Palavras funcionais (sem acentos), que não indicam o assunto da mensagem
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "e", "de", "do", "da", "dos", "das", "em", "no", "na", "nos", "nas", "um",
+            "uma", "uns", "umas", "para", "pra", "por", "pelo", "pela", "com", "sem", "que", "qual", "quais",
+            "se", "como", "onde", "quando", "quanto", "porque", "mas", "ou", "eu", "me", "meu", "minha", "voce",
+            "ele", "ela", "isso", "isto", "esse", "essa", "este", "esta", "aquele", "aquilo", "ja", "tambem",
+            "entao", "sobre", "ao", "aos", "seu", "sua", "mais", "menos", "muito", "tem", "ter", "ser", "estao",
+            "sao", "foi", "faz", "fazer", "pode", "posso", "consigo", "quero", "the", "an", "and", "or", "of",
+            "to", "in", "on", "at", "for", "with", "about", "is", "are", "was", "be", "does", "can", "i",
+            "my", "it", "this", "that", "what", "which", "how", "where", "when", "why", "if", "so", "also",
+            "then", "but", "there", "same", "one");
+
+    // Início típico de uma continuação da pergunta anterior (normalizado, sem acentos)
+    private static final Pattern FOLLOW_UP = Pattern.compile(
+            "^(e|and|mas|but|tambem|also|entao|so|what about|how about|e quanto|e se|and if|e pra|e para)\\b");
+
+    /**
+     * Motivo de uma decisão
+     */
+    public enum Reason {
+        EMPTY("empty", false),
+        SMALL_TALK("small-talk", false),
+        FOLLOW_UP("follow-up", false),
+        NO_CORPUS_TERMS("no-corpus-terms", false),
+        CORPUS_TERMS("corpus-terms", true),
+        NO_LEXICAL_INDEX("no-lexical-index", true);
+
+        final String label;
+        final boolean retrieve;
+
+        Reason(String label, boolean retrieve) {
+            this.label = label;
+            this.retrieve = retrieve;
+        }
+    }
+
+    @Inject
+    LexicalIndexService lexicalIndex;
+
+    @ConfigProperty(name = "rag.gate.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "rag.gate.dry-run", defaultValue = "false")
+    boolean dryRun;
+
+    @ConfigProperty(name = "rag.gate.follow-up-max-terms", defaultValue = "3")
+    int followUpMaxTerms;
+
+    private final Map<Reason, AtomicLong> decisions = new EnumMap<>(Reason.class);
+
+    @PostConstruct
+    void init() {
+        for (Reason reason : Reason.values()) {
+            decisions.put(reason, new AtomicLong());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * QueryRouter que só encaminha ao retriever as mensagens que precisam do RAG
+     */
+    public QueryRouter router(ContentRetriever retriever) {
+        List<ContentRetriever> retrievers = List.of(retriever);
+        return query -> decide(query).retrieve || dryRun ? retrievers : List.of();
+    }
+
+    /**
+     * Decide e registra se a consulta precisa da busca
+     */
+    public Reason decide(Query query) {
+        String text = query.text() == null ? "" : query.text().strip();
+        boolean history = hasHistory(query);
+        List<String> terms = contentTerms(text);
+        int known = -1;
+        Reason reason;
+        if (text.isEmpty()) {
+            reason = Reason.EMPTY;
+        } else if (isSmallTalk(text)) {
+            reason = Reason.SMALL_TALK;
+        } else if (history && terms.size() <= followUpMaxTerms && FOLLOW_UP.matcher(normalize(text)).find()) {
+            reason = Reason.FOLLOW_UP;
+        } else {
+            Bm25Index index = lexicalIndex.index();
+            if (!lexicalIndex.isEnabled() || index.size() == 0) {
+                reason = Reason.NO_LEXICAL_INDEX;
+            } else {
+                known = (int) terms.stream().filter(term -> index.documentFrequency(term) > 0).count();
+                reason = known == 0 ? Reason.NO_CORPUS_TERMS : Reason.CORPUS_TERMS;
+            }
+        }
+        decisions.get(reason).incrementAndGet();
+        LOG.infof("Gate do RAG: %s (%s%s) termos=%d no corpus=%s histórico=%s memória=%s consulta=\"%s\"",
+                  reason.retrieve ? "busca" : "sem busca", reason.label,
+                  dryRun && !reason.retrieve ? ", dry-run: busca mesmo assim" : "",
+                  terms.size(), known < 0 ? "-" : String.valueOf(known), history,
+                  query.metadata() == null ? null : query.metadata().chatMemoryId(), abbreviate(text));
+        return reason;
+    }
+
+    private static boolean hasHistory(Query query) {
+        if (query.metadata() == null || query.metadata().chatMemory() == null) {
+            return false;
+        }
+        for (ChatMessage message : query.metadata().chatMemory()) {
+            if (message instanceof AiMessage) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSmallTalk(String text) {
+        List<String> words = words(text);
+        return words.size() <= MAX_SMALL_TALK_WORDS && SMALL_TALK.containsAll(words);
+    }
+
+    /**
+     * Termos da mensagem que indicam o assunto (os mesmos termos do índice BM25, sem palavras funcionais)
+     */
+    private static List<String> contentTerms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String term : Bm25Index.tokenize(text)) {
+            String plain = normalize(term);
+            if (term.length() > 1 && !STOPWORDS.contains(plain) && !terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        Matcher matcher = WORD.matcher(normalize(text));
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+        return words;
+    }
+
+    /**
+     * Minúsculas e sem acentos
+     */
+    private static String normalize(String text) {
+        return Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    private static String abbreviate(String text) {
+        String line = text.replaceAll("\\s+", " ");
+        return line.length() <= MAX_LOGGED_CHARS ? line : line.substring(0, MAX_LOGGED_CHARS) + "…";
+    }
+
+    public GateStats stats() {
+        Map<String, Long> reasons = new LinkedHashMap<>();
+        long total = 0;
+        long skipped = 0;
+        for (Reason reason : Reason.values()) {
+            long count = decisions.get(reason).get();
+            reasons.put(reason.label, count);
+            total += count;
+            if (!reason.retrieve) {
+                skipped += count;
+            }
+        }
+        return new GateStats(enabled, dryRun, total, total - skipped, skipped,
+                             total == 0 ? 0.0 : (double) skipped / total, reasons);
+    }
+
+    /**
+     * Estatísticas exibidas em /admin/rag/gate
+     *
+     * @param skipped  decisões sem busca (com dry-run, a busca aconteceu mesmo assim)
+     * @param skipRate skipped / decisions
+     * @param reasons  decisões por motivo
+     */
+    public record GateStats(boolean enabled, boolean dryRun, long decisions, long retrieved, long skipped,
+                            double skipRate, Map<String, Long> reasons) {}
+}
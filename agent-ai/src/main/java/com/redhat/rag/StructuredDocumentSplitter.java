@@ -0,0 +1,457 @@
+package com.redhat.rag;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+import dev.langchain4j.data.document.parser.TextDocumentParser;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.segment.TextSegment;
+
+/**
+ * Splitter que segue a estrutura de documentos markdown e HTML.
+ *
+ * O documento vira uma sequência de blocos (títulos, parágrafos, blocos de
+ * código, tabelas) e os segmentos são montados com blocos inteiros, até
+ * maxSegmentSize caracteres:
+ * - um título sempre começa um segmento novo, a não ser que seja uma
+ *   subseção do segmento atual e ele ainda esteja abaixo da metade do limite;
+ * - blocos de código ficam inteiros até 2 * maxSegmentSize; acima disso são
+ *   quebrados em linhas, com a cerca (```) repetida em cada parte;
+ * - tabelas grandes são quebradas por linha, repetindo o cabeçalho;
+ * - parágrafos maiores que o limite passam pelo splitter recursivo.
+ *
+ * O caminho de títulos da seção ("Instalação > Rede > Proxy") fica no
+ * metadado heading_path de cada segmento e, com headingContext, também na
+ * primeira linha do texto, para entrar no embedding e no BM25.
+ *
+ * HTML é convertido para o mesmo formato (h1-h6, pre, table, p, li) antes da
+ * quebra; os demais formatos (txt, pdf...) usam o splitter recursivo.
+ */
+public class StructuredDocumentSplitter implements DocumentSplitter {
+
+    public static final String HEADING_PATH = "heading_path";
+    static final String PATH_SEPARATOR = " > ";
+
+    private static final Pattern ATX_HEADING = Pattern.compile("^ {0,3}(#{1,6})\\s+(.*?)(?:\\s+#+)?\\s*$");
+    private static final Pattern SETEXT_UNDERLINE = Pattern.compile("^ {0,3}(=+|-+)\\s*$");
+    private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,}).*$");
+    private static final Pattern TABLE_ROW = Pattern.compile("^\\s*\\|.*$");
+    private static final Pattern TABLE_SEPARATOR = Pattern.compile("^\\s*\\|?[\\s:|-]*-[\\s:|-]*$");
+
+    private static final Pattern HTML_IGNORED = Pattern.compile(
+            "<!--.*?-->|<(script|style|head|nav|footer)\\b[^>]*>.*?</\\1\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_PRE = Pattern.compile("<pre\\b[^>]*>(.*?)</pre\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_HEADING = Pattern.compile("<h([1-6])\\b[^>]*>(.*?)</h\\1\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_TABLE = Pattern.compile("<table\\b[^>]*>(.*?)</table\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_ROW = Pattern.compile("<tr\\b[^>]*>(.*?)(?:</tr\\s*>|(?=<tr\\b)|$)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_CELL = Pattern.compile("<t[hd]\\b[^>]*>(.*?)(?:</t[hd]\\s*>|(?=<t[hd]\\b)|$)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_LIST_ITEM = Pattern.compile("<li\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HTML_LINE_BREAK = Pattern.compile("<br\\s*/?>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HTML_BLOCK_END = Pattern.compile(
+            "</?(p|div|ul|ol|li|dl|dt|dd|section|article|blockquote|main|header|hr)\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern HTML_ENTITY = Pattern.compile("&(#x?[0-9a-fA-F]+|[a-zA-Z]+);");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\u0000(\\d+)\u0000");
+
+    private final int maxSegmentSize;
+    private final boolean headingContext;
+    private final DocumentSplitter fallback;
+
+    public StructuredDocumentSplitter(int maxSegmentSize, int maxOverlapSize, boolean headingContext) {
+        this.maxSegmentSize = maxSegmentSize;
+        this.headingContext = headingContext;
+        this.fallback = DocumentSplitters.recursive(maxSegmentSize, maxOverlapSize);
+    }
+
+    /**
+     * Formatos com estrutura reconhecida pelo splitter
+     */
+    enum Format {
+        MARKDOWN, HTML, OTHER;
+
+        static Format of(String fileName) {
+            String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".md") || name.endsWith(".markdown")) {
+                return MARKDOWN;
+            }
+            if (name.endsWith(".html") || name.endsWith(".htm")) {
+                return HTML;
+            }
+            return OTHER;
+        }
+    }
+
+    /**
+     * Carrega o arquivo: markdown e HTML como texto puro (o parser padrão tira as tags do HTML), os demais pelo parser padrão
+     */
+    public Document load(Path file) {
+        if (Format.of(file.getFileName().toString()) == Format.OTHER) {
+            return FileSystemDocumentLoader.loadDocument(file);
+        }
+        return FileSystemDocumentLoader.loadDocument(file, new TextDocumentParser());
+    }
+
+    @Override
+    public List<TextSegment> split(Document document) {
+        Format format = Format.of(document.metadata().getString(Document.FILE_NAME));
+        if (format == Format.OTHER) {
+            return fallback.split(document);
+        }
+        String text = format == Format.HTML ? htmlToMarkdown(document.text()) : document.text();
+        List<TextSegment> segments = new ArrayList<>();
+        for (Chunk chunk : pack(blocks(text))) {
+            // Seção sem conteúdo (título seguido de outro título do mesmo nível)
+            if (chunk.blocks.stream().allMatch(block -> block.type == BlockType.HEADING)) {
+                continue;
+            }
+            String segmentText = chunk.render();
+            Metadata metadata = document.metadata().copy().put("index", String.valueOf(segments.size()));
+            if (!chunk.path.isEmpty()) {
+                metadata.put(HEADING_PATH, String.join(PATH_SEPARATOR, chunk.path));
+            }
+            segments.add(TextSegment.from(segmentText, metadata));
+        }
+        return segments;
+    }
+
+    /**
+     * Blocos do markdown, cada um com o caminho de títulos da seção em que está
+     */
+    List<Block> blocks(String text) {
+        List<Block> blocks = new ArrayList<>();
+        List<String> path = new ArrayList<>();
+        List<Integer> levels = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        BlockType currentType = null;
+        String fence = null;
+        for (String line : text.split("\\r?\\n", -1)) {
+            if (fence != null) {
+                current.append('\n').append(line);
+                String stripped = line.strip();
+                if (stripped.startsWith(fence) && stripped.replace(fence.charAt(0), ' ').isBlank()) {
+                    blocks.add(new Block(BlockType.CODE, current.toString(), path));
+                    current.setLength(0);
+                    currentType = null;
+                    fence = null;
+                }
+                continue;
+            }
+            Matcher fenceStart = FENCE.matcher(line);
+            if (fenceStart.matches()) {
+                flush(blocks, current, currentType, path);
+                fence = fenceStart.group(1);
+                current.append(line);
+                currentType = BlockType.CODE;
+                continue;
+            }
+            Matcher heading = ATX_HEADING.matcher(line);
+            if (heading.matches()) {
+                flush(blocks, current, currentType, path);
+                currentType = null;
+                path = heading(path, levels, heading.group(1).length(), heading.group(2));
+                blocks.add(new Block(BlockType.HEADING, line.strip(), path));
+                continue;
+            }
+            Matcher underline = SETEXT_UNDERLINE.matcher(line);
+            if (underline.matches() && currentType == BlockType.TEXT && current.indexOf("\n") < 0) {
+                String title = current.toString().strip();
+                current.setLength(0);
+                currentType = null;
+                path = heading(path, levels, underline.group(1).charAt(0) == '=' ? 1 : 2, title);
+                blocks.add(new Block(BlockType.HEADING, title, path));
+                continue;
+            }
+            if (line.isBlank()) {
+                flush(blocks, current, currentType, path);
+                currentType = null;
+                continue;
+            }
+            BlockType type = TABLE_ROW.matcher(line).matches() ? BlockType.TABLE : BlockType.TEXT;
+            if (currentType != null && currentType != type) {
+                flush(blocks, current, currentType, path);
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            current.append(line);
+            currentType = type;
+        }
+        // Bloco de código sem cerca de fechamento vai até o fim do documento
+        flush(blocks, current, currentType, path);
+        return blocks;
+    }
+
+    private static void flush(List<Block> blocks, StringBuilder current, BlockType type, List<String> path) {
+        if (type != null && !current.toString().isBlank()) {
+            blocks.add(new Block(type, current.toString().strip(), path));
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * Caminho de títulos após um título de nível level (novo objeto: os blocos anteriores mantêm o seu)
+     */
+    private static List<String> heading(List<String> path, List<Integer> levels, int level, String title) {
+        while (!levels.isEmpty() && levels.get(levels.size() - 1) >= level) {
+            levels.remove(levels.size() - 1);
+            path = path.subList(0, path.size() - 1);
+        }
+        List<String> next = new ArrayList<>(path);
+        next.add(title.replace('\n', ' ').strip());
+        levels.add(level);
+        return List.copyOf(next);
+    }
+
+    /**
+     * Agrupa os blocos em segmentos de até maxSegmentSize caracteres
+     */
+    List<Chunk> pack(List<Block> blocks) {
+        List<Chunk> chunks = new ArrayList<>();
+        Chunk current = null;
+        for (Block block : blocks) {
+            for (Block piece : fit(block)) {
+                if (current != null && !current.blocks.isEmpty() && startsNewChunk(current, piece)) {
+                    chunks.add(current);
+                    current = null;
+                }
+                if (current == null) {
+                    current = new Chunk(piece.path);
+                }
+                current.blocks.add(piece);
+            }
+        }
+        if (current != null) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private boolean startsNewChunk(Chunk current, Block piece) {
+        if (piece.type == BlockType.HEADING) {
+            boolean subsection = piece.path.size() > current.path.size()
+                                 && piece.path.subList(0, current.path.size()).equals(current.path);
+            if (!subsection || current.length() >= maxSegmentSize / 2) {
+                return true;
+            }
+        }
+        return current.length() + 1 + piece.text.length() > maxSegmentSize;
+    }
+
+    /**
+     * O bloco em partes que cabem num segmento (blocos de código inteiros até 2 * maxSegmentSize)
+     */
+    private List<Block> fit(Block block) {
+        int limit = Math.max(maxSegmentSize / 2, maxSegmentSize - prefix(block.path).length());
+        if (block.text.length() <= limit || (block.type == BlockType.CODE && block.text.length() <= 2 * maxSegmentSize)) {
+            return List.of(block);
+        }
+        return switch (block.type) {
+            case CODE -> splitLines(block, limit, firstLine(block.text), closingFence(block.text));
+            case TABLE -> splitLines(block, limit, tableHeader(block.text), null);
+            case TEXT, HEADING -> fallback.split(Document.from(block.text)).stream()
+                                          .map(segment -> new Block(block.type, segment.text(), block.path)).toList();
+        };
+    }
+
+    /**
+     * Quebra o bloco em linhas, repetindo header no início e footer no fim de cada parte
+     */
+    private static List<Block> splitLines(Block block, int limit, String header, String footer) {
+        List<Block> pieces = new ArrayList<>();
+        String[] lines = block.text.split("\n");
+        int first = header == null ? 0 : (int) header.chars().filter(c -> c == '\n').count() + 1;
+        int last = footer == null ? lines.length : lines.length - 1;
+        StringBuilder piece = new StringBuilder();
+        for (int i = first; i < last; i++) {
+            int fixed = (header == null ? 0 : header.length() + 1) + (footer == null ? 0 : footer.length() + 1);
+            if (piece.length() > 0 && fixed + piece.length() + 1 + lines[i].length() > limit) {
+                pieces.add(new Block(block.type, wrap(header, piece, footer), block.path));
+                piece.setLength(0);
+            }
+            if (piece.length() > 0) {
+                piece.append('\n');
+            }
+            piece.append(lines[i]);
+        }
+        if (piece.length() > 0) {
+            pieces.add(new Block(block.type, wrap(header, piece, footer), block.path));
+        }
+        return pieces;
+    }
+
+    private static String wrap(String header, CharSequence body, String footer) {
+        StringBuilder text = new StringBuilder();
+        if (header != null) {
+            text.append(header).append('\n');
+        }
+        text.append(body);
+        if (footer != null) {
+            text.append('\n').append(footer);
+        }
+        return text.toString();
+    }
+
+    private static String firstLine(String text) {
+        int end = text.indexOf('\n');
+        return end < 0 ? text : text.substring(0, end);
+    }
+
+    private static String closingFence(String text) {
+        String last = text.substring(text.lastIndexOf('\n') + 1);
+        String opening = firstLine(text).strip();
+        String fence = opening.substring(0, opening.length() - opening.replaceFirst("^[`~]+", "").length());
+        return last.strip().startsWith(fence) ? last : null;
+    }
+
+    /**
+     * Linha de cabeçalho (e separador) da tabela, ou null se não houver
+     */
+    private static String tableHeader(String text) {
+        String[] lines = text.split("\n", 3);
+        if (lines.length >= 2 && TABLE_SEPARATOR.matcher(lines[1]).matches()) {
+            return lines[0] + "\n" + lines[1];
+        }
+        return null;
+    }
+
+    private String prefix(List<String> path) {
+        return headingContext && !path.isEmpty() ? String.join(PATH_SEPARATOR, path) : "";
+    }
+
+    /**
+     * Converte o HTML para o markdown reconhecido por blocks(): títulos, blocos de código, tabelas e parágrafos
+     */
+    static String htmlToMarkdown(String html) {
+        List<String> code = new ArrayList<>();
+        String text = HTML_IGNORED.matcher(html).replaceAll("");
+        text = replace(HTML_PRE, text, pre -> {
+            code.add("```\n" + unescape(HTML_TAG.matcher(pre.group(1)).replaceAll("")).strip() + "\n```");
+            return "\n\n\u0000" + (code.size() - 1) + "\u0000\n\n";
+        });
+        text = replace(HTML_HEADING, text, heading ->
+                "\n\n" + "#".repeat(Integer.parseInt(heading.group(1))) + " " + inline(heading.group(2)) + "\n\n");
+        text = replace(HTML_TABLE, text, table -> {
+            StringBuilder rows = new StringBuilder("\n\n");
+            Matcher row = HTML_ROW.matcher(table.group(1));
+            boolean header = true;
+            while (row.find()) {
+                List<String> cells = new ArrayList<>();
+                Matcher cell = HTML_CELL.matcher(row.group(1));
+                while (cell.find()) {
+                    cells.add(inline(cell.group(1)).replace("|", "\\|"));
+                }
+                if (cells.isEmpty()) {
+                    continue;
+                }
+                rows.append("| ").append(String.join(" | ", cells)).append(" |\n");
+                if (header) {
+                    rows.append("|").append(" --- |".repeat(cells.size())).append('\n');
+                    header = false;
+                }
+            }
+            return rows.append('\n').toString();
+        });
+        text = HTML_LIST_ITEM.matcher(text).replaceAll("\n\n- ");
+        text = HTML_LINE_BREAK.matcher(text).replaceAll("\n");
+        text = HTML_BLOCK_END.matcher(text).replaceAll("\n\n");
+        text = unescape(HTML_TAG.matcher(text).replaceAll(""));
+        StringBuilder markdown = new StringBuilder();
+        for (String line : text.split("\n")) {
+            markdown.append(line.replaceAll("[ \\t\\u00A0]+", " ").strip()).append('\n');
+        }
+        String result = markdown.toString().replaceAll("\n{3,}", "\n\n").strip();
+        return replace(PLACEHOLDER, result, placeholder -> code.get(Integer.parseInt(placeholder.group(1))));
+    }
+
+    private static String inline(String html) {
+        return unescape(HTML_TAG.matcher(html).replaceAll(" ")).replaceAll("\\s+", " ").strip();
+    }
+
+    private static String replace(Pattern pattern, String text, Function<Matcher, String> replacement) {
+        Matcher matcher = pattern.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement.apply(matcher)));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static String unescape(String text) {
+        return replace(HTML_ENTITY, text, entity -> {
+            String name = entity.group(1);
+            if (name.startsWith("#")) {
+                boolean hex = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X');
+                try {
+                    return new String(Character.toChars(Integer.parseInt(name.substring(hex ? 2 : 1), hex ? 16 : 10)));
+                } catch (IllegalArgumentException e) {
+                    return entity.group();
+                }
+            }
+            return switch (name) {
+                case "lt" -> "<";
+                case "gt" -> ">";
+                case "amp" -> "&";
+                case "quot" -> "\"";
+                case "apos" -> "'";
+                case "nbsp" -> " ";
+                default -> entity.group();
+            };
+        });
+    }
+
+    enum BlockType {
+        HEADING, TEXT, CODE, TABLE
+    }
+
+    /**
+     * Título, parágrafo, bloco de código ou tabela
+     *
+     * @param path caminho de títulos da seção (inclui o próprio título nos blocos HEADING)
+     */
+    record Block(BlockType type, String text, List<String> path) {}
+
+    /**
+     * Blocos consecutivos de um segmento
+     */
+    final class Chunk {
+        final List<String> path;
+        final List<Block> blocks = new ArrayList<>();
+
+        Chunk(List<String> path) {
+            this.path = path;
+        }
+
+        int length() {
+            return render().length();
+        }
+
+        /**
+         * Texto do segmento: o caminho de títulos (com headingContext) e os blocos; o título da
+         * própria seção no início é omitido, já que está no caminho
+         */
+        String render() {
+            StringBuilder text = new StringBuilder(prefix(path));
+            for (int i = 0; i < blocks.size(); i++) {
+                Block block = blocks.get(i);
+                if (i == 0 && headingContext && block.type == BlockType.HEADING && block.path.equals(path)) {
+                    continue;
+                }
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(block.text);
+            }
+            return text.toString();
+        }
+    }
+}
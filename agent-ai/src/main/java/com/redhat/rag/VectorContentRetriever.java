@@ -0,0 +1,76 @@
+package com.redhat.rag;
+
+import java.util.List;
+import java.util.Map;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+
+/**
+ * Busca por similaridade no vector store configurado em RagStore
+ */
+@ApplicationScoped
+public class VectorContentRetriever implements ContentRetriever {
+
+    private static final Logger LOG = Logger.getLogger(VectorContentRetriever.class);
+
+    @Inject
+    QueryEmbeddingCache queryEmbeddings;
+
+    @Inject
+    RagStore ragStore;
+
+    @Inject
+    RagEmbeddingModel embeddingModel;
+
+    @ConfigProperty(name = "quarkus.langchain4j.easy-rag.max-results", defaultValue = "5")
+    int maxResults;
+
+    @ConfigProperty(name = "quarkus.langchain4j.easy-rag.min-score", defaultValue = "0.0")
+    double minScore;
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        if (!embeddingModel.indexCompatible()) {
+            // Índice de outro modelo de embedding, até a re-indexação: só a busca lexical responde
+            LOG.debug("Busca vetorial pulada: índice ativo gerado por outro modelo de embedding");
+            return List.of();
+        }
+        Embedding embedding = queryEmbeddings.embed(query.text());
+        EmbeddingSearchResult<TextSegment> result = ragStore.store().search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(embedding)
+                .maxResults(maxResults)
+                .minScore(minScore)
+                .build());
+        return result.matches().stream()
+                .map(match -> Content.from(match.embedded(), Map.of(
+                        ContentMetadata.SCORE, match.score(),
+                        ContentMetadata.EMBEDDING_ID, match.embeddingId())))
+                .toList();
+    }
+
+    /**
+     * Mesma busca com outro número de resultados (ex.: candidatos para o ContentDiversifier)
+     */
+    public VectorContentRetriever withMaxResults(int maxResults) {
+        VectorContentRetriever copy = new VectorContentRetriever();
+        copy.queryEmbeddings = queryEmbeddings;
+        copy.ragStore = ragStore;
+        copy.embeddingModel = embeddingModel;
+        copy.maxResults = maxResults;
+        copy.minScore = minScore;
+        return copy;
+    }
+}
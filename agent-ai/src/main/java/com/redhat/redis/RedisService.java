@@ -2,6 +2,8 @@ package com.redhat.redis;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,11 +11,15 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.hash.HashCommands;
 import io.quarkus.redis.datasource.json.JsonCommands;
 import io.quarkus.redis.datasource.keys.KeyCommands;
 import io.quarkus.redis.datasource.keys.TransactionalKeyCommands;
 import io.quarkus.redis.datasource.list.ListCommands;
+import io.quarkus.redis.datasource.pubsub.PubSubCommands;
+import io.quarkus.redis.datasource.pubsub.PubSubCommands.RedisSubscriber;
 import io.quarkus.redis.datasource.value.SetArgs;
+import io.quarkus.redis.datasource.value.TransactionalValueCommands;
 import io.quarkus.redis.datasource.value.ValueCommands;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -24,7 +30,9 @@ public class RedisService {
     private final ValueCommands<String, String> valueCommands;
     private final KeyCommands<String> keyCommands;
     private final ListCommands<String, String> listCommands;
+    private final HashCommands<String, String, String> hashCommands;
     private final JsonCommands<String> jsonCommands;
+    private final PubSubCommands<String> pubSubCommands;
     private final RedisDataSource redisDataSource;
     private final ObjectMapper objectMapper = createObjectMapper();
 
@@ -51,7 +59,9 @@ public class RedisService {
         this.valueCommands = redisDataSource.value(String.class);
         this.keyCommands = redisDataSource.key();
         this.listCommands = redisDataSource.list(String.class);
+        this.hashCommands = redisDataSource.hash(String.class);
         this.jsonCommands = redisDataSource.json(String.class);
+        this.pubSubCommands = redisDataSource.pubsub(String.class);
     }
 
     /**
@@ -145,6 +155,38 @@ public class RedisService {
         return listCommands.lrange(key, 0, -1);
     }
 
+    /**
+     * Sets a field of the hash associated with the given key.
+     * 
+     * @param key The key.
+     * @param field The field.
+     * @param value The value.
+     */
+    public void setHashField(String key, String field, String value) {
+        hashCommands.hset(key, field, value);
+    }
+
+    /**
+     * Deletes a field of the hash associated with the given key.
+     * 
+     * @param key The key.
+     * @param field The field.
+     * @return true if the field existed.
+     */
+    public boolean deleteHashField(String key, String field) {
+        return hashCommands.hdel(key, field) > 0;
+    }
+
+    /**
+     * Gets all the fields of the hash associated with the given key.
+     * 
+     * @param key The key.
+     * @return The fields and their values, empty if the key does not exist.
+     */
+    public Map<String, String> getHash(String key) {
+        return hashCommands.hgetall(key);
+    }
+
     /**
      * Increments the value of the given key by 1.
      * 
@@ -168,6 +210,61 @@ public class RedisService {
         valueCommands.set(key, value, args);
     }
 
+    /**
+     * Gets the values of several keys in a single MGET.
+     * 
+     * @param keys The keys.
+     * @return The values by key; missing keys map to null.
+     */
+    public Map<String, String> getValues(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Map.of();
+        }
+        return valueCommands.mget(keys.toArray(new String[0]));
+    }
+
+    /**
+     * Gets the values of several keys in a single MGET and deserializes them to the specified class.
+     * 
+     * @param keys The keys.
+     * @param clazz The class to deserialize the values to.
+     * @return The deserialized values by key; missing keys and values that fail to deserialize are left out.
+     */
+    public <T> Map<String, T> getValues(List<String> keys, Class<T> clazz) {
+        Map<String, T> values = new java.util.LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : getValues(keys).entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            try {
+                values.put(entry.getKey(), objectMapper.readValue(entry.getValue(), clazz));
+            } catch (JsonProcessingException e) {
+                e.printStackTrace();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Sets several values in a single transaction, optionally with an expiration time.
+     * 
+     * @param values The values by key.
+     * @param seconds Expiration time in seconds (0 = no expiration).
+     */
+    public void setValues(Map<String, String> values, long seconds) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        if (seconds <= 0) {
+            valueCommands.mset(values);
+            return;
+        }
+        redisDataSource.withTransaction(tx -> {
+            TransactionalValueCommands<String, String> txValues = tx.value(String.class);
+            values.forEach((key, value) -> txValues.setex(key, seconds, value));
+        });
+    }
+
     /**
      * Gets the Time-To-Live (TTL) for the given key.
      * 
@@ -244,6 +341,28 @@ public class RedisService {
         return keyCommands.keys(pattern);
     }
 
+    /**
+     * Publishes a message on the given channel.
+     * 
+     * @param channel The channel.
+     * @param message The message.
+     */
+    public void publish(String channel, String message) {
+        pubSubCommands.publish(channel, message);
+    }
+
+    /**
+     * Subscribes to the given channel. The handler runs on the Redis I/O thread,
+     * so blocking work must be moved to a worker thread.
+     * 
+     * @param channel The channel.
+     * @param handler Called for each message received.
+     * @return The subscriber, used to unsubscribe.
+     */
+    public RedisSubscriber subscribe(String channel, Consumer<String> handler) {
+        return pubSubCommands.subscribe(channel, handler);
+    }
+
     /**
      * Sets a JSON value for the given key.
      * 
@@ -392,6 +511,26 @@ public class RedisService {
         return new ScanResult(keys.isEmpty() ? "0" : cursor, keys);
     }
 
+    /**
+     * Checks whether any key matches a pattern, stopping at the first SCAN page with a match.
+     * 
+     * @param pattern The pattern to match.
+     * @param count Hint for number of keys to examine per iteration.
+     * @return true if at least one key matches.
+     */
+    public boolean hasKeys(String pattern, int count) {
+        io.quarkus.redis.datasource.keys.KeyScanCursor<String> scanCursor =
+            keyCommands.scan(new io.quarkus.redis.datasource.keys.KeyScanArgs()
+                .match(pattern)
+                .count(count));
+        while (scanCursor.hasNext()) {
+            if (!scanCursor.next().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Deletes multiple keys in a single pipeline operation.
      * This is more efficient than calling deleteKey() multiple times.
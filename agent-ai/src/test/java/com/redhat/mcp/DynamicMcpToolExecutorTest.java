@@ -0,0 +1,156 @@
+package com.redhat.mcp;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProviderRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynamicMcpToolExecutorTest {
+
+    private final AtomicInteger listings = new AtomicInteger();
+    private volatile long serversVersion = 1;
+    private volatile List<ToolSpecification> tools = List.of(tool("list_pods"), tool("get_pod_logs"));
+    // Quando definido, getAllTools espera por ele (listagem lenta de um servidor)
+    private volatile CountDownLatch slowListing;
+    private DynamicMcpToolExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new DynamicMcpToolExecutor();
+        executor.mcpManager = new McpManager() {
+            @Override
+            public long getServersVersion() {
+                return serversVersion;
+            }
+
+            @Override
+            public List<ToolSpecification> getAllTools() {
+                listings.incrementAndGet();
+                CountDownLatch latch = slowListing;
+                if (latch != null) {
+                    try {
+                        latch.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return tools;
+            }
+        };
+    }
+
+    private static ToolSpecification tool(String name) {
+        return ToolSpecification.builder().name(name).description("tool " + name).build();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condição não atingida em 5s");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void snapshotIsImmutableAndKeepsTheFirstToolOfADuplicatedName() {
+        ToolExecutor shared = (request, memoryId) -> "ok";
+        ToolSpecification first = tool("list_pods");
+        McpToolSnapshot snapshot = McpToolSnapshot.of(1, 1,
+                List.of(first, ToolSpecification.builder().name("list_pods").description("outro servidor").build(), tool("scale")),
+                shared);
+
+        assertEquals(2, snapshot.size());
+        assertSame(first, snapshot.byName().get("list_pods"));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.specs().add(tool("x")));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.byName().put("x", tool("x")));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.result().tools().put(tool("x"), shared));
+        snapshot.result().tools().values().forEach(toolExecutor -> assertSame(shared, toolExecutor));
+    }
+
+    @Test
+    void firstLoadAndServerChangesRefreshInline() {
+        McpToolSnapshot first = executor.getSnapshot();
+        assertEquals(1, first.version());
+        assertEquals(2, first.size());
+        // Dentro do TTL, sem mudança: o mesmo snapshot, sem listar de novo
+        assertSame(first, executor.getSnapshot());
+        assertEquals(1, listings.get());
+
+        serversVersion = 2;
+        tools = List.of(tool("list_pods"), tool("get_pod_logs"), tool("create_route"));
+        McpToolSnapshot second = executor.getSnapshot();
+        assertEquals(2, second.version());
+        assertEquals(3, second.size());
+    }
+
+    @Test
+    void refreshWithTheSameToolsKeepsVersionAndResult() throws Exception {
+        McpToolSnapshot first = executor.getSnapshot();
+        Thread.sleep(5);
+        executor.invalidateCache();
+        // Sem mudança nos servidores a atualização roda em background
+        assertSame(first, executor.getSnapshot());
+        await(() -> executor.getSnapshot().builtAt() > first.builtAt());
+
+        McpToolSnapshot renewed = executor.getSnapshot();
+        assertEquals(first.version(), renewed.version());
+        assertSame(first.result(), renewed.result());
+        assertSame(first.specs(), renewed.specs());
+    }
+
+    @Test
+    void refreshWithChangedToolsPublishesANewVersion() throws Exception {
+        McpToolSnapshot first = executor.getSnapshot();
+        tools = List.of(tool("list_pods"));
+        executor.invalidateCache();
+        executor.getSnapshot();
+        await(() -> executor.getSnapshot().version() != first.version());
+
+        McpToolSnapshot next = executor.getSnapshot();
+        assertEquals(2, next.version());
+        assertEquals(List.of("list_pods"), next.specs().stream().map(ToolSpecification::name).toList());
+        assertNotEquals(first.result(), next.result());
+    }
+
+    @Test
+    void onlyOneThreadRefreshesWhileOthersGetTheCurrentSnapshot() throws Exception {
+        slowListing = new CountDownLatch(1);
+        CompletableFuture<McpToolSnapshot> loading = CompletableFuture.supplyAsync(executor::getSnapshot);
+        await(() -> listings.get() == 1);
+
+        // Outra thread não espera a listagem em andamento: recebe o snapshot vigente (vazio)
+        assertSame(McpToolSnapshot.EMPTY, executor.getSnapshot());
+        slowListing.countDown();
+        assertEquals(1, loading.get(5, TimeUnit.SECONDS).version());
+        assertEquals(1, listings.get());
+    }
+
+    @Test
+    void providerReturnsTheSharedSnapshotResult() {
+        McpToolSelector selector = new McpToolSelector();
+        selector.enabled = false;
+        DynamicMcpToolProvider provider = new DynamicMcpToolProvider();
+        provider.toolExecutor = executor;
+        provider.toolSelector = selector;
+
+        ToolProviderRequest request = new ToolProviderRequest("sessao-1", UserMessage.from("liste os pods"));
+        assertSame(executor.getSnapshot().result(), provider.provideTools(request));
+        assertSame(provider.provideTools(request), provider.provideTools(request));
+    }
+}
@@ -0,0 +1,176 @@
+package com.redhat.mcp;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.mcp.client.McpClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class McpClientPoolTest {
+
+    private static final ToolExecutionRequest REQUEST = ToolExecutionRequest.builder().name("echo").arguments("{}").build();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    // Clientes criados pelo pool, em ordem; a fábrica é chamada das threads das chamadas
+    private final List<FakeClient> clients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger numbers = new AtomicInteger();
+
+    // Enquanto release não chega a zero, as chamadas ficam presas em executeTool
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private final AtomicInteger started = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Cliente MCP falso: executeTool devolve o número do cliente
+     */
+    private final class FakeClient {
+        final int number;
+        final AtomicBoolean closed = new AtomicBoolean();
+        final McpClient client;
+
+        FakeClient(int number) {
+            this.number = number;
+            this.client = (McpClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { McpClient.class },
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "executeTool" -> {
+                            started.incrementAndGet();
+                            release.await(10, TimeUnit.SECONDS);
+                            yield String.valueOf(number);
+                        }
+                        case "listTools" -> List.of();
+                        case "close" -> {
+                            closed.set(true);
+                            yield null;
+                        }
+                        case "key" -> "fake-" + number;
+                        case "toString" -> "FakeClient-" + number;
+                        case "hashCode" -> number;
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+    }
+
+    private Supplier<McpClient> factory() {
+        return () -> {
+            FakeClient fake = new FakeClient(numbers.getAndIncrement());
+            clients.add(fake);
+            return fake.client;
+        };
+    }
+
+    private List<Future<String>> hold(McpClientPool pool, int calls) throws InterruptedException {
+        release = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            futures.add(executor.submit(() -> pool.executeTool(REQUEST)));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (started.get() < calls && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(calls, started.get());
+        return futures;
+    }
+
+    @Test
+    void sequentialCallsReuseTheFirstClient() {
+        McpClientPool pool = new McpClientPool("mock", factory(), 4);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("0", pool.executeTool(REQUEST));
+        }
+        assertEquals(1, pool.size());
+        assertEquals(1, pool.stats().created());
+    }
+
+    @Test
+    void concurrentCallsGrowThePoolUpToMaxSize() throws Exception {
+        McpClientPool pool = new McpClientPool("mock", factory(), 3);
+        List<Future<String>> futures = hold(pool, 5);
+        assertEquals(3, pool.size());
+        assertEquals(5, pool.inFlight());
+        release.countDown();
+        List<String> served = new ArrayList<>();
+        for (Future<String> future : futures) {
+            served.add(future.get(5, TimeUnit.SECONDS));
+        }
+        // Cada cliente recebeu ao menos uma chamada (o menos ocupado é escolhido)
+        assertTrue(served.containsAll(List.of("0", "1", "2")));
+        assertEquals(0, pool.inFlight());
+    }
+
+    @Test
+    void reapClosesIdleExtraClientsAndKeepsOne() throws Exception {
+        McpClientPool pool = new McpClientPool("mock", factory(), 3);
+        List<Future<String>> futures = hold(pool, 3);
+        release.countDown();
+        for (Future<String> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(3, pool.size());
+        Thread.sleep(20);
+        assertEquals(2, pool.reapIdle(10));
+        assertEquals(1, pool.size());
+        assertEquals(2, clients.stream().filter(fake -> fake.closed.get()).count());
+        assertEquals(2, pool.stats().reaped());
+    }
+
+    @Test
+    void busyClientsAreNotReaped() throws Exception {
+        McpClientPool pool = new McpClientPool("mock", factory(), 2);
+        hold(pool, 2);
+        assertEquals(0, pool.reapIdle(0));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    void failedExtraClientFallsBackToExistingOne() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<McpClient> factory = factory();
+        McpClientPool pool = new McpClientPool("mock", () -> {
+            if (attempts.incrementAndGet() > 1) {
+                throw new IllegalStateException("servidor recusou a conexão");
+            }
+            return factory.get();
+        }, 2);
+        List<Future<String>> futures = hold(pool, 2);
+        assertEquals(1, pool.size());
+        release.countDown();
+        for (Future<String> future : futures) {
+            assertEquals("0", future.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closedPoolRejectsCallsAndCreatesNoClients() {
+        McpClientPool pool = new McpClientPool("mock", factory(), 4);
+        pool.close();
+        assertTrue(clients.get(0).closed.get());
+        assertThrows(IllegalStateException.class, () -> pool.executeTool(REQUEST));
+        assertThrows(IllegalStateException.class, pool::listTools);
+        assertEquals(1, clients.size());
+        assertEquals(0, pool.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.redhat.mcp;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.redhat.mcp.mock.MockClients;
+import com.redhat.mcp.mock.MockConfig;
+import com.redhat.mcp.mock.MockMcpServer;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.mcp.client.McpClient;
+
+/**
+ * Custo de descobrir as tools de um servidor (tools/list + parsing do schema)
+ * e de montar o McpToolSnapshot, variando a quantidade de tools e o tamanho
+ * dos schemas.
+ *
+ * mvn -Pbench test-compile exec:exec -Dbench=McpDiscoveryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class McpDiscoveryBenchmark {
+
+    @Param({"10", "100", "500"})
+    int tools;
+
+    @Param({"4", "32"})
+    int schemaProperties;
+
+    private MockMcpServer server;
+    private McpClient client;
+    private List<ToolSpecification> specs;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        MockConfig d = MockConfig.defaults();
+        MockConfig config = new MockConfig("http", 0, 1, tools, schemaProperties, d.descriptionChars(),
+                                           0, "fixed", 0, 0.0, d.payloadBytes());
+        server = MockMcpServer.startHttp(config, 0, 1);
+        client = MockClients.http(server.url(0));
+        specs = client.listTools();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public List<ToolSpecification> listTools() {
+        return client.listTools();
+    }
+
+    @Benchmark
+    public McpToolSnapshot buildSnapshot() {
+        return McpToolSnapshot.of(1, 1, specs, (request, memoryId) -> "");
+    }
+}
@@ -0,0 +1,94 @@
+package com.redhat.mcp;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.redhat.mcp.mock.MockClients;
+import com.redhat.mcp.mock.MockConfig;
+import com.redhat.mcp.mock.MockMcpServer;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+
+/**
+ * Vazão de chamadas concorrentes de tools através do McpClientPool, em HTTP
+ * e stdio, com o pool limitado a 1 cliente (comportamento antigo) ou a N.
+ *
+ * mvn -Pbench test-compile exec:exec -Dbench=McpDispatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+public class McpDispatchBenchmark {
+
+    @Param({"http", "stdio"})
+    String transport;
+
+    @Param({"1", "4"})
+    int poolSize;
+
+    @Param({"20"})
+    long latencyMs;
+
+    @Param({"4096"})
+    int payloadBytes;
+
+    @Param({"0.0"})
+    double errorRate;
+
+    private MockMcpServer server;
+    private McpClientPool pool;
+    private final ToolExecutionRequest request = ToolExecutionRequest.builder()
+            .name("tool_0")
+            .arguments("{\"arg_0\": 1}")
+            .build();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        MockConfig d = MockConfig.defaults();
+        MockConfig config = new MockConfig(transport, 0, 1, d.tools(), d.schemaProperties(), d.descriptionChars(),
+                                           latencyMs, "exponential", 0, errorRate, payloadBytes);
+        if ("stdio".equals(transport)) {
+            pool = new McpClientPool("mock", () -> MockClients.stdio(config), poolSize);
+        } else {
+            server = MockMcpServer.startHttp(config, 0, 1);
+            String url = server.url(0);
+            pool = new McpClientPool("mock", () -> MockClients.http(url), poolSize);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Benchmark
+    public String executeTool() {
+        try {
+            return pool.executeTool(request);
+        } catch (RuntimeException e) {
+            // Erros simulados (errorRate) contam como chamadas concluídas
+            return e.getMessage();
+        }
+    }
+}
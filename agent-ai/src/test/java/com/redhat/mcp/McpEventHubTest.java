@@ -0,0 +1,108 @@
+package com.redhat.mcp;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import jakarta.enterprise.event.Event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class McpEventHubTest {
+
+    private McpEventHub hub;
+    private McpEventService service;
+    // Chamado no meio do replay, entre a inscrição no broadcast e a leitura do ring buffer
+    private Runnable duringReplay = () -> { };
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        hub = new McpEventHub();
+        service = new McpEventService() {
+            @Override
+            public List<McpCallEvent> getEvents(String requestId) {
+                duringReplay.run();
+                return super.getEvents(requestId);
+            }
+        };
+        // O Event do CDI entrega direto ao hub, na thread de quem dispara
+        service.mcpEventBus = (Event<McpCallEvent>) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { Event.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("fire")) {
+                        hub.onEvent((McpCallEvent) args[0]);
+                    }
+                    return null;
+                });
+        hub.mcpEventService = service;
+    }
+
+    private static McpCallEvent event(String requestId, String tool) {
+        return new McpCallEvent(requestId, tool, "completed");
+    }
+
+    private static List<String> received(AssertSubscriber<McpCallEvent> subscriber) {
+        return subscriber.getItems().stream()
+                .map(event -> event.getToolName() != null ? event.getToolName() : event.getStatus())
+                .toList();
+    }
+
+    @Test
+    void replaysPastEventsThenDeliversLiveOnes() {
+        service.addEvent(event("req-1", "list_pods"));
+        service.addEvent(event("req-2", "outro_request"));
+        service.addEvent(event("req-1", "get_pod_logs"));
+
+        AssertSubscriber<McpCallEvent> subscriber = hub.stream("req-1").subscribe()
+                .withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        assertEquals(List.of("list_pods", "get_pod_logs"), received(subscriber));
+
+        service.addEvent(event("req-2", "outro_request"));
+        service.addEvent(event("req-1", "scale"));
+        service.finishRequest("req-1");
+        subscriber.assertCompleted();
+        assertEquals(List.of("list_pods", "get_pod_logs", "scale", McpEventService.STATUS_DONE), received(subscriber));
+    }
+
+    @Test
+    void eventsArrivingDuringTheReplayKeepTheirOrderWithoutDuplicates() {
+        service.addEvent(event("req-1", "list_pods"));
+        McpCallEvent live = event("req-1", "describe");
+        duringReplay = () -> {
+            // Um evento já gravado no ring buffer (chega pelo replay e pelo broadcast)
+            // e outro só no broadcast, que precisa esperar o fim do replay
+            service.addEvent(event("req-1", "get_pod_logs"));
+            hub.onEvent(live);
+        };
+
+        AssertSubscriber<McpCallEvent> subscriber = hub.stream("req-1").subscribe()
+                .withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        assertEquals(List.of("list_pods", "get_pod_logs", "describe"), received(subscriber));
+        subscriber.assertNotTerminated();
+    }
+
+    @Test
+    void lateSubscriberOfAFinishedTurnGetsTheReplayAndCompletes() {
+        service.addEvent(event("req-1", "list_pods"));
+        service.finishRequest("req-1");
+
+        AssertSubscriber<McpCallEvent> subscriber = hub.stream("req-1").subscribe()
+                .withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        subscriber.assertCompleted();
+        assertEquals(List.of("list_pods", McpEventService.STATUS_DONE), received(subscriber));
+    }
+
+    @Test
+    void doneArrivingDuringTheReplayIsDeliveredOnce() {
+        service.addEvent(event("req-1", "list_pods"));
+        duringReplay = () -> service.finishRequest("req-1");
+
+        AssertSubscriber<McpCallEvent> subscriber = hub.stream("req-1").subscribe()
+                .withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        subscriber.assertCompleted();
+        assertEquals(List.of("list_pods", McpEventService.STATUS_DONE), received(subscriber));
+    }
+}
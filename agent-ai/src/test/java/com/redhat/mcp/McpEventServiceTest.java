@@ -0,0 +1,133 @@
+package com.redhat.mcp;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.enterprise.event.Event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class McpEventServiceTest {
+
+    // Ticks de 5s que um request sobrevive (WHEEL_SLOTS - 1)
+    private static final int TICKS_TO_EXPIRE = 59;
+
+    private McpEventService service;
+    private final List<McpCallEvent> fired = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        service = new McpEventService();
+        service.mcpEventBus = (Event<McpCallEvent>) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { Event.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("fire")) {
+                        fired.add((McpCallEvent) args[0]);
+                    }
+                    return null;
+                });
+    }
+
+    private static McpCallEvent event(String requestId, String tool) {
+        return new McpCallEvent(requestId, tool, "completed");
+    }
+
+    @Test
+    void ringBufferKeepsOrderAndDropsOldest() {
+        for (int i = 0; i < 70; i++) {
+            service.addEvent(event("req-1", "tool-" + i));
+        }
+        List<McpCallEvent> events = service.getEvents("req-1");
+        assertEquals(64, events.size());
+        assertEquals("tool-6", events.get(0).getToolName());
+        assertEquals("tool-69", events.get(63).getToolName());
+        assertEquals(70, fired.size());
+    }
+
+    @Test
+    void eventsAreKeptPerRequest() {
+        service.addEvent(event("req-1", "a"));
+        service.addEvent(event("req-2", "b"));
+        service.addEvent(event("req-1", "c"));
+        assertEquals(List.of("a", "c"), service.getEvents("req-1").stream().map(McpCallEvent::getToolName).toList());
+        assertEquals(List.of("b"), service.getEvents("req-2").stream().map(McpCallEvent::getToolName).toList());
+        assertTrue(service.getEvents("req-3").isEmpty());
+    }
+
+    @Test
+    void requestExpiresAfterAFullWheelTurn() {
+        service.addEvent(event("req-1", "a"));
+        for (int i = 0; i < TICKS_TO_EXPIRE - 1; i++) {
+            service.expireOldEvents();
+        }
+        assertEquals(1, service.getEvents("req-1").size());
+        service.expireOldEvents();
+        assertTrue(service.getEvents("req-1").isEmpty());
+    }
+
+    @Test
+    void laterRequestsExpireInLaterSlots() {
+        service.addEvent(event("req-1", "a"));
+        for (int i = 0; i < 10; i++) {
+            service.expireOldEvents();
+        }
+        service.addEvent(event("req-2", "b"));
+        for (int i = 10; i < TICKS_TO_EXPIRE; i++) {
+            service.expireOldEvents();
+        }
+        assertTrue(service.getEvents("req-1").isEmpty());
+        assertEquals(1, service.getEvents("req-2").size());
+        for (int i = 0; i < 10; i++) {
+            service.expireOldEvents();
+        }
+        assertTrue(service.getEvents("req-2").isEmpty());
+    }
+
+    @Test
+    void finishMarksRequestAndPublishesDone() {
+        assertFalse(service.isFinished("req-1"));
+        service.finishRequest("req-1");
+        assertTrue(service.isFinished("req-1"));
+        assertEquals(McpEventService.STATUS_DONE, fired.get(fired.size() - 1).getStatus());
+        // "done" só vai para o broadcast, não para o ring buffer
+        assertTrue(service.getEvents("req-1").isEmpty());
+    }
+
+    @Test
+    void issuedRequestIdIsClaimedOnlyOnce() {
+        String requestId = service.issueRequestId();
+        assertTrue(service.isKnown(requestId));
+        assertTrue(service.claimRequestId(requestId));
+        // Outro turno não pode reaproveitar o id (nem assinar os eventos de quem o usa)
+        assertFalse(service.claimRequestId(requestId));
+    }
+
+    @Test
+    void requestIdsNotIssuedHereAreRejected() {
+        assertFalse(service.claimRequestId("req-escolhido-pelo-cliente"));
+        assertFalse(service.claimRequestId(null));
+        assertFalse(service.isKnown("req-escolhido-pelo-cliente"));
+
+        // Ids de turnos que não pediram um id antes também não podem ser reservados
+        String generated = service.newRequestId();
+        service.finishRequest(generated);
+        assertTrue(service.isKnown(generated));
+        assertFalse(service.claimRequestId(generated));
+    }
+
+    @Test
+    void unusedIssuedRequestIdsExpire() {
+        String requestId = service.issueRequestId();
+        for (int i = 0; i < TICKS_TO_EXPIRE; i++) {
+            service.expireOldEvents();
+        }
+        assertFalse(service.isKnown(requestId));
+        assertFalse(service.claimRequestId(requestId));
+    }
+}
@@ -0,0 +1,95 @@
+package com.redhat.mcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.redhat.mcp.mock.MockClients;
+import com.redhat.mcp.mock.MockConfig;
+import com.redhat.mcp.mock.MockMcpServer;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+
+/**
+ * Custo de ter muitos servidores MCP registrados:
+ * - discoverAll: tools/list em todos os servidores + McpToolSnapshot
+ *   (o que o DynamicMcpToolExecutor faz a cada atualização)
+ * - scanAndDispatch: localizar a tool percorrendo os servidores com
+ *   tools/list e executá-la (o que o McpManager.executeTool faz a cada
+ *   chamada); a tool alvo fica no último servidor, o pior caso
+ *
+ * mvn -Pbench test-compile exec:exec -Dbench=McpFanOutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class McpFanOutBenchmark {
+
+    @Param({"1", "10", "50"})
+    int servers;
+
+    @Param({"20"})
+    int toolsPerServer;
+
+    private MockMcpServer server;
+    private final List<McpClientPool> pools = new ArrayList<>();
+    private ToolExecutionRequest lastServerTool;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        MockConfig d = MockConfig.defaults();
+        MockConfig config = new MockConfig("http", 0, servers, toolsPerServer, d.schemaProperties(),
+                                           d.descriptionChars(), 0, "fixed", 0, 0.0, d.payloadBytes());
+        server = MockMcpServer.startHttp(config, 0, servers);
+        for (int i = 0; i < servers; i++) {
+            String url = server.url(i);
+            pools.add(new McpClientPool("mock-" + i, () -> MockClients.http(url), 1));
+        }
+        String prefix = servers == 1 ? "" : "s" + (servers - 1) + "_";
+        lastServerTool = ToolExecutionRequest.builder().name(prefix + "tool_0").arguments("{}").build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pools.forEach(McpClientPool::close);
+        server.close();
+    }
+
+    @Benchmark
+    public McpToolSnapshot discoverAll() {
+        List<ToolSpecification> all = new ArrayList<>();
+        for (McpClientPool pool : pools) {
+            all.addAll(pool.listTools());
+        }
+        return McpToolSnapshot.of(1, 1, all, (request, memoryId) -> "");
+    }
+
+    @Benchmark
+    public String scanAndDispatch() {
+        for (McpClientPool pool : pools) {
+            boolean hasTool = pool.listTools().stream().anyMatch(t -> t.name().equals(lastServerTool.name()));
+            if (hasTool) {
+                return pool.executeTool(lastServerTool);
+            }
+        }
+        throw new IllegalStateException("Tool não encontrada: " + lastServerTool.name());
+    }
+}
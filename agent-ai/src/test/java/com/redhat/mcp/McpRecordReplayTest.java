@@ -0,0 +1,131 @@
+package com.redhat.mcp;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.redhat.mcp.mock.MockClients;
+import com.redhat.mcp.mock.MockConfig;
+import com.redhat.mcp.mock.MockMcpServer;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.exception.ToolExecutionException;
+import dev.langchain4j.mcp.client.DefaultMcpClient;
+import dev.langchain4j.mcp.client.McpClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Grava chamadas reais ao MockMcpServer com o McpCallRecorder e as reproduz
+ * pelo ReplayMcpTransport, do mesmo jeito que o McpManager faz com cada um
+ */
+class McpRecordReplayTest {
+
+    private static final long LATENCY_MS = 40;
+
+    @TempDir
+    Path baseDir;
+
+    private MockMcpServer server;
+    private McpCallRecorder recorder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = MockMcpServer.startHttp(
+                new MockConfig("http", 0, 1, 3, 2, 10, LATENCY_MS, "fixed", 0, 0.0, 64), 0, 1);
+        recorder = new McpCallRecorder();
+        recorder.toolSchemaCache = new McpToolSchemaCache();
+        recorder.baseDir = baseDir.toString();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recorder.stop();
+        server.close();
+    }
+
+    private static ToolExecutionRequest call(String tool, String arguments) {
+        return ToolExecutionRequest.builder().name(tool).arguments(arguments).build();
+    }
+
+    private static McpClient replay(Path file, double latencyScale) {
+        return new DefaultMcpClient.Builder().transport(new ReplayMcpTransport(file, latencyScale)).build();
+    }
+
+    /**
+     * Chamada ao servidor real, gravada como no McpManager.invokeTool
+     */
+    private String recordedCall(McpClient client, ToolExecutionRequest request) {
+        long start = System.nanoTime();
+        String result = client.executeTool(request);
+        recorder.recordCall("mock", request, result, System.nanoTime() - start, false);
+        return result;
+    }
+
+    private Path record(List<ToolSpecification> tools, List<String> results) throws Exception {
+        Path session = recorder.start();
+        try (McpClient live = MockClients.http(server.url(0))) {
+            tools.addAll(live.listTools());
+            recorder.recordTools("mock", tools);
+            results.add(recordedCall(live, call("tool_0", "{\"arg_0\": 1}")));
+            results.add(recordedCall(live, call("tool_1", "{\"arg_0\": 2, \"arg_1\": \"b\"}")));
+        }
+        recorder.stop();
+        assertEquals(2, recorder.status().calls());
+        return session.resolve("mock.jsonl.gz");
+    }
+
+    @Test
+    void replayAnswersLikeTheRecordedServer() throws Exception {
+        List<ToolSpecification> tools = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+        Path file = record(tools, results);
+        server.close();
+
+        try (McpClient replayed = replay(file, 0)) {
+            assertEquals(tools, replayed.listTools());
+            // Mesmos argumentos com outra formatação encontram a gravação
+            assertEquals(results.get(0), replayed.executeTool(call("tool_0", "{\"arg_0\":1}")));
+            assertEquals(results.get(1), replayed.executeTool(call("tool_1", "{\"arg_0\": 2, \"arg_1\": \"b\"}")));
+            // Argumentos nunca gravados: as gravações da tool em rodízio
+            assertEquals(results.get(0), replayed.executeTool(call("tool_0", "{\"arg_0\": 99}")));
+        }
+    }
+
+    @Test
+    void replayReproducesTheRecordedLatency() throws Exception {
+        Path file = record(new ArrayList<>(), new ArrayList<>());
+
+        try (McpClient replayed = replay(file, 1.0)) {
+            long start = System.nanoTime();
+            replayed.executeTool(call("tool_0", "{\"arg_0\": 1}"));
+            assertTrue((System.nanoTime() - start) / 1_000_000 >= LATENCY_MS - 5);
+        }
+        try (McpClient replayed = replay(file, 0)) {
+            long start = System.nanoTime();
+            replayed.executeTool(call("tool_0", "{\"arg_0\": 1}"));
+            assertTrue((System.nanoTime() - start) / 1_000_000 < LATENCY_MS);
+        }
+    }
+
+    @Test
+    void unknownToolsAreReportedAsErrors() throws Exception {
+        Path file = record(new ArrayList<>(), new ArrayList<>());
+        try (McpClient replayed = replay(file, 0)) {
+            // Resposta com isError: o cliente MCP a converte em exceção, como faria com o servidor real
+            ToolExecutionException error = assertThrows(ToolExecutionException.class,
+                    () -> replayed.executeTool(call("tool_2", "{}")));
+            assertEquals("Nenhuma gravação para a tool 'tool_2'", error.getMessage());
+        }
+        assertFalse(recorder.isActive());
+    }
+}
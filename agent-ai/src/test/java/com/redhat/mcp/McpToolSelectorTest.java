@@ -0,0 +1,150 @@
+package com.redhat.mcp;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.rag.EmbeddingCache;
+import com.redhat.rag.HashingEmbeddingModel;
+import com.redhat.rag.QueryEmbeddingCache;
+import com.redhat.rag.RagEmbeddingModel;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProviderRequest;
+import dev.langchain4j.service.tool.ToolProviderResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class McpToolSelectorTest {
+
+    private static final ToolExecutor EXECUTOR = (request, memoryId) -> "ok";
+
+    private final HashingEmbeddingModel hashing = new HashingEmbeddingModel(256);
+    // Textos de tools enviados ao modelo, para conferir o reaproveitamento dos embeddings
+    private final List<String> embedded = new ArrayList<>();
+    private final McpEventService eventService = new McpEventService();
+    private boolean queryFails = false;
+    private McpToolSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        EmbeddingModel counting = new EmbeddingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                segments.forEach(segment -> embedded.add(segment.text()));
+                return hashing.embedAll(segments);
+            }
+        };
+        selector = new McpToolSelector();
+        selector.embeddingModel = RagEmbeddingModel.of(counting, "hashing");
+        // Cache de embeddings desabilitado: as tools vão direto ao modelo
+        selector.embeddingCache = new EmbeddingCache();
+        selector.queryEmbeddings = new QueryEmbeddingCache() {
+            @Override
+            public Embedding embed(String text) {
+                if (queryFails) {
+                    throw new IllegalStateException("modelo de embedding indisponível");
+                }
+                return hashing.embed(text).content();
+            }
+        };
+        selector.mcpEventService = eventService;
+        selector.enabled = true;
+        selector.topK = 2;
+        selector.pinned = Optional.of(Set.of("cluster_info"));
+        eventService.setCurrentRequestId("req-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventService.clearCurrentRequestId();
+    }
+
+    private static ToolSpecification tool(String name, String description) {
+        return ToolSpecification.builder().name(name).description(description).build();
+    }
+
+    private static List<ToolSpecification> tools() {
+        return List.of(
+                tool("list_pods", "Lista os pods de um namespace"),
+                tool("get_pod_logs", "Mostra os logs de um pod"),
+                tool("scale_deployment", "Escala as réplicas de um deployment"),
+                tool("create_route", "Cria uma rota para expor um serviço"),
+                tool("list_nodes", "Lista os nós do cluster"),
+                tool("cluster_info", "Informações gerais do cluster"));
+    }
+
+    private static ToolProviderRequest request(String text) {
+        return new ToolProviderRequest("sessao-1", UserMessage.from(text));
+    }
+
+    private static Set<String> names(ToolProviderResult result) {
+        Set<String> names = new HashSet<>();
+        result.tools().keySet().forEach(spec -> names.add(spec.name()));
+        return names;
+    }
+
+    @Test
+    void keepsTopKAndPinnedTools() {
+        McpToolSnapshot snapshot = McpToolSnapshot.of(1, 1, tools(), EXECUTOR);
+        ToolProviderResult result = selector.select(snapshot, request("mostre os logs do pod api-1"));
+
+        Set<String> names = names(result);
+        // top-k = 2 mais a fixada, que não conta no limite
+        assertEquals(3, names.size(), names.toString());
+        assertTrue(names.contains("get_pod_logs"), names.toString());
+        assertTrue(names.contains("cluster_info"), names.toString());
+        result.tools().values().forEach(executor -> assertSame(EXECUTOR, executor));
+
+        McpToolSelector.SelectionStats stats = selector.getStats("req-1");
+        assertEquals(6, stats.totalTools());
+        assertEquals(3, stats.selectedTools());
+        assertTrue(stats.tokensSaved() > 0);
+    }
+
+    @Test
+    void fallsBackToAllToolsWhenEmbeddingFails() {
+        McpToolSnapshot snapshot = McpToolSnapshot.of(1, 1, tools(), EXECUTOR);
+        queryFails = true;
+        assertSame(snapshot.result(), selector.select(snapshot, request("mostre os logs do pod api-1")));
+    }
+
+    @Test
+    void smallSnapshotsAndRequestsWithoutTextAreNotPruned() {
+        McpToolSnapshot small = McpToolSnapshot.of(1, 1, tools().subList(0, 2), EXECUTOR);
+        assertSame(small.result(), selector.select(small, request("logs do pod")));
+
+        McpToolSnapshot snapshot = McpToolSnapshot.of(1, 1, tools(), EXECUTOR);
+        assertSame(snapshot.result(), selector.select(snapshot, null));
+        assertTrue(embedded.isEmpty());
+    }
+
+    @Test
+    void toolEmbeddingsAreReusedAcrossRequestsAndVersions() {
+        McpToolSnapshot v1 = McpToolSnapshot.of(1, 1, tools(), EXECUTOR);
+        selector.select(v1, request("logs do pod"));
+        selector.select(v1, request("escalar o deployment"));
+        assertEquals(6, embedded.size());
+
+        // Nova versão com uma tool alterada: só ela vai ao modelo
+        List<ToolSpecification> changed = new ArrayList<>(tools());
+        changed.set(3, tool("create_route", "Cria uma rota TLS para expor um serviço"));
+        selector.select(McpToolSnapshot.of(2, 2, changed, EXECUTOR), request("expor o serviço com uma rota"));
+        assertEquals(7, embedded.size());
+        assertEquals("create route: Cria uma rota TLS para expor um serviço", embedded.get(6));
+    }
+}
@@ -0,0 +1,132 @@
+package com.redhat.mcp;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redhat.redis.FakeRedisService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolResultReducerTest {
+
+    private static final Pattern REF = Pattern.compile("/api/mcp/results/([0-9a-f-]+)]");
+    private static final String FOOTER = System.lineSeparator() + "[Resultado reduzido";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FakeRedisService redis = new FakeRedisService();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ToolResultReducer reducer;
+
+    @BeforeEach
+    void setUp() {
+        McpMetrics metrics = new McpMetrics();
+        metrics.registry = registry;
+        reducer = new ToolResultReducer();
+        reducer.redisService = redis;
+        reducer.mcpMetrics = metrics;
+        reducer.enabled = true;
+        // 100 tokens = 400 caracteres
+        reducer.defaultBudgetTokens = 100;
+        reducer.retentionSeconds = 3600;
+    }
+
+    // Texto reduzido, sem o rodapé com a referência
+    private static String body(String reduced) {
+        int footer = reduced.lastIndexOf(FOOTER);
+        assertTrue(footer > 0, reduced);
+        return reduced.substring(0, footer);
+    }
+
+    private static String ref(String reduced) {
+        Matcher matcher = REF.matcher(reduced);
+        assertTrue(matcher.find(), reduced);
+        return matcher.group(1);
+    }
+
+    @Test
+    void resultWithinBudgetPassesThroughUnchanged() {
+        String raw = "{\"pods\": [\"api-1\", \"api-2\"]}";
+        assertSame(raw, reducer.reduce("list_pods", raw));
+        assertSame(null, reducer.reduce("list_pods", null));
+        assertTrue(redis.values.isEmpty());
+    }
+
+    @Test
+    void disabledReducerKeepsLongResults() {
+        reducer.enabled = false;
+        String raw = "x".repeat(5000);
+        assertSame(raw, reducer.reduce("logs", raw));
+    }
+
+    @Test
+    void longJsonArraysKeepHeadAndTailWithTheTotal() throws Exception {
+        StringBuilder raw = new StringBuilder("{\"namespace\": \"prod\", \"pods\": [");
+        for (int i = 0; i < 50; i++) {
+            raw.append(i > 0 ? ", " : "").append("{\"name\": \"pod-").append(i).append("\"}");
+        }
+        raw.append("]}");
+
+        JsonNode reduced = objectMapper.readTree(body(reducer.reduce("list_pods", raw.toString())));
+        assertEquals("prod", reduced.path("namespace").asText());
+        JsonNode pods = reduced.path("pods");
+        assertEquals(14, pods.size());
+        assertEquals("pod-0", pods.get(0).path("name").asText());
+        assertEquals("pod-9", pods.get(9).path("name").asText());
+        assertEquals(37, pods.get(10).path("_omitted").asInt());
+        assertEquals(50, pods.get(10).path("_total").asInt());
+        assertEquals("pod-47", pods.get(11).path("name").asText());
+        assertEquals("pod-49", pods.get(13).path("name").asText());
+    }
+
+    @Test
+    void repeatedLogLinesAreCountedOnce() {
+        StringBuilder raw = new StringBuilder("Iniciando coleta de logs\n");
+        for (int i = 0; i < 30; i++) {
+            raw.append("2026-10-19T10:00:").append(10 + i).append(" ERROR conexão recusada por 10.0.0.").append(i).append('\n');
+        }
+        raw.append("Fim da coleta");
+
+        String body = body(reducer.reduce("pod_logs", raw.toString()));
+        assertEquals("Iniciando coleta de logs\n"
+                     + "2026-10-19T10:00:10 ERROR conexão recusada por 10.0.0.0  [x30]\n"
+                     + "Fim da coleta\n", body);
+    }
+
+    @Test
+    void plainTextKeepsHeadAndTail() {
+        String raw = "a".repeat(1000) + "meio" + "z".repeat(1000);
+        String body = body(reducer.reduce("describe", raw));
+        // 60% do orçamento no início e 40% no fim
+        assertTrue(body.startsWith("a".repeat(240) + "\n... [1604 caracteres omitidos] ...\n"), body);
+        assertTrue(body.endsWith("\n" + "z".repeat(160)), body);
+        assertFalse(body.contains("meio"));
+    }
+
+    @Test
+    void fullResultIsKeptInRedisUnderTheReference() {
+        String raw = "b".repeat(2000);
+        String reduced = reducer.reduce("describe", raw);
+        String ref = ref(reduced);
+        assertEquals(raw, reducer.getFull(ref));
+        assertEquals(3600L, redis.ttls.get("dora:mcp:result:" + ref));
+        assertTrue(reduced.contains("[Resultado reduzido de 2000 para"), reduced);
+        assertEquals(1, registry.find("mcp.tool.result.raw.bytes").summary().count());
+    }
+
+    @Test
+    void fullResultAlwaysExpires() {
+        reducer.retentionSeconds = 0;
+        String ref = ref(reducer.reduce("describe", "c".repeat(2000)));
+        assertEquals(21600L, redis.ttls.get("dora:mcp:result:" + ref));
+    }
+}
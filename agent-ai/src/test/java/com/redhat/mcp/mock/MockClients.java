@@ -0,0 +1,41 @@
+package com.redhat.mcp.mock;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.langchain4j.mcp.client.DefaultMcpClient;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.mcp.client.transport.http.StreamableHttpMcpTransport;
+import dev.langchain4j.mcp.client.transport.stdio.StdioMcpTransport;
+
+/**
+ * Clientes MCP apontando para o MockMcpServer, criados da mesma forma que o
+ * McpManager cria os clientes reais
+ */
+public final class MockClients {
+
+    private MockClients() {
+    }
+
+    public static McpClient http(String url) {
+        return new DefaultMcpClient.Builder()
+                .transport(new StreamableHttpMcpTransport.Builder().url(url).build())
+                .build();
+    }
+
+    /**
+     * Inicia o mock em um processo filho (mesmo classpath) e conecta via stdio
+     */
+    public static McpClient stdio(MockConfig config) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MockMcpServer.class.getName());
+        command.addAll(List.of(config.withTransport("stdio").toArgs()));
+        return new DefaultMcpClient.Builder()
+                .transport(new StdioMcpTransport.Builder().command(command).build())
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.redhat.mcp.mock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Parâmetros do MockMcpServer.
+ *
+ * @param transport        "http" ou "stdio"
+ * @param port             porta HTTP (0 = aleatória)
+ * @param servers          endpoints HTTP independentes (/mcp/0 .. /mcp/{n-1})
+ * @param tools            tools anunciadas por servidor
+ * @param schemaProperties propriedades no inputSchema de cada tool
+ * @param descriptionChars tamanho extra das descrições (tool e propriedades)
+ * @param latencyMs        latência base de cada tools/call
+ * @param latencyDist      "fixed", "uniform" (latencyMs ± jitterMs) ou "exponential" (média latencyMs)
+ * @param jitterMs         variação usada na distribuição uniforme
+ * @param errorRate        fração das chamadas que retornam isError (0..1)
+ * @param payloadBytes     tamanho do texto retornado pelas tools
+ */
+public record MockConfig(
+    String transport,
+    int port,
+    int servers,
+    int tools,
+    int schemaProperties,
+    int descriptionChars,
+    long latencyMs,
+    String latencyDist,
+    long jitterMs,
+    double errorRate,
+    int payloadBytes
+) {
+
+    public static MockConfig defaults() {
+        return new MockConfig("http", 0, 1, 20, 4, 40, 0, "fixed", 0, 0.0, 512);
+    }
+
+    /**
+     * Lê argumentos no formato chave=valor (ex.: tools=100 latency-ms=20)
+     */
+    public static MockConfig fromArgs(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                values.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        MockConfig d = defaults();
+        return new MockConfig(
+            values.getOrDefault("transport", d.transport()),
+            Integer.parseInt(values.getOrDefault("port", String.valueOf(d.port()))),
+            Integer.parseInt(values.getOrDefault("servers", String.valueOf(d.servers()))),
+            Integer.parseInt(values.getOrDefault("tools", String.valueOf(d.tools()))),
+            Integer.parseInt(values.getOrDefault("schema-props", String.valueOf(d.schemaProperties()))),
+            Integer.parseInt(values.getOrDefault("desc-chars", String.valueOf(d.descriptionChars()))),
+            Long.parseLong(values.getOrDefault("latency-ms", String.valueOf(d.latencyMs()))),
+            values.getOrDefault("latency-dist", d.latencyDist()),
+            Long.parseLong(values.getOrDefault("jitter-ms", String.valueOf(d.jitterMs()))),
+            Double.parseDouble(values.getOrDefault("error-rate", String.valueOf(d.errorRate()))),
+            Integer.parseInt(values.getOrDefault("payload-bytes", String.valueOf(d.payloadBytes())))
+        );
+    }
+
+    /**
+     * Argumentos equivalentes, para iniciar o mock em outro processo (stdio)
+     */
+    public String[] toArgs() {
+        return new String[] {
+            "transport=" + transport, "port=" + port, "servers=" + servers, "tools=" + tools,
+            "schema-props=" + schemaProperties, "desc-chars=" + descriptionChars,
+            "latency-ms=" + latencyMs, "latency-dist=" + latencyDist, "jitter-ms=" + jitterMs,
+            "error-rate=" + errorRate, "payload-bytes=" + payloadBytes
+        };
+    }
+
+    public MockConfig withTransport(String transport) {
+        return new MockConfig(transport, port, servers, tools, schemaProperties, descriptionChars,
+                              latencyMs, latencyDist, jitterMs, errorRate, payloadBytes);
+    }
+
+    /**
+     * Sorteia a latência de uma chamada conforme a distribuição configurada
+     */
+    long sampleLatencyMs() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (latencyDist) {
+            case "uniform" -> Math.max(0, latencyMs - jitterMs + random.nextLong(2 * jitterMs + 1));
+            case "exponential" -> Math.round(-latencyMs * Math.log(1 - random.nextDouble()));
+            default -> latencyMs;
+        };
+    }
+}
@@ -0,0 +1,220 @@
+package com.redhat.mcp.mock;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor MCP sintético para benchmarks de latência e fan-out do agent-ai.
+ *
+ * Responde initialize, tools/list e tools/call com tools geradas a partir da
+ * MockConfig (quantidade, tamanho do schema, latência, taxa de erro e tamanho
+ * do resultado). Roda em streamable HTTP (um endpoint por "servidor" em
+ * /mcp/{i}, para simular muitos servidores registrados) ou em stdio.
+ *
+ * Uso avulso:
+ *   java -cp target/test-classes:... com.redhat.mcp.mock.MockMcpServer transport=http port=8090 tools=50
+ *   java -cp target/test-classes:... com.redhat.mcp.mock.MockMcpServer transport=stdio latency-ms=20
+ */
+public class MockMcpServer implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MockConfig config;
+    private final String toolPrefix;
+    private final ArrayNode tools;
+    private final String payload;
+    private HttpServer httpServer;
+
+    public MockMcpServer(MockConfig config) {
+        this(config, "");
+    }
+
+    MockMcpServer(MockConfig config, String toolPrefix) {
+        this.config = config;
+        this.toolPrefix = toolPrefix;
+        this.tools = buildTools();
+        this.payload = "x".repeat(Math.max(0, config.payloadBytes()));
+    }
+
+    /**
+     * Sobe o transporte HTTP com 'servers' endpoints independentes: /mcp/0 .. /mcp/{n-1}.
+     * As tools de cada endpoint recebem o prefixo s{i}_ para não colidirem.
+     */
+    public static MockMcpServer startHttp(MockConfig config, int port, int servers) throws IOException {
+        // Sem TCP_NODELAY o HttpServer do JDK soma ~40ms (Nagle + delayed ACK) a cada resposta
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        MockMcpServer root = new MockMcpServer(config, "");
+        root.httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        root.httpServer.setExecutor(Executors.newCachedThreadPool());
+        for (int i = 0; i < servers; i++) {
+            MockMcpServer server = servers == 1 ? root : new MockMcpServer(config, "s" + i + "_");
+            root.httpServer.createContext("/mcp/" + i, server::handleHttp);
+        }
+        root.httpServer.start();
+        return root;
+    }
+
+    public int port() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public String url(int server) {
+        return "http://127.0.0.1:" + port() + "/mcp/" + server;
+    }
+
+    @Override
+    public void close() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+    }
+
+    private ArrayNode buildTools() {
+        ArrayNode list = objectMapper.createArrayNode();
+        String description = "d".repeat(Math.max(0, config.descriptionChars()));
+        for (int t = 0; t < config.tools(); t++) {
+            ObjectNode tool = list.addObject();
+            tool.put("name", toolPrefix + "tool_" + t);
+            tool.put("description", "Mock tool " + t + " " + description);
+            ObjectNode schema = tool.putObject("inputSchema");
+            schema.put("type", "object");
+            ObjectNode properties = schema.putObject("properties");
+            for (int p = 0; p < config.schemaProperties(); p++) {
+                properties.putObject("arg_" + p)
+                          .put("type", p % 3 == 0 ? "integer" : "string")
+                          .put("description", "Argumento " + p + " " + description);
+            }
+            if (config.schemaProperties() > 0) {
+                schema.putArray("required").add("arg_0");
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Processa uma mensagem JSON-RPC; retorna null para notificações
+     */
+    JsonNode handle(JsonNode message) {
+        if (!message.has("id")) {
+            return null;
+        }
+        String method = message.path("method").asText();
+        ObjectNode result = objectMapper.createObjectNode();
+        switch (method) {
+            case "initialize" -> {
+                result.put("protocolVersion", "2024-11-05");
+                result.putObject("capabilities").putObject("tools");
+                result.putObject("serverInfo").put("name", "mock-mcp").put("version", "1.0");
+            }
+            case "tools/list" -> result.set("tools", tools);
+            case "tools/call" -> callTool(message.path("params"), result);
+            default -> { /* ping e demais métodos: resultado vazio */ }
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", message.get("id"));
+        response.set("result", result);
+        return response;
+    }
+
+    private void callTool(JsonNode params, ObjectNode result) {
+        sleep(config.sampleLatencyMs());
+        boolean error = ThreadLocalRandom.current().nextDouble() < config.errorRate();
+        result.putArray("content").addObject()
+              .put("type", "text")
+              .put("text", error ? "Erro simulado em " + params.path("name").asText() : payload);
+        result.put("isError", error);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleHttp(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            JsonNode response;
+            try (InputStream body = exchange.getRequestBody()) {
+                response = handle(objectMapper.readTree(body));
+            }
+            if (response == null) {
+                exchange.sendResponseHeaders(202, -1);
+                return;
+            }
+            byte[] bytes = objectMapper.writeValueAsBytes(response);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Transporte stdio: uma mensagem JSON por linha em stdin/stdout.
+     * As mensagens são processadas em paralelo, como num servidor assíncrono;
+     * o gargalo medido é o canal único do processo.
+     */
+    public void serveStdio(InputStream in, PrintStream out) throws IOException {
+        ExecutorService workers = Executors.newCachedThreadPool();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode message = objectMapper.readTree(line);
+            workers.execute(() -> {
+                JsonNode response = handle(message);
+                if (response != null) {
+                    try {
+                        String json = objectMapper.writeValueAsString(response);
+                        synchronized (out) {
+                            out.println(json);
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Falha ao responder: " + e.getMessage());
+                    }
+                }
+            });
+        }
+        workers.shutdownNow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        MockConfig config = MockConfig.fromArgs(args);
+        if ("stdio".equals(config.transport())) {
+            new MockMcpServer(config).serveStdio(System.in, System.out);
+            return;
+        }
+        MockMcpServer server = startHttp(config, config.port(), config.servers());
+        System.err.printf("Mock MCP em http://127.0.0.1:%d/mcp/0..%d (%d tools cada)%n",
+                          server.port(), config.servers() - 1, config.tools());
+    }
+}
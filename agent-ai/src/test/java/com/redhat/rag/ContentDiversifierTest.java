@@ -0,0 +1,112 @@
+package com.redhat.rag;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.query.Query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContentDiversifierTest {
+
+    private final Map<String, float[]> vectors = new HashMap<>();
+
+    private ContentDiversifier diversifier(double lambda, int maxResults, int maxChars) {
+        return new ContentDiversifier(texts -> texts.stream().map(vectors::get).toList(), query -> null,
+                                      lambda, 10, 1000, maxResults, maxChars);
+    }
+
+    private static Content content(String documentId, String text) {
+        return Content.from(TextSegment.from(text, Metadata.from(DocumentIngestionService.DOCUMENT_ID, documentId)));
+    }
+
+    private static List<String> texts(List<Content> contents) {
+        return contents.stream().map(content -> content.textSegment().text()).toList();
+    }
+
+    private static Map<Query, Collection<List<Content>>> single(List<Content> ranked) {
+        return Map.of(Query.from("pergunta"), List.of(ranked));
+    }
+
+    @Test
+    void overlapIsTheLongestSuffixThatPrefixesTheNext() {
+        ContentDiversifier diversifier = diversifier(0.8, 5, 10_000);
+        assertEquals(13, diversifier.overlap("primeira parte compartilhada", "compartilhada e o resto"));
+        assertEquals(0, diversifier.overlap("primeira parte", "outra coisa qualquer"));
+        // Sobreposição menor que minOverlap (10) não conta
+        assertEquals(0, diversifier.overlap("fim curto abc", "abc e o resto"));
+    }
+
+    @Test
+    void neighbouringSegmentsOfTheSameDocumentAreMerged() {
+        ContentDiversifier diversifier = diversifier(0.8, 5, 10_000);
+        List<ContentDiversifier.Passage> passages = diversifier.merge(List.of(
+                content("doc", "o pod reinicia quando o probe de liveness falha"),
+                content("doc", "quando o probe de liveness falha, veja os eventos")));
+        assertEquals(1, passages.size());
+        assertEquals("o pod reinicia quando o probe de liveness falha, veja os eventos", passages.get(0).text);
+        assertEquals(0, passages.get(0).rank);
+    }
+
+    @Test
+    void mergeKeepsTheBestRankWhenTheLaterSegmentComesFirstInTheText() {
+        ContentDiversifier diversifier = diversifier(0.8, 5, 10_000);
+        List<ContentDiversifier.Passage> passages = diversifier.merge(List.of(
+                content("doc", "quando o probe de liveness falha, veja os eventos"),
+                content("doc", "o pod reinicia quando o probe de liveness falha")));
+        assertEquals(1, passages.size());
+        assertEquals("o pod reinicia quando o probe de liveness falha, veja os eventos", passages.get(0).text);
+        assertEquals(0, passages.get(0).rank);
+    }
+
+    @Test
+    void containedSegmentsAreDroppedAndOtherDocumentsKept() {
+        ContentDiversifier diversifier = diversifier(0.8, 5, 10_000);
+        List<ContentDiversifier.Passage> passages = diversifier.merge(List.of(
+                content("doc", "configure o limite de memória do container"),
+                content("doc", "limite de memória"),
+                content("outro", "configure o limite de memória do container")));
+        assertEquals(List.of("configure o limite de memória do container", "configure o limite de memória do container"),
+                     passages.stream().map(passage -> passage.text).toList());
+        assertEquals("outro", passages.get(1).documentId);
+    }
+
+    @Test
+    void mmrPrefersADifferentPassageOverANearDuplicate() {
+        vectors.put("a", new float[] { 1, 0 });
+        vectors.put("b", new float[] { 0.99f, 0.05f });
+        vectors.put("c", new float[] { 0, 1 });
+        List<Content> ranked = List.of(content("d1", "a"), content("d2", "b"), content("d3", "c"));
+
+        assertEquals(List.of("a", "c"), texts(diversifier(0.5, 2, 10_000).aggregate(single(ranked))));
+        // Só relevância: segue a ordem da busca
+        assertEquals(List.of("a", "b"), texts(diversifier(1.0, 2, 10_000).aggregate(single(ranked))));
+    }
+
+    @Test
+    void termOverlapIsUsedWithoutEmbeddings() {
+        List<Content> ranked = List.of(
+                content("d1", "reiniciar o deployment com rollout restart"),
+                content("d2", "reiniciar o deployment com rollout restart agora"),
+                content("d3", "verificar quotas do namespace"));
+        assertEquals(List.of("reiniciar o deployment com rollout restart", "verificar quotas do namespace"),
+                     texts(diversifier(0.5, 2, 10_000).aggregate(single(ranked))));
+    }
+
+    @Test
+    void selectionStopsAtTheCharacterBudget() {
+        List<Content> ranked = List.of(
+                content("d1", "x".repeat(60)),
+                content("d2", "y".repeat(60)),
+                content("d3", "z".repeat(30)));
+        // O primeiro sempre entra; o segundo estouraria o limite e o terceiro cabe
+        assertEquals(List.of("x".repeat(60), "z".repeat(30)), texts(diversifier(0.8, 5, 100).aggregate(single(ranked))));
+    }
+}
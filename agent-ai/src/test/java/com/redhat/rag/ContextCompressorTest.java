@@ -0,0 +1,94 @@
+package com.redhat.rag;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextCompressorTest {
+
+    private ContextCompressor compressor;
+
+    @BeforeEach
+    void setUp() {
+        compressor = new ContextCompressor();
+        compressor.enabled = true;
+        compressor.minScore = 0.3;
+        compressor.maxTokens = 600;
+    }
+
+    private static Content content(String text) {
+        return Content.from(TextSegment.from(text));
+    }
+
+    private static List<String> texts(List<Content> contents) {
+        return contents.stream().map(content -> content.textSegment().text()).toList();
+    }
+
+    @Test
+    void keepsOnlyRelevantSentencesInOriginalOrder() {
+        List<Content> compressed = compressor.compress("como configurar o readiness probe", List.of(content(
+                "O cluster tem três nós. O readiness probe indica quando o pod recebe tráfego. "
+                + "A equipe se reúne às sextas. Configure o readiness probe com initialDelaySeconds.")));
+        assertEquals(List.of("… O readiness probe indica quando o pod recebe tráfego. … Configure o readiness probe com initialDelaySeconds."),
+                     texts(compressed));
+    }
+
+    @Test
+    void segmentWithoutRelevantSentenceKeepsItsBest() {
+        List<Content> compressed = compressor.compress("readiness probe timeout", List.of(
+                content("O readiness probe tem timeout configurável. Outra frase qualquer."),
+                content("Frase sem relação. O probe também vale para liveness.")));
+        assertEquals(2, compressed.size());
+        assertEquals("O readiness probe tem timeout configurável.", compressed.get(0).textSegment().text());
+        assertEquals("… O probe também vale para liveness.", compressed.get(1).textSegment().text());
+    }
+
+    @Test
+    void staysWithinTheTokenBudget() {
+        compressor.maxTokens = 25;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            text.append("O deployment ").append(i).append(" usa rolling update com maxSurge. ");
+        }
+        List<Content> compressed = compressor.compress("rolling update maxSurge deployment", List.of(content(text.toString())));
+        String result = compressed.get(0).textSegment().text().replace("…", "");
+        assertTrue(result.length() <= 25 * 4, result);
+        assertTrue(result.contains("O deployment 0 usa rolling update com maxSurge."));
+    }
+
+    @Test
+    void codeBlocksAreKeptWhole() {
+        String code = "```yaml\nreadinessProbe:\n  httpGet:\n    path: /health\n```";
+        List<Content> compressed = compressor.compress("readinessProbe yaml exemplo", List.of(content(
+                "Texto introdutório sem relação.\n" + code + "\nOutra linha sem relação.")));
+        String text = compressed.get(0).textSegment().text();
+        assertTrue(text.contains(code), text);
+        assertFalse(text.contains("introdutório"));
+    }
+
+    @Test
+    void queryWithoutTermsInTheContextKeepsEverything() {
+        String text = "Primeira frase. Segunda frase.";
+        List<Content> compressed = compressor.compress("kubernetes", List.of(content(text)));
+        assertEquals(List.of(text), texts(compressed));
+    }
+
+    @Test
+    void statsCountSavedTokens() {
+        compressor.compress("readiness probe", List.of(content(
+                "O readiness probe indica tráfego. " + "Frase longa sem nenhuma relação com a pergunta feita. ".repeat(10))));
+        ContextCompressor.CompressionStats stats = compressor.stats();
+        assertEquals(1, stats.requests());
+        assertTrue(stats.tokensOut() < stats.tokensIn());
+        assertEquals(11, stats.sentencesIn());
+        assertEquals(1, stats.sentencesOut());
+    }
+}
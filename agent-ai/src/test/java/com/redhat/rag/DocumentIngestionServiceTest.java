@@ -0,0 +1,38 @@
+package com.redhat.rag;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DocumentIngestionServiceTest {
+
+    private static DocumentIngestionService service(String splitterType, int segmentSize, int overlap, boolean headingContext) {
+        DocumentIngestionService service = new DocumentIngestionService();
+        service.splitterType = splitterType;
+        service.maxSegmentSize = segmentSize;
+        service.maxOverlapSize = overlap;
+        service.headingContext = headingContext;
+        return service;
+    }
+
+    private static String signature(String splitterType, int segmentSize, int overlap, boolean headingContext) {
+        return service(splitterType, segmentSize, overlap, headingContext).splitterSignature();
+    }
+
+    @Test
+    void everySettingThatChangesTheSegmentsChangesTheSignature() {
+        String base = signature("structured", 500, 50, true);
+        assertNotEquals(base, signature("recursive", 500, 50, true));
+        assertNotEquals(base, signature("structured", 300, 50, true));
+        assertNotEquals(base, signature("structured", 500, 30, true));
+        assertNotEquals(base, signature("structured", 500, 50, false));
+        assertEquals(base, signature("STRUCTURED", 500, 50, true));
+    }
+
+    @Test
+    void headingContextIsIgnoredByTheRecursiveSplitter() {
+        // Não força re-quebra de documentos que não mudariam
+        assertEquals(signature("recursive", 500, 50, true), signature("recursive", 500, 50, false));
+    }
+}
@@ -0,0 +1,126 @@
+package com.redhat.rag;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.redis.FakeRedisService;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EmbeddingCacheTest {
+
+    private final HashingEmbeddingModel hashing = new HashingEmbeddingModel(64);
+    private final FakeRedisService redis = new FakeRedisService();
+    // Textos enviados ao modelo
+    private final List<String> embedded = new ArrayList<>();
+    private final EmbeddingModel counting = new EmbeddingModel() {
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            segments.forEach(segment -> embedded.add(segment.text()));
+            return hashing.embedAll(segments);
+        }
+    };
+
+    private EmbeddingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache("hashing", 100);
+    }
+
+    private EmbeddingCache newCache(String modelId, int localMaxEntries) {
+        EmbeddingCache embeddingCache = new EmbeddingCache();
+        embeddingCache.redisService = redis;
+        embeddingCache.embeddingModel = RagEmbeddingModel.of(counting, modelId);
+        embeddingCache.enabled = true;
+        embeddingCache.localMaxEntries = localMaxEntries;
+        return embeddingCache;
+    }
+
+    private static List<TextSegment> segments(String... texts) {
+        return List.of(texts).stream().map(TextSegment::from).toList();
+    }
+
+    private List<Embedding> embed(EmbeddingCache embeddingCache, String... texts) {
+        return embeddingCache.cached(embeddingCache.embeddingModel).embedAll(segments(texts)).content();
+    }
+
+    @Test
+    void cachedTextsSkipTheModel() {
+        List<Embedding> first = embed(cache, "pods do namespace", "rotas do cluster");
+        List<Embedding> second = embed(cache, "rotas do cluster", "nós do cluster", "pods do namespace");
+
+        assertEquals(List.of("pods do namespace", "rotas do cluster", "nós do cluster"), embedded);
+        // Mesma ordem dos segmentos pedidos, com os vetores do cache
+        assertArrayEquals(first.get(1).vector(), second.get(0).vector());
+        assertArrayEquals(first.get(0).vector(), second.get(2).vector());
+        assertArrayEquals(hashing.embed("nós do cluster").content().vector(), second.get(1).vector());
+
+        EmbeddingCache.CacheStats stats = cache.stats();
+        assertEquals(2, stats.localHits());
+        assertEquals(3, stats.misses());
+    }
+
+    @Test
+    void redisIsSharedBetweenReplicas() {
+        embed(cache, "pods do namespace");
+        EmbeddingCache replica = newCache("hashing", 100);
+        embed(replica, "pods do namespace");
+
+        assertEquals(1, embedded.size());
+        assertEquals(1, replica.stats().redisHits());
+        // Sem TTL configurado os embeddings não expiram
+        redis.ttls.values().forEach(ttl -> assertEquals(0L, ttl));
+    }
+
+    @Test
+    void anotherModelDoesNotReuseTheEmbeddings() {
+        embed(cache, "pods do namespace");
+        embed(newCache("outro-modelo", 100), "pods do namespace");
+        assertEquals(2, embedded.size());
+        assertEquals(2, redis.values.size());
+    }
+
+    @Test
+    void localLayerEvictsTheLeastRecentlyUsed() {
+        cache = newCache("hashing", 2);
+        embed(cache, "a");
+        embed(cache, "b");
+        embed(cache, "a");
+        embed(cache, "c");
+        assertEquals(2, cache.stats().localEntries());
+
+        // "b" foi o menos usado: sai do LRU local e volta pelo Redis, sem chamar o modelo
+        int reads = redis.reads.get();
+        embed(cache, "a", "c");
+        assertEquals(reads, redis.reads.get());
+        embed(cache, "b");
+        assertEquals(reads + 1, redis.reads.get());
+        assertEquals(List.of("a", "b", "c"), embedded);
+    }
+
+    @Test
+    void lookupNeverCallsTheModel() {
+        embed(cache, "pods do namespace");
+        List<float[]> vectors = cache.lookup(List.of("pods do namespace", "texto novo"));
+        assertArrayEquals(hashing.embed("pods do namespace").content().vector(), vectors.get(0));
+        assertNull(vectors.get(1));
+        assertEquals(1, embedded.size());
+    }
+
+    @Test
+    void vectorsSurviveTheRedisEncoding() {
+        float[] vector = { 0.25f, -1.5f, 3.0e-7f, Float.MAX_VALUE };
+        assertArrayEquals(vector, EmbeddingCache.decode(EmbeddingCache.encode(vector)));
+    }
+}
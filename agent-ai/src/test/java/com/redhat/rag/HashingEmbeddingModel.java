@@ -0,0 +1,88 @@
+package com.redhat.rag;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+/**
+ * Modelo de embedding local e determinístico para benchmarks offline.
+ *
+ * Cada termo (Bm25Index.tokenize) e cada trigrama de caracteres é espalhado
+ * por hashing em algumas dimensões com sinal; textos que compartilham termos
+ * ficam próximos no cosseno. Não tem a qualidade de um modelo real, mas
+ * preserva a forma do problema (vetores densos normalizados) sem rede.
+ * latencyMs simula o tempo de uma chamada remota por requisição.
+ */
+public class HashingEmbeddingModel implements EmbeddingModel {
+
+    // Dimensões por termo: vetores densos como os de um modelo real (a quantização binária depende disso)
+    private static final int BUCKETS = 8;
+
+    private final int dimension;
+    private final long latencyMs;
+
+    public HashingEmbeddingModel(int dimension) {
+        this(dimension, 0);
+    }
+
+    public HashingEmbeddingModel(int dimension, long latencyMs) {
+        this.dimension = dimension;
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Embedding> embeddings = new ArrayList<>(segments.size());
+        for (TextSegment segment : segments) {
+            embeddings.add(Embedding.from(vector(segment.text())));
+        }
+        return Response.from(embeddings);
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    float[] vector(String text) {
+        float[] vector = new float[dimension];
+        for (String term : Bm25Index.tokenize(text)) {
+            add(vector, term.hashCode(), 1.0f);
+            String padded = "#" + term + "#";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                add(vector, padded.substring(i, i + 3).hashCode(), 0.3f);
+            }
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float inv = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inv;
+            }
+        }
+        return vector;
+    }
+
+    private void add(float[] vector, int hash, float weight) {
+        int h = hash * 0x9E3779B9;
+        for (int i = 0; i < BUCKETS; i++) {
+            int bucket = Math.floorMod(h, dimension);
+            vector[bucket] += ((h >>> 16) & 1) == 0 ? weight : -weight;
+            h = Integer.rotateLeft(h * 0x85EBCA6B, 13);
+        }
+    }
+}
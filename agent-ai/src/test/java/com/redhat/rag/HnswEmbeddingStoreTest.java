@@ -0,0 +1,224 @@
+package com.redhat.rag;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswEmbeddingStoreTest {
+
+    private static final int DIMENSION = 16;
+    private static final int COUNT = 300;
+
+    @TempDir
+    Path dir;
+
+    private final Random random = new Random(42);
+    private final List<String> ids = new ArrayList<>();
+    private final List<Embedding> embeddings = new ArrayList<>();
+    // Dimensão dos vetores gerados; a quantização binária só faz sentido com mais dimensões
+    private int dimension = DIMENSION;
+
+    private HnswEmbeddingStore open() throws Exception {
+        return HnswEmbeddingStore.open(dir, 16, 100, 64);
+    }
+
+    // Fator de re-pontuação 0 = o padrão do tipo
+    private HnswEmbeddingStore open(QuantizedVectors.Type quantization) throws Exception {
+        return HnswEmbeddingStore.open(dir, 16, 100, 64, quantization, 0);
+    }
+
+    private Embedding randomEmbedding() {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return Embedding.from(vector);
+    }
+
+    private void fill(HnswEmbeddingStore store, int count) {
+        List<TextSegment> segments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("seg-" + i);
+            embeddings.add(randomEmbedding());
+            segments.add(TextSegment.from("texto " + i, Metadata.from("document_id", "doc-" + (i % 10))));
+        }
+        store.addAll(ids, embeddings, segments);
+    }
+
+    private static List<EmbeddingMatch<TextSegment>> search(HnswEmbeddingStore store, Embedding query, int k) {
+        return store.search(EmbeddingSearchRequest.builder().queryEmbedding(query).maxResults(k).build()).matches();
+    }
+
+    /**
+     * Os k ids mais próximos por busca exata (cosseno) entre os ids informados
+     */
+    private List<String> exact(Embedding query, Set<String> among, int k) {
+        return IntStream.range(0, ids.size())
+                .filter(i -> among.contains(ids.get(i)))
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> -cosine(query.vector(), embeddings.get(i).vector())))
+                .limit(k)
+                .map(ids::get)
+                .toList();
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private double recall(HnswEmbeddingStore store, Set<String> among, int k) {
+        int found = 0;
+        int queries = 30;
+        for (int q = 0; q < queries; q++) {
+            Embedding query = randomEmbedding();
+            Set<String> expected = new HashSet<>(exact(query, among, k));
+            found += (int) search(store, query, k).stream().filter(match -> expected.contains(match.embeddingId())).count();
+        }
+        return (double) found / (queries * k);
+    }
+
+    @Test
+    void insertedVectorsAreFoundWithTheirSegments() throws Exception {
+        try (HnswEmbeddingStore store = open()) {
+            fill(store, COUNT);
+            assertEquals(COUNT, store.size());
+            assertEquals(DIMENSION, store.dimension());
+
+            List<EmbeddingMatch<TextSegment>> matches = search(store, embeddings.get(7), 1);
+            assertEquals("seg-7", matches.get(0).embeddingId());
+            assertEquals("texto 7", matches.get(0).embedded().text());
+            assertEquals("doc-7", matches.get(0).embedded().metadata().getString("document_id"));
+            assertTrue(recall(store, Set.copyOf(ids), 10) >= 0.9);
+        }
+    }
+
+    @Test
+    void removedVectorsLeaveTheResults() throws Exception {
+        try (HnswEmbeddingStore store = open()) {
+            fill(store, COUNT);
+            List<String> removed = ids.subList(0, 50);
+            store.removeAll(removed);
+
+            assertEquals(COUNT - 50, store.size());
+            assertEquals(50, store.deletedCount());
+            assertFalse(store.ids().contains("seg-0"));
+            for (int i = 0; i < 50; i += 10) {
+                for (EmbeddingMatch<TextSegment> match : search(store, embeddings.get(i), 10)) {
+                    assertFalse(removed.contains(match.embeddingId()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void snapshotCompactsIntoANewVectorsFile() throws Exception {
+        Set<String> kept;
+        try (HnswEmbeddingStore store = open()) {
+            fill(store, COUNT);
+            store.removeAll(ids.subList(0, 200));
+            kept = store.ids();
+            store.snapshot();
+
+            assertEquals(0, store.deletedCount());
+            assertEquals(100, store.size());
+            assertTrue(Files.exists(dir.resolve("vectors-1.f32")));
+            assertFalse(Files.exists(dir.resolve("vectors.f32")));
+            assertTrue(recall(store, kept, 10) >= 0.9);
+        }
+        try (HnswEmbeddingStore reopened = open()) {
+            assertEquals(kept, reopened.ids());
+            assertEquals("seg-250", search(reopened, embeddings.get(250), 1).get(0).embeddingId());
+        }
+    }
+
+    @Test
+    void reloadRestoresTheSnapshotAndDropsLaterVectors() throws Exception {
+        try (HnswEmbeddingStore store = open()) {
+            fill(store, COUNT);
+            store.snapshot();
+            assertFalse(store.isDirty());
+            store.add("late", randomEmbedding());
+            assertTrue(store.isDirty());
+        }
+        try (HnswEmbeddingStore reopened = open()) {
+            assertEquals(COUNT, reopened.size());
+            assertEquals(Set.copyOf(ids), reopened.ids());
+            List<EmbeddingMatch<TextSegment>> matches = search(reopened, embeddings.get(123), 1);
+            assertEquals("seg-123", matches.get(0).embeddingId());
+            assertEquals("texto 123", matches.get(0).embedded().text());
+            assertTrue(recall(reopened, Set.copyOf(ids), 10) >= 0.9);
+        }
+    }
+
+    @Test
+    void int8SearchKeepsTheRecallOfTheExactSearch() throws Exception {
+        try (HnswEmbeddingStore store = open(QuantizedVectors.Type.INT8)) {
+            fill(store, COUNT);
+            assertTrue(recall(store, Set.copyOf(ids), 10) >= 0.9);
+            // Os scores vêm da re-pontuação com os vetores completos
+            EmbeddingMatch<TextSegment> match = search(store, embeddings.get(7), 1).get(0);
+            assertEquals("seg-7", match.embeddingId());
+            assertEquals(1.0, match.score(), 1e-5);
+        }
+    }
+
+    @Test
+    void binarySearchKeepsTheRecallOfTheExactSearch() throws Exception {
+        dimension = 128;
+        try (HnswEmbeddingStore store = open(QuantizedVectors.Type.BINARY)) {
+            fill(store, COUNT);
+            // Mais perda de ordem na navegação que o int8, compensada pelo fator de re-pontuação maior
+            assertTrue(recall(store, Set.copyOf(ids), 10) >= 0.85);
+            assertEquals("seg-42", search(store, embeddings.get(42), 1).get(0).embeddingId());
+        }
+    }
+
+    @Test
+    void quantizedCodesAreRebuiltWhenReopening() throws Exception {
+        try (HnswEmbeddingStore store = open()) {
+            fill(store, COUNT);
+            store.snapshot();
+        }
+        try (HnswEmbeddingStore reopened = open(QuantizedVectors.Type.INT8)) {
+            assertEquals(COUNT, reopened.size());
+            assertTrue(recall(reopened, Set.copyOf(ids), 10) >= 0.9);
+        }
+    }
+
+    @Test
+    void removeAllEmptiesTheIndex() throws Exception {
+        try (HnswEmbeddingStore store = open()) {
+            fill(store, 20);
+            store.removeAll();
+            assertEquals(0, store.size());
+            assertTrue(search(store, embeddings.get(0), 5).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.redhat.rag;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HybridContentRetrieverTest {
+
+    private static final int K = 60;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static Content content(String id) {
+        Map<ContentMetadata, Object> metadata = new LinkedHashMap<>();
+        metadata.put(ContentMetadata.EMBEDDING_ID, id);
+        metadata.put(ContentMetadata.SCORE, 0.5);
+        return Content.from(TextSegment.from("texto de " + id), metadata);
+    }
+
+    private static List<Content> ranking(String... ids) {
+        return Arrays.stream(ids).map(HybridContentRetrieverTest::content).toList();
+    }
+
+    private static List<String> ids(List<Content> contents) {
+        return contents.stream().map(c -> (String) c.metadata().get(ContentMetadata.EMBEDDING_ID)).toList();
+    }
+
+    private static double score(Content content) {
+        return (double) content.metadata().get(ContentMetadata.SCORE);
+    }
+
+    @Test
+    void segmentsInBothListsRankFirst() {
+        List<Content> fused = HybridContentRetriever.fuse(
+                List.of(ranking("a", "b", "c"), ranking("c", "d", "b")), K, 10);
+        // b: 1/62 + 1/63, c: 1/63 + 1/61, a: 1/61, d: 1/62
+        assertEquals(List.of("c", "b", "a", "d"), ids(fused));
+        assertEquals(1.0 / 63 + 1.0 / 61, score(fused.get(0)), 1e-12);
+        assertEquals(1.0 / 62, score(fused.get(3)), 1e-12);
+    }
+
+    @Test
+    void fusionIsLimitedToMaxResults() {
+        List<Content> fused = HybridContentRetriever.fuse(
+                List.of(ranking("a", "b", "c", "d"), ranking("e", "f")), K, 3);
+        assertEquals(3, fused.size());
+        assertEquals(List.of("a", "e", "b"), ids(fused));
+    }
+
+    @Test
+    void segmentsWithoutIdAreMatchedByText() {
+        Content first = Content.from(TextSegment.from("mesmo texto"));
+        Content second = Content.from(TextSegment.from("mesmo texto"));
+        List<Content> fused = HybridContentRetriever.fuse(
+                List.of(List.of(first), List.of(content("x"), second)), K, 10);
+        assertEquals("mesmo texto", fused.get(0).textSegment().text());
+        assertEquals(1.0 / 61 + 1.0 / 62, score(fused.get(0)), 1e-12);
+        assertEquals(2, fused.size());
+    }
+
+    @Test
+    void failedRetrieverIsIgnoredWhileAnotherAnswers() {
+        ContentRetriever failing = query -> {
+            throw new IllegalStateException("índice indisponível");
+        };
+        ContentRetriever lexical = query -> ranking("a", "b");
+        HybridContentRetriever hybrid = new HybridContentRetriever(List.of(failing, lexical), K, 5, executor);
+        assertEquals(List.of("a", "b"), ids(hybrid.retrieve(Query.from("pergunta"))));
+    }
+
+    @Test
+    void failsWhenEveryRetrieverFails() {
+        ContentRetriever failing = query -> {
+            throw new IllegalStateException("índice indisponível");
+        };
+        HybridContentRetriever hybrid = new HybridContentRetriever(List.of(failing, failing), K, 5, executor);
+        assertThrows(RuntimeException.class, () -> hybrid.retrieve(Query.from("pergunta")));
+    }
+}
@@ -0,0 +1,96 @@
+package com.redhat.rag;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantizedVectorsTest {
+
+    private static final int DIMENSION = 384;
+
+    private final Random random = new Random(7);
+
+    private float[] randomUnitVector() {
+        float[] vector = new float[DIMENSION];
+        double norm = 0;
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    // Vetor com cosseno ~similarity em relação a base
+    private float[] near(float[] base, double similarity) {
+        float[] noise = randomUnitVector();
+        float[] vector = new float[DIMENSION];
+        double norm = 0;
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) (similarity * base[i] + Math.sqrt(1 - similarity * similarity) * noise[i]);
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Test
+    void int8SimilarityIsCloseToTheExactOne() {
+        QuantizedVectors int8 = QuantizedVectors.create(QuantizedVectors.Type.INT8, DIMENSION);
+        float[] query = randomUnitVector();
+        float[][] vectors = new float[50][];
+        for (int node = 0; node < vectors.length; node++) {
+            vectors[node] = near(query, node / 50.0);
+            int8.set(node, vectors[node]);
+        }
+        QuantizedVectors.Scorer scorer = int8.scorer(query);
+        for (int node = 0; node < vectors.length; node++) {
+            assertEquals(dot(query, vectors[node]), scorer.similarity(node), 0.01);
+        }
+    }
+
+    @Test
+    void binarySimilarityKeepsTheOrderOfDistantNeighbours() {
+        QuantizedVectors binary = QuantizedVectors.create(QuantizedVectors.Type.BINARY, DIMENSION);
+        float[] query = randomUnitVector();
+        binary.set(0, near(query, 0.95));
+        binary.set(1, near(query, 0.6));
+        binary.set(2, near(query, 0.0));
+        QuantizedVectors.Scorer scorer = binary.scorer(query);
+
+        assertTrue(scorer.similarity(0) > scorer.similarity(1));
+        assertTrue(scorer.similarity(1) > scorer.similarity(2));
+        // Estimativa pela distância de Hamming: grosseira, mas na faixa certa
+        assertEquals(0.0, scorer.similarity(2), 0.2);
+        assertEquals(0.95, scorer.similarity(0), 0.1);
+    }
+
+    @Test
+    void codesUseLessMemoryThanFloats() {
+        QuantizedVectors int8 = QuantizedVectors.create(QuantizedVectors.Type.INT8, DIMENSION);
+        QuantizedVectors binary = QuantizedVectors.create(QuantizedVectors.Type.BINARY, DIMENSION);
+        int8.set(0, randomUnitVector());
+        binary.set(0, randomUnitVector());
+        long floats = (long) QuantizedVectors.CHUNK_VECTORS * DIMENSION * Float.BYTES;
+
+        assertTrue(int8.bytes() * 3 < floats);
+        assertEquals(floats / 32, binary.bytes());
+        assertNull(QuantizedVectors.create(QuantizedVectors.Type.of(" "), DIMENSION));
+    }
+}
@@ -0,0 +1,149 @@
+package com.redhat.rag;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.redis.FakeRedisService;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryEmbeddingCacheTest {
+
+    private final HashingEmbeddingModel hashing = new HashingEmbeddingModel(64);
+    private final FakeRedisService redis = new FakeRedisService();
+    private final AtomicInteger calls = new AtomicInteger();
+    // Quando definido, o modelo espera por ele (chamada remota lenta)
+    private volatile CountDownLatch slowModel;
+    private volatile boolean modelFails = false;
+
+    private QueryEmbeddingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache(100);
+    }
+
+    private QueryEmbeddingCache newCache(int localMaxEntries) {
+        EmbeddingModel counting = new EmbeddingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                calls.incrementAndGet();
+                CountDownLatch latch = slowModel;
+                if (latch != null) {
+                    try {
+                        latch.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (modelFails) {
+                    throw new IllegalStateException("modelo de embedding indisponível");
+                }
+                return hashing.embedAll(segments);
+            }
+        };
+        QueryEmbeddingCache queryCache = new QueryEmbeddingCache();
+        queryCache.redisService = redis;
+        queryCache.embeddingModel = RagEmbeddingModel.of(counting, "hashing");
+        queryCache.enabled = true;
+        queryCache.localMaxEntries = localMaxEntries;
+        queryCache.ttlSeconds = 86400;
+        return queryCache;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condição não atingida em 5s");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void repeatedQuestionSkipsTheModel() {
+        Embedding first = cache.embed("Como liberar o registry interno?");
+        Embedding second = cache.embed("  como LIBERAR   o registry\tinterno?");
+
+        assertEquals(1, calls.get());
+        assertArrayEquals(first.vector(), second.vector());
+        assertEquals(1, cache.stats().localHits());
+        assertEquals(1, cache.stats().misses());
+        // No Redis com expiração
+        redis.ttls.values().forEach(ttl -> assertEquals(86400L, ttl));
+    }
+
+    @Test
+    void redisIsSharedBetweenReplicas() {
+        cache.embed("pods com erro");
+        QueryEmbeddingCache replica = newCache(100);
+        replica.embed("pods com erro");
+        assertEquals(1, calls.get());
+        assertEquals(1, replica.stats().redisHits());
+    }
+
+    @Test
+    void localLayerEvictsTheLeastRecentlyUsed() {
+        cache = newCache(2);
+        cache.embed("a");
+        cache.embed("b");
+        cache.embed("a");
+        cache.embed("c");
+        assertEquals(2, cache.stats().localEntries());
+
+        // "b" foi o menos usado: sai do LRU local e volta pelo Redis, sem chamar o modelo
+        int reads = redis.reads.get();
+        cache.embed("a");
+        cache.embed("c");
+        assertEquals(reads, redis.reads.get());
+        cache.embed("b");
+        assertEquals(reads + 1, redis.reads.get());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void concurrentCallersShareOneEmbedding() throws Exception {
+        slowModel = new CountDownLatch(1);
+        CompletableFuture<Embedding> first = CompletableFuture.supplyAsync(() -> cache.embed("logs do pod api-1"));
+        await(() -> calls.get() == 1);
+        CompletableFuture<Embedding> second = CompletableFuture.supplyAsync(() -> cache.embed("Logs do pod  api-1"));
+        await(() -> cache.stats().sharedHits() == 1);
+
+        slowModel.countDown();
+        assertArrayEquals(first.get(5, TimeUnit.SECONDS).vector(), second.get(5, TimeUnit.SECONDS).vector());
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        modelFails = true;
+        assertThrows(IllegalStateException.class, () -> cache.embed("pods com erro"));
+        modelFails = false;
+        cache.embed("pods com erro");
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void disabledCacheAlwaysCallsTheModel() {
+        cache.enabled = false;
+        cache.embed("pods com erro");
+        cache.embed("pods com erro");
+        assertEquals(2, calls.get());
+        assertTrue(redis.values.isEmpty());
+    }
+}
@@ -0,0 +1,148 @@
+package com.redhat.rag;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+/**
+ * Latência da busca só vetorial (VectorContentRetriever sobre o
+ * HnswEmbeddingStore) contra a híbrida (vetorial + BM25 em paralelo com RRF),
+ * num corpus sintético. embedLatencyMs simula a chamada ao modelo de embedding
+ * da consulta, que na busca híbrida se sobrepõe ao BM25.
+ *
+ * mvn -Pbench test-compile exec:exec -Dbench=RagRetrievalBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class RagRetrievalBenchmark {
+
+    private static final String[] WORDS = {
+        "pod", "deployment", "service", "route", "namespace", "cluster", "node", "image", "build", "operator",
+        "quota", "limit", "memory", "cpu", "storage", "volume", "secret", "config", "network", "policy",
+        "ingress", "router", "scheduler", "etcd", "api", "token", "user", "group", "role", "binding",
+        "log", "metric", "alert", "event", "probe", "restart", "rollout", "scale", "replica", "upgrade"
+    };
+
+    private static final int SEGMENTS_PER_DOCUMENT = 20;
+
+    @Param({"2000", "20000"})
+    int segments;
+
+    @Param({"0", "5"})
+    long embedLatencyMs;
+
+    private Path dir;
+    private HnswEmbeddingStore store;
+    private ExecutorService executor;
+    private VectorContentRetriever vector;
+    private HybridContentRetriever hybrid;
+    private List<Query> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Random random = new Random(42);
+        dir = Files.createTempDirectory("rag-bench");
+        store = HnswEmbeddingStore.open(dir, 16, 100, 50);
+        LexicalIndexService lexical = new LexicalIndexService();
+
+        List<String> ids = new ArrayList<>(segments);
+        List<TextSegment> texts = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int w = 0; w < 60; w++) {
+                text.append(WORDS[(int) Math.abs(random.nextGaussian() * 10) % WORDS.length]).append(' ');
+            }
+            // Termo raro por segmento (código de erro), o caso em que o BM25 ajuda
+            text.append("ERR-").append(i);
+            ids.add("seg-" + i);
+            texts.add(TextSegment.from(text.toString(),
+                    Metadata.from(DocumentIngestionService.DOCUMENT_ID, "doc-" + i / SEGMENTS_PER_DOCUMENT)));
+        }
+        List<Embedding> embeddings = new HashingEmbeddingModel(384).embedAll(texts).content();
+        store.addAll(ids, embeddings, texts);
+        for (int from = 0; from < segments; from += SEGMENTS_PER_DOCUMENT) {
+            int to = Math.min(segments, from + SEGMENTS_PER_DOCUMENT);
+            lexical.index().index("doc-" + from / SEGMENTS_PER_DOCUMENT, ids.subList(from, to), texts.subList(from, to));
+        }
+
+        vector = new VectorContentRetriever();
+        // Sem cache: cada consulta paga o embedding
+        vector.queryEmbeddings = new QueryEmbeddingCache();
+        vector.embeddingModel = RagEmbeddingModel.of(new HashingEmbeddingModel(384, embedLatencyMs), "hashing-384");
+        vector.queryEmbeddings.embeddingModel = vector.embeddingModel;
+        vector.ragStore = new RagStore() {
+            @Override
+            public EmbeddingStore<TextSegment> store() {
+                return store;
+            }
+        };
+        vector.maxResults = 5;
+        Bm25ContentRetriever bm25 = new Bm25ContentRetriever();
+        bm25.lexicalIndex = lexical;
+        bm25.maxResults = 10;
+        executor = Executors.newFixedThreadPool(4);
+        hybrid = new HybridContentRetriever(List.of(vector, bm25), 60, 5, executor);
+
+        queries = new ArrayList<>();
+        for (int q = 0; q < 64; q++) {
+            queries.add(Query.from("como resolver " + WORDS[random.nextInt(WORDS.length)] + " "
+                                   + WORDS[random.nextInt(WORDS.length)] + " ERR-" + random.nextInt(segments)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private Query nextQuery() {
+        return queries.get(next++ & 63);
+    }
+
+    @Benchmark
+    public List<Content> vectorOnly() {
+        return vector.retrieve(nextQuery());
+    }
+
+    @Benchmark
+    public List<Content> hybrid() {
+        return hybrid.retrieve(nextQuery());
+    }
+}
@@ -0,0 +1,439 @@
+package com.redhat.rag;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2q.AllMiniLmL6V2QuantizedEmbeddingModel;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+
+/**
+ * Avaliação offline da qualidade e da latência da busca do RAG.
+ *
+ * Para um conjunto golden (pergunta -> documentos esperados) sobre um corpus
+ * (por padrão src/test/resources/rag-eval-corpus), roda a busca em cada combinação de:
+ * - tamanho de segmento / overlap (--chunks 300/30,500/50)
+ * - splitter: recursive (o da Easy RAG) ou structured (StructuredDocumentSplitter,
+ *   com structured:plain sem o caminho de títulos no texto) (--splitters recursive,structured)
+ * - índice: FLAT (busca exata) ou HNSW com M/EF de busca e quantização opcional
+ *   (--indexes flat,hnsw:16/50,hnsw:16/50:int8,hnsw:16/50:binary)
+ * - modo: vector ou hybrid, com o sufixo +mmr para passar pelo ContentDiversifier
+ *   (--modes vector,hybrid,hybrid+mmr)
+ *
+ * e reporta recall@k e MRR por documento, documentos distintos e caracteres
+ * entregues por consulta, segmentos e caracteres indexados, latência p50/p99 por consulta e a
+ * memória percorrida pela busca (vetores usados na navegação + grafo). Por padrão os embeddings
+ * vêm do HashingEmbeddingModel, então os números servem para comparar
+ * configurações entre si, não como qualidade absoluta do modelo real; com
+ * --embedding local vêm do all-MiniLM-L6-v2 quantizado de rag.embedding.provider=local,
+ * e o throughput do embedding dos segmentos (segmentos/s) também é reportado.
+ *
+ * O golden é um JSON Lines: {"question": "...", "expected": ["pasta/doc.md"]},
+ * com os ids relativos ao diretório do corpus. Sem corpus ou sem golden, usa um
+ * corpus sintético em markdown (seções com títulos, blocos de código e
+ * tabelas) gerado com as respostas conhecidas.
+ *
+ * mvn -Prag-eval test-compile exec:exec -Drag.eval.golden=golden.jsonl
+ */
+public class RagRetrievalEval {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String MMR = "+mmr";
+
+    // rag.diversity.lambda dos modos +mmr (--lambda)
+    static double mmrLambda = 0.8;
+
+    record GoldenQuestion(String question, List<String> expected) {}
+
+    record Result(String embedding, String chunks, String splitter, String index, String mode, int segments,
+                  long indexChars, long embedMs, double recall, double mrr,
+                  double distinct, double chars, double p50Ms, double p99Ms, long indexBytes, long buildMs) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        Path corpus = Path.of(options.getOrDefault("corpus", "src/test/resources/rag-eval-corpus"));
+        Path golden = Path.of(options.getOrDefault("golden", "src/test/resources/rag-golden.jsonl"));
+        int k = Integer.parseInt(options.getOrDefault("k", "5"));
+        int dimension = Integer.parseInt(options.getOrDefault("dimension", "384"));
+        String embedding = options.getOrDefault("embedding", "hashing");
+        List<String> chunks = List.of(options.getOrDefault("chunks", "300/30,500/50,1000/100").split(","));
+        List<String> indexes = List.of(options.getOrDefault("indexes",
+                "flat,hnsw:8/32,hnsw:16/50,hnsw:16/100,hnsw:32/200,hnsw:16/50:int8,hnsw:16/50:binary").split(","));
+        List<String> modes = List.of(options.getOrDefault("modes", "vector,hybrid,hybrid+mmr").split(","));
+        List<String> splitters = List.of(options.getOrDefault("splitters", "recursive,structured").split(","));
+        mmrLambda = Double.parseDouble(options.getOrDefault("lambda", String.valueOf(mmrLambda)));
+
+        Path synthetic = null;
+        List<GoldenQuestion> questions;
+        if (Files.isDirectory(corpus) && Files.exists(golden)) {
+            questions = readGolden(golden);
+        } else {
+            synthetic = Files.createTempDirectory("rag-eval-corpus");
+            questions = generateCorpus(synthetic, 80, 200);
+            System.out.printf("Corpus (%s) ou golden (%s) não encontrado: usando corpus sintético com %d perguntas%n",
+                              corpus, golden, questions.size());
+            corpus = synthetic;
+        }
+
+        Map<String, Path> documents = listDocuments(corpus);
+        RagEmbeddingModel model = embeddingModel(embedding, dimension);
+        System.out.printf("%d documentos, %d perguntas, k=%d, embedding %s de dimensão %d%n%n",
+                          documents.size(), questions.size(), k, model.modelId(), model.dimension());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Result> results = new ArrayList<>();
+        try {
+            for (String chunk : chunks) {
+                for (String splitterName : splitters) {
+                    String[] sizes = chunk.split("/");
+                    List<String> ids = new ArrayList<>();
+                    List<TextSegment> segments = new ArrayList<>();
+                    Bm25Index lexical = new Bm25Index();
+                    DocumentSplitter splitter = splitter(splitterName, Integer.parseInt(sizes[0]), Integer.parseInt(sizes[1]));
+                    for (Map.Entry<String, Path> document : documents.entrySet()) {
+                        List<TextSegment> split;
+                        try {
+                            split = splitter.split(splitter instanceof StructuredDocumentSplitter structured
+                                    ? structured.load(document.getValue()) : FileSystemDocumentLoader.loadDocument(document.getValue()));
+                        } catch (Exception e) {
+                            System.out.printf("Ignorando %s: %s%n", document.getKey(), e.getMessage());
+                            continue;
+                        }
+                        List<String> documentIds = new ArrayList<>();
+                        List<TextSegment> documentSegments = new ArrayList<>();
+                        for (TextSegment segment : split) {
+                            segment.metadata().put(DocumentIngestionService.DOCUMENT_ID, document.getKey());
+                            documentIds.add(UUID.randomUUID().toString());
+                            documentSegments.add(segment);
+                        }
+                        ids.addAll(documentIds);
+                        segments.addAll(documentSegments);
+                        lexical.index(document.getKey(), documentIds, documentSegments);
+                    }
+                    long embedStart = System.nanoTime();
+                    List<Embedding> embeddings = model.embedAll(segments).content();
+                    long embedMs = (System.nanoTime() - embedStart) / 1_000_000;
+                    System.out.printf(Locale.ROOT, "%-9s %-16s embedding de %d segmentos em %d ms (%.0f segmentos/s)%n",
+                                      chunk, splitterName, segments.size(), embedMs, segments.size() * 1000.0 / Math.max(1, embedMs));
+                    long indexChars = segments.stream().mapToLong(segment -> segment.text().length()).sum();
+
+                    for (String index : indexes) {
+                        Path dir = Files.createTempDirectory("rag-eval-index");
+                        long start = System.nanoTime();
+                        IndexUnderTest store = build(index, dir, ids, embeddings, segments);
+                        long buildMs = (System.nanoTime() - start) / 1_000_000;
+                        try {
+                            for (String mode : modes) {
+                                ContentRetriever retriever = retriever(mode, store.store(), model, lexical, k,
+                                                                        Integer.parseInt(sizes[0]), executor);
+                                results.add(evaluate(model.modelId(), chunk, splitterName, index, mode, segments.size(),
+                                                     indexChars, embedMs, retriever, questions, k, store.bytes(), buildMs));
+                                print(results.get(results.size() - 1));
+                            }
+                        } finally {
+                            store.close();
+                            delete(dir);
+                        }
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            if (synthetic != null) {
+                delete(synthetic);
+            }
+        }
+
+        Path csv = Path.of(options.getOrDefault("out", "target/rag-eval.csv"));
+        writeCsv(csv, results);
+        System.out.printf("%nResultados em %s%n", csv.toAbsolutePath());
+    }
+
+    /**
+     * hashing (HashingEmbeddingModel, sem rede) ou local (o modelo de rag.embedding.provider=local)
+     */
+    static RagEmbeddingModel embeddingModel(String name, int dimension) {
+        return switch (name) {
+            case "hashing" -> RagEmbeddingModel.of(new HashingEmbeddingModel(dimension), "hashing-" + dimension);
+            case RagEmbeddingModel.LOCAL -> RagEmbeddingModel.of(new AllMiniLmL6V2QuantizedEmbeddingModel(),
+                                                                  RagEmbeddingModel.LOCAL_MODEL_ID);
+            default -> throw new IllegalArgumentException("Embedding desconhecido: " + name);
+        };
+    }
+
+    /**
+     * Índice montado para uma configuração, com a memória que ocupa
+     */
+    record IndexUnderTest(EmbeddingStore<TextSegment> store, long bytes, AutoCloseable closeable) {
+        void close() throws Exception {
+            if (closeable != null) {
+                closeable.close();
+            }
+        }
+    }
+
+    static IndexUnderTest build(String index, Path dir, List<String> ids, List<Embedding> embeddings,
+                                List<TextSegment> segments) throws IOException {
+        long vectorBytes = (long) embeddings.size() * embeddings.get(0).dimension() * Float.BYTES;
+        if (index.equals("flat")) {
+            InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+            store.addAll(ids, embeddings, segments);
+            return new IndexUnderTest(store, vectorBytes, null);
+        }
+        String[] spec = index.substring("hnsw:".length()).split(":");
+        String[] params = spec[0].split("/");
+        String quantization = spec.length > 1 ? spec[1] : "none";
+        HnswEmbeddingStore store = HnswEmbeddingStore.open(dir, Integer.parseInt(params[0]), 100, Integer.parseInt(params[1]),
+                                                           quantization, 0);
+        store.addAll(ids, embeddings, segments);
+        long searchVectorBytes = store.quantizedBytes() > 0 ? store.quantizedBytes() : vectorBytes;
+        return new IndexUnderTest(store, searchVectorBytes + store.graphBytes(), store);
+    }
+
+    static ContentRetriever retriever(String mode, EmbeddingStore<TextSegment> store, RagEmbeddingModel model,
+                                      Bm25Index lexical, int k, int segmentSize, ExecutorService executor) {
+        if (mode.endsWith(MMR)) {
+            // 3k candidatos para a diversificação (15 para k=5, como rag.diversity.candidates); os embeddings dos segmentos fazem o papel do EmbeddingCache
+            ContentRetriever candidates = retriever(mode.substring(0, mode.length() - MMR.length()), store, model,
+                                                    lexical, 3 * k, segmentSize, executor);
+            ContentDiversifier diversifier = new ContentDiversifier(
+                texts -> model.embedAll(texts.stream().map(TextSegment::from).toList()).content().stream()
+                              .map(Embedding::vector).toList(),
+                text -> model.embed(text).content().vector(), mmrLambda, 20,
+                2 * segmentSize, k, k * segmentSize);
+            return query -> diversifier.aggregate(Map.of(query, List.of(candidates.retrieve(query))));
+        }
+        VectorContentRetriever vector = new VectorContentRetriever();
+        vector.queryEmbeddings = new QueryEmbeddingCache();
+        vector.queryEmbeddings.embeddingModel = model;
+        vector.embeddingModel = model;
+        vector.ragStore = new RagStore() {
+            @Override
+            public EmbeddingStore<TextSegment> store() {
+                return store;
+            }
+        };
+        vector.maxResults = k;
+        if (!mode.equals(RagRetrievalAugmentorSupplier.HYBRID)) {
+            return vector;
+        }
+        LexicalIndexService lexicalService = new LexicalIndexService() {
+            @Override
+            public Bm25Index index() {
+                return lexical;
+            }
+        };
+        Bm25ContentRetriever bm25 = new Bm25ContentRetriever();
+        bm25.lexicalIndex = lexicalService;
+        bm25.maxResults = 2 * k;
+        return new HybridContentRetriever(List.of(vector, bm25), 60, k, executor);
+    }
+
+    static DocumentSplitter splitter(String name, int maxSegmentSize, int maxOverlapSize) {
+        return switch (name) {
+            case DocumentIngestionService.RECURSIVE -> DocumentSplitters.recursive(maxSegmentSize, maxOverlapSize);
+            case DocumentIngestionService.STRUCTURED -> new StructuredDocumentSplitter(maxSegmentSize, maxOverlapSize, true);
+            case DocumentIngestionService.STRUCTURED + ":plain" -> new StructuredDocumentSplitter(maxSegmentSize, maxOverlapSize, false);
+            default -> throw new IllegalArgumentException("Splitter desconhecido: " + name);
+        };
+    }
+
+    static Result evaluate(String embedding, String chunks, String splitter, String index, String mode, int segmentCount,
+                           long indexChars, long embedMs, ContentRetriever retriever, List<GoldenQuestion> questions, int k, long indexBytes, long buildMs) {
+        // Aquecimento (JIT, caches do índice)
+        for (GoldenQuestion question : questions) {
+            retriever.retrieve(Query.from(question.question()));
+        }
+        double recall = 0;
+        double mrr = 0;
+        long distinct = 0;
+        long chars = 0;
+        long[] latencies = new long[questions.size()];
+        for (int q = 0; q < questions.size(); q++) {
+            GoldenQuestion question = questions.get(q);
+            long start = System.nanoTime();
+            List<Content> contents = retriever.retrieve(Query.from(question.question()));
+            latencies[q] = System.nanoTime() - start;
+
+            // Ranking por documento: a primeira ocorrência de cada documento nos segmentos retornados
+            List<String> ranked = new ArrayList<>(new LinkedHashSet<>(contents.stream()
+                    .map(content -> content.textSegment().metadata().getString(DocumentIngestionService.DOCUMENT_ID))
+                    .toList()));
+            distinct += ranked.size();
+            chars += contents.stream().mapToInt(content -> content.textSegment().text().length()).sum();
+            Set<String> expected = Set.copyOf(question.expected());
+            long found = ranked.stream().limit(k).filter(expected::contains).count();
+            recall += (double) found / expected.size();
+            for (int rank = 0; rank < ranked.size(); rank++) {
+                if (expected.contains(ranked.get(rank))) {
+                    mrr += 1.0 / (rank + 1);
+                    break;
+                }
+            }
+        }
+        Arrays.sort(latencies);
+        return new Result(embedding, chunks, splitter, index, mode, segmentCount, indexChars, embedMs,
+                          recall / questions.size(), mrr / questions.size(),
+                          (double) distinct / questions.size(), (double) chars / questions.size(),
+                          percentile(latencies, 0.50), percentile(latencies, 0.99), indexBytes, buildMs);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))] / 1_000_000.0;
+    }
+
+    private static void print(Result r) {
+        System.out.printf(Locale.ROOT, "%-9s %-16s %-13s %-10s segs=%-6d idx=%.0fk recall@k=%.3f mrr=%.3f docs=%.2f chars=%.0f p50=%.3fms p99=%.3fms index=%.1fMB build=%dms%n",
+                          r.chunks(), r.splitter(), r.index(), r.mode(), r.segments(), r.indexChars() / 1000.0, r.recall(), r.mrr(),
+                          r.distinct(), r.chars(),
+                          r.p50Ms(), r.p99Ms(),
+                          r.indexBytes() / (1024.0 * 1024.0), r.buildMs());
+    }
+
+    private static void writeCsv(Path csv, List<Result> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("embedding,chunks,splitter,index,mode,segments,index_chars,embed_ms,recall_at_k,mrr,distinct_docs,context_chars,p50_ms,p99_ms,index_bytes,build_ms");
+        for (Result r : results) {
+            lines.add(String.format(Locale.ROOT, "%s,%s,%s,%s,%s,%d,%d,%d,%.4f,%.4f,%.2f,%.0f,%.4f,%.4f,%d,%d", r.embedding(),
+                                    r.chunks(), r.splitter(), r.index(), r.mode(), r.segments(), r.indexChars(), r.embedMs(), r.recall(), r.mrr(), r.distinct(), r.chars(), r.p50Ms(), r.p99Ms(), r.indexBytes(), r.buildMs()));
+        }
+        if (csv.getParent() != null) {
+            Files.createDirectories(csv.getParent());
+        }
+        Files.write(csv, lines);
+    }
+
+    private static Map<String, Path> listDocuments(Path root) throws IOException {
+        Map<String, Path> documents = new LinkedHashMap<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path file : paths.filter(Files::isRegularFile).sorted().toList()) {
+                documents.put(root.relativize(file).toString().replace('\\', '/'), file);
+            }
+        }
+        return documents;
+    }
+
+    private static List<GoldenQuestion> readGolden(Path golden) throws IOException {
+        List<GoldenQuestion> questions = new ArrayList<>();
+        for (String line : Files.readAllLines(golden)) {
+            if (!line.isBlank()) {
+                questions.add(JSON.readValue(line, GoldenQuestion.class));
+            }
+        }
+        return questions;
+    }
+
+    /**
+     * Corpus sintético: cada tópico tem vocabulário próprio e dois documentos;
+     * cada pergunta usa termos de um tópico e espera os seus dois documentos.
+     */
+    static List<GoldenQuestion> generateCorpus(Path dir, int topics, int questionCount) throws IOException {
+        Random random = new Random(7);
+        String[] common = {"cluster", "pod", "namespace", "deploy", "config", "erro", "log", "rede", "serviço",
+                           "versão", "imagem", "operador", "recurso", "limite", "acesso", "usuário", "rota", "nó"};
+        String[][] vocabulary = new String[topics][];
+        for (int t = 0; t < topics; t++) {
+            vocabulary[t] = new String[12];
+            for (int w = 0; w < vocabulary[t].length; w++) {
+                vocabulary[t][w] = word(random);
+            }
+        }
+        for (int t = 0; t < topics; t++) {
+            for (int copy = 0; copy < 2; copy++) {
+                StringBuilder text = new StringBuilder("# Guia de " + vocabulary[t][0] + "\n\n");
+                for (int p = 0; p < 6; p++) {
+                    text.append("## ").append(common[random.nextInt(common.length)]).append(' ')
+                        .append(vocabulary[t][random.nextInt(12)]).append("\n\n");
+                    for (int s = 0; s < 6; s++) {
+                        for (int w = 0; w < 12; w++) {
+                            boolean topical = random.nextDouble() < 0.35;
+                            text.append(topical ? vocabulary[t][random.nextInt(12)] : common[random.nextInt(common.length)]).append(' ');
+                        }
+                        text.setLength(text.length() - 1);
+                        text.append(". ");
+                    }
+                    text.append("\n\n");
+                    // Seções pares com um bloco de código, a última com uma tabela
+                    if (p % 2 == 0) {
+                        text.append("```bash\n");
+                        for (int line = 0; line < 4; line++) {
+                            text.append("oc ").append(common[random.nextInt(common.length)]).append(' ')
+                                .append(vocabulary[t][random.nextInt(12)]).append(" --").append(common[random.nextInt(common.length)])
+                                .append('=').append(vocabulary[t][random.nextInt(12)]).append('\n');
+                        }
+                        text.append("```\n\n");
+                    } else if (p == 5) {
+                        text.append("| parâmetro | valor |\n|---|---|\n");
+                        for (int row = 0; row < 4; row++) {
+                            text.append("| ").append(common[random.nextInt(common.length)]).append(" | ")
+                                .append(vocabulary[t][random.nextInt(12)]).append(" |\n");
+                        }
+                        text.append('\n');
+                    }
+                }
+                Files.writeString(dir.resolve("topico-" + t + "-" + copy + ".md"), text);
+            }
+        }
+        List<GoldenQuestion> questions = new ArrayList<>();
+        for (int q = 0; q < questionCount; q++) {
+            int t = random.nextInt(topics);
+            String question = "como resolver " + common[random.nextInt(common.length)] + " " + vocabulary[t][random.nextInt(12)]
+                              + " " + vocabulary[t][random.nextInt(12)] + " " + vocabulary[t][random.nextInt(12)];
+            questions.add(new GoldenQuestion(question, List.of("topico-" + t + "-0.md", "topico-" + t + "-1.md")));
+        }
+        return questions;
+    }
+
+    private static String word(Random random) {
+        String consonants = "bcdfgklmnprstvz";
+        String vowels = "aeiou";
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int s = 0; s < syllables; s++) {
+            word.append(consonants.charAt(random.nextInt(consonants.length()))).append(vowels.charAt(random.nextInt(vowels.length())));
+        }
+        return word.toString();
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i + 1].isBlank()) {
+                options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+            }
+        }
+        return options;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.redhat.rag;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Metadata;
+import dev.langchain4j.rag.query.Query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetrievalGateTest {
+
+    private final Bm25Index index = new Bm25Index();
+    private boolean lexicalEnabled = true;
+    private RetrievalGate gate;
+
+    @BeforeEach
+    void setUp() {
+        index.index("openshift/registry.md", List.of("s1", "s2"), List.of(
+                TextSegment.from("Para liberar acesso ao registry interno, crie uma rota para o image-registry."),
+                TextSegment.from("O pod de deploy usa o service account builder.")));
+        gate = new RetrievalGate();
+        gate.lexicalIndex = new LexicalIndexService() {
+            @Override
+            public boolean isEnabled() {
+                return lexicalEnabled;
+            }
+
+            @Override
+            public Bm25Index index() {
+                return index;
+            }
+        };
+        gate.enabled = true;
+        gate.followUpMaxTerms = 3;
+        gate.init();
+    }
+
+    private static Query withHistory(String text) {
+        List<ChatMessage> memory = List.of(UserMessage.from("como liberar o registry?"), AiMessage.from("Crie uma rota..."));
+        return Query.from(text, Metadata.from(UserMessage.from(text), "sessao-1", memory));
+    }
+
+    @Test
+    void smallTalkSkipsRetrieval() {
+        assertEquals(RetrievalGate.Reason.SMALL_TALK, gate.decide(Query.from("Olá, bom dia!")));
+        assertEquals(RetrievalGate.Reason.SMALL_TALK, gate.decide(Query.from("valeu, obrigado")));
+        assertEquals(RetrievalGate.Reason.SMALL_TALK, gate.decide(Query.from("thanks a lot")));
+    }
+
+    @Test
+    void shortFollowUpSkipsOnlyWithHistory() {
+        assertEquals(RetrievalGate.Reason.FOLLOW_UP, gate.decide(withHistory("e no namespace prod?")));
+        assertEquals(RetrievalGate.Reason.CORPUS_TERMS, gate.decide(withHistory("e como configuro a rota do image-registry com TLS e quotas?")));
+        // Sem resposta anterior na memória não há contexto para continuar
+        assertEquals(RetrievalGate.Reason.NO_CORPUS_TERMS, gate.decide(Query.from("e no namespace prod?")));
+    }
+
+    @Test
+    void corpusTermsDecideRetrieval() {
+        assertEquals(RetrievalGate.Reason.CORPUS_TERMS, gate.decide(Query.from("Como acessar o registry interno?")));
+        assertEquals(RetrievalGate.Reason.NO_CORPUS_TERMS, gate.decide(Query.from("Qual a capital da França?")));
+    }
+
+    @Test
+    void retrievesWhenTheLexicalIndexIsNotAvailable() {
+        lexicalEnabled = false;
+        assertEquals(RetrievalGate.Reason.NO_LEXICAL_INDEX, gate.decide(Query.from("Qual a capital da França?")));
+        lexicalEnabled = true;
+        index.clear();
+        assertEquals(RetrievalGate.Reason.NO_LEXICAL_INDEX, gate.decide(Query.from("Qual a capital da França?")));
+    }
+
+    @Test
+    void routerSkipsTheRetrieverUnlessDryRun() {
+        ContentRetriever retriever = query -> List.of();
+        assertTrue(gate.router(retriever).route(Query.from("obrigado!")).isEmpty());
+        assertEquals(1, gate.router(retriever).route(Query.from("registry interno")).size());
+        gate.dryRun = true;
+        assertEquals(1, gate.router(retriever).route(Query.from("obrigado!")).size());
+    }
+
+    @Test
+    void statsCountDecisionsByReason() {
+        gate.decide(Query.from("oi"));
+        gate.decide(Query.from("registry interno"));
+        gate.decide(Query.from("capital da França"));
+        RetrievalGate.GateStats stats = gate.stats();
+        assertEquals(3, stats.decisions());
+        assertEquals(1, stats.retrieved());
+        assertEquals(2, stats.skipped());
+        assertEquals(1L, stats.reasons().get("small-talk"));
+        assertEquals(1L, stats.reasons().get("no-corpus-terms"));
+    }
+}
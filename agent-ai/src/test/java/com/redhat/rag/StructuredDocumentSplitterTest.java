@@ -0,0 +1,143 @@
+package com.redhat.rag;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructuredDocumentSplitterTest {
+
+    private static final String GUIDE = """
+            # Instalação
+
+            Requisitos mínimos do cluster para a instalação.
+
+            ## Rede
+
+            Libere as portas 443 e 6443 no firewall.
+
+            ### Proxy
+
+            Configure HTTP_PROXY e NO_PROXY antes de instalar.
+
+            # Uso
+
+            Acesse o console pela rota padrão.
+            """;
+
+    private static List<TextSegment> split(StructuredDocumentSplitter splitter, String fileName, String text) {
+        return splitter.split(Document.from(text, Metadata.from(Document.FILE_NAME, fileName)));
+    }
+
+    private static List<String> paths(List<TextSegment> segments) {
+        return segments.stream().map(segment -> segment.metadata().getString(StructuredDocumentSplitter.HEADING_PATH)).toList();
+    }
+
+    @Test
+    void segmentsCarryTheirHeadingPath() {
+        List<TextSegment> segments = split(new StructuredDocumentSplitter(60, 0, true), "guia.md", GUIDE);
+        assertEquals(List.of("Instalação", "Instalação > Rede", "Instalação > Rede > Proxy", "Uso"), paths(segments));
+        // Com headingContext, o caminho é a primeira linha do texto e o título da seção não se repete
+        assertEquals("Instalação > Rede > Proxy\nConfigure HTTP_PROXY e NO_PROXY antes de instalar.", segments.get(2).text());
+    }
+
+    @Test
+    void withoutHeadingContextTheTextKeepsTheOriginalHeading() {
+        List<TextSegment> segments = split(new StructuredDocumentSplitter(60, 0, false), "guia.md", GUIDE);
+        assertEquals("### Proxy\nConfigure HTTP_PROXY e NO_PROXY antes de instalar.", segments.get(2).text());
+        assertEquals("Instalação > Rede > Proxy", segments.get(2).metadata().getString(StructuredDocumentSplitter.HEADING_PATH));
+    }
+
+    @Test
+    void smallSubsectionsStayWithTheirParent() {
+        List<TextSegment> segments = split(new StructuredDocumentSplitter(1000, 0, false), "guia.md", GUIDE);
+        // Rede e Proxy são subseções de Instalação; Uso começa outro segmento
+        assertEquals(List.of("Instalação", "Uso"), paths(segments));
+        assertTrue(segments.get(0).text().contains("### Proxy"));
+    }
+
+    @Test
+    void fencedCodeIsOneBlockEvenWithHeadingsAndBlankLines() {
+        String markdown = """
+                # Deploy
+
+                ```bash
+                # não é um título
+                oc new-app httpd
+
+                oc expose svc/httpd
+                ```
+                """;
+        List<StructuredDocumentSplitter.Block> blocks = new StructuredDocumentSplitter(500, 0, false).blocks(markdown);
+        assertEquals(2, blocks.size());
+        assertEquals("CODE", blocks.get(1).type().name());
+        assertEquals("```bash\n# não é um título\noc new-app httpd\n\noc expose svc/httpd\n```", blocks.get(1).text());
+        assertEquals(List.of("Deploy"), blocks.get(1).path());
+    }
+
+    @Test
+    void longCodeBlocksAreSplitWithTheFenceRepeated() {
+        StringBuilder code = new StringBuilder("```yaml\n");
+        for (int i = 0; i < 40; i++) {
+            code.append("chave").append(i).append(": valor").append(i).append('\n');
+        }
+        code.append("```\n");
+        List<TextSegment> segments = split(new StructuredDocumentSplitter(100, 0, false), "config.md", code.toString());
+        assertTrue(segments.size() > 1);
+        for (TextSegment segment : segments) {
+            assertTrue(segment.text().startsWith("```yaml\n"), segment.text());
+            assertTrue(segment.text().endsWith("\n```"), segment.text());
+        }
+        assertTrue(segments.stream().anyMatch(segment -> segment.text().contains("chave39: valor39")));
+    }
+
+    @Test
+    void largeTablesAreSplitByRowsRepeatingTheHeader() {
+        StringBuilder table = new StringBuilder("| Nome | Porta |\n|------|-------|\n");
+        for (int i = 0; i < 30; i++) {
+            table.append("| servico-").append(i).append(" | ").append(8000 + i).append(" |\n");
+        }
+        List<TextSegment> segments = split(new StructuredDocumentSplitter(120, 0, false), "portas.md", table.toString());
+        assertTrue(segments.size() > 1);
+        for (TextSegment segment : segments) {
+            assertTrue(segment.text().startsWith("| Nome | Porta |\n|------|-------|\n"), segment.text());
+            assertTrue(segment.text().length() <= 120, segment.text());
+        }
+        assertTrue(segments.get(segments.size() - 1).text().contains("servico-29"));
+    }
+
+    @Test
+    void htmlIsSplitByHeadingsWithTablesAndCode() {
+        String html = """
+                <html><head><title>Guia</title><script>var x = 1;</script></head><body>
+                <h1>Rede</h1>
+                <p>Regras de firewall &amp; portas.</p>
+                <h2>Portas</h2>
+                <table><tr><th>Serviço</th><th>Porta</th></tr><tr><td>API</td><td>6443</td></tr></table>
+                <h2>Teste</h2>
+                <pre>curl -k https://api:6443/healthz</pre>
+                </body></html>
+                """;
+        List<TextSegment> segments = split(new StructuredDocumentSplitter(60, 0, false), "guia.html", html);
+        assertEquals(List.of("Rede", "Rede > Portas", "Rede > Teste"), paths(segments));
+        assertTrue(segments.get(0).text().contains("Regras de firewall & portas."));
+        assertTrue(segments.get(1).text().contains("| API | 6443 |"), segments.get(1).text());
+        assertTrue(segments.get(2).text().contains("curl -k https://api:6443/healthz"));
+        assertFalse(segments.stream().anyMatch(segment -> segment.text().contains("var x")));
+    }
+
+    @Test
+    void otherFormatsUseTheRecursiveSplitter() {
+        List<TextSegment> segments = split(new StructuredDocumentSplitter(60, 0, true), "notas.txt", GUIDE);
+        assertTrue(segments.size() > 1);
+        assertNull(segments.get(0).metadata().getString(StructuredDocumentSplitter.HEADING_PATH));
+    }
+}
@@ -0,0 +1,66 @@
+package com.redhat.rag;
+
+import java.util.List;
+import java.util.Map;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.query.Query;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Busca vetorial pelos beans injetados (client proxies), com o modelo local e o
+ * índice HNSW: não depende de chave da OpenAI, só do Redis das dev services
+ */
+@QuarkusTest
+@TestProfile(VectorRetrievalQuarkusTest.LocalEmbeddings.class)
+class VectorRetrievalQuarkusTest {
+
+    public static class LocalEmbeddings implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "openai.key", "test",
+                    "rag.embedding.provider", RagEmbeddingModel.LOCAL,
+                    "rag.store.type", RagStore.HNSW,
+                    "rag.store.hnsw.dir", "target/hnsw-test");
+        }
+    }
+
+    @Inject
+    VectorContentRetriever retriever;
+
+    @Inject
+    DocumentIngestionService ingestion;
+
+    @Inject
+    RagStore ragStore;
+
+    @Inject
+    RagEmbeddingModel embeddingModel;
+
+    @Test
+    void retrievesThroughTheInjectedBeans() {
+        // Versão nova e vazia do índice, registrada com o modelo local
+        ingestion.clear();
+        assertTrue(embeddingModel.indexCompatible());
+        assertEquals(List.of(), retriever.retrieve(Query.from("como liberar o registry interno?")));
+
+        String text = "Para liberar acesso ao registry interno, crie uma rota para o image-registry.";
+        ragStore.store().add(embeddingModel.embed(text).content(), TextSegment.from(text));
+
+        List<Content> contents = retriever.retrieve(Query.from(text));
+        assertEquals(1, contents.size());
+        assertEquals(text, contents.get(0).textSegment().text());
+        assertEquals(1, retriever.withMaxResults(15).retrieve(Query.from(text)).size());
+    }
+}
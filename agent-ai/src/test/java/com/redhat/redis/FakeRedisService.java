@@ -0,0 +1,69 @@
+package com.redhat.redis;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.quarkus.redis.datasource.RedisDataSource;
+
+/**
+ * RedisService em memória para testes unitários: só os comandos de valor
+ * (GET/SET/MGET/MSET com expiração), guardando o TTL gravado para conferência
+ */
+public class FakeRedisService extends RedisService {
+
+    public final Map<String, String> values = new ConcurrentHashMap<>();
+    public final Map<String, Long> ttls = new ConcurrentHashMap<>();
+    public final AtomicInteger reads = new AtomicInteger();
+
+    public FakeRedisService() {
+        super((RedisDataSource) Proxy.newProxyInstance(RedisDataSource.class.getClassLoader(),
+                new Class<?>[] { RedisDataSource.class }, (proxy, method, args) -> null));
+    }
+
+    @Override
+    public String getValue(String key) {
+        reads.incrementAndGet();
+        return values.get(key);
+    }
+
+    @Override
+    public void setValue(String key, String value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void setValueWithExpiration(String key, String value, long seconds) {
+        values.put(key, value);
+        ttls.put(key, seconds);
+    }
+
+    @Override
+    public Map<String, String> getValues(List<String> keys) {
+        reads.incrementAndGet();
+        Map<String, String> found = new LinkedHashMap<>();
+        for (String key : keys) {
+            found.put(key, values.get(key));
+        }
+        return found;
+    }
+
+    @Override
+    public void setValues(Map<String, String> entries, long seconds) {
+        entries.forEach((key, value) -> setValueWithExpiration(key, value, seconds));
+    }
+
+    @Override
+    public void deleteKey(String key) {
+        values.remove(key);
+        ttls.remove(key);
+    }
+
+    @Override
+    public boolean keyExists(String key) {
+        return values.containsKey(key);
+    }
+}